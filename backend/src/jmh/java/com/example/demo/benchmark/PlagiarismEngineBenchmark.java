@@ -0,0 +1,213 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.PlagiarismAnalysisResponse;
+import com.example.demo.dto.PlagiarismCheckRequest;
+import com.example.demo.service.plagiarism.FileFingerprint;
+import com.example.demo.service.plagiarism.PlagiarismEngine;
+import com.example.demo.service.plagiarism.ProcessedSubmission;
+import com.example.demo.service.plagiarism.ShingleEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Copy checker engine benchmarks on synthetic corpora (see {@link SyntheticCorpus}).
+ *
+ * Per-file operations (normalization, shingling, pair scoring) run on small, medium and large
+ * programs. Whole analyses run at 50, 200 and 1000 submissions for both similarity algorithms,
+ * starting from fingerprinted submissions as a cached re-run would. Reading and fingerprinting a
+ * full corpus from disk (source files, ZIP archives, binaries) is measured separately.
+ *
+ * The engine is constructed directly with the application's default extraction budgets, so no
+ * Spring context or database is involved.
+ */
+public class PlagiarismEngineBenchmark {
+
+    private static final long SEED = 42L;
+
+    @State(Scope.Benchmark)
+    public static class FileState {
+
+        // Methods per generated program: roughly 3 KB, 12 KB and 50 KB of source
+        @Param({"10", "40", "160"})
+        public int methods;
+
+        public ForkJoinPool scoringPool;
+        public PlagiarismEngine engine;
+        public String rawCode;
+        public String normalizedCode;
+        public FileFingerprint original;
+        public FileFingerprint disguisedCopy;
+        public FileFingerprint unrelated;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            scoringPool = new ForkJoinPool(1);
+            engine = newEngine(scoringPool);
+            SyntheticCorpus corpus = new SyntheticCorpus(SEED);
+            List<String> base = corpus.program(methods);
+
+            rawCode = "// FILE: Main.java\n" + corpus.render("Main", base);
+            normalizedCode = engine.normalizeCode(rawCode);
+            original = engine.fingerprint(rawCode, "Main.java");
+            disguisedCopy = engine.fingerprint("// FILE: Main.java\n" + corpus.render("Main", corpus.mutate(base, 0.3)), "Main.java");
+            unrelated = engine.fingerprint("// FILE: Main.java\n" + corpus.render("Main", corpus.program(methods)), "Main.java");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            scoringPool.shutdownNow();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CorpusState {
+
+        @Param({"50", "200", "1000"})
+        public int submissions;
+
+        @Param({"shingles", "winnowing"})
+        public String algorithm;
+
+        public ForkJoinPool scoringPool;
+        public PlagiarismEngine engine;
+        public List<ProcessedSubmission> processed;
+        public PlagiarismCheckRequest.Settings settings;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            scoringPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+            engine = newEngine(scoringPool);
+            processed = fingerprintCorpus(engine, new SyntheticCorpus(SEED).submissions(submissions, 0.2, 20));
+            settings = new PlagiarismCheckRequest.Settings();
+            settings.setAlgorithm(algorithm);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            scoringPool.shutdownNow();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class IngestState {
+
+        @Param({"50", "200"})
+        public int submissions;
+
+        public ForkJoinPool scoringPool;
+        public PlagiarismEngine engine;
+        public List<SyntheticCorpus.Submission> corpus;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            scoringPool = new ForkJoinPool(1);
+            engine = newEngine(scoringPool);
+            corpus = new SyntheticCorpus(SEED).submissions(submissions, 0.2, 20);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            scoringPool.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String normalizeCode(FileState state) {
+        return state.engine.normalizeCode(state.rawCode);
+    }
+
+    // Replacement of the former createShingles: hashed shingles of normalized text
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long[] shingleHashes(FileState state) {
+        return ShingleEngine.shingleHashes(state.normalizedCode, 10);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void calculateSimilarity(FileState state, Blackhole blackhole) {
+        blackhole.consume(state.engine.calculateSimilarity(state.original, state.disguisedCopy));
+        blackhole.consume(state.engine.calculateSimilarity(state.original, state.unrelated));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public FileFingerprint fingerprint(FileState state) {
+        return state.engine.fingerprint(state.rawCode, "Main.java");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public List<PlagiarismAnalysisResponse.SimilarityPair> performSimilarityAnalysis(CorpusState state) {
+        return state.engine.performSimilarityAnalysis(state.processed, state.settings,
+            new PlagiarismAnalysisResponse.AnalysisMetadata(), new PlagiarismAnalysisResponse.Progress(), () -> { });
+    }
+
+    // Uncached first run: read every upload from disk and fingerprint it
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public List<ProcessedSubmission> readAndFingerprint(IngestState state) throws IOException {
+        return fingerprintCorpus(state.engine, state.corpus);
+    }
+
+    private static PlagiarismEngine newEngine(ForkJoinPool scoringPool) {
+        return new PlagiarismEngine(scoringPool, 1024L * 1024, 8L * 1024 * 1024, 2000, 100);
+    }
+
+    private static List<ProcessedSubmission> fingerprintCorpus(PlagiarismEngine engine, List<SyntheticCorpus.Submission> corpus)
+            throws IOException {
+        Path directory = Files.createTempDirectory("plagiarism-bench");
+        try {
+            List<ProcessedSubmission> processed = new ArrayList<>(corpus.size());
+            for (SyntheticCorpus.Submission submission : corpus) {
+                List<FileFingerprint> fingerprints = new ArrayList<>();
+                for (SyntheticCorpus.GeneratedFile file : submission.files()) {
+                    Path path = write(directory, file.name(), file.content());
+                    String content = engine.readFileContent(path, file.name());
+                    if (content != null) {
+                        fingerprints.add(engine.fingerprint(content, file.name()));
+                    }
+                }
+                ProcessedSubmission processedSubmission = new ProcessedSubmission();
+                processedSubmission.setSubmissionId((long) submission.id());
+                processedSubmission.setStudentId((long) submission.id());
+                processedSubmission.setStudentName("Student " + submission.id());
+                processedSubmission.setCodeFingerprints(fingerprints);
+                processed.add(processedSubmission);
+            }
+            return processed;
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    // Write a generated file to disk so it goes through the same reading path as an upload
+    private static Path write(Path directory, String name, byte[] content) throws IOException {
+        Path path = Files.createTempFile(directory, "bench-", "-" + name.replace('/', '_'));
+        Files.write(path, content);
+        return path;
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.demo.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Deterministic generator of synthetic student submissions for the copy checker benchmarks.
+ *
+ * Programs are Java-like classes built from randomly generated methods. A share of the
+ * submissions are mutated copies of a few base programs (renamed identifiers, added comments,
+ * reformatting, reordered and inserted statements); the rest are independent programs.
+ * Submissions come as single source files, ZIP archives of several files, or binary blobs.
+ */
+public final class SyntheticCorpus {
+
+    private static final String[] NAMES = {
+        "count", "total", "index", "value", "result", "data", "items", "left", "right", "mid", "sum", "max",
+        "min", "temp", "node", "size", "limit", "step", "buffer", "score", "current", "next", "prev", "key"
+    };
+
+    private static final Pattern IDENTIFIER = Pattern.compile("\\b(" + String.join("|", NAMES) + ")\\b");
+
+    private final Random random;
+
+    public SyntheticCorpus(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * A generated file of one submission.
+     */
+    public record GeneratedFile(String name, byte[] content) {
+    }
+
+    /**
+     * A generated submission: its files and the base program it was derived from (-1 if original).
+     */
+    public record Submission(int id, int derivedFrom, List<GeneratedFile> files) {
+    }
+
+    /**
+     * Generate {@code count} submissions. {@code plagiarizedShare} of them are mutated copies of
+     * one of a handful of base programs; {@code methods} controls program size.
+     */
+    public List<Submission> submissions(int count, double plagiarizedShare, int methods) {
+        int bases = Math.max(1, count / 25);
+        List<List<String>> basePrograms = new ArrayList<>();
+        for (int b = 0; b < bases; b++) {
+            basePrograms.add(program(methods));
+        }
+
+        List<Submission> submissions = new ArrayList<>(count);
+        for (int id = 0; id < count; id++) {
+            int derivedFrom = -1;
+            List<String> program;
+            if (random.nextDouble() < plagiarizedShare) {
+                derivedFrom = random.nextInt(bases);
+                program = mutate(basePrograms.get(derivedFrom), 0.3);
+            } else {
+                program = program(methods);
+            }
+
+            double kind = random.nextDouble();
+            List<GeneratedFile> files;
+            if (kind < 0.6) {
+                files = List.of(new GeneratedFile("Main.java", text(render("Main", program))));
+            } else if (kind < 0.9) {
+                files = List.of(new GeneratedFile("submission.zip", zip(split(program))));
+            } else {
+                files = List.of(new GeneratedFile("report.pdf", binary(32 * 1024 + random.nextInt(64 * 1024))));
+            }
+            submissions.add(new Submission(id, derivedFrom, files));
+        }
+        return submissions;
+    }
+
+    /**
+     * A program of the given number of methods, as a list of method sources.
+     */
+    public List<String> program(int methods) {
+        List<String> result = new ArrayList<>(methods);
+        for (int m = 0; m < methods; m++) {
+            result.add(method("method" + m));
+        }
+        return result;
+    }
+
+    /**
+     * Copy a program with typical disguises applied; {@code intensity} is the per-method probability
+     * of each mutation.
+     */
+    public List<String> mutate(List<String> program, double intensity) {
+        Map<String, String> renames = new HashMap<>();
+        for (String name : NAMES) {
+            if (random.nextDouble() < intensity) {
+                renames.put(name, name + "_" + random.nextInt(100));
+            }
+        }
+
+        List<String> result = new ArrayList<>();
+        for (String method : program) {
+            Matcher matcher = IDENTIFIER.matcher(method);
+            String mutated = matcher.replaceAll(match -> renames.getOrDefault(match.group(1), match.group(1)));
+            if (random.nextDouble() < intensity) {
+                mutated = mutated.replace("    ", "\t");
+            }
+            if (random.nextDouble() < intensity) {
+                mutated = mutated.replaceFirst("\\{\\n", "{\n        // " + comment() + "\n");
+            }
+            if (random.nextDouble() < intensity) {
+                mutated = mutated.replaceFirst("\\n    }\\s*$", "\n        " + statement() + "\n    }\n");
+            }
+            result.add(mutated);
+        }
+        if (random.nextDouble() < intensity) {
+            Collections.shuffle(result, random);
+        }
+        return result;
+    }
+
+    public String render(String className, List<String> methods) {
+        StringBuilder source = new StringBuilder();
+        source.append("import java.util.*;\n\n");
+        source.append("public class ").append(className).append(" {\n\n");
+        for (String method : methods) {
+            source.append(method).append('\n');
+        }
+        source.append("}\n");
+        return source.toString();
+    }
+
+    public byte[] zip(Map<String, String> files) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                zip.putNextEntry(new ZipEntry(file.getKey()));
+                zip.write(text(file.getValue()));
+                zip.closeEntry();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public byte[] binary(int size) {
+        byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    // Spread a program over 2-4 source files of an archive
+    private Map<String, String> split(List<String> program) {
+        int parts = Math.min(program.size(), 2 + random.nextInt(3));
+        Map<String, String> files = new LinkedHashMap<>();
+        for (int p = 0; p < parts; p++) {
+            List<String> slice = program.subList(p * program.size() / parts, (p + 1) * program.size() / parts);
+            String className = "Part" + p;
+            files.put("src/" + className + ".java", render(className, slice));
+        }
+        return files;
+    }
+
+    private String method(String name) {
+        StringBuilder method = new StringBuilder();
+        method.append("    public static int ").append(name).append("(int[] ").append(pick()).append(") {\n");
+        int statements = 4 + random.nextInt(10);
+        for (int s = 0; s < statements; s++) {
+            method.append("        ").append(statement()).append('\n');
+        }
+        method.append("        return ").append(pick()).append(";\n");
+        method.append("    }\n");
+        return method.toString();
+    }
+
+    private String statement() {
+        String a = pick();
+        String b = pick();
+        return switch (random.nextInt(6)) {
+            case 0 -> "int " + a + " = " + random.nextInt(100) + ";";
+            case 1 -> a + " = " + a + " + " + b + " * " + (1 + random.nextInt(9)) + ";";
+            case 2 -> "for (int i = 0; i < " + b + "; i++) { " + a + " += i; }";
+            case 3 -> "if (" + a + " > " + b + ") { " + a + " = " + b + "; } else { " + b + "++; }";
+            case 4 -> "while (" + a + " < " + random.nextInt(1000) + ") { " + a + " *= 2; }";
+            default -> "System.out.println(\"" + a + " = \" + " + a + ");";
+        };
+    }
+
+    private String comment() {
+        return "step " + random.nextInt(50) + ": update " + pick();
+    }
+
+    private String pick() {
+        return NAMES[random.nextInt(NAMES.length)];
+    }
+
+    private static byte[] text(String source) {
+        return source.getBytes(StandardCharsets.UTF_8);
+    }
+}
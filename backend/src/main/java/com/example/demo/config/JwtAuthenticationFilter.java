@@ -1,5 +1,6 @@
 package com.example.demo.config;
 
+import com.example.demo.service.StreamTicketService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
 import lombok.RequiredArgsConstructor;
@@ -22,7 +23,10 @@ import java.util.List;
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String STREAM_PATH = "/api/notifications/stream";
+
     private final JwtUtil jwtUtil;
+    private final StreamTicketService streamTicketService;
 
     @Override
     protected void doFilterInternal(
@@ -32,8 +36,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
 
         String header = request.getHeader("Authorization");
+        String token = null;
         if (StringUtils.hasText(header) && header.startsWith("Bearer ")) {
-            String token = header.substring(7);
+            token = header.substring(7);
+        } else if (STREAM_PATH.equals(request.getRequestURI())) {
+            // EventSource cannot set headers; the notification stream accepts a single-use ticket instead
+            String ticket = request.getParameter("ticket");
+            StreamTicketService.Ticket redeemed = StringUtils.hasText(ticket) ? streamTicketService.redeem(ticket) : null;
+            if (redeemed != null) {
+                UsernamePasswordAuthenticationToken auth =
+                    new UsernamePasswordAuthenticationToken(redeemed.email(), null, redeemed.authorities());
+                auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(auth);
+            }
+        }
+        if (StringUtils.hasText(token)) {
             try {
                 Jws<Claims> claimsJws = jwtUtil.validateToken(token);
                 Claims claims = claimsJws.getBody();
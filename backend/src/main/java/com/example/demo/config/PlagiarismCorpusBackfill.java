@@ -0,0 +1,49 @@
+package com.example.demo.config;
+
+import com.example.demo.service.PlagiarismService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-off fill of the copy checker corpus with submissions made before they were indexed at
+ * submit time. Enable for a single start after upgrading; it runs on the copy checker executor
+ * so startup is not held up.
+ */
+@Component
+@Slf4j
+public class PlagiarismCorpusBackfill implements CommandLineRunner {
+
+    private final PlagiarismService plagiarismService;
+    private final ThreadPoolTaskExecutor plagiarismExecutor;
+
+    @Value("${app.plagiarism.corpus.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    @Value("${app.plagiarism.corpus.backfill-page-size:200}")
+    private int pageSize;
+
+    public PlagiarismCorpusBackfill(PlagiarismService plagiarismService,
+                                    @Qualifier("plagiarismExecutor") ThreadPoolTaskExecutor plagiarismExecutor) {
+        this.plagiarismService = plagiarismService;
+        this.plagiarismExecutor = plagiarismExecutor;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!backfillOnStartup) {
+            return;
+        }
+        plagiarismExecutor.execute(() -> {
+            try {
+                int added = plagiarismService.backfillCorpus(pageSize);
+                log.info("Plagiarism corpus backfill finished: {} submissions added", added);
+            } catch (Exception e) {
+                log.error("Plagiarism corpus backfill failed: {}", e.getMessage(), e);
+            }
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Thread pools for the copy checker.
+ *
+ * Whole analyses run on a small bounded executor so a burst of requests queues (and is
+ * eventually rejected) instead of tying up HTTP threads. Pairwise scoring inside an
+ * analysis is split across cores on a shared fork/join pool.
+ */
+@Configuration
+public class PlagiarismExecutorConfig {
+
+    @Value("${app.plagiarism.executor.pool-size:2}")
+    private int poolSize;
+
+    @Value("${app.plagiarism.executor.queue-capacity:10}")
+    private int queueCapacity;
+
+    @Value("${app.plagiarism.scoring-parallelism:0}")
+    private int scoringParallelism;
+
+    @Bean(name = "plagiarismExecutor")
+    public ThreadPoolTaskExecutor plagiarismExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("plagiarism-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "plagiarismScoringPool", destroyMethod = "shutdownNow")
+    public ForkJoinPool plagiarismScoringPool() {
+        int parallelism = scoringParallelism > 0 ? scoringParallelism : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(parallelism);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -34,6 +35,9 @@ public class SecurityConfig {
             // 4. Authorize requests by roles
             .authorizeHttpRequests(auth -> auth
 
+                // Async re-dispatches of streaming responses were authorized on the original request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                 // 4.1 Public endpoints
                 .requestMatchers("/api/auth/**", "/api/test").permitAll()
                 .requestMatchers("/api/files/download/**").permitAll()
@@ -3,11 +3,15 @@ package com.example.demo.controller;
 import com.example.demo.dto.MessageCreateRequest;
 import com.example.demo.dto.MessageResponse;
 import com.example.demo.dto.ConversationResponse;
+import com.example.demo.dto.UserDirectoryResponse;
 import com.example.demo.model.User;
 import com.example.demo.service.MessageService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -73,10 +77,11 @@ public class MessageController {
     @GetMapping("/conversation/{otherUserId}")
     public ResponseEntity<List<MessageResponse>> getConversation(@PathVariable Long otherUserId,
                                                                @RequestParam Long userId,
-                                                               @RequestParam(defaultValue = "0") int page,
-                                                               @RequestParam(defaultValue = "20") int size) {
+                                                               @RequestParam(required = false) Long beforeId,
+                                                               @RequestParam(required = false) Long afterId,
+                                                               @RequestParam(defaultValue = "50") int size) {
         try {
-            List<MessageResponse> messages = messageService.getConversation(userId, otherUserId, page, size);
+            List<MessageResponse> messages = messageService.getConversation(userId, otherUserId, beforeId, afterId, size);
             return ResponseEntity.ok(messages);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(null);
@@ -95,21 +100,21 @@ public class MessageController {
     }
 
     @PutMapping("/mark-read")
-    public ResponseEntity<Void> markMessagesAsRead(@RequestParam Long userId,
+    public ResponseEntity<Map<String, Integer>> markMessagesAsRead(@RequestParam Long userId,
                                                  @RequestParam Long senderId) {
         try {
-            messageService.markConversationAsRead(userId, senderId);
-            return ResponseEntity.ok().build();
+            int updated = messageService.markConversationAsRead(userId, senderId);
+            return ResponseEntity.ok(Map.of("count", updated));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @PutMapping("/mark-all-seen")
-    public ResponseEntity<Void> markAllMessagesAsSeen(@RequestParam Long userId) {
+    public ResponseEntity<Map<String, Integer>> markAllMessagesAsSeen(@RequestParam Long userId) {
         try {
-            messageService.markAllMessagesAsSeen(userId);
-            return ResponseEntity.ok().build();
+            int updated = messageService.markAllMessagesAsSeen(userId);
+            return ResponseEntity.ok(Map.of("count", updated));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -135,6 +140,18 @@ public class MessageController {
         }
     }
 
+    @GetMapping("/users/directory")
+    public ResponseEntity<UserDirectoryResponse> getUserDirectory(@RequestParam Long userId,
+                                                                  @RequestParam(required = false) String q,
+                                                                  @RequestParam(defaultValue = "0") int offset,
+                                                                  @RequestParam(defaultValue = "50") int size) {
+        try {
+            return ResponseEntity.ok(messageService.getUserDirectory(userId, q, offset, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
     @DeleteMapping("/{messageId}")
     public ResponseEntity<Void> deleteMessage(@PathVariable Long messageId,
                                              @RequestParam Long userId) {
@@ -193,12 +210,33 @@ public class MessageController {
         }
     }
 
+    // Conditional variant for polling: unchanged reaction sets are answered with 304 without a query
+    @GetMapping("/reactions/bulk")
+    public ResponseEntity<Map<Long, List<Map<String, Object>>>> getBulkMessageReactions(
+            @RequestParam List<Long> messageIds, WebRequest webRequest) {
+        try {
+            String eTag = messageService.getReactionsETag(messageIds);
+            if (webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            Map<Long, List<Map<String, Object>>> reactions = messageService.getBulkMessageReactions(messageIds);
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(reactions);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
     @PostMapping("/reactions/bulk")
     public ResponseEntity<Map<Long, List<Map<String, Object>>>> getBulkMessageReactions(
             @RequestBody Map<String, Object> request) {
         try {
-            @SuppressWarnings("unchecked")
-            List<Long> messageIds = (List<Long>) request.get("messageIds");
+            // JSON numbers arrive as Integer or Long depending on size
+            List<Long> messageIds = ((List<?>) request.get("messageIds")).stream()
+                    .map(id -> ((Number) id).longValue())
+                    .toList();
             Map<Long, List<Map<String, Object>>> reactions = messageService.getBulkMessageReactions(messageIds);
             return ResponseEntity.ok(reactions);
         } catch (Exception e) {
@@ -209,10 +247,11 @@ public class MessageController {
     @GetMapping("/conversation/{otherUserId}/quiet")
     public ResponseEntity<List<MessageResponse>> getConversationQuiet(@PathVariable Long otherUserId,
                                                                      @RequestParam Long userId,
-                                                                     @RequestParam(defaultValue = "0") int page,
-                                                                     @RequestParam(defaultValue = "20") int size) {
+                                                                     @RequestParam(required = false) Long beforeId,
+                                                                     @RequestParam(required = false) Long afterId,
+                                                                     @RequestParam(defaultValue = "50") int size) {
         try {
-            List<MessageResponse> messages = messageService.getConversationQuiet(userId, otherUserId, page, size);
+            List<MessageResponse> messages = messageService.getConversationQuiet(userId, otherUserId, beforeId, afterId, size);
             return ResponseEntity.ok(messages);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(null);
@@ -1,11 +1,21 @@
 package com.example.demo.controller;
 
+import com.example.demo.model.NotificationFeedResponse;
 import com.example.demo.model.NotificationResponse;
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.NotificationPushService;
 import com.example.demo.service.NotificationService;
+import com.example.demo.service.StreamTicketService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -17,6 +27,42 @@ import java.util.Map;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationPushService notificationPushService;
+    private final StreamTicketService streamTicketService;
+    private final UserRepository userRepository;
+
+    /**
+     * Exchange the caller's bearer token for a short-lived, single-use stream ticket
+     * POST /api/notifications/stream/ticket
+     */
+    @PostMapping("/stream/ticket")
+    public ResponseEntity<Map<String, String>> createStreamTicket(Authentication authentication) {
+        return ResponseEntity.ok(Map.of("ticket",
+            streamTicketService.issue(authentication.getName(), authentication.getAuthorities())));
+    }
+
+    /**
+     * Server-sent event stream of new notifications, messages and unread counts for the
+     * authenticated user. EventSource cannot send headers, so the stream is opened with a
+     * ticket from {@code POST /stream/ticket} as the {@code ticket} query parameter.
+     * GET /api/notifications/stream
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@AuthenticationPrincipal String email) {
+        User user = userRepository.findByEmail(email).orElse(null);
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            // Tell nginx (or any X-Accel aware proxy) not to buffer the event stream
+            return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(notificationPushService.subscribe(user.getId()));
+        } catch (RuntimeException e) {
+            log.warn("Rejected notification stream for user {}: {}", user.getId(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
 
     /**
      * Get all notifications for the current user
@@ -33,6 +79,23 @@ public class NotificationController {
         }
     }
 
+    /**
+     * Get one page of notifications for the current user, newest first
+     * GET /api/notifications/feed?userId=1&size=20&cursor=...
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<NotificationFeedResponse> getNotificationFeed(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(notificationService.getNotificationFeed(userId, cursor, size));
+        } catch (RuntimeException e) {
+            log.error("Error fetching notification feed for user {}: {}", userId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Get unread notifications for the current user
      * GET /api/notifications/unread
@@ -88,10 +151,10 @@ public class NotificationController {
      * PUT /api/notifications/read-all
      */
     @PutMapping("/read-all")
-    public ResponseEntity<Map<String, String>> markAllAsRead(@RequestParam Long userId) {
+    public ResponseEntity<Map<String, Object>> markAllAsRead(@RequestParam Long userId) {
         try {
-            notificationService.markAllAsRead(userId);
-            return ResponseEntity.ok(Map.of("message", "All notifications marked as read"));
+            int updated = notificationService.markAllAsRead(userId);
+            return ResponseEntity.ok(Map.of("message", "All notifications marked as read", "count", updated));
         } catch (RuntimeException e) {
             log.error("Error marking all notifications as read for user {}: {}", userId, e.getMessage());
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
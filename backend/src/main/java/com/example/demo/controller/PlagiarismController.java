@@ -66,6 +66,21 @@ public class PlagiarismController {
         }
     }
 
+    /**
+     * Get the highlighted code diff for one similarity pair
+     * GET /api/plagiarism/results/{analysisId}/pairs/{pairId}/diff?teacherId={teacherId}
+     */
+    @GetMapping("/results/{analysisId}/pairs/{pairId}/diff")
+    public ResponseEntity<?> getPairDiff(@PathVariable String analysisId, @PathVariable int pairId,
+                                         @RequestParam Long teacherId) {
+        try {
+            return ResponseEntity.ok(plagiarismService.getPairDiff(analysisId, pairId, teacherId));
+        } catch (RuntimeException e) {
+            log.error("Error rendering pair diff: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Cancel plagiarism analysis
      * DELETE /api/plagiarism/cancel/{analysisId}
@@ -2,18 +2,24 @@ package com.example.demo.dto;
 
 import lombok.Data;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Data
 public class PlagiarismAnalysisResponse {
-    private String status; // "processing", "completed", "failed"
-    private Progress progress;
-    private PlagiarismResults results;
+    private volatile String status; // "processing", "completed", "failed", "cancelled"
+    private volatile Progress progress;
+    private volatile PlagiarismResults results;
 
+    // Updated concurrently by scoring workers while clients poll the status endpoint
     @Data
     public static class Progress {
-        private int current;
-        private int total;
-        private String stage;
+        private final AtomicInteger current = new AtomicInteger();
+        private volatile int total;
+        private volatile String stage;
+
+        public int getCurrent() { return current.get(); }
+        public void setCurrent(int current) { this.current.set(current); }
+        public int incrementCurrent() { return current.incrementAndGet(); }
     }
 
     @Data
@@ -24,6 +30,7 @@ public class PlagiarismAnalysisResponse {
 
     @Data
     public static class SimilarityPair {
+        private int pairId; // Index in the result list, used to request the diff
         private String student1Name;
         private String student2Name;
         private Long student1Id;
@@ -33,8 +40,10 @@ public class PlagiarismAnalysisResponse {
         private String filesCompared;
         private String detectionMethod;
         private Double aiConfidence;
-        private String code1;
+        private String code1; // Highlighted diff HTML, rendered on request
         private String code2;
+        private String file1Hash; // Content hashes of the best-matching files
+        private String file2Hash;
         private List<String> matchedSegments;
     }
 
@@ -45,5 +54,7 @@ public class PlagiarismAnalysisResponse {
         private int comparisons;
         private String algorithm;
         private boolean aiUsed;
+        private int exactComparisons; // submission pairs sent to the exact scorer
+        private int prunedComparisons; // submission pairs skipped by the candidate index
     }
 }
@@ -14,5 +14,12 @@ public class PlagiarismCheckRequest {
         private boolean useAI = false;
         private List<String> fileFilters = List.of("cpp", "c", "h", "java", "py", "js", "ts", "kt", "sh", "txt");
         private boolean fastSimilarityOnly = true;
+        // MinHash/LSH pre-filter: only pairs whose estimated Jaccard reaches this value are scored exactly
+        private boolean candidateIndexEnabled = true;
+        private double candidateThreshold = 0.3;
+        // "shingles" (character shingles + line overlap) or "winnowing" (token k-gram fingerprints, MOSS style)
+        private String algorithm = "shingles";
+        // Also search past submissions: "none", "course" (other assignments) or "courseCode" (all offerings)
+        private String historicalScope = "none";
     }
 }
@@ -7,7 +7,10 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+    @Index(name = "idx_messages_sender_recipient_id", columnList = "sender_id, recipient_id, id"),
+    @Index(name = "idx_messages_recipient_sender_id", columnList = "recipient_id, sender_id, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -9,7 +9,9 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "message_reactions")
+@Table(name = "message_reactions", indexes = {
+    @Index(name = "idx_message_reactions_message_id", columnList = "message_id")
+})
 @Data
 @Builder
 @NoArgsConstructor
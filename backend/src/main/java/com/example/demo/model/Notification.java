@@ -7,7 +7,12 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+    @Index(name = "idx_notifications_recipient_created", columnList = "recipient_id, created_at, id"),
+    @Index(name = "idx_notifications_read_at", columnList = "is_read, read_at"),
+    @Index(name = "idx_notifications_coalesce", columnList = "recipient_id, related_thread_id, type"),
+    @Index(name = "uk_notifications_dedup_key", columnList = "dedup_key", unique = true)
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -54,6 +59,16 @@ public class Notification {
     @Column(name = "related_thread_id")
     private Long relatedThreadId; // Optional: Discussion thread ID
 
+    @Column(name = "dedup_key")
+    private String dedupKey; // Optional: identity of notifications that must be sent only once
+
+    @Column(name = "aggregate_count")
+    @Builder.Default
+    private Integer aggregateCount = 1; // Number of events merged into this notification (see coalescing)
+
+    @Column(name = "aggregate_actor_ids", columnDefinition = "TEXT")
+    private String aggregateActorIds; // Comma-separated distinct actors merged so far; null until the first merge
+
     @Column(name = "is_read", nullable = false)
     @Builder.Default
     private Boolean isRead = false;
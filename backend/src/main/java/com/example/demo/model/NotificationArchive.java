@@ -0,0 +1,67 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read notification moved out of the hot notifications table by the retention job.
+ * Related entities are kept as plain ids without foreign keys, so archived rows stay cheap
+ * to write and do not block deleting users, courses or assignments.
+ */
+@Entity
+@Table(name = "notification_archive", indexes = {
+    @Index(name = "idx_notification_archive_recipient_created", columnList = "recipient_id, created_at"),
+    @Index(name = "idx_notification_archive_course", columnList = "course_id"),
+    @Index(name = "idx_notification_archive_archived_at", columnList = "archived_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationArchive {
+
+    @Id
+    private Long id; // Id of the original notification
+
+    @Column(name = "recipient_id", nullable = false)
+    private Long recipientId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private Notification.NotificationType type;
+
+    @Column(name = "title", nullable = false)
+    private String title;
+
+    @Column(name = "message", nullable = false, columnDefinition = "TEXT")
+    private String message;
+
+    @Column(name = "redirect_url")
+    private String redirectUrl;
+
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Column(name = "assignment_id")
+    private Long assignmentId;
+
+    @Column(name = "resource_id")
+    private Long resourceId;
+
+    @Column(name = "related_user_id")
+    private Long relatedUserId;
+
+    @Column(name = "related_thread_id")
+    private Long relatedThreadId;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "read_at")
+    private LocalDateTime readAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,22 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a user's notification feed. Pass {@code nextCursor} back to get the next page;
+ * it is null on the last page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationFeedResponse {
+    private List<NotificationResponse> notifications;
+    private String nextCursor;
+    private Boolean hasMore;
+}
@@ -0,0 +1,81 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Course-wide notification event written in the same transaction as the teacher action that
+ * caused it, and expanded into per-student notifications later by the outbox dispatcher.
+ */
+@Entity
+@Table(name = "notification_outbox", indexes = {
+    @Index(name = "idx_notification_outbox_due", columnList = "status, next_attempt_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 40)
+    private EventType eventType;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "actor_id")
+    private Long actorId; // Teacher who triggered the event
+
+    @Column(name = "assignment_id")
+    private Long assignmentId;
+
+    @Column(name = "resource_id")
+    private Long resourceId;
+
+    @Column(name = "thread_id")
+    private Long threadId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private Status status = Status.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    public enum EventType {
+        NEW_ASSIGNMENT,
+        ASSIGNMENT_UPDATED,
+        NEW_RESOURCE,
+        RESOURCE_UPDATED,
+        NEW_DISCUSSION_THREAD
+    }
+
+    public enum Status {
+        PENDING,    // Waiting for (another) delivery attempt
+        DELIVERED,  // Expanded into notifications
+        FAILED      // Gave up after the maximum number of attempts
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Finished copy-checker analysis, stored as gzip-compressed JSON so results survive
+ * restarts and can be evicted from memory.
+ */
+@Entity
+@Table(name = "plagiarism_analysis_results")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PlagiarismAnalysisResult {
+
+    @Id
+    @Column(name = "analysis_id", length = 36)
+    private String analysisId;
+
+    @Column(name = "assignment_id")
+    private Long assignmentId;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "bytea")
+    private byte[] payload; // gzip(JSON of PlagiarismAnalysisResponse)
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+}
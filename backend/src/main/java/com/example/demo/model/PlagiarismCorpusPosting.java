@@ -0,0 +1,44 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One entry of the historical copy-checker index: a winnowed fingerprint hash occurring in a
+ * past submission. Looked up by (course code, fingerprint) or (course, fingerprint), so
+ * checking a new submission never rescans old files.
+ */
+@Entity
+@Table(name = "plagiarism_corpus_postings", indexes = {
+    @Index(name = "idx_corpus_code_fingerprint", columnList = "course_code, fingerprint"),
+    @Index(name = "idx_corpus_course_fingerprint", columnList = "course_id, fingerprint"),
+    @Index(name = "idx_corpus_submission", columnList = "submission_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PlagiarismCorpusPosting {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "fingerprint", nullable = false)
+    private Long fingerprint; // Winnowed token k-gram hash
+
+    @Column(name = "course_code", nullable = false, length = 50)
+    private String courseCode; // Normalized (trimmed, upper case)
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "assignment_id", nullable = false)
+    private Long assignmentId;
+
+    @Column(name = "submission_id", nullable = false)
+    private Long submissionId;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+}
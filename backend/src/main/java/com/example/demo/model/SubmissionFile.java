@@ -37,6 +37,9 @@ public class SubmissionFile {
     @Column(name = "content_type")
     private String contentType;
 
+    @Column(name = "content_hash", length = 64)
+    private String contentHash; // SHA-256 of the stored bytes, used to look up plagiarism fingerprints
+
     @CreationTimestamp
     @Column(name = "uploaded_at", updatable = false)
     private LocalDateTime uploadedAt;
@@ -0,0 +1,58 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cached plagiarism fingerprint of one submitted file, keyed by the SHA-256 of the file bytes.
+ * Identical files (re-uploads, shared starter archives) share a single row.
+ */
+@Entity
+@Table(name = "submission_fingerprints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SubmissionFingerprint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "content_hash", nullable = false, unique = true, length = 64)
+    private String contentHash; // SHA-256 of the raw file bytes
+
+    @Column(name = "fingerprint_version", nullable = false)
+    private Integer fingerprintVersion; // Bumped when normalization or hashing changes
+
+    @Column(name = "normalized_hash", nullable = false, length = 64)
+    private String normalizedHash; // SHA-256 of the normalized text
+
+    @Column(name = "normalized_content", nullable = false, columnDefinition = "TEXT")
+    private String normalizedContent;
+
+    @Column(name = "is_binary", nullable = false)
+    private Boolean binary;
+
+    @Column(name = "line_hashes", columnDefinition = "bytea")
+    private byte[] lineHashes; // Sorted line hashes (chunk hashes for binary files)
+
+    @Column(name = "minhash_signature", columnDefinition = "bytea")
+    private byte[] minhashSignature; // Empty when content is too short to score
+
+    @Column(name = "winnow_hashes", columnDefinition = "bytea")
+    private byte[] winnowHashes; // Winnowed token k-gram hashes in source order
+
+    @Column(name = "winnow_locations", columnDefinition = "bytea")
+    private byte[] winnowLocations; // Packed file index and line of each winnowed hash
+
+    @Column(name = "winnow_files", columnDefinition = "TEXT")
+    private String winnowFiles; // Newline-separated file names referenced by the locations
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
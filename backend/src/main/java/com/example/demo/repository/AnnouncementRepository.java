@@ -2,6 +2,7 @@ package com.example.demo.repository;
 
 import com.example.demo.model.Announcement;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -19,4 +20,9 @@ public interface AnnouncementRepository extends JpaRepository<Announcement, Long
     
     // For course deletion - find all announcements by course entity
     List<Announcement> findByCourse(com.example.demo.model.Course course);
+
+    // Delete every announcement of a course
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Announcement a WHERE a.course.id = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
 }
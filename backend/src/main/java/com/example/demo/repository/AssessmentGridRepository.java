@@ -2,10 +2,13 @@ package com.example.demo.repository;
 
 import com.example.demo.model.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +24,43 @@ public interface AssessmentGridRepository extends JpaRepository<AssessmentGrid,
     @Query("SELECT ag FROM AssessmentGrid ag WHERE ag.assignment.course.id = :courseId ORDER BY ag.assignment.deadline DESC, ag.student.name ASC")
     List<AssessmentGrid> findByCourseIdOrderByAssignmentAndStudent(@Param("courseId") Long courseId);
 
+    // Course grid for one teacher's assignments and the course's approved students, with everything the response needs
+    @Query("SELECT ag FROM AssessmentGrid ag JOIN FETCH ag.assignment a JOIN FETCH a.course JOIN FETCH ag.student s " +
+           "LEFT JOIN FETCH ag.submission LEFT JOIN FETCH ag.gradedBy " +
+           "WHERE a.course.id = :courseId AND a.createdBy.id = :teacherId AND EXISTS (" +
+           "SELECT 1 FROM CourseEnrollment ce WHERE ce.course.id = :courseId AND ce.student = s AND ce.status = 'APPROVED') " +
+           "ORDER BY a.deadline ASC, a.id ASC, s.name ASC, s.id ASC")
+    List<AssessmentGrid> findCourseGrid(@Param("courseId") Long courseId, @Param("teacherId") Long teacherId);
+
+    // Rows touched by a bulk grade update, with what the final mark calculation reads
+    @Query("SELECT ag FROM AssessmentGrid ag JOIN FETCH ag.assignment JOIN FETCH ag.student LEFT JOIN FETCH ag.submission " +
+           "WHERE ag.assignment.id IN :assignmentIds AND ag.student.id IN :studentIds")
+    List<AssessmentGrid> findByAssignmentIdsAndStudentIds(@Param("assignmentIds") Collection<Long> assignmentIds,
+                                                          @Param("studentIds") Collection<Long> studentIds);
+
+    // Materialize the rows of a new assignment for every approved student in a single INSERT ... SELECT
+    @Modifying
+    @Query("INSERT INTO AssessmentGrid (assignment, course, student, submission, manualWeight, latePenaltyApplied, " +
+           "copyPenaltyApplied, isProcessed, createdAt, updatedAt) " +
+           "SELECT a, a.course, ce.student, sub, 1.0, COALESCE(sub.isLate, false), false, false, :now, :now " +
+           "FROM Assignment a JOIN CourseEnrollment ce ON ce.course = a.course " +
+           "LEFT JOIN StudentSubmission sub ON sub.assignment = a AND sub.student = ce.student " +
+           "WHERE a.id = :assignmentId AND ce.status = 'APPROVED' AND NOT EXISTS (" +
+           "SELECT 1 FROM AssessmentGrid ag WHERE ag.assignment = a AND ag.student = ce.student)")
+    int insertForAssignment(@Param("assignmentId") Long assignmentId, @Param("now") LocalDateTime now);
+
+    // Materialize the rows of a newly approved student for every assignment of the course
+    @Modifying
+    @Query("INSERT INTO AssessmentGrid (assignment, course, student, submission, manualWeight, latePenaltyApplied, " +
+           "copyPenaltyApplied, isProcessed, createdAt, updatedAt) " +
+           "SELECT a, a.course, s, sub, 1.0, COALESCE(sub.isLate, false), false, false, :now, :now " +
+           "FROM Assignment a JOIN User s ON s.id = :studentId " +
+           "LEFT JOIN StudentSubmission sub ON sub.assignment = a AND sub.student = s " +
+           "WHERE a.course.id = :courseId AND NOT EXISTS (" +
+           "SELECT 1 FROM AssessmentGrid ag WHERE ag.assignment = a AND ag.student = s)")
+    int insertForStudent(@Param("courseId") Long courseId, @Param("studentId") Long studentId,
+                         @Param("now") LocalDateTime now);
+
     @Query("SELECT ag FROM AssessmentGrid ag WHERE ag.assignment.id = :assignmentId ORDER BY ag.student.name ASC")
     List<AssessmentGrid> findByAssignmentIdOrderByStudentName(@Param("assignmentId") Long assignmentId);
 
@@ -51,4 +91,10 @@ public interface AssessmentGridRepository extends JpaRepository<AssessmentGrid,
     void deleteByAssignment(Assignment assignment);
 
     void deleteByAssignmentAndStudent(Assignment assignment, User student);
+
+    // Delete every grid row of a course, including rows reached only through its assignments
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM AssessmentGrid ag WHERE ag.course.id = :courseId OR ag.assignment.id IN " +
+           "(SELECT a.id FROM Assignment a WHERE a.course.id = :courseId)")
+    int deleteByCourseId(@Param("courseId") Long courseId);
 }
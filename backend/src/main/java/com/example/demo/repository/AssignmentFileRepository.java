@@ -3,6 +3,7 @@ package com.example.demo.repository;
 import com.example.demo.model.Assignment;
 import com.example.demo.model.AssignmentFile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -21,4 +22,9 @@ public interface AssignmentFileRepository extends JpaRepository<AssignmentFile,
     
     // Count files for an assignment
     long countByAssignment(Assignment assignment);
+
+    // Delete the attachments of every assignment of a course
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM AssignmentFile af WHERE af.assignment.id IN (SELECT a.id FROM Assignment a WHERE a.course.id = :courseId)")
+    int deleteByCourseId(@Param("courseId") Long courseId);
 }
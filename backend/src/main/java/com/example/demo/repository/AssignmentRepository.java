@@ -4,6 +4,7 @@ import com.example.demo.model.Assignment;
 import com.example.demo.model.Course;
 import com.example.demo.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -50,6 +51,10 @@ public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
                                                    @Param("futureTime") LocalDateTime futureTime,
                                                    @Param("teacherId") Long teacherId);
     
+    // Assignments with their course loaded, for use outside a persistence context
+    @Query("SELECT a FROM Assignment a JOIN FETCH a.course WHERE a.id IN :ids")
+    List<Assignment> findWithCourseByIdIn(@Param("ids") java.util.Collection<Long> ids);
+    
     // Count active assignments for a course
     long countByCourseAndIsActiveTrue(Course course);
     
@@ -73,4 +78,9 @@ public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     @Query("SELECT a FROM Assignment a WHERE a.course.id = :courseId AND a.createdBy.id = :teacherId AND a.isActive = true ORDER BY a.deadline ASC")
     List<Assignment> findByCourseIdAndCreatedByIdOrderByDeadlineAsc(@Param("courseId") Long courseId, 
                                                                    @Param("teacherId") Long teacherId);
+
+    // Delete every assignment of a course; everything that references them must be deleted first
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Assignment a WHERE a.course.id = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
 }
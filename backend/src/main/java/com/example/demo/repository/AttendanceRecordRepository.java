@@ -5,6 +5,7 @@ import com.example.demo.model.AttendanceSession;
 import com.example.demo.model.Course;
 import com.example.demo.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -46,4 +47,9 @@ public interface AttendanceRecordRepository extends JpaRepository<AttendanceReco
     List<Object[]> getAttendanceSummaryForCourse(@Param("course") Course course);
 
     void deleteBySession(AttendanceSession session);
+
+    // Delete the records of every attendance session of a course
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM AttendanceRecord ar WHERE ar.session.id IN (SELECT s.id FROM AttendanceSession s WHERE s.course.id = :courseId)")
+    int deleteByCourseId(@Param("courseId") Long courseId);
 }
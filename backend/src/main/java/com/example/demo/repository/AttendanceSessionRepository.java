@@ -4,6 +4,7 @@ import com.example.demo.model.AttendanceSession;
 import com.example.demo.model.Course;
 import com.example.demo.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -31,4 +32,9 @@ public interface AttendanceSessionRepository extends JpaRepository<AttendanceSes
     long countByCourse(@Param("course") Course course);
 
     boolean existsByCourseAndSessionDate(Course course, LocalDate sessionDate);
+
+    // Delete every attendance session of a course; their records must be deleted first
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM AttendanceSession s WHERE s.course.id = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
 }
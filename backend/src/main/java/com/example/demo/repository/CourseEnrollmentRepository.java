@@ -2,6 +2,9 @@ package com.example.demo.repository;
 
 import com.example.demo.model.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -14,4 +17,14 @@ public interface CourseEnrollmentRepository extends JpaRepository<CourseEnrollme
     List<CourseEnrollment> findByCourse(Course course);
     Optional<CourseEnrollment> findByStudentAndCourse(User student, Course course);
     Optional<CourseEnrollment> findByCourseAndStudent(Course course, User student);
+
+    // Approved, active students of the course among the given users
+    @Query("SELECT ce.student.id FROM CourseEnrollment ce WHERE ce.course.id = :courseId " +
+           "AND ce.status = 'APPROVED' AND ce.student.status = 'ACTIVE' AND ce.student.id IN :userIds")
+    List<Long> findApprovedActiveStudentIds(@Param("courseId") Long courseId, @Param("userIds") List<Long> userIds);
+
+    // Delete every enrollment of a course, whatever its status
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM CourseEnrollment ce WHERE ce.course.id = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
 }
@@ -4,6 +4,7 @@ import com.example.demo.model.Course;
 import com.example.demo.model.CourseTeacher;
 import com.example.demo.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -46,4 +47,9 @@ public interface CourseTeacherRepository extends JpaRepository<CourseTeacher, Lo
     
     // For course deletion - find all course-teacher assignments (active and inactive)
     List<CourseTeacher> findByCourseAndActiveFalse(Course course);
+
+    // Delete every teacher assignment of a course, active or not
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM CourseTeacher ct WHERE ct.course.id = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
 }
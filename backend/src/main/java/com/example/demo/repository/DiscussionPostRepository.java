@@ -4,6 +4,7 @@ import com.example.demo.model.DiscussionPost;
 import com.example.demo.model.DiscussionThread;
 import com.example.demo.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -31,4 +32,15 @@ public interface DiscussionPostRepository extends JpaRepository<DiscussionPost,
     // Get latest post in a thread for last activity
     @Query("SELECT dp FROM DiscussionPost dp WHERE dp.thread.id = :threadId AND dp.isDeleted = false ORDER BY dp.createdAt DESC")
     List<DiscussionPost> findLatestPostInThread(@Param("threadId") Long threadId);
+
+    // Detach replies from their parents so a course's posts can be deleted in one statement
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE DiscussionPost p SET p.parentPost = null WHERE p.parentPost IS NOT NULL AND p.thread.id IN " +
+           "(SELECT t.id FROM DiscussionThread t WHERE t.course.id = :courseId)")
+    int clearParentPostsByCourseId(@Param("courseId") Long courseId);
+
+    // Delete every post of a course's discussion threads, including soft-deleted ones
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM DiscussionPost p WHERE p.thread.id IN (SELECT t.id FROM DiscussionThread t WHERE t.course.id = :courseId)")
+    int deleteByCourseId(@Param("courseId") Long courseId);
 }
@@ -4,6 +4,7 @@ import com.example.demo.model.Course;
 import com.example.demo.model.DiscussionThread;
 import com.example.demo.model.Assignment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -39,4 +40,9 @@ public interface DiscussionThreadRepository extends JpaRepository<DiscussionThre
     
     // For course deletion - find all discussion threads by course (active and inactive)
     List<DiscussionThread> findByCourse(Course course);
+
+    // Delete every discussion thread of a course, active or not
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM DiscussionThread t WHERE t.course.id = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
 }
@@ -2,15 +2,29 @@ package com.example.demo.repository;
 
 import com.example.demo.model.MessageReaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface MessageReactionRepository extends JpaRepository<MessageReaction, Long> {
+
+    // Reaction with only the reactor's name, enough to render reaction summaries
+    interface ReactionRow {
+        Long getMessageId();
+        String getEmoji();
+        String getUserName();
+    }
+
+    // Reactions of many messages with their reactors' names in one query, in reaction order
+    @Query("SELECT mr.message.id AS messageId, mr.emoji AS emoji, u.name AS userName " +
+           "FROM MessageReaction mr JOIN mr.user u WHERE mr.message.id IN :messageIds ORDER BY mr.id")
+    List<ReactionRow> findReactionRows(@Param("messageIds") Collection<Long> messageIds);
     
     List<MessageReaction> findByMessageId(Long messageId);
     
@@ -20,4 +34,9 @@ public interface MessageReactionRepository extends JpaRepository<MessageReaction
     List<MessageReaction> findReactionsByMessageId(@Param("messageId") Long messageId);
     
     void deleteByMessageIdAndUserIdAndEmoji(Long messageId, Long userId, String emoji);
+
+    // Reactions on the messages of a course, removed before the messages themselves
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM MessageReaction mr WHERE mr.message.id IN (SELECT m.id FROM Message m WHERE m.relatedCourse.id = :courseId)")
+    int deleteByMessageRelatedCourseId(@Param("courseId") Long courseId);
 }
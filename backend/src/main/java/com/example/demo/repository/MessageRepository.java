@@ -1,14 +1,45 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.Message;
+import com.example.demo.model.Role;
 import com.example.demo.model.User;
+import com.example.demo.model.UserStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface MessageRepository extends JpaRepository<Message, Long> {
+
+    /**
+     * One row of a user's inbox: the conversation partner, the latest message exchanged with
+     * them and how many of the partner's messages the user has not read yet.
+     */
+    interface ConversationSummary {
+        Long getPartnerId();
+        String getPartnerName();
+        String getPartnerEmail();
+        Role getPartnerRole();
+        UserStatus getPartnerStatus();
+        String getLastMessage();
+        LocalDateTime getLastMessageTime();
+        Long getUnreadCount();
+    }
+
+    // Inbox in one query, most recent conversation first. The latest message per partner is the
+    // one with the highest id; unread counts walk idx_messages_recipient_sender_id.
+    @Query("SELECT p.id AS partnerId, p.name AS partnerName, p.email AS partnerEmail, p.role AS partnerRole, " +
+           "p.status AS partnerStatus, m.content AS lastMessage, m.createdAt AS lastMessageTime, " +
+           "(SELECT COUNT(u) FROM Message u WHERE u.recipient.id = :userId AND u.sender.id = p.id AND u.isRead = false) AS unreadCount " +
+           "FROM Message m JOIN User p ON p.id = CASE WHEN m.sender.id = :userId THEN m.recipient.id ELSE m.sender.id END " +
+           "WHERE m.id IN (SELECT MAX(x.id) FROM Message x WHERE x.sender.id = :userId OR x.recipient.id = :userId " +
+           "GROUP BY CASE WHEN x.sender.id = :userId THEN x.recipient.id ELSE x.sender.id END) " +
+           "ORDER BY m.id DESC")
+    List<ConversationSummary> findConversationSummaries(@Param("userId") Long userId);
     
     // Get all messages for a user (both sent and received)
     @Query("SELECT m FROM Message m WHERE m.recipient = :user OR m.sender = :user ORDER BY m.createdAt DESC")
@@ -23,13 +54,20 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     // Get unread messages count for a user
     @Query("SELECT COUNT(m) FROM Message m WHERE m.recipient = :user AND m.isRead = false")
     Long countUnreadMessagesForUser(@Param("user") User user);
+
+    long countByRecipientIdAndIsReadFalse(Long recipientId);
     
-    // Get conversation between two users
-    @Query("SELECT m FROM Message m WHERE " +
-           "(m.sender = :user1 AND m.recipient = :user2) OR " +
-           "(m.sender = :user2 AND m.recipient = :user1) " +
-           "ORDER BY m.createdAt ASC")
-    List<Message> findConversationBetweenUsers(@Param("user1") User user1, @Param("user2") User user2);
+    // One direction of a conversation, newest first, before the id cursor; walks idx_messages_sender_recipient_id
+    @Query("SELECT m FROM Message m WHERE m.sender.id = :senderId AND m.recipient.id = :recipientId " +
+           "AND m.id < :beforeId ORDER BY m.id DESC")
+    List<Message> findDirectedBefore(@Param("senderId") Long senderId, @Param("recipientId") Long recipientId,
+                                     @Param("beforeId") Long beforeId, Pageable pageable);
+
+    // One direction of a conversation, oldest first, after the id cursor
+    @Query("SELECT m FROM Message m WHERE m.sender.id = :senderId AND m.recipient.id = :recipientId " +
+           "AND m.id > :afterId ORDER BY m.id ASC")
+    List<Message> findDirectedAfter(@Param("senderId") Long senderId, @Param("recipientId") Long recipientId,
+                                    @Param("afterId") Long afterId, Pageable pageable);
     
     // Get unique conversations for a user
     @Query("SELECT DISTINCT " +
@@ -49,4 +87,24 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     
     // Find messages related to a specific course
     List<Message> findByRelatedCourse(com.example.demo.model.Course course);
+
+    // Mark every unread message from one sender to the recipient as read in one statement
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Message m SET m.isRead = true, m.readAt = :readAt " +
+           "WHERE m.recipient.id = :recipientId AND m.sender.id = :senderId AND m.isRead = false")
+    int markConversationRead(@Param("recipientId") Long recipientId, @Param("senderId") Long senderId,
+                             @Param("readAt") LocalDateTime readAt);
+
+    // Mark every unread message of the recipient as read in one statement
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Message m SET m.isRead = true, m.readAt = :readAt WHERE m.recipient.id = :recipientId AND m.isRead = false")
+    int markAllRead(@Param("recipientId") Long recipientId, @Param("readAt") LocalDateTime readAt);
+
+    // Recipients with unread messages that deleteByRelatedCourseId would remove
+    @Query("SELECT DISTINCT m.recipient.id FROM Message m WHERE m.relatedCourse.id = :courseId AND m.isRead = false")
+    List<Long> findUnreadRecipientIdsByRelatedCourseId(@Param("courseId") Long courseId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Message m WHERE m.relatedCourse.id = :courseId")
+    int deleteByRelatedCourseId(@Param("courseId") Long courseId);
 }
@@ -0,0 +1,35 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.NotificationArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationArchiveRepository extends JpaRepository<NotificationArchive, Long> {
+
+    // Copy the given notifications into the archive in one INSERT ... SELECT
+    @Modifying
+    @Query("INSERT INTO NotificationArchive (id, recipientId, type, title, message, redirectUrl, courseId, assignmentId, " +
+           "resourceId, relatedUserId, relatedThreadId, createdAt, readAt, archivedAt) " +
+           "SELECT n.id, n.recipient.id, n.type, n.title, n.message, n.redirectUrl, n.relatedCourse.id, n.relatedAssignment.id, " +
+           "n.relatedResource.id, n.relatedUser.id, n.relatedThreadId, n.createdAt, n.readAt, :archivedAt " +
+           "FROM Notification n WHERE n.id IN :ids")
+    int archive(@Param("ids") List<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Modifying
+    @Query("DELETE FROM NotificationArchive a WHERE a.archivedAt < :cutoff")
+    int deleteArchivedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    // Same scope as NotificationRepository.deleteByCourseId; run before the course's assignments and resources are deleted
+    @Modifying
+    @Query("DELETE FROM NotificationArchive a WHERE a.courseId = :courseId " +
+           "OR a.assignmentId IN (SELECT asg.id FROM Assignment asg WHERE asg.course.id = :courseId) " +
+           "OR a.resourceId IN (SELECT r.id FROM Resource r WHERE r.course.id = :courseId)")
+    int deleteByCourseId(@Param("courseId") Long courseId);
+}
@@ -3,24 +3,87 @@ package com.example.demo.repository;
 import com.example.demo.model.Notification;
 import com.example.demo.model.Notification.NotificationType;
 import com.example.demo.model.User;
+import com.example.demo.model.Assignment;
+import com.example.demo.model.Course;
+import com.example.demo.model.Resource;
+import com.example.demo.model.Role;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     
+    /**
+     * Flat row of the notification feed: the notification plus the few columns of its related
+     * course, assignment and user that the client shows, read in one query.
+     */
+    interface NotificationFeedItem {
+        Long getId();
+        NotificationType getType();
+        String getTitle();
+        String getMessage();
+        String getRedirectUrl();
+        Boolean getIsRead();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getReadAt();
+        Long getRelatedThreadId();
+        Long getCourseId();
+        String getCourseTitle();
+        String getCourseCode();
+        Long getAssignmentId();
+        String getAssignmentTitle();
+        LocalDateTime getAssignmentDeadline();
+        Long getRelatedUserId();
+        String getRelatedUserName();
+        String getRelatedUserEmail();
+        Role getRelatedUserRole();
+    }
+
+    String FEED_SELECT = "SELECT n.id AS id, n.type AS type, n.title AS title, n.message AS message, " +
+            "n.redirectUrl AS redirectUrl, n.isRead AS isRead, n.createdAt AS createdAt, n.readAt AS readAt, " +
+            "n.relatedThreadId AS relatedThreadId, c.id AS courseId, c.title AS courseTitle, c.courseCode AS courseCode, " +
+            "a.id AS assignmentId, a.title AS assignmentTitle, a.deadline AS assignmentDeadline, " +
+            "u.id AS relatedUserId, u.name AS relatedUserName, u.email AS relatedUserEmail, u.role AS relatedUserRole " +
+            "FROM Notification n LEFT JOIN n.relatedCourse c LEFT JOIN n.relatedAssignment a LEFT JOIN n.relatedUser u " +
+            "WHERE n.recipient.id = :recipientId ";
+
+    // First feed page, newest first; walks idx_notifications_recipient_created
+    @Query(FEED_SELECT + "ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationFeedItem> findFeedPage(@Param("recipientId") Long recipientId, Pageable pageable);
+
+    // Next feed page: rows strictly after the (createdAt, id) cursor in feed order
+    @Query(FEED_SELECT + "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationFeedItem> findFeedPageAfter(@Param("recipientId") Long recipientId,
+                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("id") Long id,
+                                                 Pageable pageable);
+
     // Find all notifications for a user, ordered by creation date (newest first)
     List<Notification> findByRecipientOrderByCreatedAtDesc(User recipient);
     
     // Find unread notifications for a user
     List<Notification> findByRecipientAndIsReadFalseOrderByCreatedAtDesc(User recipient);
     
+    // Mark every unread notification of the recipient as read in one statement
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :readAt WHERE n.recipient.id = :recipientId AND n.isRead = false")
+    int markAllRead(@Param("recipientId") Long recipientId, @Param("readAt") LocalDateTime readAt);
+
     // Count unread notifications for a user
     long countByRecipientAndIsReadFalse(User recipient);
+
+    long countByRecipientIdAndIsReadFalse(Long recipientId);
     
     // Find recent notifications (last 30 days) for a user
     @Query("SELECT n FROM Notification n WHERE n.recipient = :recipient AND n.createdAt >= :since ORDER BY n.createdAt DESC")
@@ -33,9 +96,75 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     @Query("SELECT n FROM Notification n WHERE n.recipient = :recipient AND n.relatedCourse.id = :courseId ORDER BY n.createdAt DESC")
     List<Notification> findByCourseForUser(@Param("recipient") User recipient, @Param("courseId") Long courseId);
     
+    // Read notifications past the retention age, oldest first, for archiving in batches
+    @Query("SELECT n.id FROM Notification n WHERE n.isRead = true AND " +
+           "(n.readAt < :cutoff OR (n.readAt IS NULL AND n.createdAt < :cutoff)) ORDER BY n.id")
+    List<Long> findArchivableIds(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+
+    // Recipients with unread notifications that deleteByCourseId would remove
+    @Query("SELECT DISTINCT n.recipient.id FROM Notification n WHERE n.isRead = false AND (n.relatedCourse.id = :courseId " +
+           "OR n.relatedAssignment.id IN (SELECT a.id FROM Assignment a WHERE a.course.id = :courseId) " +
+           "OR n.relatedResource.id IN (SELECT r.id FROM Resource r WHERE r.course.id = :courseId))")
+    List<Long> findUnreadRecipientIdsByCourseId(@Param("courseId") Long courseId);
+
+    // Delete every notification of a course, including ones linked only through its assignments or resources
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Notification n WHERE n.relatedCourse.id = :courseId " +
+           "OR n.relatedAssignment.id IN (SELECT a.id FROM Assignment a WHERE a.course.id = :courseId) " +
+           "OR n.relatedResource.id IN (SELECT r.id FROM Resource r WHERE r.course.id = :courseId)")
+    int deleteByCourseId(@Param("courseId") Long courseId);
+
+    // Latest unread notification of a type for the recipient and thread since the window start, locked
+    // so concurrent events merge into it one after another; uses idx_notifications_coalesce
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT n FROM Notification n WHERE n.recipient.id = :recipientId AND n.relatedThreadId = :threadId " +
+           "AND n.type = :type AND n.isRead = false AND n.createdAt >= :since ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findCoalescable(@Param("recipientId") Long recipientId,
+                                       @Param("threadId") Long threadId,
+                                       @Param("type") NotificationType type,
+                                       @Param("since") LocalDateTime since,
+                                       Pageable pageable);
+
     // Find all notifications related to a specific course (for deletion)
     List<Notification> findByRelatedCourse(com.example.demo.model.Course course);
     
-    // Check if plagiarism notification already exists for user
-    boolean existsByRecipientIdAndTypeAndMessageContaining(Long recipientId, NotificationType type, String messageSubstring);
+    // Notifications with the given dedup keys, with the relations mapToResponse reads
+    @Query("SELECT n FROM Notification n JOIN FETCH n.recipient LEFT JOIN FETCH n.relatedCourse " +
+           "LEFT JOIN FETCH n.relatedAssignment LEFT JOIN FETCH n.relatedUser WHERE n.dedupKey IN :keys")
+    List<Notification> findByDedupKeyIn(@Param("keys") Collection<String> keys);
+    
+    // Fan out one notification to every approved, active student of a course in a single INSERT ... SELECT
+    @Modifying
+    @Query("INSERT INTO Notification (recipient, type, title, message, redirectUrl, relatedCourse, relatedAssignment, " +
+           "relatedResource, relatedUser, relatedThreadId, isRead, createdAt) " +
+           "SELECT ce.student, :type, :title, :message, :redirectUrl, ce.course, :assignment, :resource, :relatedUser, " +
+           ":threadId, false, :createdAt " +
+           "FROM CourseEnrollment ce WHERE ce.course.id = :courseId AND ce.status = 'APPROVED' AND ce.student.status = 'ACTIVE'")
+    int insertForEnrolledStudents(@Param("courseId") Long courseId,
+                                  @Param("type") NotificationType type,
+                                  @Param("title") String title,
+                                  @Param("message") String message,
+                                  @Param("redirectUrl") String redirectUrl,
+                                  @Param("assignment") Assignment assignment,
+                                  @Param("resource") Resource resource,
+                                  @Param("relatedUser") User relatedUser,
+                                  @Param("threadId") Long threadId,
+                                  @Param("createdAt") LocalDateTime createdAt);
+    
+    // Fan out one notification to every active student in a single INSERT ... SELECT
+    @Modifying
+    @Query("INSERT INTO Notification (recipient, type, title, message, redirectUrl, relatedCourse, relatedUser, isRead, createdAt) " +
+           "SELECT u, :type, :title, :message, :redirectUrl, :course, :relatedUser, false, :createdAt " +
+           "FROM User u WHERE u.role = 'STUDENT' AND u.status = 'ACTIVE'")
+    int insertForActiveStudents(@Param("type") NotificationType type,
+                                @Param("title") String title,
+                                @Param("message") String message,
+                                @Param("redirectUrl") String redirectUrl,
+                                @Param("course") Course course,
+                                @Param("relatedUser") User relatedUser,
+                                @Param("createdAt") LocalDateTime createdAt);
 }
@@ -0,0 +1,26 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.PlagiarismAnalysisResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface PlagiarismAnalysisResultRepository extends JpaRepository<PlagiarismAnalysisResult, String> {
+
+    // Owning assignment of a stored result, without loading its payload
+    @Query("SELECT r.assignmentId FROM PlagiarismAnalysisResult r WHERE r.analysisId = :analysisId")
+    Optional<Long> findAssignmentIdByAnalysisId(@Param("analysisId") String analysisId);
+
+    // Purge stored results past the retention period without loading their payloads
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PlagiarismAnalysisResult r WHERE r.completedAt < :cutoff")
+    int deleteCompletedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
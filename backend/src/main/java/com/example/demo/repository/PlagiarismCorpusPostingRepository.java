@@ -0,0 +1,64 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.PlagiarismCorpusPosting;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PlagiarismCorpusPostingRepository extends JpaRepository<PlagiarismCorpusPosting, Long> {
+
+    // Shared fingerprint counts per past submission, aggregated in the database
+    interface CorpusMatch {
+        Long getSubmissionId();
+        Long getAssignmentId();
+        Long getStudentId();
+        Long getSharedCount();
+    }
+
+    @Query("SELECT p.submissionId AS submissionId, p.assignmentId AS assignmentId, p.studentId AS studentId, " +
+           "COUNT(p) AS sharedCount FROM PlagiarismCorpusPosting p " +
+           "WHERE p.courseCode = :courseCode AND p.fingerprint IN :fingerprints " +
+           "AND p.assignmentId <> :assignmentId AND p.studentId <> :studentId " +
+           "GROUP BY p.submissionId, p.assignmentId, p.studentId")
+    List<CorpusMatch> findMatchesByCourseCode(@Param("courseCode") String courseCode,
+                                              @Param("fingerprints") Collection<Long> fingerprints,
+                                              @Param("assignmentId") Long assignmentId,
+                                              @Param("studentId") Long studentId);
+
+    @Query("SELECT p.submissionId AS submissionId, p.assignmentId AS assignmentId, p.studentId AS studentId, " +
+           "COUNT(p) AS sharedCount FROM PlagiarismCorpusPosting p " +
+           "WHERE p.courseId = :courseId AND p.fingerprint IN :fingerprints " +
+           "AND p.assignmentId <> :assignmentId AND p.studentId <> :studentId " +
+           "GROUP BY p.submissionId, p.assignmentId, p.studentId")
+    List<CorpusMatch> findMatchesByCourse(@Param("courseId") Long courseId,
+                                          @Param("fingerprints") Collection<Long> fingerprints,
+                                          @Param("assignmentId") Long assignmentId,
+                                          @Param("studentId") Long studentId);
+
+    @Query("SELECT DISTINCT p.submissionId FROM PlagiarismCorpusPosting p WHERE p.submissionId IN :submissionIds")
+    List<Long> findIndexedSubmissionIds(@Param("submissionIds") Collection<Long> submissionIds);
+
+    // Drop a submission's postings when its files are replaced; the new files are indexed after commit
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PlagiarismCorpusPosting p WHERE p.submissionId = :submissionId")
+    int deleteBySubmissionId(@Param("submissionId") Long submissionId);
+
+    // Courses and assignments removed by a teacher or admin take their postings with them
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PlagiarismCorpusPosting p WHERE p.courseId = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PlagiarismCorpusPosting p WHERE p.assignmentId = :assignmentId")
+    int deleteByAssignmentId(@Param("assignmentId") Long assignmentId);
+}
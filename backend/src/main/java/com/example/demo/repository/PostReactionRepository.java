@@ -4,6 +4,7 @@ import com.example.demo.model.DiscussionPost;
 import com.example.demo.model.PostReaction;
 import com.example.demo.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -32,4 +33,10 @@ public interface PostReactionRepository extends JpaRepository<PostReaction, Long
     
     // Count specific reaction type for a post
     long countByPostAndReactionType(DiscussionPost post, PostReaction.ReactionType reactionType);
+
+    // Delete reactions on every post of a course's discussion threads
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM PostReaction pr WHERE pr.post.id IN (SELECT p.id FROM DiscussionPost p WHERE p.thread.id IN " +
+           "(SELECT t.id FROM DiscussionThread t WHERE t.course.id = :courseId))")
+    int deleteByCourseId(@Param("courseId") Long courseId);
 }
@@ -4,6 +4,7 @@ import com.example.demo.model.Resource;
 import com.example.demo.model.Course;
 import com.example.demo.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -86,4 +87,9 @@ public interface ResourceRepository extends JpaRepository<Resource, Long> {
     List<Resource> findByCourse(Course course);
     List<Resource> findByCourseAndIsActiveTrue(Course course);
     List<Resource> findByCourseAndIsActiveFalse(Course course);
+
+    // Delete every resource of a course, active or not
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Resource r WHERE r.course.id = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
 }
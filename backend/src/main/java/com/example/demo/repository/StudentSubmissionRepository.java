@@ -3,11 +3,14 @@ package com.example.demo.repository;
 import com.example.demo.model.StudentSubmission;
 import com.example.demo.model.Assignment;
 import com.example.demo.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,12 +29,17 @@ public interface StudentSubmissionRepository extends JpaRepository<StudentSubmis
     // Check if student has already submitted for an assignment
     boolean existsByAssignmentAndStudent(Assignment assignment, User student);
     
-    // Find submissions by assignment ID
-    List<StudentSubmission> findByAssignment_IdOrderBySubmittedAtAsc(Long assignmentId);
+    // Submissions of an assignment with their students, for the copy checker outside the request thread
+    @Query("SELECT s FROM StudentSubmission s JOIN FETCH s.student WHERE s.assignment.id = :assignmentId " +
+           "ORDER BY s.submittedAt ASC")
+    List<StudentSubmission> findWithStudentByAssignmentId(@Param("assignmentId") Long assignmentId);
     
     // Find submissions by student ID
     List<StudentSubmission> findByStudent_IdOrderBySubmittedAtDesc(Long studentId);
     
+    // Find the submissions of many students to many assignments at once
+    List<StudentSubmission> findByAssignment_IdInAndStudent_IdIn(Collection<Long> assignmentIds, Collection<Long> studentIds);
+    
     // Count submissions for an assignment
     @Query("SELECT COUNT(s) FROM StudentSubmission s WHERE s.assignment.id = :assignmentId")
     long countSubmissionsByAssignmentId(@Param("assignmentId") Long assignmentId);
@@ -39,4 +47,19 @@ public interface StudentSubmissionRepository extends JpaRepository<StudentSubmis
     // Count late submissions for an assignment
     @Query("SELECT COUNT(s) FROM StudentSubmission s WHERE s.assignment.id = :assignmentId AND s.isLate = true")
     long countLateSubmissionsByAssignmentId(@Param("assignmentId") Long assignmentId);
+    
+    // Submissions with everything the copy checker needs, for use outside the request thread
+    @Query("SELECT s FROM StudentSubmission s JOIN FETCH s.assignment a JOIN FETCH a.course JOIN FETCH s.student " +
+           "WHERE s.id IN :ids")
+    List<StudentSubmission> findWithAssignmentAndStudentByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Keyset page of submissions not yet in the copy checker corpus
+    @Query("SELECT s.id FROM StudentSubmission s WHERE s.id > :afterId AND NOT EXISTS " +
+           "(SELECT 1 FROM PlagiarismCorpusPosting p WHERE p.submissionId = s.id) ORDER BY s.id")
+    List<Long> findUnindexedIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Delete every submission to a course's assignments; their files and grid rows must be deleted first
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM StudentSubmission s WHERE s.assignment.id IN (SELECT a.id FROM Assignment a WHERE a.course.id = :courseId)")
+    int deleteByCourseId(@Param("courseId") Long courseId);
 }
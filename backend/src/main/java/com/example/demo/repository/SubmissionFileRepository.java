@@ -3,8 +3,12 @@ package com.example.demo.repository;
 import com.example.demo.model.SubmissionFile;
 import com.example.demo.model.StudentSubmission;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -16,6 +20,18 @@ public interface SubmissionFileRepository extends JpaRepository<SubmissionFile,
     // Find files by submission ID
     List<SubmissionFile> findBySubmission_IdOrderByUploadedAtAsc(Long submissionId);
     
+    // Find all files submitted to an assignment (one query for the copy checker)
+    List<SubmissionFile> findBySubmission_Assignment_IdOrderByUploadedAtAsc(Long assignmentId);
+    
+    // Find the files of many submissions at once
+    List<SubmissionFile> findBySubmission_IdInOrderByUploadedAtAsc(Collection<Long> submissionIds);
+    
     // Delete all files for a submission
     void deleteBySubmission(StudentSubmission submission);
+
+    // Delete the files of every submission to a course's assignments
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM SubmissionFile sf WHERE sf.submission.id IN " +
+           "(SELECT s.id FROM StudentSubmission s WHERE s.assignment.course.id = :courseId)")
+    int deleteByCourseId(@Param("courseId") Long courseId);
 }
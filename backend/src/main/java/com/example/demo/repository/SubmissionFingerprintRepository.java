@@ -0,0 +1,15 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.SubmissionFingerprint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SubmissionFingerprintRepository extends JpaRepository<SubmissionFingerprint, Long> {
+
+    // Load cached fingerprints for a batch of files in one query
+    List<SubmissionFingerprint> findByContentHashIn(Collection<String> contentHashes);
+}
@@ -3,6 +3,7 @@ package com.example.demo.repository;
 import com.example.demo.model.Role;
 import com.example.demo.model.User;
 import com.example.demo.model.UserStatus;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,6 +11,29 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    // Messaging directory row: only what the user picker shows
+    interface DirectoryEntry {
+        Long getId();
+        String getName();
+        String getEmail();
+        Role getRole();
+        String getProfilePhotoUrl();
+    }
+
+    // Changes whenever a user is added, updated or removed; cheap enough to poll
+    interface ChangeMarker {
+        Long getUserCount();
+        LocalDateTime getLastUpdatedAt();
+    }
+
+    @Query("SELECT u.id AS id, u.name AS name, u.email AS email, u.role AS role, u.profilePhotoUrl AS profilePhotoUrl " +
+           "FROM User u WHERE u.status = 'ACTIVE'")
+    List<DirectoryEntry> findActiveDirectoryEntries();
+
+    @Query("SELECT COUNT(u) AS userCount, MAX(u.updatedAt) AS lastUpdatedAt FROM User u")
+    ChangeMarker findChangeMarker();
+
     Optional<User> findByEmail(String email);
     Optional<User> findByNameIgnoreCase(String name);
     List<User> findByNameContainingIgnoreCase(String name);
@@ -38,6 +62,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     @Query("SELECT ce.student FROM CourseEnrollment ce WHERE ce.course.id = :courseId AND ce.status = 'APPROVED' AND ce.student.status = 'ACTIVE'")
     List<User> findEnrolledStudentsByCourse(@Param("courseId") Long courseId);
+
+    @Query("SELECT u.id FROM User u WHERE u.role = 'STUDENT' AND u.status = 'ACTIVE' AND u.id IN :ids")
+    List<Long> findActiveStudentIdsIn(@Param("ids") List<Long> ids);
     
     // Get all users sorted by role order (ADMIN, TEACHER, STUDENT) then alphabetically by name
     @Query("SELECT u FROM User u ORDER BY " +
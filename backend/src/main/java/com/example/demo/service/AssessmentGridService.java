@@ -26,6 +26,8 @@ import java.util.stream.Collectors;
 @Slf4j
 public class AssessmentGridService {
 
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
     private final AssessmentGridRepository assessmentGridRepository;
     private final AssignmentRepository assignmentRepository;
     private final UserRepository userRepository;
@@ -37,9 +39,11 @@ public class AssessmentGridService {
     private String uploadDir;
 
     /**
-     * Generate or update assessment grid for a course
-     * This automatically creates entries for all assignments and enrolled students
+     * Assessment grid for a course.
+     * Rows are materialized when assignments are created, enrollments approved and submissions made,
+     * so reading the grid is a single joined query plus one lookup for the submission files.
      */
+    @Transactional(readOnly = true)
     public List<AssessmentGridResponse> generateAssessmentGrid(Long courseId, Long teacherId) {
         // Verify teacher permissions
         User teacher = userRepository.findById(teacherId)
@@ -49,50 +53,20 @@ public class AssessmentGridService {
             throw new RuntimeException("Only teachers can access assessment grids");
         }
 
-        // Get all assignments for the course created by this teacher
-        List<Assignment> assignments = assignmentRepository.findByCourseIdAndCreatedByIdOrderByDeadlineAsc(courseId, teacherId);
+        List<AssessmentGrid> assessmentGrids = assessmentGridRepository.findCourseGrid(courseId, teacherId);
         
-        if (assignments.isEmpty()) {
+        if (assessmentGrids.isEmpty()) {
             return new ArrayList<>();
         }
 
         // Verify teacher has permission for this course
-        Assignment firstAssignment = assignments.get(0);
-        Course course = firstAssignment.getCourse();
+        Course course = assessmentGrids.get(0).getAssignment().getCourse();
         
         if (!course.getAssignedTeacher().getId().equals(teacherId)) {
             throw new RuntimeException("Not authorized to access assessment grid for this course");
         }
 
-        // Get all approved students enrolled in the course
-        List<CourseEnrollment> enrollments = courseEnrollmentRepository.findByCourseAndStatus(course, EnrollmentStatus.APPROVED);
-        List<User> enrolledStudents = enrollments.stream()
-                .map(CourseEnrollment::getStudent)
-                .collect(Collectors.toList());
-
-        List<AssessmentGridResponse> responses = new ArrayList<>();
-
-        // For each assignment, ensure assessment grid entries exist for all enrolled students
-        for (Assignment assignment : assignments) {
-            for (User student : enrolledStudents) {
-                AssessmentGrid assessmentGrid = assessmentGridRepository.findByAssignmentAndStudent(assignment, student)
-                        .orElse(null);
-
-                if (assessmentGrid == null) {
-                    // Create new assessment grid entry
-                    assessmentGrid = createNewAssessmentGridEntry(assignment, student);
-                } else {
-                    // Update existing assessment grid with latest submission info
-                    updateAssessmentGridWithSubmission(assessmentGrid);
-                }
-
-                // Convert to response
-                AssessmentGridResponse response = mapToResponse(assessmentGrid);
-                responses.add(response);
-            }
-        }
-
-        return responses;
+        return mapToResponses(assessmentGrids);
     }
 
     /**
@@ -115,9 +89,7 @@ public class AssessmentGridService {
             assessmentGrids = createAssessmentGridForAssignment(assignment);
         }
 
-        return assessmentGrids.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapToResponses(assessmentGrids);
     }
 
     /**
@@ -153,29 +125,7 @@ public class AssessmentGridService {
             throw new RuntimeException("Not authorized to update this assessment");
         }
 
-        // Update fields
-        if (request.getTeacherMark() != null) {
-            assessmentGrid.setTeacherMark(request.getTeacherMark());
-        }
-        if (request.getManualWeight() != null) {
-            assessmentGrid.setManualWeight(request.getManualWeight());
-        }
-        if (request.getGradingNotes() != null) {
-            assessmentGrid.setGradingNotes(request.getGradingNotes());
-        }
-        if (request.getLatePenaltyApplied() != null) {
-            assessmentGrid.setLatePenaltyApplied(request.getLatePenaltyApplied());
-        }
-        if (request.getCopyPenaltyApplied() != null) {
-            assessmentGrid.setCopyPenaltyApplied(request.getCopyPenaltyApplied());
-        }
-
-        assessmentGrid.setGradedBy(teacher);
-        assessmentGrid.setGradedAt(LocalDateTime.now());
-        assessmentGrid.setIsProcessed(true);
-
-        // Recalculate final mark
-        assessmentGrid.calculateFinalMark();
+        applyUpdate(assessmentGrid, request, teacher, LocalDateTime.now());
 
         AssessmentGrid saved = assessmentGridRepository.save(assessmentGrid);
         return mapToResponse(saved);
@@ -183,22 +133,105 @@ public class AssessmentGridService {
 
     /**
      * Bulk update assessments
+     * Rows, students and submissions are prefetched with IN queries and permissions are checked once per
+     * assignment; the changes are flushed together when the transaction commits.
      */
     public List<AssessmentGridResponse> bulkUpdateAssessments(BulkAssessmentUpdateRequest request, Long teacherId) {
-        List<AssessmentGridResponse> responses = new ArrayList<>();
-
-        for (AssessmentGridUpdateRequest updateRequest : request.getAssessments()) {
-            try {
-                AssessmentGridResponse response = updateAssessment(updateRequest, teacherId);
-                responses.add(response);
-            } catch (Exception e) {
-                log.error("Error updating assessment for student {}, assignment {}: {}", 
-                         updateRequest.getStudentId(), updateRequest.getAssignmentId(), e.getMessage());
-                // Continue with other updates
+        List<AssessmentGridUpdateRequest> updates = request.getAssessments() != null ? request.getAssessments() : List.of();
+
+        User teacher = userRepository.findById(teacherId)
+                .orElseThrow(() -> new RuntimeException("Teacher not found"));
+
+        List<AssessmentGridUpdateRequest> keyedUpdates = new ArrayList<>();
+        for (AssessmentGridUpdateRequest updateRequest : updates) {
+            if (updateRequest.getCourseId() != null && updateRequest.getAssignmentId() != null
+                    && updateRequest.getStudentId() != null) {
+                keyedUpdates.add(updateRequest);
+            } else {
+                logBulkUpdateError(updateRequest, "Either assessmentId or courseId/assignmentId/studentId must be provided");
+            }
+        }
+        if (keyedUpdates.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Verify teacher permissions once per assignment
+        Set<Long> assignmentIds = keyedUpdates.stream()
+                .map(AssessmentGridUpdateRequest::getAssignmentId)
+                .collect(Collectors.toSet());
+        Map<Long, Assignment> authorizedAssignments = new HashMap<>();
+        for (Assignment assignment : assignmentRepository.findAllById(assignmentIds)) {
+            if (assignment.getCreatedBy().getId().equals(teacherId) ||
+                assignment.getCourse().getAssignedTeacher().getId().equals(teacherId)) {
+                authorizedAssignments.put(assignment.getId(), assignment);
+            }
+        }
+
+        // Prefetch the existing rows, then the students and submissions of the rows still missing
+        List<Long> studentIds = keyedUpdates.stream()
+                .filter(updateRequest -> authorizedAssignments.containsKey(updateRequest.getAssignmentId()))
+                .map(AssessmentGridUpdateRequest::getStudentId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<GridKey, AssessmentGrid> assessmentGrids = new HashMap<>();
+        for (List<Long> chunk : chunks(studentIds)) {
+            for (AssessmentGrid assessmentGrid : assessmentGridRepository.findByAssignmentIdsAndStudentIds(
+                    authorizedAssignments.keySet(), chunk)) {
+                assessmentGrids.put(new GridKey(assessmentGrid.getAssignment().getId(), assessmentGrid.getStudent().getId()),
+                        assessmentGrid);
             }
         }
 
-        return responses;
+        List<Long> missingStudentIds = keyedUpdates.stream()
+                .filter(updateRequest -> authorizedAssignments.containsKey(updateRequest.getAssignmentId()))
+                .filter(updateRequest -> !assessmentGrids.containsKey(GridKey.of(updateRequest)))
+                .map(AssessmentGridUpdateRequest::getStudentId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, User> students = new HashMap<>();
+        Map<GridKey, StudentSubmission> submissions = new HashMap<>();
+        for (List<Long> chunk : chunks(missingStudentIds)) {
+            for (User student : userRepository.findAllById(chunk)) {
+                students.put(student.getId(), student);
+            }
+            for (StudentSubmission submission : submissionRepository.findByAssignment_IdInAndStudent_IdIn(
+                    authorizedAssignments.keySet(), chunk)) {
+                submissions.put(new GridKey(submission.getAssignment().getId(), submission.getStudent().getId()), submission);
+            }
+        }
+
+        // Apply the updates in memory
+        LocalDateTime gradedAt = LocalDateTime.now();
+        List<AssessmentGrid> updated = new ArrayList<>();
+        for (AssessmentGridUpdateRequest updateRequest : keyedUpdates) {
+            Assignment assignment = authorizedAssignments.get(updateRequest.getAssignmentId());
+            if (assignment == null) {
+                logBulkUpdateError(updateRequest, "Not authorized to update this assessment");
+                continue;
+            }
+
+            GridKey key = GridKey.of(updateRequest);
+            AssessmentGrid assessmentGrid = assessmentGrids.get(key);
+            if (assessmentGrid == null) {
+                User student = students.get(updateRequest.getStudentId());
+                if (student == null) {
+                    logBulkUpdateError(updateRequest, "Student not found");
+                    continue;
+                }
+                // Create new assessment grid entry if it doesn't exist; saved with the other changes
+                assessmentGrid = createNewAssessmentGridEntry(assignment, student, submissions.get(key));
+                assessmentGrids.put(key, assessmentGrid);
+            } else if (!assessmentGrid.getCourse().getId().equals(updateRequest.getCourseId())) {
+                logBulkUpdateError(updateRequest, "Assessment does not belong to this course");
+                continue;
+            }
+
+            applyUpdate(assessmentGrid, updateRequest, teacher, gradedAt);
+            updated.add(assessmentGrid);
+        }
+
+        assessmentGridRepository.saveAll(new LinkedHashSet<>(updated));
+        return mapToResponses(updated);
     }
 
     /**
@@ -454,24 +487,23 @@ public class AssessmentGridService {
     }
 
     /**
-     * Auto-sync assessment grid when assignments change
+     * Create the grid rows of a new assignment for every approved student
      */
     @Transactional
     public void syncAssessmentGridForAssignment(Assignment assignment) {
-        // Get all enrolled students
-        List<CourseEnrollment> enrollments = courseEnrollmentRepository.findByCourseAndStatus(assignment.getCourse(), EnrollmentStatus.APPROVED);
-        
-        for (CourseEnrollment enrollment : enrollments) {
-            AssessmentGrid existing = assessmentGridRepository.findByAssignmentAndStudent(assignment, enrollment.getStudent())
-                    .orElse(null);
+        int created = assessmentGridRepository.insertForAssignment(assignment.getId(), LocalDateTime.now());
+        log.debug("Created {} assessment grid entries for assignment {}", created, assignment.getId());
+    }
 
-            if (existing == null) {
-                createNewAssessmentGridEntry(assignment, enrollment.getStudent());
-            } else {
-                // Update existing assessment grid with latest submission info
-                updateAssessmentGridWithSubmission(existing);
-            }
-        }
+    /**
+     * Create the grid rows of a newly approved student for every assignment of the course
+     */
+    @Transactional
+    public void syncAssessmentGridForEnrollment(CourseEnrollment enrollment) {
+        int created = assessmentGridRepository.insertForStudent(
+                enrollment.getCourse().getId(), enrollment.getStudent().getId(), LocalDateTime.now());
+        log.debug("Created {} assessment grid entries for student {} in course {}", created,
+                enrollment.getStudent().getId(), enrollment.getCourse().getId());
     }
 
     /**
@@ -484,26 +516,7 @@ public class AssessmentGridService {
                 assessmentGrid.getAssignment(), assessmentGrid.getStudent())
                 .orElse(null);
 
-        // Update submission reference
-        assessmentGrid.setSubmission(submission);
-
-        // Check and apply/remove late penalty automatically
-        boolean wasLate = assessmentGrid.getLatePenaltyApplied();
-        boolean isNowLate = (submission != null && submission.getIsLate());
-
-        if (isNowLate && !wasLate) {
-            log.info("Applying automatic late penalty to {} for assignment {}", 
-                    assessmentGrid.getStudent().getName(), assessmentGrid.getAssignment().getTitle());
-            assessmentGrid.setLatePenaltyApplied(true);
-        } else if (!isNowLate && wasLate) {
-            log.info("Removing late penalty from {} for assignment {} (submission no longer late)", 
-                    assessmentGrid.getStudent().getName(), assessmentGrid.getAssignment().getTitle());
-            assessmentGrid.setLatePenaltyApplied(false);
-        }
-
-        // Recalculate final mark with updated penalty status
-        assessmentGrid.calculateFinalMark();
-        assessmentGridRepository.save(assessmentGrid);
+        applySubmission(assessmentGrid, submission);
     }
 
     /**
@@ -511,14 +524,16 @@ public class AssessmentGridService {
      * Call this from StudentSubmissionService when submissions change
      */
     @Transactional  
-    public void onSubmissionUpdated(Assignment assignment, User student) {
-        Optional<AssessmentGrid> assessmentGridOpt = assessmentGridRepository.findByAssignmentAndStudent(assignment, student);
+    public void onSubmissionUpdated(StudentSubmission submission) {
+        Optional<AssessmentGrid> assessmentGridOpt = assessmentGridRepository.findByAssignmentAndStudent(
+                submission.getAssignment(), submission.getStudent());
         
         if (assessmentGridOpt.isPresent()) {
-            updateAssessmentGridWithSubmission(assessmentGridOpt.get());
+            applySubmission(assessmentGridOpt.get(), submission);
         } else {
             // Create new assessment grid entry if it doesn't exist
-            createNewAssessmentGridEntry(assignment, student);
+            assessmentGridRepository.save(
+                    createNewAssessmentGridEntry(submission.getAssignment(), submission.getStudent(), submission));
         }
     }
 
@@ -551,11 +566,86 @@ public class AssessmentGridService {
 
     // Private helper methods
 
+    private record GridKey(Long assignmentId, Long studentId) {
+
+        static GridKey of(AssessmentGridUpdateRequest request) {
+            return new GridKey(request.getAssignmentId(), request.getStudentId());
+        }
+    }
+
+    private void applyUpdate(AssessmentGrid assessmentGrid, AssessmentGridUpdateRequest request, User teacher,
+                             LocalDateTime gradedAt) {
+        // Update fields
+        if (request.getTeacherMark() != null) {
+            assessmentGrid.setTeacherMark(request.getTeacherMark());
+        }
+        if (request.getManualWeight() != null) {
+            assessmentGrid.setManualWeight(request.getManualWeight());
+        }
+        if (request.getGradingNotes() != null) {
+            assessmentGrid.setGradingNotes(request.getGradingNotes());
+        }
+        if (request.getLatePenaltyApplied() != null) {
+            assessmentGrid.setLatePenaltyApplied(request.getLatePenaltyApplied());
+        }
+        if (request.getCopyPenaltyApplied() != null) {
+            assessmentGrid.setCopyPenaltyApplied(request.getCopyPenaltyApplied());
+        }
+
+        assessmentGrid.setGradedBy(teacher);
+        assessmentGrid.setGradedAt(gradedAt);
+        assessmentGrid.setIsProcessed(true);
+
+        // Recalculate final mark
+        assessmentGrid.calculateFinalMark();
+    }
+
+    private void logBulkUpdateError(AssessmentGridUpdateRequest updateRequest, String error) {
+        log.error("Error updating assessment for student {}, assignment {}: {}", 
+                 updateRequest.getStudentId(), updateRequest.getAssignmentId(), error);
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+    private void applySubmission(AssessmentGrid assessmentGrid, StudentSubmission submission) {
+        // Update submission reference
+        assessmentGrid.setSubmission(submission);
+
+        // Check and apply/remove late penalty automatically
+        boolean wasLate = assessmentGrid.getLatePenaltyApplied();
+        boolean isNowLate = (submission != null && submission.getIsLate());
+
+        if (isNowLate && !wasLate) {
+            log.info("Applying automatic late penalty to {} for assignment {}", 
+                    assessmentGrid.getStudent().getName(), assessmentGrid.getAssignment().getTitle());
+            assessmentGrid.setLatePenaltyApplied(true);
+        } else if (!isNowLate && wasLate) {
+            log.info("Removing late penalty from {} for assignment {} (submission no longer late)", 
+                    assessmentGrid.getStudent().getName(), assessmentGrid.getAssignment().getTitle());
+            assessmentGrid.setLatePenaltyApplied(false);
+        }
+
+        // Recalculate final mark with updated penalty status
+        assessmentGrid.calculateFinalMark();
+        assessmentGridRepository.save(assessmentGrid);
+    }
+
     private AssessmentGrid createNewAssessmentGridEntry(Assignment assignment, User student) {
         // Get submission if exists
         StudentSubmission submission = submissionRepository.findByAssignmentAndStudent(assignment, student)
                 .orElse(null);
 
+        return assessmentGridRepository.save(createNewAssessmentGridEntry(assignment, student, submission));
+    }
+
+    // New grid row for the student, with the late penalty flag taken from the submission; not saved
+    private AssessmentGrid createNewAssessmentGridEntry(Assignment assignment, User student, StudentSubmission submission) {
         AssessmentGrid assessmentGrid = AssessmentGrid.builder()
                 .assignment(assignment)
                 .course(assignment.getCourse())
@@ -570,7 +660,7 @@ public class AssessmentGridService {
             assessmentGrid.setLatePenaltyApplied(true);
         }
 
-        return assessmentGridRepository.save(assessmentGrid);
+        return assessmentGrid;
     }
 
     private List<AssessmentGrid> createAssessmentGridForAssignment(Assignment assignment) {
@@ -754,22 +844,46 @@ public class AssessmentGridService {
         return penalizedCount;
     }
 
+    private List<AssessmentGridResponse> mapToResponses(List<AssessmentGrid> assessmentGrids) {
+        // Load the submission files of the whole grid at once
+        List<Long> submissionIds = assessmentGrids.stream()
+                .filter(AssessmentGrid::hasSubmission)
+                .map(assessmentGrid -> assessmentGrid.getSubmission().getId())
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, List<SubmissionFile>> filesBySubmission = new HashMap<>();
+        for (List<Long> chunk : chunks(submissionIds)) {
+            for (SubmissionFile file : submissionFileRepository.findBySubmission_IdInOrderByUploadedAtAsc(chunk)) {
+                filesBySubmission.computeIfAbsent(file.getSubmission().getId(), id -> new ArrayList<>()).add(file);
+            }
+        }
+
+        return assessmentGrids.stream()
+                .map(assessmentGrid -> mapToResponse(assessmentGrid, assessmentGrid.hasSubmission()
+                        ? filesBySubmission.getOrDefault(assessmentGrid.getSubmission().getId(), List.of())
+                        : List.of()))
+                .collect(Collectors.toList());
+    }
+
     private AssessmentGridResponse mapToResponse(AssessmentGrid assessmentGrid) {
         // Get submission files if submission exists
-        List<SubmissionFileResponse> submissionFiles = new ArrayList<>();
-        if (assessmentGrid.getSubmission() != null) {
-            List<SubmissionFile> files = submissionFileRepository.findBySubmissionOrderByUploadedAtAsc(assessmentGrid.getSubmission());
-            submissionFiles = files.stream()
-                    .map(file -> SubmissionFileResponse.builder()
-                            .id(file.getId())
-                            .originalFilename(file.getOriginalFilename())
-                            .fileSize(file.getFileSize())
-                            .contentType(file.getContentType())
-                            .uploadedAt(file.getUploadedAt())
-                            .downloadUrl("/api/submissions/files/" + file.getId() + "/download")
-                            .build())
-                    .collect(Collectors.toList());
-        }
+        List<SubmissionFile> files = assessmentGrid.getSubmission() != null
+                ? submissionFileRepository.findBySubmissionOrderByUploadedAtAsc(assessmentGrid.getSubmission())
+                : List.of();
+        return mapToResponse(assessmentGrid, files);
+    }
+
+    private AssessmentGridResponse mapToResponse(AssessmentGrid assessmentGrid, List<SubmissionFile> files) {
+        List<SubmissionFileResponse> submissionFiles = files.stream()
+                .map(file -> SubmissionFileResponse.builder()
+                        .id(file.getId())
+                        .originalFilename(file.getOriginalFilename())
+                        .fileSize(file.getFileSize())
+                        .contentType(file.getContentType())
+                        .uploadedAt(file.getUploadedAt())
+                        .downloadUrl("/api/submissions/files/" + file.getId() + "/download")
+                        .build())
+                .collect(Collectors.toList());
 
         // Calculate obtained percentage
         Double obtainedPercentage = null;
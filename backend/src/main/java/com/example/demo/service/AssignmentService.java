@@ -25,9 +25,10 @@ public class AssignmentService {
     private final CourseTeacherRepository courseTeacherRepository;
     private final AssignmentFileRepository assignmentFileRepository;
     private final AnnouncementService announcementService;
-    private final NotificationService notificationService;
+    private final NotificationOutboxService notificationOutboxService;
     @Lazy
     private final AssessmentGridService assessmentGridService;
+    private final PlagiarismCorpusService plagiarismCorpusService;
 
     /**
      * Create a new assignment for a course
@@ -81,12 +82,15 @@ public class AssignmentService {
         Assignment savedAssignment = assignmentRepository.save(assignment);
         log.info("Assignment '{}' created successfully with ID: {}", savedAssignment.getTitle(), savedAssignment.getId());
 
+        // Materialize the assessment grid rows for the enrolled students
+        assessmentGridService.syncAssessmentGridForAssignment(savedAssignment);
+
         // Create announcement for the new assignment
         announcementService.createAssignmentAnnouncement(
                 request.getCourseId(), teacherId, savedAssignment.getTitle(), savedAssignment.getId());
 
         // Notify all enrolled students about the new assignment
-        notificationService.createNewAssignmentNotification(course, savedAssignment, teacher);
+        notificationOutboxService.publishNewAssignment(course, savedAssignment, teacher);
 
         return mapToResponse(savedAssignment);
     }
@@ -151,8 +155,8 @@ public class AssignmentService {
 
         // Notify enrolled students about assignment update
         try {
-            notificationService.createAssignmentUpdateNotification(course, updatedAssignment, teacher);
-            log.info("Assignment update notifications sent for assignment: {}", updatedAssignment.getTitle());
+            notificationOutboxService.publishAssignmentUpdated(course, updatedAssignment, teacher);
+            log.info("Assignment update notifications queued for assignment: {}", updatedAssignment.getTitle());
         } catch (Exception e) {
             log.error("Error sending assignment update notifications for assignment {}: {}", updatedAssignment.getTitle(), e.getMessage());
         }
@@ -266,6 +270,9 @@ public class AssignmentService {
             // Continue with deletion even if assessment grid cleanup fails
         }
 
+        // Deleted work no longer shows up as a past match in copy checks
+        plagiarismCorpusService.removeAssignment(assignment.getId());
+
         assignment.setIsActive(false);
         assignmentRepository.save(assignment);
 
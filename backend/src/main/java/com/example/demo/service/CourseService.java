@@ -3,6 +3,7 @@ package com.example.demo.service;
 import com.example.demo.model.*;
 import com.example.demo.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
@@ -32,7 +33,12 @@ public class CourseService {
     private final FacultyFeedbackRepository facultyFeedbackRepo;
     private final AssessmentGridRepository assessmentGridRepo;
     private final MessageRepository messageRepo;
+    private final MessageReactionRepository messageReactionRepo;
+    private final NotificationArchiveRepository notificationArchiveRepo;
+    private final PlagiarismCorpusPostingRepository corpusPostingRepo;
     private final NotificationService notificationService;
+    private final AssessmentGridService assessmentGridService;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ============ BASIC CRUD OPERATIONS ============
     
@@ -87,130 +93,56 @@ public class CourseService {
             // Delete all related entities to avoid foreign key constraint violations
             // Order is important to prevent FK constraint issues
             
-            // 1. Delete all notifications related to this course
-            List<Notification> courseNotifications = notificationRepo.findByRelatedCourse(course);
-            if (!courseNotifications.isEmpty()) {
-                notificationRepo.deleteAll(courseNotifications);
-                notificationRepo.flush(); // Force immediate deletion
-            }
+            // 1. Delete all notifications related to this course (hot and archived), set-based;
+            //    recipients losing unread ones get their badge recounted
+            List<Long> notifiedUserIds = notificationRepo.findUnreadRecipientIdsByCourseId(courseId);
+            notificationRepo.deleteByCourseId(courseId);
+            notificationArchiveRepo.deleteByCourseId(courseId);
+            eventPublisher.publishEvent(new NotificationPushService.NotificationsDeleted(notifiedUserIds));
             
-            // 2. Delete all messages related to this course
-            List<Message> courseMessages = messageRepo.findByRelatedCourse(course);
-            if (!courseMessages.isEmpty()) {
-                messageRepo.deleteAll(courseMessages);
-                messageRepo.flush(); // Force immediate deletion
-            }
+            // 2. Delete all messages related to this course and their reactions, set-based
+            List<Long> messagedUserIds = messageRepo.findUnreadRecipientIdsByRelatedCourseId(courseId);
+            messageReactionRepo.deleteByMessageRelatedCourseId(courseId);
+            messageRepo.deleteByRelatedCourseId(courseId);
+            eventPublisher.publishEvent(new NotificationPushService.MessagesDeleted(messagedUserIds));
         
-            // 3. Delete all discussion data for this course in proper order
-            List<DiscussionThread> discussionThreads = discussionThreadRepo.findByCourse(course);
-            for (DiscussionThread thread : discussionThreads) {
-                // First, delete all post reactions for posts in this thread
-                List<DiscussionPost> allPosts = discussionPostRepo.findByThreadAndIsDeletedFalseOrderByCreatedAtAsc(thread);
-                for (DiscussionPost post : allPosts) {
-                    List<PostReaction> reactions = postReactionRepo.findByPost(post);
-                    if (!reactions.isEmpty()) {
-                        postReactionRepo.deleteAll(reactions);
-                    }
-                }
-                
-                // Then, delete all discussion posts in this thread (including replies)
-                if (!allPosts.isEmpty()) {
-                    discussionPostRepo.deleteAll(allPosts);
-                }
-            }
-            // Finally, delete all discussion threads
-            if (!discussionThreads.isEmpty()) {
-                discussionThreadRepo.deleteAll(discussionThreads);
-                discussionThreadRepo.flush(); // Force immediate deletion
-            }
+            // 3. Delete all discussion data for this course in proper order, set-based
+            postReactionRepo.deleteByCourseId(courseId);
+            discussionPostRepo.clearParentPostsByCourseId(courseId);
+            discussionPostRepo.deleteByCourseId(courseId);
+            discussionThreadRepo.deleteByCourseId(courseId);
             
             // 4. Delete all resources for this course (active and inactive)
-            List<Resource> allCourseResources = resourceRepo.findByCourse(course);
-            if (!allCourseResources.isEmpty()) {
-                resourceRepo.deleteAll(allCourseResources);
-                resourceRepo.flush(); // Force immediate deletion
-            }
+            resourceRepo.deleteByCourseId(courseId);
             
             // 5. Delete all announcements for this course
-            List<Announcement> announcements = announcementRepo.findByCourse(course);
-            if (!announcements.isEmpty()) {
-                announcementRepo.deleteAll(announcements);
-                announcementRepo.flush(); // Force immediate deletion
-            }
+            announcementRepo.deleteByCourseId(courseId);
             
-            // 6. Delete all attendance data for this course
-            List<AttendanceSession> attendanceSessions = attendanceSessionRepo.findByCourseOrderBySessionDateDesc(course);
-            for (AttendanceSession session : attendanceSessions) {
-                // First delete all attendance records for this session
-                List<AttendanceRecord> attendanceRecords = attendanceRecordRepo.findBySessionOrderByStudentNameAsc(session);
-                if (!attendanceRecords.isEmpty()) {
-                    attendanceRecordRepo.deleteAll(attendanceRecords);
-                }
-            }
-            // Then delete all attendance sessions
-            if (!attendanceSessions.isEmpty()) {
-                attendanceSessionRepo.deleteAll(attendanceSessions);
-                attendanceSessionRepo.flush(); // Force immediate deletion
-            }
+            // 6. Delete all attendance data for this course, records before sessions
+            attendanceRecordRepo.deleteByCourseId(courseId);
+            attendanceSessionRepo.deleteByCourseId(courseId);
             
             // 7. Delete all enrollments for this course
-            List<CourseEnrollment> enrollments = enrollmentRepo.findByCourse(course);
-            if (!enrollments.isEmpty()) {
-                enrollmentRepo.deleteAll(enrollments);
-                enrollmentRepo.flush(); // Force immediate deletion
-            }
+            enrollmentRepo.deleteByCourseId(courseId);
             
             // 8. Delete all faculty feedback for this course
             facultyFeedbackRepo.deleteByCourseId(courseId);
             facultyFeedbackRepo.flush(); // Force immediate deletion
+            // Copy checker fingerprints of this course's submissions, set-based
+            corpusPostingRepo.deleteByCourseId(courseId);
             
-            // 9. Delete assignment-related data in correct order
-            List<Assignment> allAssignments = assignmentRepo.findByCourseOrderByCreatedAtDesc(course);
-            for (Assignment assignment : allAssignments) {
-                // First, delete all assessment grid entries for this assignment
-                List<AssessmentGrid> assessmentGrids = assessmentGridRepo.findByAssignment(assignment);
-                if (!assessmentGrids.isEmpty()) {
-                    assessmentGridRepo.deleteAll(assessmentGrids);
-                }
-                
-                // Then, delete all submission files for student submissions of this assignment
-                List<StudentSubmission> submissions = studentSubmissionRepo.findByAssignmentOrderBySubmittedAtAsc(assignment);
-                for (StudentSubmission submission : submissions) {
-                    List<SubmissionFile> submissionFiles = submissionFileRepo.findBySubmissionOrderByUploadedAtAsc(submission);
-                    if (!submissionFiles.isEmpty()) {
-                        submissionFileRepo.deleteAll(submissionFiles);
-                    }
-                }
-                
-                // Then, delete all student submissions for this assignment
-                if (!submissions.isEmpty()) {
-                    studentSubmissionRepo.deleteAll(submissions);
-                }
-                
-                // Next, delete all assignment files for this assignment
-                List<AssignmentFile> assignmentFiles = assignmentFileRepo.findByAssignmentOrderByUploadedAtDesc(assignment);
-                if (!assignmentFiles.isEmpty()) {
-                    assignmentFileRepo.deleteAll(assignmentFiles);
-                }
-            }
+            // 9. Delete assignment-related data in correct order: grid rows, submission files,
+            //    submissions, then assignment files
+            assessmentGridRepo.deleteByCourseId(courseId);
+            submissionFileRepo.deleteByCourseId(courseId);
+            studentSubmissionRepo.deleteByCourseId(courseId);
+            assignmentFileRepo.deleteByCourseId(courseId);
             
             // 10. Now safely delete all assignments
-            if (!allAssignments.isEmpty()) {
-                assignmentRepo.deleteAll(allAssignments);
-                assignmentRepo.flush(); // Force immediate deletion
-            }
+            assignmentRepo.deleteByCourseId(courseId);
             
             // 11. Delete all course-teacher assignments (active and inactive)
-            List<CourseTeacher> activeCourseTeachers = courseTeacherRepo.findByCourseAndActiveTrue(course);
-            List<CourseTeacher> inactiveCourseTeachers = courseTeacherRepo.findByCourseAndActiveFalse(course);
-            if (!activeCourseTeachers.isEmpty()) {
-                courseTeacherRepo.deleteAll(activeCourseTeachers);
-                courseTeacherRepo.flush(); // Force immediate deletion
-            }
-            if (!inactiveCourseTeachers.isEmpty()) {
-                courseTeacherRepo.deleteAll(inactiveCourseTeachers);
-                courseTeacherRepo.flush(); // Force immediate deletion
-            }
+            courseTeacherRepo.deleteByCourseId(courseId);
             
             // 12. Finally, delete the course itself
             courseRepo.delete(course);
@@ -417,6 +349,10 @@ public class CourseService {
         enrollment.setDecisionAt(LocalDateTime.now());
         enrollmentRepo.save(enrollment);
 
+        if (approve) {
+            assessmentGridService.syncAssessmentGridForEnrollment(enrollment);
+        }
+
         // Notify student about enrollment decision
         notificationService.createEnrollmentDecisionNotification(enrollment.getStudent(), enrollment.getCourse(), approve);
 
@@ -459,6 +395,10 @@ public class CourseService {
                 enrollment.setDecisionAt(decisionTime);
                 enrollmentRepo.save(enrollment);
 
+                if (approve) {
+                    assessmentGridService.syncAssessmentGridForEnrollment(enrollment);
+                }
+
                 // Notify student about enrollment decision
                 try {
                     notificationService.createEnrollmentDecisionNotification(
@@ -520,6 +460,7 @@ public class CourseService {
     }
 
     // ADMIN: Clear all courses and related data
+    @Transactional
     public String clearAllCourses() {
         List<Course> allCourses = courseRepo.findAll();
         
@@ -527,74 +468,43 @@ public class CourseService {
             // Delete all related entities for each course
             // Order is important to prevent FK constraint issues
             
-            // 1. Delete all notifications related to this course
-            List<Notification> courseNotifications = notificationRepo.findByRelatedCourse(course);
-            notificationRepo.deleteAll(courseNotifications);
+            // 1. Delete all notifications related to this course (hot and archived), set-based
+            List<Long> notifiedUserIds = notificationRepo.findUnreadRecipientIdsByCourseId(course.getId());
+            notificationRepo.deleteByCourseId(course.getId());
+            notificationArchiveRepo.deleteByCourseId(course.getId());
+            eventPublisher.publishEvent(new NotificationPushService.NotificationsDeleted(notifiedUserIds));
             
-            // 2. Delete all discussion data for this course in proper order
-            List<DiscussionThread> discussionThreads = discussionThreadRepo.findByCourse(course);
-            for (DiscussionThread thread : discussionThreads) {
-                // First, delete all post reactions for posts in this thread
-                List<DiscussionPost> allPosts = discussionPostRepo.findByThreadAndIsDeletedFalseOrderByCreatedAtAsc(thread);
-                for (DiscussionPost post : allPosts) {
-                    List<PostReaction> reactions = postReactionRepo.findByPost(post);
-                    postReactionRepo.deleteAll(reactions);
-                }
-                
-                // Then, delete all discussion posts in this thread (including replies)
-                discussionPostRepo.deleteAll(allPosts);
-            }
-            // Finally, delete all discussion threads
-            discussionThreadRepo.deleteAll(discussionThreads);
+            // 2. Delete all discussion data for this course in proper order, set-based
+            postReactionRepo.deleteByCourseId(course.getId());
+            discussionPostRepo.clearParentPostsByCourseId(course.getId());
+            discussionPostRepo.deleteByCourseId(course.getId());
+            discussionThreadRepo.deleteByCourseId(course.getId());
             
             // 3. Delete all resources for this course (active and inactive)
-            List<Resource> allCourseResources = resourceRepo.findByCourse(course);
-            resourceRepo.deleteAll(allCourseResources);
+            resourceRepo.deleteByCourseId(course.getId());
             
             // 4. Delete all announcements for this course
-            List<Announcement> announcements = announcementRepo.findByCourse(course);
-            announcementRepo.deleteAll(announcements);
+            announcementRepo.deleteByCourseId(course.getId());
             
-            // 5. Delete all attendance data for this course
-            List<AttendanceSession> attendanceSessions = attendanceSessionRepo.findByCourseOrderBySessionDateDesc(course);
-            for (AttendanceSession session : attendanceSessions) {
-                // First delete all attendance records for this session
-                List<AttendanceRecord> attendanceRecords = attendanceRecordRepo.findBySessionOrderByStudentNameAsc(session);
-                attendanceRecordRepo.deleteAll(attendanceRecords);
-            }
-            // Then delete all attendance sessions
-            attendanceSessionRepo.deleteAll(attendanceSessions);
+            // 5. Delete all attendance data for this course, records before sessions
+            attendanceRecordRepo.deleteByCourseId(course.getId());
+            attendanceSessionRepo.deleteByCourseId(course.getId());
             
             // 6. Delete all enrollments for this course
-            List<CourseEnrollment> enrollments = enrollmentRepo.findByCourse(course);
-            enrollmentRepo.deleteAll(enrollments);
+            enrollmentRepo.deleteByCourseId(course.getId());
             
-            // 7. Delete assignment-related data in correct order
-            List<Assignment> allAssignments = assignmentRepo.findByCourseOrderByCreatedAtDesc(course);
-            for (Assignment assignment : allAssignments) {
-                // First, delete all submission files for student submissions of this assignment
-                List<StudentSubmission> submissions = studentSubmissionRepo.findByAssignmentOrderBySubmittedAtAsc(assignment);
-                for (StudentSubmission submission : submissions) {
-                    List<SubmissionFile> submissionFiles = submissionFileRepo.findBySubmissionOrderByUploadedAtAsc(submission);
-                    submissionFileRepo.deleteAll(submissionFiles);
-                }
-                
-                // Then, delete all student submissions for this assignment
-                studentSubmissionRepo.deleteAll(submissions);
-                
-                // Next, delete all assignment files for this assignment
-                List<AssignmentFile> assignmentFiles = assignmentFileRepo.findByAssignmentOrderByUploadedAtDesc(assignment);
-                assignmentFileRepo.deleteAll(assignmentFiles);
-            }
+            // 7. Delete assignment-related data in correct order, starting with copy checker fingerprints
+            corpusPostingRepo.deleteByCourseId(course.getId());
+            assessmentGridRepo.deleteByCourseId(course.getId());
+            submissionFileRepo.deleteByCourseId(course.getId());
+            studentSubmissionRepo.deleteByCourseId(course.getId());
+            assignmentFileRepo.deleteByCourseId(course.getId());
             
             // 8. Now safely delete all assignments
-            assignmentRepo.deleteAll(allAssignments);
+            assignmentRepo.deleteByCourseId(course.getId());
             
             // 9. Delete all course-teacher assignments (active and inactive)
-            List<CourseTeacher> activeCourseTeachers = courseTeacherRepo.findByCourseAndActiveTrue(course);
-            List<CourseTeacher> inactiveCourseTeachers = courseTeacherRepo.findByCourseAndActiveFalse(course);
-            courseTeacherRepo.deleteAll(activeCourseTeachers);
-            courseTeacherRepo.deleteAll(inactiveCourseTeachers);
+            courseTeacherRepo.deleteByCourseId(course.getId());
         }
         
         // 10. Finally, delete all courses
@@ -29,6 +29,7 @@ public class DiscussionService {
     private final CourseTeacherRepository courseTeacherRepository;
     private final CourseEnrollmentRepository enrollmentRepository;
     private final NotificationService notificationService;
+    private final NotificationOutboxService notificationOutboxService;
     private final AnnouncementService announcementService;
 
     /**
@@ -111,8 +112,8 @@ public class DiscussionService {
 
         // Send notifications to enrolled students
         try {
-            notificationService.createNewDiscussionThreadNotification(course, savedThread, teacher);
-            log.info("Notifications sent for new discussion thread '{}'", savedThread.getTitle());
+            notificationOutboxService.publishNewDiscussionThread(course, savedThread, teacher);
+            log.info("Notifications queued for new discussion thread '{}'", savedThread.getTitle());
         } catch (Exception e) {
             log.warn("Failed to send notifications for new discussion thread '{}': {}", savedThread.getTitle(), e.getMessage());
         }
@@ -3,15 +3,24 @@ package com.example.demo.service;
 import com.example.demo.dto.MessageCreateRequest;
 import com.example.demo.dto.MessageResponse;
 import com.example.demo.dto.ConversationResponse;
+import com.example.demo.dto.UserDirectoryResponse;
 import com.example.demo.model.*;
 import com.example.demo.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,6 +31,21 @@ public class MessageService {
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
     private final MessageReactionRepository messageReactionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UnreadCountCache unreadCountCache;
+    private final UserDirectoryService userDirectoryService;
+
+    private static final int MAX_CONVERSATION_PAGE_SIZE = 100;
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+    private static final int MAX_DIRECTORY_PAGE_SIZE = 100;
+    private static final int REACTION_VERSION_STRIPES = 1024;
+
+    @Value("${app.messages.reactions.etag-max-age-seconds:60}")
+    private long reactionETagMaxAgeSeconds;
+
+    // Reaction change counters per message id stripe; bulk reaction ETags are derived from them
+    private final AtomicLongArray reactionVersions = new AtomicLongArray(REACTION_VERSION_STRIPES);
+    private final long reactionEpoch = ThreadLocalRandom.current().nextLong();
 
     @Transactional
     public MessageResponse sendMessage(MessageCreateRequest request, Long senderId) {
@@ -63,7 +87,9 @@ public class MessageService {
         Message message = messageBuilder.build();
 
         Message savedMessage = messageRepository.save(message);
-        return convertToMessageResponse(savedMessage);
+        MessageResponse response = convertToMessageResponse(savedMessage);
+        eventPublisher.publishEvent(new NotificationPushService.MessageSent(recipient.getId(), response));
+        return response;
     }
 
     public List<ConversationResponse> getConversations(Long userId) {
@@ -75,44 +101,37 @@ public class MessageService {
             return new ArrayList<>();
         }
 
-        List<Message> messages = messageRepository.findAllMessagesForUser(user);
-        
-        // Group by conversation partner and get the latest message for each
+        // Partner, latest message and unread count for every conversation in one query
         List<ConversationResponse> conversations = new ArrayList<>();
-        
-        for (Message message : messages) {
-            User partner = message.getSender().getId().equals(userId) ? 
-                    message.getRecipient() : message.getSender();
-            
-            // Skip if already have conversation with this partner
-            if (conversations.stream().anyMatch(c -> c.getUserId().equals(partner.getId()))) {
-                continue;
-            }
-            
-            // Get unread count from this specific partner to the current user
-            long unreadCount = messageRepository.countUnreadMessagesFromSender(partner, user);
-            
+        for (MessageRepository.ConversationSummary summary : messageRepository.findConversationSummaries(userId)) {
             // Use display names for privacy protection
-            String displayName = (partner.getStatus() == UserStatus.ACTIVE) ? 
-                    partner.getName() : "disabled user";
-            String displayEmail = (partner.getStatus() == UserStatus.ACTIVE) ? 
-                    partner.getEmail() : "disabled@user.com";
+            String displayName = (summary.getPartnerStatus() == UserStatus.ACTIVE) ? 
+                    summary.getPartnerName() : "disabled user";
+            String displayEmail = (summary.getPartnerStatus() == UserStatus.ACTIVE) ? 
+                    summary.getPartnerEmail() : "disabled@user.com";
 
-            ConversationResponse conversation = new ConversationResponse(
-                    partner.getId(),
+            conversations.add(new ConversationResponse(
+                    summary.getPartnerId(),
                     displayName,
                     displayEmail,
-                    partner.getRole().toString(),
-                    message.getContent(),
-                    message.getCreatedAt(),
-                    (int) unreadCount
-            );
-
-            conversations.add(conversation);
+                    summary.getPartnerRole().toString(),
+                    summary.getLastMessage(),
+                    summary.getLastMessageTime(),
+                    summary.getUnreadCount() != null ? summary.getUnreadCount() : 0
+            ));
         }
 
         return conversations;
-    }    public List<MessageResponse> getConversation(Long userId, Long otherUserId) {
+    }
+
+    /**
+     * One page of a conversation in chronological order, marking the user's unread messages from
+     * the other user as read. Without a cursor the latest messages are returned; {@code beforeId}
+     * pages back through older history and {@code afterId} returns only messages newer than the
+     * last one the client has.
+     */
+    @Transactional
+    public List<MessageResponse> getConversation(Long userId, Long otherUserId, Long beforeId, Long afterId, int size) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         User otherUser = userRepository.findById(otherUserId)
@@ -122,36 +141,21 @@ public class MessageService {
             throw new RuntimeException("Users cannot message each other");
         }
 
-        List<Message> messages = messageRepository.findConversationBetweenUsers(user, otherUser);
-        
         // Mark messages as read
-        List<Message> unreadMessages = messages.stream()
-                .filter(m -> m.getRecipient().getId().equals(userId) && !m.getIsRead())
-                .collect(Collectors.toList());
-        
-        for (Message message : unreadMessages) {
-            message.setIsRead(true);
-        }
-        
-        if (!unreadMessages.isEmpty()) {
-            messageRepository.saveAll(unreadMessages);
+        if (messageRepository.markConversationRead(userId, otherUserId, LocalDateTime.now()) > 0) {
+            eventPublisher.publishEvent(new NotificationPushService.MessagesRead(userId));
         }
 
-        return messages.stream()
+        return loadConversationPage(userId, otherUserId, beforeId, afterId, size).stream()
                 .map(this::convertToMessageResponse)
                 .collect(Collectors.toList());
     }
 
-    // Overloaded method for pagination (even though we don't implement pagination yet)
-    public List<MessageResponse> getConversation(Long userId, Long otherUserId, int page, int size) {
-        // For now, just call the non-paginated version
-        return getConversation(userId, otherUserId);
-    }
-
     /**
      * Get conversation without marking messages as read (for quiet polling)
      */
-    public List<MessageResponse> getConversationQuiet(Long userId, Long otherUserId, int page, int size) {
+    @Transactional(readOnly = true)
+    public List<MessageResponse> getConversationQuiet(Long userId, Long otherUserId, Long beforeId, Long afterId, int size) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         User otherUser = userRepository.findById(otherUserId)
@@ -161,15 +165,36 @@ public class MessageService {
             throw new RuntimeException("Users cannot message each other");
         }
 
-        List<Message> messages = messageRepository.findConversationBetweenUsers(user, otherUser);
-        
         // DON'T mark messages as read - this is for quiet polling
         
-        return messages.stream()
+        return loadConversationPage(userId, otherUserId, beforeId, afterId, size).stream()
                 .map(this::convertToMessageResponse)
                 .collect(Collectors.toList());
     }
 
+    // Keyset page over message ids, which follow creation order. Each direction of the conversation
+    // is read from its own index range with the limit applied, and the two are merged here.
+    // Ids come from an identity column and are taken at insert, not at commit: a message can become
+    // visible after one with a higher id, so an afterId page may miss it. Clients reload the latest
+    // page periodically (without afterId) to catch such messages and to drop deleted ones.
+    private List<Message> loadConversationPage(Long userId, Long otherUserId, Long beforeId, Long afterId, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_CONVERSATION_PAGE_SIZE));
+        PageRequest page = PageRequest.of(0, limit);
+        List<Message> messages = new ArrayList<>();
+        if (afterId != null) {
+            messages.addAll(messageRepository.findDirectedAfter(userId, otherUserId, afterId, page));
+            messages.addAll(messageRepository.findDirectedAfter(otherUserId, userId, afterId, page));
+            messages.sort(Comparator.comparing(Message::getId));
+            return messages.size() > limit ? new ArrayList<>(messages.subList(0, limit)) : messages;
+        }
+
+        long before = beforeId != null ? beforeId : Long.MAX_VALUE;
+        messages.addAll(messageRepository.findDirectedBefore(userId, otherUserId, before, page));
+        messages.addAll(messageRepository.findDirectedBefore(otherUserId, userId, before, page));
+        messages.sort(Comparator.comparing(Message::getId));
+        return messages.size() > limit ? new ArrayList<>(messages.subList(messages.size() - limit, messages.size())) : messages;
+    }
+
     public void markAsRead(Long messageId, Long userId) {
         Message message = messageRepository.findById(messageId)
                 .orElseThrow(() -> new RuntimeException("Message not found"));
@@ -182,52 +207,31 @@ public class MessageService {
         message.setIsRead(true);
         message.setReadAt(LocalDateTime.now());
         messageRepository.save(message);
+        eventPublisher.publishEvent(new NotificationPushService.MessagesRead(userId));
     }
 
     @Transactional
-    public void markConversationAsRead(Long userId, Long senderId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        User sender = userRepository.findById(senderId)
-                .orElseThrow(() -> new RuntimeException("Sender not found"));
-        
+    public int markConversationAsRead(Long userId, Long senderId) {
         // Mark all unread messages from the sender to the user as read
-        List<Message> unreadMessages = messageRepository.findBySenderAndRecipientAndIsReadFalse(sender, user);
-        
-        LocalDateTime now = LocalDateTime.now();
-        for (Message message : unreadMessages) {
-            message.setIsRead(true);
-            message.setReadAt(now);
-        }
-        
-        if (!unreadMessages.isEmpty()) {
-            messageRepository.saveAll(unreadMessages);
+        int updated = messageRepository.markConversationRead(userId, senderId, LocalDateTime.now());
+        if (updated > 0) {
+            eventPublisher.publishEvent(new NotificationPushService.MessagesRead(userId));
         }
+        return updated;
     }
 
     @Transactional
-    public void markAllMessagesAsSeen(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
+    public int markAllMessagesAsSeen(Long userId) {
         // Mark all unread messages for this user as read
-        List<Message> unreadMessages = messageRepository.findByRecipientAndIsReadFalse(user);
-        
-        LocalDateTime now = LocalDateTime.now();
-        for (Message message : unreadMessages) {
-            message.setIsRead(true);
-            message.setReadAt(now);
-        }
-        
-        if (!unreadMessages.isEmpty()) {
-            messageRepository.saveAll(unreadMessages);
+        int updated = messageRepository.markAllRead(userId, LocalDateTime.now());
+        if (updated > 0) {
+            eventPublisher.publishEvent(new NotificationPushService.MessagesRead(userId));
         }
+        return updated;
     }
 
     public Long getUnreadCount(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return messageRepository.countUnreadMessagesForUser(user);
+        return unreadCountCache.getMessageCount(userId, () -> messageRepository.countByRecipientIdAndIsReadFalse(userId));
     }
 
     /**
@@ -235,14 +239,9 @@ public class MessageService {
      * Returns all ACTIVE users except the current user
      */
     public List<User> getAvailableUsers(Long userId) {
-        log.info("Getting available users for user ID: {}", userId);
-        
         User currentUser = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        log.info("Current user: {} with role: {} and status: {}", 
-            currentUser.getName(), currentUser.getRole(), currentUser.getStatus());
-
         // Only ACTIVE users can use messaging
         if (currentUser.getStatus() != UserStatus.ACTIVE) {
             log.warn("User {} is not ACTIVE, cannot access messaging", currentUser.getName());
@@ -251,15 +250,27 @@ public class MessageService {
 
         // Get all ACTIVE users except the current user
         List<User> availableUsers = userRepository.findByStatusAndIdNot(UserStatus.ACTIVE, userId);
-        
-        log.info("Found {} available users", availableUsers.size());
-        for (User user : availableUsers) {
-            log.info("Available user: {} ({}) - Status: {}", user.getName(), user.getRole(), user.getStatus());
-        }
-        
+        log.debug("Found {} available users for user {}", availableUsers.size(), userId);
         return availableUsers;
     }
 
+    /**
+     * Page of the messaging directory: ACTIVE users other than the caller, optionally filtered
+     * by a name, name-word, email or role prefix. Served from the in-memory directory.
+     */
+    public UserDirectoryResponse getUserDirectory(Long userId, String query, int offset, int size) {
+        User currentUser = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        // Only ACTIVE users can use messaging
+        if (currentUser.getStatus() != UserStatus.ACTIVE) {
+            return UserDirectoryResponse.builder().users(new ArrayList<>()).build();
+        }
+
+        int limit = Math.max(1, Math.min(size, MAX_DIRECTORY_PAGE_SIZE));
+        return userDirectoryService.search(query, userId, Math.max(0, offset), limit);
+    }
+
     /**
      * Check if two users can message each other - SIMPLIFIED VERSION
      * All ACTIVE users can message each other
@@ -329,6 +340,9 @@ public class MessageService {
         }
         
         messageRepository.delete(message);
+        if (!Boolean.TRUE.equals(message.getIsRead())) {
+            eventPublisher.publishEvent(new NotificationPushService.MessagesDeleted(List.of(message.getRecipient().getId())));
+        }
         log.info("Message {} deleted by user {}", messageId, userId);
     }
 
@@ -345,6 +359,13 @@ public class MessageService {
         }
         
         messageRepository.deleteAll(messages);
+        Set<Long> unreadRecipientIds = messages.stream()
+                .filter(message -> !Boolean.TRUE.equals(message.getIsRead()))
+                .map(message -> message.getRecipient().getId())
+                .collect(Collectors.toSet());
+        if (!unreadRecipientIds.isEmpty()) {
+            eventPublisher.publishEvent(new NotificationPushService.MessagesDeleted(unreadRecipientIds));
+        }
         log.info("Deleted {} messages for user {}", messageIds.size(), userId);
     }
 
@@ -372,67 +393,95 @@ public class MessageService {
             messageReactionRepository.save(reaction);
         }
 
+        publishReactionChange(message);
         return getMessageReactions(messageId);
     }
 
     @Transactional
     public Map<String, Object> removeReaction(Long messageId, Long userId, String emoji) {
         messageReactionRepository.deleteByMessageIdAndUserIdAndEmoji(messageId, userId, emoji);
+        messageRepository.findById(messageId).ifPresent(this::publishReactionChange);
         return getMessageReactions(messageId);
     }
 
+    // Both participants may have the conversation open
+    private void publishReactionChange(Message message) {
+        eventPublisher.publishEvent(new NotificationPushService.MessageReactionChanged(
+                List.of(message.getSender().getId(), message.getRecipient().getId()), message.getId()));
+    }
+
     public Map<String, Object> getMessageReactions(Long messageId) {
-        List<MessageReaction> reactions = messageReactionRepository.findByMessageId(messageId);
         Map<String, Object> result = new HashMap<>();
         
         // Group reactions by emoji
-        Map<String, List<MessageReaction>> groupedReactions = reactions.stream()
-                .collect(Collectors.groupingBy(MessageReaction::getEmoji));
-        
-        for (Map.Entry<String, List<MessageReaction>> entry : groupedReactions.entrySet()) {
-            String emoji = entry.getKey();
-            List<MessageReaction> emojiReactions = entry.getValue();
-            
+        for (Map<String, Object> reaction : getBulkMessageReactions(List.of(messageId)).get(messageId)) {
             Map<String, Object> emojiData = new HashMap<>();
-            emojiData.put("count", emojiReactions.size());
-            emojiData.put("users", emojiReactions.stream()
-                    .map(r -> r.getUser().getName())
-                    .collect(Collectors.toList()));
-            
-            result.put(emoji, emojiData);
+            emojiData.put("count", reaction.get("count"));
+            emojiData.put("users", reaction.get("users"));
+            result.put((String) reaction.get("emoji"), emojiData);
         }
         
         return result;
     }
 
-    public Map<Long, List<Map<String, Object>>> getBulkMessageReactions(List<Long> messageIds) {
+    /**
+     * Reactions of the given messages grouped by emoji, read with one IN query per chunk of ids.
+     * Every requested id is present in the result, with an empty list when it has no reactions.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<Map<String, Object>>> getBulkMessageReactions(Collection<Long> messageIds) {
+        List<Long> ids = messageIds.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        Map<Long, Map<String, List<String>>> usersByEmoji = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, ids.size()));
+            for (MessageReactionRepository.ReactionRow row : messageReactionRepository.findReactionRows(chunk)) {
+                usersByEmoji.computeIfAbsent(row.getMessageId(), id -> new LinkedHashMap<>())
+                        .computeIfAbsent(row.getEmoji(), emoji -> new ArrayList<>())
+                        .add(row.getUserName());
+            }
+        }
+
         Map<Long, List<Map<String, Object>>> result = new HashMap<>();
-        
-        for (Long messageId : messageIds) {
-            List<MessageReaction> reactions = messageReactionRepository.findByMessageId(messageId);
+        for (Long messageId : ids) {
             List<Map<String, Object>> messageReactions = new ArrayList<>();
-            
-            // Group reactions by emoji for this message
-            Map<String, List<MessageReaction>> groupedReactions = reactions.stream()
-                    .collect(Collectors.groupingBy(MessageReaction::getEmoji));
-            
-            for (Map.Entry<String, List<MessageReaction>> entry : groupedReactions.entrySet()) {
-                String emoji = entry.getKey();
-                List<MessageReaction> emojiReactions = entry.getValue();
-                
+            usersByEmoji.getOrDefault(messageId, Map.of()).forEach((emoji, users) -> {
                 Map<String, Object> reactionData = new HashMap<>();
                 reactionData.put("emoji", emoji);
-                reactionData.put("count", emojiReactions.size());
-                reactionData.put("users", emojiReactions.stream()
-                        .map(r -> r.getUser().getName())
-                        .collect(Collectors.toList()));
-                
+                reactionData.put("count", users.size());
+                reactionData.put("users", users);
                 messageReactions.add(reactionData);
-            }
-            
+            });
             result.put(messageId, messageReactions);
         }
         
         return result;
     }
+
+    /**
+     * Version token of the reactions of the given messages, computed without a query. It changes
+     * once any of the messages' reactions change on this node; changes made on another node are
+     * picked up when the token's max-age window rolls over.
+     */
+    public String getReactionsETag(Collection<Long> messageIds) {
+        long hash = reactionEpoch;
+        if (reactionETagMaxAgeSeconds > 0) {
+            hash = 31 * hash + System.currentTimeMillis() / (reactionETagMaxAgeSeconds * 1000L);
+        }
+        for (Long messageId : new TreeSet<>(messageIds)) {
+            hash = 31 * hash + messageId;
+            hash = 31 * hash + reactionVersions.get(reactionStripe(messageId));
+        }
+        return "\"r" + Long.toHexString(hash) + "\"";
+    }
+
+    // Bumped after commit and before the push listeners, so clients told to refetch never get a stale 304
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageReactionChanged(NotificationPushService.MessageReactionChanged event) {
+        reactionVersions.incrementAndGet(reactionStripe(event.messageId()));
+    }
+
+    private static int reactionStripe(Long messageId) {
+        return (int) Math.floorMod(messageId, (long) REACTION_VERSION_STRIPES);
+    }
 }
@@ -0,0 +1,211 @@
+package com.example.demo.service;
+
+import com.example.demo.model.*;
+import com.example.demo.model.NotificationOutboxEvent.EventType;
+import com.example.demo.repository.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Transactional outbox for course-wide notifications.
+ *
+ * Teacher actions only record an event row in their own transaction, so the request costs the
+ * same whatever the class size. A scheduled dispatcher claims due events (skipping rows locked
+ * by other nodes), expands each into per-student notifications in its own transaction and
+ * retries failures with exponential backoff. Each poll handles at most {@code batch-size} events,
+ * so a burst of teacher activity queues up in the table instead of flooding the database.
+ */
+@Service
+@Slf4j
+public class NotificationOutboxService {
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationService notificationService;
+    private final CourseRepository courseRepository;
+    private final UserRepository userRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final ResourceRepository resourceRepository;
+    private final DiscussionThreadRepository threadRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.notifications.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.notifications.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.notifications.outbox.initial-backoff-seconds:5}")
+    private long initialBackoffSeconds;
+
+    @Value("${app.notifications.outbox.max-backoff-seconds:1800}")
+    private long maxBackoffSeconds;
+
+    @Value("${app.notifications.outbox.retention-days:7}")
+    private long retentionDays;
+
+    public NotificationOutboxService(NotificationOutboxRepository outboxRepository,
+                                     NotificationService notificationService,
+                                     CourseRepository courseRepository,
+                                     UserRepository userRepository,
+                                     AssignmentRepository assignmentRepository,
+                                     ResourceRepository resourceRepository,
+                                     DiscussionThreadRepository threadRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.outboxRepository = outboxRepository;
+        this.notificationService = notificationService;
+        this.courseRepository = courseRepository;
+        this.userRepository = userRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.resourceRepository = resourceRepository;
+        this.threadRepository = threadRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Publishing joins the caller's transaction: the event exists only if the teacher action commits
+
+    @Transactional
+    public void publishNewAssignment(Course course, Assignment assignment, User teacher) {
+        publish(EventType.NEW_ASSIGNMENT, course, teacher.getId(), assignment.getId(), null, null);
+    }
+
+    @Transactional
+    public void publishAssignmentUpdated(Course course, Assignment assignment, User teacher) {
+        publish(EventType.ASSIGNMENT_UPDATED, course, teacher.getId(), assignment.getId(), null, null);
+    }
+
+    @Transactional
+    public void publishNewResource(Course course, Resource resource, Long teacherId) {
+        publish(EventType.NEW_RESOURCE, course, teacherId, null, resource.getId(), null);
+    }
+
+    @Transactional
+    public void publishResourceUpdated(Course course, Resource resource, Long teacherId) {
+        publish(EventType.RESOURCE_UPDATED, course, teacherId, null, resource.getId(), null);
+    }
+
+    @Transactional
+    public void publishNewDiscussionThread(Course course, DiscussionThread thread, User teacher) {
+        publish(EventType.NEW_DISCUSSION_THREAD, course, teacher.getId(), null, null, thread.getId());
+    }
+
+    private void publish(EventType type, Course course, Long actorId, Long assignmentId, Long resourceId, Long threadId) {
+        NotificationOutboxEvent event = NotificationOutboxEvent.builder()
+                .eventType(type)
+                .courseId(course.getId())
+                .actorId(actorId)
+                .assignmentId(assignmentId)
+                .resourceId(resourceId)
+                .threadId(threadId)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+        outboxRepository.save(event);
+        log.debug("Queued {} notification event for course {}", type, course.getCourseCode());
+    }
+
+    /**
+     * Deliver due events, at most {@code batch-size} per poll.
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.outbox.poll-interval-ms:1000}")
+    public void dispatchPending() {
+        int delivered = 0;
+        for (int claimedCount = 0; claimedCount < batchSize; claimedCount++) {
+            Long[] claimed = new Long[1];
+            try {
+                Boolean processed = transactionTemplate.execute(status -> {
+                    var due = outboxRepository.claimDue(LocalDateTime.now(), PageRequest.of(0, 1));
+                    if (due.isEmpty()) {
+                        return false;
+                    }
+                    NotificationOutboxEvent event = due.get(0);
+                    claimed[0] = event.getId();
+                    deliver(event);
+                    event.setAttempts(event.getAttempts() + 1);
+                    event.setStatus(NotificationOutboxEvent.Status.DELIVERED);
+                    event.setProcessedAt(LocalDateTime.now());
+                    event.setLastError(null);
+                    return true;
+                });
+                if (!Boolean.TRUE.equals(processed)) {
+                    break;
+                }
+                delivered++;
+            } catch (RuntimeException e) {
+                if (claimed[0] == null) {
+                    log.error("Failed to poll the notification outbox: {}", e.getMessage());
+                    break;
+                }
+                recordFailure(claimed[0], e);
+            }
+        }
+        if (delivered > 0) {
+            log.debug("Delivered {} notification outbox events", delivered);
+        }
+    }
+
+    /**
+     * Delete delivered events older than the retention period. Failed events are kept for inspection.
+     */
+    @Scheduled(cron = "${app.notifications.outbox.purge-cron:0 15 3 * * *}")
+    public void purgeDeliveredEvents() {
+        int deleted = outboxRepository.deleteDeliveredBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            log.info("Purged {} delivered notification outbox events older than {} days", deleted, retentionDays);
+        }
+    }
+
+    // Expand one event into notifications; entities deleted since publishing are skipped
+    private void deliver(NotificationOutboxEvent event) {
+        Course course = courseRepository.findById(event.getCourseId()).orElse(null);
+        User teacher = event.getActorId() != null ? userRepository.findById(event.getActorId()).orElse(null) : null;
+        if (course == null || teacher == null) {
+            log.warn("Skipping notification event {}: course or teacher no longer exists", event.getId());
+            return;
+        }
+
+        switch (event.getEventType()) {
+            case NEW_ASSIGNMENT -> assignmentRepository.findById(event.getAssignmentId())
+                    .ifPresent(assignment -> notificationService.createNewAssignmentNotification(course, assignment, teacher));
+            case ASSIGNMENT_UPDATED -> assignmentRepository.findById(event.getAssignmentId())
+                    .ifPresent(assignment -> notificationService.createAssignmentUpdateNotification(course, assignment, teacher));
+            case NEW_RESOURCE -> resourceRepository.findById(event.getResourceId())
+                    .ifPresent(resource -> notificationService.createNewResourceNotification(course, resource, teacher));
+            case RESOURCE_UPDATED -> resourceRepository.findById(event.getResourceId())
+                    .ifPresent(resource -> notificationService.createResourceUpdateNotification(course, resource, teacher));
+            case NEW_DISCUSSION_THREAD -> threadRepository.findById(event.getThreadId())
+                    .ifPresent(thread -> notificationService.createNewDiscussionThreadNotification(course, thread, teacher));
+        }
+    }
+
+    private void recordFailure(Long eventId, RuntimeException error) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.findById(eventId).ifPresent(event -> {
+                int attempts = event.getAttempts() + 1;
+                event.setAttempts(attempts);
+                event.setLastError(error.getMessage());
+                if (attempts >= maxAttempts) {
+                    event.setStatus(NotificationOutboxEvent.Status.FAILED);
+                    event.setProcessedAt(LocalDateTime.now());
+                    log.error("Giving up on notification event {} after {} attempts: {}", eventId, attempts, error.getMessage());
+                } else {
+                    event.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoffSeconds(attempts)));
+                    log.warn("Notification event {} failed (attempt {}), retrying later: {}", eventId, attempts, error.getMessage());
+                }
+            }));
+        } catch (RuntimeException e) {
+            log.error("Failed to record failure of notification event {}: {}", eventId, e.getMessage());
+        }
+    }
+
+    long backoffSeconds(int attempts) {
+        long delay = initialBackoffSeconds << Math.min(attempts - 1, 20);
+        return Math.min(delay, maxBackoffSeconds);
+    }
+}
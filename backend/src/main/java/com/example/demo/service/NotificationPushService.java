@@ -0,0 +1,278 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.MessageResponse;
+import com.example.demo.model.Notification;
+import com.example.demo.model.NotificationResponse;
+import com.example.demo.repository.CourseEnrollmentRepository;
+import com.example.demo.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent event channel for notifications and messages.
+ *
+ * Keeps a per-node registry of open streams keyed by user. Services publish the events below
+ * and they are pushed once the surrounding transaction commits, so clients never see data that
+ * was rolled back. A new stream starts with unread-count snapshots, which also resynchronizes
+ * clients after a reconnect; afterwards only deltas and new items are sent. Streams on other
+ * nodes do not receive events, so clients keep a slow fallback poll.
+ */
+@Service
+@Slf4j
+public class NotificationPushService {
+
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    private final NotificationService notificationService;
+    private final MessageService messageService;
+    private final CourseEnrollmentRepository enrollmentRepository;
+    private final UserRepository userRepository;
+
+    @Value("${app.notifications.push.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.notifications.push.max-connections:5000}")
+    private int maxConnections;
+
+    @Value("${app.notifications.push.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    public NotificationPushService(NotificationService notificationService, MessageService messageService,
+                                   CourseEnrollmentRepository enrollmentRepository, UserRepository userRepository) {
+        this.notificationService = notificationService;
+        this.messageService = messageService;
+        this.enrollmentRepository = enrollmentRepository;
+        this.userRepository = userRepository;
+    }
+
+    // Events published by services; delivered after commit
+
+    public record NotificationCreated(Long recipientId, NotificationResponse notification) {
+    }
+
+    // An unread notification rewritten in place, e.g. when an event was coalesced into it; unread counts are unchanged
+    public record NotificationUpdated(Long recipientId, NotificationResponse notification) {
+    }
+
+    // Notifications fanned out with one statement; recipients are resolved among connected users only
+    public record CourseNotificationsCreated(Long courseId, Notification.NotificationType type, String title,
+                                             String message, String redirectUrl) {
+    }
+
+    public record StudentNotificationsCreated(Notification.NotificationType type, String title, String message,
+                                              String redirectUrl) {
+    }
+
+    public record NotificationsRead(Long userId) {
+    }
+
+    public record MessageSent(Long recipientId, MessageResponse message) {
+    }
+
+    public record MessagesRead(Long userId) {
+    }
+
+    public record MessageReactionChanged(Collection<Long> userIds, Long messageId) {
+    }
+
+    // Unread items removed outright (message or course deletion); affected users get a fresh count
+    public record NotificationsDeleted(Collection<Long> userIds) {
+    }
+
+    public record MessagesDeleted(Collection<Long> userIds) {
+    }
+
+    /**
+     * Open a stream for the user. Throws when the node is at its connection limit; a
+     * user over the per-user limit loses the oldest stream.
+     */
+    public SseEmitter subscribe(Long userId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new RuntimeException("Too many open notification streams");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        List<SseEmitter> evicted = new ArrayList<>();
+        subscribers.compute(userId, (id, emitters) -> {
+            List<SseEmitter> list = emitters != null ? emitters : new CopyOnWriteArrayList<>();
+            // Drop the oldest streams, typically tabs that went away without closing
+            while (list.size() >= maxConnectionsPerUser) {
+                evicted.add(list.remove(0));
+                connections.decrementAndGet();
+            }
+            list.add(emitter);
+            return list;
+        });
+        evicted.forEach(SseEmitter::complete);
+        emitter.onCompletion(() -> unregister(userId, emitter));
+        emitter.onTimeout(() -> unregister(userId, emitter));
+        emitter.onError(e -> unregister(userId, emitter));
+
+        send(userId, emitter, "unread-count", Map.of("count", notificationService.getUnreadCount(userId)));
+        send(userId, emitter, "message-unread-count", Map.of("count", messageService.getUnreadCount(userId)));
+        log.debug("Opened notification stream for user {} ({} open on this node)", userId, connections.get());
+        return emitter;
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * Keep idle streams alive through proxies and detect dead connections.
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.push.heartbeat-interval-ms:25000}")
+    public void sendHeartbeats() {
+        subscribers.forEach((userId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    unregister(userId, emitter);
+                }
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationCreated(NotificationCreated event) {
+        pushToUser(event.recipientId(), "notification", Map.of("notification", event.notification(), "delta", 1));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationUpdated(NotificationUpdated event) {
+        pushToUser(event.recipientId(), "notification", Map.of("notification", event.notification(), "delta", 0));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseNotificationsCreated(CourseNotificationsCreated event) {
+        Set<Long> connected = subscribers.keySet();
+        if (connected.isEmpty()) {
+            return;
+        }
+        Map<String, Object> payload = summary(event.type(), event.title(), event.message(), event.redirectUrl());
+        for (List<Long> chunk : chunks(connected)) {
+            for (Long userId : enrollmentRepository.findApprovedActiveStudentIds(event.courseId(), chunk)) {
+                pushToUser(userId, "notification", payload);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStudentNotificationsCreated(StudentNotificationsCreated event) {
+        Set<Long> connected = subscribers.keySet();
+        if (connected.isEmpty()) {
+            return;
+        }
+        Map<String, Object> payload = summary(event.type(), event.title(), event.message(), event.redirectUrl());
+        for (List<Long> chunk : chunks(connected)) {
+            for (Long userId : userRepository.findActiveStudentIdsIn(chunk)) {
+                pushToUser(userId, "notification", payload);
+            }
+        }
+    }
+
+    // Read state changes are rare and user-driven: send a fresh count so every open tab agrees
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationsRead(NotificationsRead event) {
+        if (subscribers.containsKey(event.userId())) {
+            pushToUser(event.userId(), "unread-count", Map.of("count", notificationService.getUnreadCount(event.userId())));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageSent(MessageSent event) {
+        pushToUser(event.recipientId(), "message", Map.of("message", event.message(), "delta", 1));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessagesRead(MessagesRead event) {
+        if (subscribers.containsKey(event.userId())) {
+            pushToUser(event.userId(), "message-unread-count", Map.of("count", messageService.getUnreadCount(event.userId())));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationsDeleted(NotificationsDeleted event) {
+        for (Long userId : event.userIds()) {
+            onNotificationsRead(new NotificationsRead(userId));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessagesDeleted(MessagesDeleted event) {
+        for (Long userId : event.userIds()) {
+            onMessagesRead(new MessagesRead(userId));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageReactionChanged(MessageReactionChanged event) {
+        for (Long userId : event.userIds()) {
+            pushToUser(userId, "message-reaction", Map.of("messageId", event.messageId()));
+        }
+    }
+
+    private void pushToUser(Long userId, String name, Object data) {
+        List<SseEmitter> emitters = subscribers.get(userId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            send(userId, emitter, name, data);
+        }
+    }
+
+    private void send(Long userId, SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping notification stream of user {}: {}", userId, e.getMessage());
+            unregister(userId, emitter);
+        }
+    }
+
+    private void unregister(Long userId, SseEmitter emitter) {
+        subscribers.computeIfPresent(userId, (id, emitters) -> {
+            if (emitters.remove(emitter)) {
+                connections.decrementAndGet();
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    // Bounded IN lists over the connected users
+    private static List<List<Long>> chunks(Set<Long> userIds) {
+        List<Long> ids = List.copyOf(userIds);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+    private static Map<String, Object> summary(Notification.NotificationType type, String title, String message,
+                                               String redirectUrl) {
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("type", type);
+        notification.put("title", title);
+        notification.put("message", message);
+        notification.put("redirectUrl", redirectUrl);
+        notification.put("isRead", false);
+        return Map.of("notification", notification, "delta", 1);
+    }
+}
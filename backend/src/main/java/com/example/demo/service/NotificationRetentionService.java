@@ -0,0 +1,84 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.NotificationArchiveRepository;
+import com.example.demo.repository.NotificationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keeps the notifications table small.
+ *
+ * Notifications read longer ago than the retention age are copied into notification_archive
+ * and deleted from the hot table, a bounded batch per transaction so the job never holds
+ * long locks. Archived rows are deleted after the archive retention period.
+ */
+@Service
+@Slf4j
+public class NotificationRetentionService {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationArchiveRepository archiveRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.notifications.retention.read-days:60}")
+    private long readRetentionDays;
+
+    @Value("${app.notifications.retention.archive-days:365}")
+    private long archiveRetentionDays;
+
+    @Value("${app.notifications.retention.batch-size:1000}")
+    private int batchSize;
+
+    public NotificationRetentionService(NotificationRepository notificationRepository,
+                                        NotificationArchiveRepository archiveRepository,
+                                        PlatformTransactionManager transactionManager) {
+        this.notificationRepository = notificationRepository;
+        this.archiveRepository = archiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Archive read notifications older than the retention age, then purge expired archive rows.
+     */
+    @Scheduled(cron = "${app.notifications.retention.cron:0 45 3 * * *}")
+    public void runRetention() {
+        int archived = archiveReadNotifications(LocalDateTime.now().minusDays(readRetentionDays));
+        Integer purged = transactionTemplate.execute(status ->
+                archiveRepository.deleteArchivedBefore(LocalDateTime.now().minusDays(archiveRetentionDays)));
+        if (archived > 0 || (purged != null && purged > 0)) {
+            log.info("Notification retention: archived {} read notifications, purged {} archived ones", archived, purged);
+        }
+    }
+
+    /**
+     * Move read notifications last read before the cutoff into the archive. Returns how many moved.
+     */
+    public int archiveReadNotifications(LocalDateTime cutoff) {
+        int total = 0;
+        while (true) {
+            Integer moved = transactionTemplate.execute(status -> {
+                List<Long> ids = notificationRepository.findArchivableIds(cutoff, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                archiveRepository.archive(ids, LocalDateTime.now());
+                return notificationRepository.deleteByIdIn(ids);
+            });
+            if (moved == null || moved == 0) {
+                return total;
+            }
+            total += moved;
+            if (moved < batchSize) {
+                return total;
+            }
+        }
+    }
+}
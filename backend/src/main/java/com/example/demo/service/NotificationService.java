@@ -4,11 +4,25 @@ import com.example.demo.model.*;
 import com.example.demo.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,6 +33,20 @@ public class NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UnreadCountCache unreadCountCache;
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final int MAX_FEED_PAGE_SIZE = 100;
+
+    // Notifications sent once per dedup key; a row whose key exists is skipped (update count 0)
+    private static final String INSERT_DEDUPLICATED_SQL = "INSERT INTO notifications (recipient_id, type, title, message, " +
+            "redirect_url, related_course_id, related_assignment_id, related_user_id, dedup_key, aggregate_count, is_read, " +
+            "created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 1, false, ?) ON CONFLICT (dedup_key) DO NOTHING";
+
+    // Reactions, replies and tags on one thread within this window merge into one notification; 0 disables
+    @Value("${app.notifications.coalesce.window-minutes:30}")
+    private long coalesceWindowMinutes;
 
     /**
      * Create a notification for a user
@@ -50,7 +78,7 @@ public class NotificationService {
                 .isRead(false)
                 .build();
 
-        Notification saved = notificationRepository.save(notification);
+        Notification saved = saveAndPublish(notification);
         log.info("Created notification of type {} for user {}: {}", type, recipient.getName(), title);
         
         return mapToResponse(saved);
@@ -69,6 +97,42 @@ public class NotificationService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get one page of a user's notifications, newest first. {@code cursor} is the
+     * {@code nextCursor} of the previous page, or null for the first page.
+     */
+    @Transactional(readOnly = true)
+    public NotificationFeedResponse getNotificationFeed(Long userId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_FEED_PAGE_SIZE));
+        // One extra row tells whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<NotificationRepository.NotificationFeedItem> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = notificationRepository.findFeedPage(userId, limit);
+        } else {
+            FeedCursor after = FeedCursor.decode(cursor);
+            rows = notificationRepository.findFeedPageAfter(userId, after.createdAt(), after.id(), limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<NotificationResponse> notifications = new ArrayList<>(Math.min(rows.size(), pageSize));
+        for (int i = 0; i < Math.min(rows.size(), pageSize); i++) {
+            notifications.add(mapToResponse(rows.get(i)));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            NotificationResponse last = notifications.get(notifications.size() - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return NotificationFeedResponse.builder()
+                .notifications(notifications)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
     /**
      * Get unread notifications for a user
      */
@@ -86,10 +150,8 @@ public class NotificationService {
      * Get unread notification count for a user
      */
     public long getUnreadCount(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        return notificationRepository.countByRecipientAndIsReadFalse(user);
+        return unreadCountCache.getNotificationCount(userId,
+                () -> notificationRepository.countByRecipientIdAndIsReadFalse(userId));
     }
 
     /**
@@ -107,27 +169,21 @@ public class NotificationService {
             notification.setIsRead(true);
             notification.setReadAt(LocalDateTime.now());
             notificationRepository.save(notification);
+            eventPublisher.publishEvent(new NotificationPushService.NotificationsRead(userId));
             log.info("Marked notification {} as read for user {}", notificationId, userId);
         }
     }
 
     /**
-     * Mark all notifications as read for a user
+     * Mark all notifications as read for a user, returning how many were unread
      */
-    public void markAllAsRead(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        List<Notification> unreadNotifications = notificationRepository.findByRecipientAndIsReadFalseOrderByCreatedAtDesc(user);
-        LocalDateTime now = LocalDateTime.now();
-        
-        for (Notification notification : unreadNotifications) {
-            notification.setIsRead(true);
-            notification.setReadAt(now);
+    public int markAllAsRead(Long userId) {
+        int updated = notificationRepository.markAllRead(userId, LocalDateTime.now());
+        if (updated > 0) {
+            eventPublisher.publishEvent(new NotificationPushService.NotificationsRead(userId));
         }
-        
-        notificationRepository.saveAll(unreadNotifications);
-        log.info("Marked {} notifications as read for user {}", unreadNotifications.size(), user.getName());
+        log.info("Marked {} notifications as read for user {}", updated, userId);
+        return updated;
     }
 
     // Specific notification creation methods for different scenarios
@@ -294,16 +350,17 @@ public class NotificationService {
      * Notify post author when someone reacts to their discussion post
      */
     public void notifyDiscussionPostReaction(Long postAuthorId, User reactor, Course course, String threadTitle, Long threadId, String reactionType) {
-        createNotification(
+        createOrCoalesce(
                 postAuthorId,
                 Notification.NotificationType.DISCUSSION_POST_REACTION,
                 "Someone reacted to your post",
                 String.format("%s %s your post in discussion: %s", reactor.getName(), 
                     reactionType.toLowerCase() + "d", threadTitle),
+                "reacted to your post",
                 "/discussions/" + course.getCourseCode() + "/" + threadId,
                 course,
-                null,
                 reactor,
+                threadTitle,
                 threadId
         );
     }
@@ -312,15 +369,16 @@ public class NotificationService {
      * Notify post author when someone replies to their discussion post
      */
     public void notifyDiscussionPostReply(Long originalPostAuthorId, User replier, Course course, String threadTitle, Long threadId) {
-        createNotification(
+        createOrCoalesce(
                 originalPostAuthorId,
                 Notification.NotificationType.DISCUSSION_REPLY,
                 "Someone replied to your post",
                 String.format("%s replied to your post in discussion: %s", replier.getName(), threadTitle),
+                "replied to your post",
                 "/discussions/" + course.getCourseCode() + "/" + threadId,
                 course,
-                null,
                 replier,
+                threadTitle,
                 threadId
         );
     }
@@ -329,15 +387,16 @@ public class NotificationService {
      * Notify user when they are tagged in a discussion post
      */
     public void notifyUserTagged(Long taggedUserId, User tagger, Course course, String threadTitle, Long threadId) {
-        createNotification(
+        createOrCoalesce(
                 taggedUserId,
                 Notification.NotificationType.DISCUSSION_TAG,
                 "You were tagged in a discussion",
                 String.format("%s tagged you in discussion: %s", tagger.getName(), threadTitle),
+                "tagged you",
                 "/discussions/" + course.getCourseCode() + "/" + threadId,
                 course,
-                null,
                 tagger,
+                threadTitle,
                 threadId
         );
     }
@@ -413,6 +472,82 @@ public class NotificationService {
         );
     }
 
+    // Save a new notification and push it to the recipient's open streams after commit
+    private Notification saveAndPublish(Notification notification) {
+        Notification saved = notificationRepository.save(notification);
+        eventPublisher.publishEvent(new NotificationPushService.NotificationCreated(
+                saved.getRecipient().getId(), mapToResponse(saved)));
+        return saved;
+    }
+
+    /**
+     * Create a discussion notification, or merge it into the recipient's unread notification of the
+     * same type and thread created within the coalescing window. The merged notification counts the
+     * distinct actors it absorbed (repeats by any of them are not counted again) and is reworded,
+     * e.g. "12 people reacted to your post"; the unread count does not change.
+     */
+    private void createOrCoalesce(Long recipientId, Notification.NotificationType type, String title, String message,
+                                  String action, String redirectUrl, Course course, User actor, String threadTitle,
+                                  Long threadId) {
+        if (coalesceWindowMinutes > 0 && threadId != null) {
+            List<Notification> open = notificationRepository.findCoalescable(recipientId, threadId, type,
+                    LocalDateTime.now().minusMinutes(coalesceWindowMinutes), PageRequest.of(0, 1));
+            if (!open.isEmpty()) {
+                Notification notification = open.get(0);
+                int count = notification.getAggregateCount() != null ? notification.getAggregateCount() : 1;
+                Set<String> actorIds = aggregateActorIds(notification);
+                if (actorIds.add(String.valueOf(actor.getId()))) {
+                    count++;
+                }
+                notification.setAggregateCount(count);
+                notification.setAggregateActorIds(String.join(",", actorIds));
+                notification.setRelatedUser(actor);
+                if (count > 1) {
+                    notification.setTitle(String.format("%d people %s", count, action));
+                    notification.setMessage(String.format("%s and %d %s %s in discussion: %s", actor.getName(),
+                            count - 1, count == 2 ? "other" : "others", action, threadTitle));
+                } else {
+                    notification.setTitle(title);
+                    notification.setMessage(message);
+                }
+                eventPublisher.publishEvent(new NotificationPushService.NotificationUpdated(
+                        recipientId, mapToResponse(notification)));
+                log.debug("Coalesced {} notification for user {} on thread {} ({} events)", type, recipientId, threadId, count);
+                return;
+            }
+        }
+        createNotification(recipientId, type, title, message, redirectUrl, course, null, actor, threadId);
+    }
+
+    // Actors already merged into the notification; before the first merge only its creator
+    private static Set<String> aggregateActorIds(Notification notification) {
+        Set<String> actorIds = new LinkedHashSet<>();
+        if (notification.getAggregateActorIds() != null) {
+            actorIds.addAll(Arrays.asList(notification.getAggregateActorIds().split(",")));
+        } else if (notification.getRelatedUser() != null) {
+            actorIds.add(String.valueOf(notification.getRelatedUser().getId()));
+        }
+        return actorIds;
+    }
+
+    private int fanOutToCourse(Course course, Notification.NotificationType type, String title, String message,
+                               String redirectUrl, Assignment assignment, Resource resource, User relatedUser,
+                               Long threadId, LocalDateTime createdAt) {
+        int created = notificationRepository.insertForEnrolledStudents(course.getId(), type, title, message, redirectUrl,
+                assignment, resource, relatedUser, threadId, createdAt);
+        eventPublisher.publishEvent(new NotificationPushService.CourseNotificationsCreated(
+                course.getId(), type, title, message, redirectUrl));
+        return created;
+    }
+
+    private int fanOutToActiveStudents(Notification.NotificationType type, String title, String message,
+                                       String redirectUrl, Course course, User relatedUser, LocalDateTime createdAt) {
+        int created = notificationRepository.insertForActiveStudents(type, title, message, redirectUrl, course,
+                relatedUser, createdAt);
+        eventPublisher.publishEvent(new NotificationPushService.StudentNotificationsCreated(type, title, message, redirectUrl));
+        return created;
+    }
+
     /**
      * Map Notification entity to NotificationResponse
      */
@@ -485,7 +620,7 @@ public class NotificationService {
                 .isRead(false)
                 .build();
                 
-        notificationRepository.save(notification);
+        saveAndPublish(notification);
     }
     
     // Enrollment decision notification for students
@@ -513,33 +648,19 @@ public class NotificationService {
                 .isRead(false)
                 .build();
                 
-        notificationRepository.save(notification);
+        saveAndPublish(notification);
     }
     
     // New assignment notification for students
     public void createNewAssignmentNotification(Course course, Assignment assignment, User teacher) {
-        // Get all enrolled students in the course
-        List<User> enrolledStudents = userRepository.findEnrolledStudentsByCourse(course.getId());
-        
-        for (User student : enrolledStudents) {
-            String redirectUrl = String.format("/student/%s", course.getCourseCode());
-            
-            Notification notification = Notification.builder()
-                    .recipient(student)
-                    .type(Notification.NotificationType.NEW_ASSIGNMENT)
-                    .title("New Assignment Posted")
-                    .message(String.format("New assignment '%s' has been posted in %s", 
-                        assignment.getTitle(), course.getTitle()))
-                    .redirectUrl(redirectUrl)
-                    .relatedCourse(course)
-                    .relatedAssignment(assignment)
-                    .relatedUser(teacher)
-                    .createdAt(LocalDateTime.now())
-                    .isRead(false)
-                    .build();
-                    
-            notificationRepository.save(notification);
-        }
+        // One INSERT ... SELECT over the course's enrolled students
+        int created = fanOutToCourse(course,
+                Notification.NotificationType.NEW_ASSIGNMENT,
+                "New Assignment Posted",
+                String.format("New assignment '%s' has been posted in %s", assignment.getTitle(), course.getTitle()),
+                String.format("/student/%s", course.getCourseCode()),
+                assignment, null, teacher, null, LocalDateTime.now());
+        log.info("Created {} new assignment notifications for course {}", created, course.getCourseCode());
     }
 
     // New resource notification for students
@@ -547,39 +668,19 @@ public class NotificationService {
         log.info("Creating resource notifications for course {} (ID: {}) with resource '{}'", 
                 course.getCourseCode(), course.getId(), resource.getTitle());
         
-        // Get all enrolled students in the course
-        List<User> enrolledStudents = userRepository.findEnrolledStudentsByCourse(course.getId());
-        log.info("Found {} enrolled students in course {}", enrolledStudents.size(), course.getCourseCode());
+        // Determine resource type emoji and description
+        String resourceTypeText = getResourceTypeDescription(resource.getResourceType());
+        String resourceEmoji = getResourceTypeEmoji(resource.getResourceType());
         
-        for (User student : enrolledStudents) {
-            String redirectUrl = String.format("/student/%s", course.getCourseCode());
-            
-            // Determine resource type emoji and description
-            String resourceTypeText = getResourceTypeDescription(resource.getResourceType());
-            String resourceEmoji = getResourceTypeEmoji(resource.getResourceType());
-            
-            log.info("Creating notification for student {} about resource '{}'", student.getName(), resource.getTitle());
-            
-            Notification notification = Notification.builder()
-                    .recipient(student)
-                    .type(Notification.NotificationType.NEW_RESOURCE)
-                    .title(resourceEmoji + " New Resource Available")
-                    .message(String.format("New %s '%s' has been uploaded in %s", 
-                        resourceTypeText, resource.getTitle(), course.getTitle()))
-                    .redirectUrl(redirectUrl)
-                    .relatedCourse(course)
-                    .relatedResource(resource)
-                    .relatedUser(teacher)
-                    .createdAt(LocalDateTime.now())
-                    .isRead(false)
-                    .build();
-                    
-            notificationRepository.save(notification);
-            log.info("Notification created successfully for student {}", student.getName());
-        }
+        int created = fanOutToCourse(course,
+                Notification.NotificationType.NEW_RESOURCE,
+                resourceEmoji + " New Resource Available",
+                String.format("New %s '%s' has been uploaded in %s", 
+                    resourceTypeText, resource.getTitle(), course.getTitle()),
+                String.format("/student/%s", course.getCourseCode()),
+                null, resource, teacher, null, LocalDateTime.now());
         
-        log.info("Completed creating {} resource notifications for course {}", 
-                enrolledStudents.size(), course.getCourseCode());
+        log.info("Completed creating {} resource notifications for course {}", created, course.getCourseCode());
     }
 
     // Helper methods for resource notifications
@@ -606,35 +707,15 @@ public class NotificationService {
         log.info("Creating assignment update notifications for course {} (ID: {}) with assignment '{}'", 
                 course.getCourseCode(), course.getId(), assignment.getTitle());
         
-        // Get all enrolled students in the course
-        List<User> enrolledStudents = userRepository.findEnrolledStudentsByCourse(course.getId());
-        log.info("Found {} enrolled students in course {}", enrolledStudents.size(), course.getCourseCode());
+        int created = fanOutToCourse(course,
+                Notification.NotificationType.ASSIGNMENT_UPDATED,
+                "📝 Assignment Updated",
+                String.format("Assignment '%s' has been updated in %s by %s", 
+                    assignment.getTitle(), course.getTitle(), teacher.getName()),
+                String.format("/student/%s", course.getCourseCode()),
+                assignment, null, teacher, null, LocalDateTime.now());
         
-        for (User student : enrolledStudents) {
-            String redirectUrl = String.format("/student/%s", course.getCourseCode());
-            
-            log.info("Creating update notification for student {} about assignment '{}'", student.getName(), assignment.getTitle());
-            
-            Notification notification = Notification.builder()
-                    .recipient(student)
-                    .type(Notification.NotificationType.ASSIGNMENT_UPDATED)
-                    .title("📝 Assignment Updated")
-                    .message(String.format("Assignment '%s' has been updated in %s by %s", 
-                        assignment.getTitle(), course.getTitle(), teacher.getName()))
-                    .redirectUrl(redirectUrl)
-                    .relatedCourse(course)
-                    .relatedAssignment(assignment)
-                    .relatedUser(teacher)
-                    .createdAt(LocalDateTime.now())
-                    .isRead(false)
-                    .build();
-                    
-            notificationRepository.save(notification);
-            log.info("Assignment update notification created successfully for student {}", student.getName());
-        }
-        
-        log.info("Completed creating {} assignment update notifications for course {}", 
-                enrolledStudents.size(), course.getCourseCode());
+        log.info("Completed creating {} assignment update notifications for course {}", created, course.getCourseCode());
     }
 
     // Updated resource notification for students
@@ -642,40 +723,20 @@ public class NotificationService {
         log.info("Creating resource update notifications for course {} (ID: {}) with resource '{}'", 
                 course.getCourseCode(), course.getId(), resource.getTitle());
         
-        // Get all enrolled students in the course
-        List<User> enrolledStudents = userRepository.findEnrolledStudentsByCourse(course.getId());
-        log.info("Found {} enrolled students in course {}", enrolledStudents.size(), course.getCourseCode());
+        // Determine resource type emoji and description
+        String resourceTypeText = getResourceTypeDescription(resource.getResourceType());
+        String resourceEmoji = getResourceTypeEmoji(resource.getResourceType());
         
-        for (User student : enrolledStudents) {
-            String redirectUrl = String.format("/student/%s", course.getCourseCode());
-            
-            // Determine resource type emoji and description
-            String resourceTypeText = getResourceTypeDescription(resource.getResourceType());
-            String resourceEmoji = getResourceTypeEmoji(resource.getResourceType());
-            
-            log.info("Creating update notification for student {} about resource '{}'", student.getName(), resource.getTitle());
-            
-            Notification notification = Notification.builder()
-                    .recipient(student)
-                    .type(Notification.NotificationType.RESOURCE_UPDATED)
-                    .title(resourceEmoji + " Resource Updated")
-                    .message(String.format("%s '%s' has been updated in %s by %s", 
-                        resourceTypeText.substring(0, 1).toUpperCase() + resourceTypeText.substring(1), 
-                        resource.getTitle(), course.getTitle(), teacher.getName()))
-                    .redirectUrl(redirectUrl)
-                    .relatedCourse(course)
-                    .relatedResource(resource)
-                    .relatedUser(teacher)
-                    .createdAt(LocalDateTime.now())
-                    .isRead(false)
-                    .build();
-                    
-            notificationRepository.save(notification);
-            log.info("Resource update notification created successfully for student {}", student.getName());
-        }
+        int created = fanOutToCourse(course,
+                Notification.NotificationType.RESOURCE_UPDATED,
+                resourceEmoji + " Resource Updated",
+                String.format("%s '%s' has been updated in %s by %s", 
+                    resourceTypeText.substring(0, 1).toUpperCase() + resourceTypeText.substring(1), 
+                    resource.getTitle(), course.getTitle(), teacher.getName()),
+                String.format("/student/%s", course.getCourseCode()),
+                null, resource, teacher, null, LocalDateTime.now());
         
-        log.info("Completed creating {} resource update notifications for course {}", 
-                enrolledStudents.size(), course.getCourseCode());
+        log.info("Completed creating {} resource update notifications for course {}", created, course.getCourseCode());
     }
 
     // Wrapper methods for resource notifications (for compatibility with ResourceService)
@@ -696,31 +757,15 @@ public class NotificationService {
         log.info("Creating discussion thread notifications for course {} (ID: {}) with thread '{}'", 
                 course.getCourseCode(), course.getId(), thread.getTitle());
         
-        // Get all enrolled students in the course
-        List<User> enrolledStudents = userRepository.findEnrolledStudentsByCourse(course.getId());
-        log.info("Found {} enrolled students in course {}", enrolledStudents.size(), course.getCourseCode());
+        int created = fanOutToCourse(course,
+                Notification.NotificationType.NEW_DISCUSSION_THREAD,
+                "💬 New Discussion Thread Created",
+                String.format("New discussion thread '%s' has been created in %s by %s", 
+                    thread.getTitle(), course.getTitle(), teacher.getName()),
+                String.format("/student/%s", course.getCourseCode()),
+                null, null, teacher, thread.getId(), LocalDateTime.now());
         
-        for (User student : enrolledStudents) {
-            String redirectUrl = String.format("/student/%s", course.getCourseCode());
-            
-            log.info("Creating notification for student {} about discussion thread '{}'", student.getName(), thread.getTitle());
-            
-            Notification notification = Notification.builder()
-                    .recipient(student)
-                    .type(Notification.NotificationType.NEW_DISCUSSION_THREAD)
-                    .title("💬 New Discussion Thread Created")
-                    .message(String.format("New discussion thread '%s' has been created in %s by %s", 
-                        thread.getTitle(), course.getTitle(), teacher.getName()))
-                    .redirectUrl(redirectUrl)
-                    .relatedCourse(course)
-                    .relatedUser(teacher)
-                    .relatedThreadId(thread.getId())
-                    .createdAt(LocalDateTime.now())
-                    .isRead(false)
-                    .build();
-                    
-            notificationRepository.save(notification);
-        }
+        log.info("Created {} discussion thread notifications for course {}", created, course.getCourseCode());
     }
     
     // Assignment submission notification for teachers
@@ -750,7 +795,7 @@ public class NotificationService {
                     .isRead(false)
                     .build();
                     
-            notificationRepository.save(notification);
+            saveAndPublish(notification);
         }
     }
     
@@ -781,7 +826,7 @@ public class NotificationService {
                         .isRead(false)
                         .build();
                         
-                notificationRepository.save(notification);
+                saveAndPublish(notification);
             }
         } catch (Exception e) {
             log.error("Error creating discussion post notification", e);
@@ -818,7 +863,7 @@ public class NotificationService {
                         .isRead(false)
                         .build();
                         
-                notificationRepository.save(notification);
+                saveAndPublish(notification);
             }
         } catch (Exception e) {
             log.error("Error creating discussion reply notification", e);
@@ -841,7 +886,7 @@ public class NotificationService {
                     .isRead(false)
                     .build();
                     
-            notificationRepository.save(notification);
+            saveAndPublish(notification);
             log.info("Created account {} notification for user: {}", approved ? "approval" : "rejection", user.getEmail());
         } catch (Exception e) {
             log.error("Error creating account approval notification for user: " + user.getEmail(), e);
@@ -868,7 +913,7 @@ public class NotificationService {
                         .isRead(false)
                         .build();
                         
-                notificationRepository.save(notification);
+                saveAndPublish(notification);
                 log.info("Created signup request notification for admin: {}", admin.getEmail());
             }
         } catch (Exception e) {
@@ -879,31 +924,21 @@ public class NotificationService {
     // New course created notification for all students
     public void createNewCourseNotification(Course course, User teacher) {
         try {
-            // Find only ACTIVE student users (approved users only)
-            List<User> activeStudents = userRepository.findByRoleAndStatus(Role.STUDENT, UserStatus.ACTIVE);
-            log.info("Creating new course notifications for {} ACTIVE students about course: {}", activeStudents.size(), course.getTitle());
-            
             // Create appropriate message based on whether teacher is assigned
             String creatorName = (teacher != null) ? teacher.getName() : "Academy Administration";
             String message = String.format("New course '%s' has been created by %s. You can now enroll in this course!", 
                 course.getTitle(), creatorName);
             
-            for (User student : activeStudents) {
-                Notification notification = Notification.builder()
-                        .recipient(student)
-                        .type(Notification.NotificationType.NEW_COURSE_CREATED)
-                        .title("📚 New Course Available")
-                        .message(message)
-                        .redirectUrl("/student") // Redirect to student dashboard
-                        .relatedCourse(course)
-                        .relatedUser(teacher) // This can be null, which is fine
-                        .createdAt(LocalDateTime.now())
-                        .isRead(false)
-                        .build();
-                        
-                notificationRepository.save(notification);
-            }
-            log.info("Created {} new course notifications for course: {}", activeStudents.size(), course.getTitle());
+            // Only ACTIVE student users (approved users only), in one INSERT ... SELECT
+            int created = fanOutToActiveStudents(
+                    Notification.NotificationType.NEW_COURSE_CREATED,
+                    "📚 New Course Available",
+                    message,
+                    "/student", // Redirect to student dashboard
+                    course,
+                    teacher, // This can be null, which is fine
+                    LocalDateTime.now());
+            log.info("Created {} new course notifications for course: {}", created, course.getTitle());
         } catch (Exception e) {
             log.error("Error creating new course notifications for course: " + course.getTitle(), e);
         }
@@ -931,7 +966,7 @@ public class NotificationService {
                 .isRead(false)
                 .build();
                 
-        notificationRepository.save(notification);
+        saveAndPublish(notification);
     }
     
     // User profile update notifications
@@ -957,7 +992,7 @@ public class NotificationService {
                     .isRead(false)
                     .build();
                     
-            notificationRepository.save(notification);
+            saveAndPublish(notification);
             log.info("Created profile update notification for user: {}", user.getEmail());
         } catch (Exception e) {
             log.error("Error creating profile update notification for user: " + user.getEmail(), e);
@@ -986,7 +1021,7 @@ public class NotificationService {
                     .isRead(false)
                     .build();
                     
-            notificationRepository.save(notification);
+            saveAndPublish(notification);
             log.info("Created status change notification for user: {} ({} -> {})", user.getEmail(), oldStatus, newStatus);
         } catch (Exception e) {
             log.error("Error creating status change notification for user: " + user.getEmail(), e);
@@ -1016,7 +1051,7 @@ public class NotificationService {
                     .isRead(false)
                     .build();
                     
-            notificationRepository.save(notification);
+            saveAndPublish(notification);
             log.info("Created role change notification for user: {} ({} -> {})", user.getEmail(), oldRole, newRole);
         } catch (Exception e) {
             log.error("Error creating role change notification for user: " + user.getEmail(), e);
@@ -1050,58 +1085,149 @@ public class NotificationService {
         }
     }
 
-    // Plagiarism detection notification for students
-    public void createPlagiarismDetectionNotification(User student, Assignment assignment, double similarityPercentage, String detectedWith) {
-        // Only send notification if student is ACTIVE
-        if (student.getStatus() != UserStatus.ACTIVE) {
-            log.info("Skipping plagiarism detection notification for student {} - not ACTIVE (status: {})", student.getEmail(), student.getStatus());
-            return;
+    // Plagiarism detection notifications for flagged students; returns how many were created
+    public int createPlagiarismDetectionNotifications(Assignment assignment, List<PlagiarismMatch> matches) {
+        if (matches.isEmpty()) {
+            return 0;
         }
-        
-        try {
-            // Check if a plagiarism notification already exists for this student and assignment
-            String assignmentTitle = assignment.getTitle();
-            boolean notificationExists = notificationRepository.existsByRecipientIdAndTypeAndMessageContaining(
-                student.getId(), 
-                Notification.NotificationType.PLAGIARISM_DETECTED, 
-                assignmentTitle
-            );
-            
-            if (notificationExists) {
-                log.info("Plagiarism notification already exists for student {} in assignment {}. Skipping duplicate.", 
-                        student.getName(), assignment.getTitle());
-                return;
+
+        // One notification per student and assignment, however often the assignment is re-analysed
+        Map<String, PlagiarismMatch> pending = new LinkedHashMap<>();
+        for (PlagiarismMatch match : matches) {
+            pending.putIfAbsent(plagiarismDedupKey(match.studentId(), assignment.getId()), match);
+        }
+
+        Set<Long> userIds = new HashSet<>();
+        pending.values().forEach(match -> {
+            userIds.add(match.studentId());
+            userIds.add(match.counterpartId());
+        });
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+
+        // One batched insert; keys already present (earlier runs or a concurrent one) are skipped by the database
+        String redirectUrl = String.format("/student/%s", assignment.getCourse().getCourseCode());
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<String> keys = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (Map.Entry<String, PlagiarismMatch> entry : pending.entrySet()) {
+            PlagiarismMatch match = entry.getValue();
+            User student = users.get(match.studentId());
+            if (student == null) {
+                continue;
             }
-            
-            String redirectUrl = String.format("/student/%s", assignment.getCourse().getCourseCode());
-            
+            // Only send notification if student is ACTIVE
+            if (student.getStatus() != UserStatus.ACTIVE) {
+                log.info("Skipping plagiarism detection notification for student {} - not ACTIVE (status: {})", student.getEmail(), student.getStatus());
+                continue;
+            }
+
             // Create a precise, direct message
             String message = String.format(
-                "Plagiarism detected in assignment '%s' for course %s. Similarity: %.1f%% with %s.",
+                "Plagiarism detected in assignment '%s' for course %s. Similarity: %.1f%% with submission by %s.",
                 assignment.getTitle(),
                 assignment.getCourse().getTitle(),
-                similarityPercentage,
-                detectedWith
+                match.similarity(),
+                match.counterpartName()
             );
-            
-            Notification notification = Notification.builder()
-                    .recipient(student)
-                    .type(Notification.NotificationType.PLAGIARISM_DETECTED)
-                    .title("⚠️ Plagiarism Detected")
-                    .message(message)
-                    .redirectUrl(redirectUrl)
-                    .relatedCourse(assignment.getCourse())
-                    .relatedAssignment(assignment)
-                    .createdAt(LocalDateTime.now())
-                    .isRead(false)
-                    .build();
-            
-            notificationRepository.save(notification);
-            log.info("Plagiarism detection notification created for student {} in assignment {}", 
-                    student.getName(), assignment.getTitle());
-                    
-        } catch (Exception e) {
-            log.error("Error creating plagiarism detection notification for student: " + student.getEmail(), e);
+
+            User counterpart = users.get(match.counterpartId());
+            keys.add(entry.getKey());
+            rows.add(new Object[] {student.getId(), Notification.NotificationType.PLAGIARISM_DETECTED.name(),
+                    "⚠️ Plagiarism Detected", message, redirectUrl, assignment.getCourse().getId(), assignment.getId(),
+                    counterpart != null ? counterpart.getId() : null, entry.getKey(), createdAt});
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_DEDUPLICATED_SQL, rows);
+        List<String> insertedKeys = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                insertedKeys.add(keys.get(i));
+            }
+        }
+        if (insertedKeys.size() < keys.size()) {
+            log.info("{} plagiarism notifications for assignment {} were already sent. Skipping duplicates.",
+                    keys.size() - insertedKeys.size(), assignment.getTitle());
+        }
+        if (insertedKeys.isEmpty()) {
+            return 0;
+        }
+
+        // Push the new rows to their recipients, read back in one query
+        for (Notification notification : notificationRepository.findByDedupKeyIn(insertedKeys)) {
+            eventPublisher.publishEvent(new NotificationPushService.NotificationCreated(
+                    notification.getRecipient().getId(), mapToResponse(notification)));
+        }
+        log.info("Created {} plagiarism detection notifications in assignment {}", insertedKeys.size(), assignment.getTitle());
+        return insertedKeys.size();
+    }
+
+    // Student flagged by a plagiarism analysis and the submission it matched
+    public record PlagiarismMatch(Long studentId, Long counterpartId, String counterpartName, double similarity) {
+    }
+
+    // Plagiarism notifications are sent once per student and assignment
+    static String plagiarismDedupKey(Long recipientId, Long assignmentId) {
+        return Notification.NotificationType.PLAGIARISM_DETECTED + ":" + recipientId + ":" + assignmentId;
+    }
+
+    private NotificationResponse mapToResponse(NotificationRepository.NotificationFeedItem item) {
+        NotificationResponse.NotificationResponseBuilder builder = NotificationResponse.builder()
+                .id(item.getId())
+                .type(item.getType().toString())
+                .title(item.getTitle())
+                .message(item.getMessage())
+                .redirectUrl(item.getRedirectUrl())
+                .isRead(item.getIsRead())
+                .createdAt(item.getCreatedAt())
+                .readAt(item.getReadAt())
+                .relatedThreadId(item.getRelatedThreadId());
+
+        if (item.getCourseId() != null) {
+            builder.relatedCourse(NotificationResponse.RelatedCourse.builder()
+                    .id(item.getCourseId())
+                    .title(item.getCourseTitle())
+                    .courseCode(item.getCourseCode())
+                    .build());
+        }
+        if (item.getAssignmentId() != null) {
+            builder.relatedAssignment(NotificationResponse.RelatedAssignment.builder()
+                    .id(item.getAssignmentId())
+                    .title(item.getAssignmentTitle())
+                    .deadline(item.getAssignmentDeadline())
+                    .build());
+        }
+        if (item.getRelatedUserId() != null) {
+            builder.relatedUser(NotificationResponse.RelatedUser.builder()
+                    .id(item.getRelatedUserId())
+                    .name(item.getRelatedUserName())
+                    .email(item.getRelatedUserEmail())
+                    .role(item.getRelatedUserRole() != null ? item.getRelatedUserRole().toString() : null)
+                    .build());
+        }
+        return builder.build();
+    }
+
+    // Opaque feed position: the (createdAt, id) of the last notification returned
+    private record FeedCursor(LocalDateTime createdAt, Long id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static FeedCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new FeedCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid notification cursor");
+            }
         }
     }
 }
@@ -0,0 +1,163 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Course;
+import com.example.demo.repository.PlagiarismCorpusPostingRepository;
+import com.example.demo.repository.PlagiarismCorpusPostingRepository.CorpusMatch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Persistent inverted index of winnowed fingerprints across past submissions, used by the
+ * copy checker to catch reuse from earlier assignments and previous offerings of a course.
+ *
+ * Submissions are added after every submit or file replacement, and any a check sees that are
+ * still missing are added then. Lookups go through the
+ * (course code, fingerprint) and (course, fingerprint) indexes and are aggregated per past
+ * submission in the database, so cost depends on the query size rather than the corpus size.
+ */
+@Service
+@Slf4j
+public class PlagiarismCorpusService {
+
+    public static final String SCOPE_NONE = "none";
+    public static final String SCOPE_COURSE = "course";
+    public static final String SCOPE_COURSE_CODE = "courseCode";
+
+    // Bounded IN lists and insert batches
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO plagiarism_corpus_postings " +
+            "(fingerprint, course_code, course_id, assignment_id, submission_id, student_id) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final PlagiarismCorpusPostingRepository postingRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public PlagiarismCorpusService(PlagiarismCorpusPostingRepository postingRepository, JdbcTemplate jdbcTemplate) {
+        this.postingRepository = postingRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Published when a submission's files were stored or replaced; it is (re)indexed after commit.
+     */
+    public record SubmissionChanged(Long submissionId) {
+    }
+
+    /**
+     * Fingerprints of one submission to add to the corpus.
+     */
+    public record CorpusEntry(Long submissionId, Long studentId, long[] fingerprints) {
+    }
+
+    /**
+     * Add the given submissions of an assignment to the corpus. Submissions already indexed are
+     * skipped; a resubmission drops its postings (see {@link #removeSubmission}) and is added again.
+     */
+    public int indexSubmissions(Course course, Long assignmentId, List<CorpusEntry> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        Set<Long> indexed = new HashSet<>(postingRepository.findIndexedSubmissionIds(
+                entries.stream().map(CorpusEntry::submissionId).toList()));
+
+        String courseCode = normalizeCourseCode(course.getCourseCode());
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        int added = 0;
+        for (CorpusEntry entry : entries) {
+            if (indexed.contains(entry.submissionId())) {
+                continue;
+            }
+            for (long fingerprint : entry.fingerprints()) {
+                batch.add(new Object[] {fingerprint, courseCode, course.getId(), assignmentId,
+                                        entry.submissionId(), entry.studentId()});
+                if (batch.size() == INSERT_BATCH_SIZE) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                    batch.clear();
+                }
+            }
+            added++;
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+        }
+        if (added > 0) {
+            log.info("Added {} submissions of assignment {} to the plagiarism corpus ({})", added, assignmentId, courseCode);
+        }
+        return added;
+    }
+
+    /**
+     * Past submissions sharing fingerprints with the query, with the shared count per submission.
+     * The current assignment and the querying student's own work are excluded.
+     */
+    public List<CorpusMatch> findMatches(Course course, String scope, Long assignmentId, Long studentId, long[] fingerprints) {
+        if (fingerprints.length == 0 || !isEnabled(scope)) {
+            return List.of();
+        }
+
+        Map<Long, MatchTotal> totals = new HashMap<>();
+        for (int from = 0; from < fingerprints.length; from += LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = new ArrayList<>(Math.min(LOOKUP_CHUNK_SIZE, fingerprints.length - from));
+            for (int k = from; k < Math.min(from + LOOKUP_CHUNK_SIZE, fingerprints.length); k++) {
+                chunk.add(fingerprints[k]);
+            }
+            List<CorpusMatch> matches = SCOPE_COURSE.equals(scope)
+                    ? postingRepository.findMatchesByCourse(course.getId(), chunk, assignmentId, studentId)
+                    : postingRepository.findMatchesByCourseCode(normalizeCourseCode(course.getCourseCode()), chunk,
+                                                                assignmentId, studentId);
+            for (CorpusMatch match : matches) {
+                totals.computeIfAbsent(match.getSubmissionId(), id -> new MatchTotal(match)).add(match.getSharedCount());
+            }
+        }
+        return new ArrayList<>(totals.values());
+    }
+
+    public void removeSubmission(Long submissionId) {
+        postingRepository.deleteBySubmissionId(submissionId);
+    }
+
+    public void removeCourse(Long courseId) {
+        int deleted = postingRepository.deleteByCourseId(courseId);
+        log.debug("Removed {} plagiarism corpus postings of course {}", deleted, courseId);
+    }
+
+    public void removeAssignment(Long assignmentId) {
+        int deleted = postingRepository.deleteByAssignmentId(assignmentId);
+        log.debug("Removed {} plagiarism corpus postings of assignment {}", deleted, assignmentId);
+    }
+
+    public static boolean isEnabled(String scope) {
+        return SCOPE_COURSE.equals(scope) || SCOPE_COURSE_CODE.equals(scope);
+    }
+
+    private static String normalizeCourseCode(String courseCode) {
+        return courseCode == null ? "" : courseCode.trim().toUpperCase();
+    }
+
+    // Sums one past submission's shared count across lookup chunks
+    private static class MatchTotal implements CorpusMatch {
+        private final Long submissionId;
+        private final Long assignmentId;
+        private final Long studentId;
+        private long sharedCount;
+
+        MatchTotal(CorpusMatch first) {
+            this.submissionId = first.getSubmissionId();
+            this.assignmentId = first.getAssignmentId();
+            this.studentId = first.getStudentId();
+        }
+
+        void add(Long count) {
+            sharedCount += count;
+        }
+
+        @Override public Long getSubmissionId() { return submissionId; }
+        @Override public Long getAssignmentId() { return assignmentId; }
+        @Override public Long getStudentId() { return studentId; }
+        @Override public Long getSharedCount() { return sharedCount; }
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PlagiarismAnalysisResponse;
+import com.example.demo.model.PlagiarismAnalysisResult;
+import com.example.demo.repository.PlagiarismAnalysisResultRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Two-tier store for copy-checker results.
+ *
+ * Analyses that are still running live in memory. Once an analysis reaches a terminal state
+ * it is written to the database as gzip-compressed JSON and kept in a small LRU cache that
+ * evicts by size and idle time. Evicted or pre-restart results are loaded back lazily.
+ */
+@Service
+@Slf4j
+public class PlagiarismResultStore {
+
+    private final PlagiarismAnalysisResultRepository resultRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.plagiarism.results.max-in-memory:20}")
+    private int maxInMemory;
+
+    @Value("${app.plagiarism.results.memory-ttl-minutes:30}")
+    private long memoryTtlMinutes;
+
+    @Value("${app.plagiarism.results.retention-days:30}")
+    private long retentionDays;
+
+    // Queued and running analyses; never evicted
+    private final Map<String, PlagiarismAnalysisResponse> active = new ConcurrentHashMap<>();
+
+    // Recently finished analyses in access order; guarded by its own monitor
+    private final LinkedHashMap<String, CachedResult> finished = new LinkedHashMap<>(16, 0.75f, true);
+
+    public PlagiarismResultStore(PlagiarismAnalysisResultRepository resultRepository, ObjectMapper objectMapper) {
+        this.resultRepository = resultRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Register a newly started analysis.
+     */
+    public void put(String analysisId, PlagiarismAnalysisResponse response) {
+        active.put(analysisId, response);
+    }
+
+    /**
+     * Look up an analysis in memory, falling back to the database. Returns null if unknown.
+     */
+    public PlagiarismAnalysisResponse get(String analysisId) {
+        PlagiarismAnalysisResponse response = active.get(analysisId);
+        if (response != null) {
+            return response;
+        }
+
+        synchronized (finished) {
+            CachedResult cached = finished.get(analysisId);
+            if (cached != null) {
+                cached.touch();
+                return cached.response;
+            }
+        }
+
+        return resultRepository.findById(analysisId)
+                .map(stored -> {
+                    PlagiarismAnalysisResponse loaded = decode(stored.getPayload());
+                    if (loaded != null) {
+                        cacheFinished(analysisId, stored.getAssignmentId(), loaded);
+                    }
+                    return loaded;
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Assignment a finished analysis belongs to, or null if unknown.
+     */
+    public Long getAssignmentId(String analysisId) {
+        synchronized (finished) {
+            CachedResult cached = finished.get(analysisId);
+            if (cached != null) {
+                return cached.assignmentId;
+            }
+        }
+        return resultRepository.findAssignmentIdByAnalysisId(analysisId).orElse(null);
+    }
+
+    /**
+     * Persist a finished analysis (completed, failed or cancelled) and move it to the LRU tier.
+     */
+    public void complete(String analysisId, Long assignmentId) {
+        PlagiarismAnalysisResponse response = active.get(analysisId);
+        if (response == null) {
+            return;
+        }
+
+        try {
+            resultRepository.save(PlagiarismAnalysisResult.builder()
+                    .analysisId(analysisId)
+                    .assignmentId(assignmentId)
+                    .status(response.getStatus())
+                    .payload(encode(response))
+                    .completedAt(LocalDateTime.now())
+                    .build());
+        } catch (Exception e) {
+            // Keep serving from memory; the result is only lost if evicted before a retry
+            log.error("Failed to persist plagiarism analysis {}: {}", analysisId, e.getMessage(), e);
+        }
+
+        cacheFinished(analysisId, assignmentId, response);
+        active.remove(analysisId);
+    }
+
+    /**
+     * Drop an analysis that never started (e.g. rejected by the executor).
+     */
+    public void remove(String analysisId) {
+        active.remove(analysisId);
+        synchronized (finished) {
+            finished.remove(analysisId);
+        }
+    }
+
+    /**
+     * Evict finished results that have been idle longer than the memory TTL.
+     */
+    @Scheduled(fixedDelayString = "${app.plagiarism.results.sweep-interval-ms:60000}")
+    public void evictIdleResults() {
+        long cutoff = System.currentTimeMillis() - memoryTtlMinutes * 60_000L;
+        int evicted = 0;
+        synchronized (finished) {
+            Iterator<CachedResult> iterator = finished.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().lastAccess < cutoff) {
+                    iterator.remove();
+                    evicted++;
+                }
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle plagiarism results from memory", evicted);
+        }
+    }
+
+    /**
+     * Delete stored results older than the retention period.
+     */
+    @Scheduled(cron = "${app.plagiarism.results.purge-cron:0 30 3 * * *}")
+    public void purgeExpiredResults() {
+        int deleted = resultRepository.deleteCompletedBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            log.info("Purged {} stored plagiarism results older than {} days", deleted, retentionDays);
+        }
+    }
+
+    private void cacheFinished(String analysisId, Long assignmentId, PlagiarismAnalysisResponse response) {
+        synchronized (finished) {
+            finished.put(analysisId, new CachedResult(assignmentId, response));
+            // Size-based eviction: drop least recently used entries beyond the limit
+            Iterator<String> iterator = finished.keySet().iterator();
+            while (finished.size() > maxInMemory && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    private byte[] encode(PlagiarismAnalysisResponse response) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, response);
+        }
+        return bytes.toByteArray();
+    }
+
+    private PlagiarismAnalysisResponse decode(byte[] payload) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return objectMapper.readValue(in, PlagiarismAnalysisResponse.class);
+        } catch (IOException e) {
+            log.error("Failed to decode stored plagiarism analysis: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static class CachedResult {
+        private final Long assignmentId;
+        private final PlagiarismAnalysisResponse response;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        CachedResult(Long assignmentId, PlagiarismAnalysisResponse response) {
+            this.assignmentId = assignmentId;
+            this.response = response;
+        }
+
+        void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+    }
+}
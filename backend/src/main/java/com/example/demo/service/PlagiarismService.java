@@ -7,13 +7,26 @@ import com.example.demo.model.StudentSubmission;
 import com.example.demo.model.SubmissionFile;
 import com.example.demo.model.User;
 import com.example.demo.model.Course;
+import com.example.demo.model.SubmissionFingerprint;
 import com.example.demo.repository.AssignmentRepository;
 import com.example.demo.repository.StudentSubmissionRepository;
 import com.example.demo.repository.CourseTeacherRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.SubmissionFingerprintRepository;
+import com.example.demo.repository.PlagiarismCorpusPostingRepository;
+import com.example.demo.service.plagiarism.FileFingerprint;
+import com.example.demo.service.plagiarism.PlagiarismEngine;
+import com.example.demo.service.plagiarism.ProcessedSubmission;
+import com.example.demo.service.plagiarism.WinnowIndex;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.io.*;
 import java.nio.file.Files;
@@ -21,9 +34,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Service
@@ -36,59 +50,68 @@ public class PlagiarismService {
     private final CourseTeacherRepository courseTeacherRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final SubmissionFingerprintRepository fingerprintRepository;
     
-    // In-memory storage for analysis status (in production, use Redis or database)
-    private final Map<String, PlagiarismAnalysisResponse> analysisResults = new ConcurrentHashMap<>();
+    private final ThreadPoolTaskExecutor plagiarismExecutor;
     
-    // Supported file extensions for code analysis
-    private final Set<String> CODE_EXTENSIONS = Set.of("cpp", "c", "h", "java", "py", "js", "ts", "kt", "cs", "php", "rb", "go", "sh", "txt", "md", "sql", "html", "css", "xml", "json", "yaml", "yml");
+    // Reading, fingerprinting and pair scoring
+    private final PlagiarismEngine engine;
     
-    // Text file extensions (for direct text comparison)
-    private final Set<String> TEXT_EXTENSIONS = Set.of("txt", "md", "doc", "docx", "rtf", "tex");
+    // Running analyses in memory, finished ones persisted with TTL/LRU eviction
+    private final PlagiarismResultStore analysisResults;
     
-    // Binary file extensions (for hash comparison)
-    private final Set<String> BINARY_EXTENSIONS = Set.of("pdf", "zip", "rar", "tar", "gz", "exe", "bin", "jpg", "png", "gif", "mp3", "mp4", "avi");
+    // Fingerprints of past submissions for cross-assignment checks
+    private final PlagiarismCorpusService corpusService;
     
-    // All supported extensions (combination of all types)
-    private final Set<String> ALL_EXTENSIONS;
+    // Analyses queued or running, and how many are active per course
+    private final Map<String, AnalysisRun> runningAnalyses = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> runningPerCourse = new ConcurrentHashMap<>();
+    
+    @Value("${app.plagiarism.max-concurrent-per-course:1}")
+    private int maxConcurrentPerCourse;
+    
+    // Recently rendered pair diffs, keyed by the two file content hashes (LRU)
+    private static final int DIFF_CACHE_SIZE = 32;
+    private final Map<String, DiffResult> diffCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DiffResult> eldest) {
+            return size() > DIFF_CACHE_SIZE;
+        }
+    };
+    
+    // Result type of matches against past submissions; these are not sent to students
+    private static final String HISTORICAL_TYPE = "Historical";
     
-    // Constructor to initialize ALL_EXTENSIONS
     public PlagiarismService(AssignmentRepository assignmentRepository, 
                            StudentSubmissionRepository submissionRepository,
                            com.example.demo.repository.SubmissionFileRepository submissionFileRepository,
                            CourseTeacherRepository courseTeacherRepository,
                            UserRepository userRepository,
-                           NotificationService notificationService) {
+                           NotificationService notificationService,
+                           SubmissionFingerprintRepository fingerprintRepository,
+                           @Qualifier("plagiarismExecutor") ThreadPoolTaskExecutor plagiarismExecutor,
+                           PlagiarismEngine engine,
+                           PlagiarismResultStore analysisResults,
+                           PlagiarismCorpusService corpusService) {
         this.assignmentRepository = assignmentRepository;
         this.submissionRepository = submissionRepository;
         this.submissionFileRepository = submissionFileRepository;
         this.courseTeacherRepository = courseTeacherRepository;
         this.userRepository = userRepository;
         this.notificationService = notificationService;
-        
-        // Combine all extension sets
-        this.ALL_EXTENSIONS = new HashSet<>();
-        this.ALL_EXTENSIONS.addAll(CODE_EXTENSIONS);
-        this.ALL_EXTENSIONS.addAll(TEXT_EXTENSIONS);
-        this.ALL_EXTENSIONS.addAll(BINARY_EXTENSIONS);
+        this.fingerprintRepository = fingerprintRepository;
+        this.plagiarismExecutor = plagiarismExecutor;
+        this.engine = engine;
+        this.analysisResults = analysisResults;
+        this.corpusService = corpusService;
     }
 
     public String startPlagiarismAnalysis(Long assignmentId, PlagiarismCheckRequest request) {
         Assignment assignment = assignmentRepository.findById(assignmentId)
             .orElseThrow(() -> new RuntimeException("Assignment not found"));
         
-        // Get the teacher and course
-        User teacher = userRepository.findById(request.getTeacherId())
-                .orElseThrow(() -> new RuntimeException("Teacher not found"));
         Course course = assignment.getCourse();
-        
-        // Verify teacher has access to this assignment's course (same pattern as AssignmentService)
-        boolean isAssigned = courseTeacherRepository.existsByCourseAndTeacherAndActiveTrue(course, teacher) ||
-                           (course.getAssignedTeacher() != null && course.getAssignedTeacher().getId().equals(request.getTeacherId()));
-
-        if (!isAssigned) {
-            throw new RuntimeException("Teacher is not assigned to the course containing this assignment");
-        }
+        verifyTeacherAccess(assignment, request.getTeacherId());
         
         // Check if assignment deadline has passed - plagiarism check only allowed after deadline
         LocalDateTime now = LocalDateTime.now();
@@ -112,23 +135,50 @@ public class PlagiarismService {
         response.getProgress().setTotal(0);
         response.getProgress().setStage("Initializing...");
         
+        // Cap concurrent analyses per course so one course cannot occupy the whole pool
+        Long courseId = course.getId();
+        AtomicBoolean acquired = new AtomicBoolean(false);
+        runningPerCourse.compute(courseId, (id, count) -> {
+            int running = count == null ? 0 : count;
+            if (running >= maxConcurrentPerCourse) {
+                return count;
+            }
+            acquired.set(true);
+            return running + 1;
+        });
+        if (!acquired.get()) {
+            throw new RuntimeException("A copy check is already running for this course. Please wait for it to finish.");
+        }
+        
+        AnalysisRun run = new AnalysisRun(courseId, assignmentId);
         analysisResults.put(analysisId, response);
+        runningAnalyses.put(analysisId, run);
         
-        // Start async analysis
-        performPlagiarismAnalysisAsync(analysisId, assignment, request);
+        // Run on the dedicated bounded executor (not the request thread)
+        try {
+            run.setFuture(plagiarismExecutor.submit(() -> performPlagiarismAnalysisAsync(analysisId, assignment, request, run)));
+        } catch (TaskRejectedException e) {
+            finishRun(analysisId, run);
+            analysisResults.remove(analysisId);
+            throw new RuntimeException("Copy checker is busy. Please try again in a few minutes.");
+        }
         
         return analysisId;
     }
 
-    @Async
-    public void performPlagiarismAnalysisAsync(String analysisId, Assignment assignment, PlagiarismCheckRequest request) {
+    private void performPlagiarismAnalysisAsync(String analysisId, Assignment assignment, PlagiarismCheckRequest request,
+                                                AnalysisRun run) {
+        run.markStarted();
         try {
             log.info("Starting plagiarism analysis for assignment: {}", assignment.getTitle());
             
             PlagiarismAnalysisResponse response = analysisResults.get(analysisId);
+            if (run.isCancelled()) {
+                return;
+            }
             
-            // Get all submissions for this assignment using correct method
-            List<StudentSubmission> submissions = submissionRepository.findByAssignment_IdOrderBySubmittedAtAsc(assignment.getId());
+            // No session is open on the executor thread, so students are fetched with the submissions
+            List<StudentSubmission> submissions = submissionRepository.findWithStudentByAssignmentId(assignment.getId());
             log.info("Found {} submissions for assignment: {}", submissions.size(), assignment.getTitle());
             
             if (submissions.size() < 2) {
@@ -141,16 +191,26 @@ public class PlagiarismService {
             response.getProgress().setTotal(submissions.size());
             response.getProgress().setStage("Processing submissions...");
             
-            // Extract and normalize code from submissions
+            // Load all files and their cached fingerprints up front instead of once per submission
+            List<SubmissionFile> allFiles = submissionFileRepository.findBySubmission_Assignment_IdOrderByUploadedAtAsc(assignment.getId());
+            Map<Long, List<SubmissionFile>> filesBySubmission = allFiles.stream()
+                .collect(Collectors.groupingBy(file -> file.getSubmission().getId()));
+            Map<String, SubmissionFingerprint> storedFingerprints = loadStoredFingerprints(allFiles);
+            Map<String, FileFingerprint> fingerprints = new HashMap<>();
+            
+            // Fingerprint the code of every submission (cached fingerprints skip reading and normalizing)
             List<ProcessedSubmission> processedSubmissions = new ArrayList<>();
             int current = 0;
             
             for (StudentSubmission submission : submissions) {
+                run.checkCancelled();
                 response.getProgress().setCurrent(++current);
                 response.getProgress().setStage("Processing submission " + current + "/" + submissions.size());
                 
                 try {
-                    ProcessedSubmission processed = processSubmission(submission, request.getSettings().getFileFilters());
+                    ProcessedSubmission processed = processSubmission(submission,
+                        filesBySubmission.getOrDefault(submission.getId(), List.of()),
+                        request.getSettings().getFileFilters(), storedFingerprints, fingerprints);
                     if (processed.hasCodeContent()) {
                         processedSubmissions.add(processed);
                     }
@@ -167,22 +227,36 @@ public class PlagiarismService {
             
             // Perform similarity analysis
             response.getProgress().setStage("Analyzing similarities...");
+            PlagiarismAnalysisResponse.AnalysisMetadata metadata = new PlagiarismAnalysisResponse.AnalysisMetadata();
             List<PlagiarismAnalysisResponse.SimilarityPair> similarities = 
-                performSimilarityAnalysis(processedSubmissions, request.getSettings());
+                engine.performSimilarityAnalysis(processedSubmissions, request.getSettings(), metadata, response.getProgress(),
+                    run::checkCancelled);
+            run.checkCancelled();
             
             // Filter results by threshold
             similarities = similarities.stream()
                 .filter(pair -> pair.getSimilarity() >= request.getSettings().getThreshold())
                 .collect(Collectors.toList());
             
+            // Look up reuse from earlier assignments / offerings in the fingerprint corpus
+            if (PlagiarismCorpusService.isEnabled(request.getSettings().getHistoricalScope())) {
+                response.getProgress().setStage("Searching past submissions...");
+                similarities.addAll(findHistoricalMatches(assignment, processedSubmissions, request.getSettings(), run));
+            }
+            
+            // Stable ids so clients can request the diff of one pair
+            for (int i = 0; i < similarities.size(); i++) {
+                similarities.get(i).setPairId(i);
+            }
+            
             // Build final results
             PlagiarismAnalysisResponse.PlagiarismResults results = new PlagiarismAnalysisResponse.PlagiarismResults();
             results.setSimilarities(similarities);
             
-            PlagiarismAnalysisResponse.AnalysisMetadata metadata = new PlagiarismAnalysisResponse.AnalysisMetadata();
             metadata.setTotalSubmissions(submissions.size());
             metadata.setComparisons((processedSubmissions.size() * (processedSubmissions.size() - 1)) / 2);
-            metadata.setAlgorithm("Shingles + Jaccard Similarity");
+            metadata.setAlgorithm(engine.isWinnowing(request.getSettings())
+                ? "Winnowing (token k-grams) + Jaccard Similarity" : "Shingles + Jaccard Similarity");
             metadata.setAiUsed(request.getSettings().isUseAI());
             metadata.setAnalysisTime(System.currentTimeMillis());
             results.setMetadata(metadata);
@@ -191,33 +265,58 @@ public class PlagiarismService {
             response.setStatus("completed");
             response.getProgress().setStage("Analysis completed");
             
-            log.info("Plagiarism analysis completed. Found {} similar pairs above threshold", similarities.size());
+            log.info("Plagiarism analysis completed. Found {} similar pairs above threshold ({} pairs scored exactly, {} pruned)", 
+                    similarities.size(), metadata.getExactComparisons(), metadata.getPrunedComparisons());
+            
+            // Make this assignment searchable by later checks
+            addToCorpus(assignment, processedSubmissions);
             
             // Send notifications to students detected in plagiarism cases
-            sendPlagiarismNotifications(assignment, similarities);
+            sendPlagiarismNotifications(assignment, similarities.stream()
+                .filter(pair -> !HISTORICAL_TYPE.equals(pair.getType()))
+                .collect(Collectors.toList()));
             
+        } catch (CancellationException e) {
+            log.info("Plagiarism analysis {} cancelled for assignment: {}", analysisId, assignment.getTitle());
         } catch (Exception e) {
             log.error("Error during plagiarism analysis for assignment: {}", assignment.getTitle(), e);
             PlagiarismAnalysisResponse response = analysisResults.get(analysisId);
-            if (response != null) {
+            if (response != null && !run.isCancelled()) {
                 response.setStatus("failed");
                 response.getProgress().setStage("Analysis failed: " + e.getMessage());
             }
             log.error("Full stack trace:", e);
+        } finally {
+            finishRun(analysisId, run);
+        }
+    }
+    
+    /**
+     * Release the run's course slot and, if the analysis reached a terminal state, persist it.
+     */
+    private void finishRun(String analysisId, AnalysisRun run) {
+        if (!run.markFinished()) {
+            return;
+        }
+        PlagiarismAnalysisResponse response = analysisResults.get(analysisId);
+        if (response != null && !"processing".equals(response.getStatus())) {
+            analysisResults.complete(analysisId, run.getAssignmentId());
         }
+        runningAnalyses.remove(analysisId);
+        runningPerCourse.computeIfPresent(run.getCourseId(), (id, count) -> count <= 1 ? null : count - 1);
     }
     
-    private ProcessedSubmission processSubmission(StudentSubmission submission, List<String> fileFilters) throws IOException {
+    private ProcessedSubmission processSubmission(StudentSubmission submission, List<SubmissionFile> files, List<String> fileFilters,
+                                                  Map<String, SubmissionFingerprint> storedFingerprints,
+                                                  Map<String, FileFingerprint> fingerprints) throws IOException {
         ProcessedSubmission processed = new ProcessedSubmission();
         processed.setSubmissionId(submission.getId());
         processed.setStudentId(submission.getStudent().getId());
         processed.setStudentName(submission.getStudent().getName());
         processed.setStudentEmail(submission.getStudent().getEmail());
         
-        List<String> codeContents = new ArrayList<>();
+        List<FileFingerprint> codeFingerprints = new ArrayList<>();
         
-        // Fetch files for this submission using SubmissionFileRepository
-        List<SubmissionFile> files = submissionFileRepository.findBySubmissionOrderByUploadedAtAsc(submission);
         log.info("Found {} files for submission ID: {}", files.size(), submission.getId());
         
         for (SubmissionFile file : files) {
@@ -225,9 +324,10 @@ public class PlagiarismService {
             log.info("Processing file: {} for submission: {}", filename, submission.getId());
             
             // Check if file extension is in the filter list
-            String extension = getFileExtension(filename);
+            String extension = PlagiarismEngine.getFileExtension(filename);
             
-            // Handle ZIP/archive files specially - always process them regardless of filter
+            // Handle ZIP/archive files specially - always process them regardless of filter.
+            // RAR is not unpacked; it is compared as a whole-file content hash
             boolean isArchive = filename.endsWith(".zip") || filename.endsWith(".rar");
             
             if (!isArchive && !fileFilters.contains(extension)) {
@@ -240,15 +340,10 @@ public class PlagiarismService {
             }
             
             try {
-                String content = readFileContent(file);
-                if (content != null && !content.trim().isEmpty()) {
-                    String normalizedContent = normalizeCode(content);
-                    if (!normalizedContent.trim().isEmpty()) {
-                        codeContents.add(normalizedContent);
-                        log.info("Successfully processed file: {} (content length: {})", filename, normalizedContent.length());
-                    } else {
-                        log.warn("File {} produced empty normalized content", filename);
-                    }
+                FileFingerprint fingerprint = resolveFingerprint(file, storedFingerprints, fingerprints);
+                if (fingerprint != null && !fingerprint.isEmpty()) {
+                    codeFingerprints.add(fingerprint);
+                    log.info("Successfully processed file: {} (content length: {})", filename, fingerprint.length());
                 } else {
                     log.warn("File {} produced null or empty content", filename);
                 }
@@ -257,529 +352,230 @@ public class PlagiarismService {
             }
         }
         
-        processed.setCodeContents(codeContents);
+        processed.setCodeFingerprints(codeFingerprints);
         return processed;
     }
     
-    private String readFileContent(SubmissionFile file) throws IOException {
-        Path filePath = Paths.get(file.getFilePath());
-        
-        if (!Files.exists(filePath)) {
-            log.warn("File not found: {}", filePath);
-            return null;
-        }
-        
-        String filename = file.getOriginalFilename().toLowerCase();
-        String extension = getFileExtension(filename);
-        
-        // Handle ZIP files
-        if (filename.endsWith(".zip") || filename.endsWith(".rar")) {
-            return extractCodeFromArchive(filePath, file.getOriginalFilename());
-        }
-        
-        // Handle PDF files (basic text extraction)
-        if (filename.endsWith(".pdf")) {
-            // For now, we'll calculate a basic hash for PDF files for similarity
-            log.info("Processing PDF file: {}", filename);
-            return readBinaryFileAsHash(filePath, filename);
+    /**
+     * Fetch the persisted fingerprints of all files with a known content hash in one query.
+     */
+    private Map<String, SubmissionFingerprint> loadStoredFingerprints(List<SubmissionFile> files) {
+        Set<String> contentHashes = files.stream()
+            .map(SubmissionFile::getContentHash)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        if (contentHashes.isEmpty()) {
+            return new HashMap<>();
         }
         
-        // Handle binary files by computing hash for similarity comparison
-        if (BINARY_EXTENSIONS.contains(extension)) {
-            log.info("Processing binary file: {}", filename);
-            return readBinaryFileAsHash(filePath, filename);
-        }
-        
-        // Handle text and code files
-        try {
-            String content = Files.readString(filePath);
-            
-            // Add file metadata as prefix for better tracking
-            StringBuilder result = new StringBuilder();
-            result.append("// FILE: ").append(file.getOriginalFilename()).append("\n");
-            result.append("// SIZE: ").append(Files.size(filePath)).append(" bytes\n");
-            result.append("// TYPE: ").append(extension.toUpperCase()).append("\n");
-            result.append("// ").append("=".repeat(50)).append("\n\n");
-            result.append(content);
-            
-            return result.toString();
-        } catch (Exception e) {
-            log.warn("Error reading file {}: {}", filePath, e.getMessage());
-            return null;
+        Map<String, SubmissionFingerprint> stored = new HashMap<>();
+        for (SubmissionFingerprint fingerprint : fingerprintRepository.findByContentHashIn(contentHashes)) {
+            stored.put(fingerprint.getContentHash(), fingerprint);
         }
+        log.info("Loaded {} cached fingerprints for {} distinct files", stored.size(), contentHashes.size());
+        return stored;
     }
     
     /**
-     * Read binary files and create a hash-based representation for similarity comparison
+     * Return the fingerprint of a file, computing and persisting it on first use.
+     * Files uploaded before content hashing existed get their hash filled in here.
      */
-    private String readBinaryFileAsHash(Path filePath, String filename) throws IOException {
-        try {
-            byte[] fileBytes = Files.readAllBytes(filePath);
-            long fileSize = fileBytes.length;
-            
-            // Create multiple hash representations for better similarity detection
-            StringBuilder hashContent = new StringBuilder();
-            hashContent.append("// BINARY FILE: ").append(filename).append("\n");
-            hashContent.append("// SIZE: ").append(fileSize).append(" bytes\n");
-            
-            // Simple checksum approach
-            int simpleChecksum = 0;
-            for (byte b : fileBytes) {
-                simpleChecksum += b & 0xFF;
+    private FileFingerprint resolveFingerprint(SubmissionFile file, Map<String, SubmissionFingerprint> storedFingerprints,
+                                               Map<String, FileFingerprint> fingerprints) throws IOException {
+        String contentHash = file.getContentHash();
+        if (contentHash == null) {
+            Path filePath = Paths.get(file.getFilePath());
+            if (!Files.exists(filePath)) {
+                log.warn("File not found: {}", filePath);
+                return null;
             }
-            hashContent.append("// CHECKSUM: ").append(simpleChecksum).append("\n");
-            
-            // Create chunks for similarity analysis (divide file into segments)
-            int chunkSize = Math.max(1024, fileBytes.length / 10); // 10 chunks or min 1KB
-            for (int i = 0; i < fileBytes.length; i += chunkSize) {
-                int endIndex = Math.min(i + chunkSize, fileBytes.length);
-                byte[] chunk = Arrays.copyOfRange(fileBytes, i, endIndex);
-                
-                int chunkSum = 0;
-                for (byte b : chunk) {
-                    chunkSum += b & 0xFF;
-                }
-                hashContent.append("CHUNK_").append(i / chunkSize).append("_").append(chunkSum).append(" ");
-            }
-            
-            return hashContent.toString();
-        } catch (Exception e) {
-            log.error("Error processing binary file {}: {}", filename, e.getMessage());
-            return null;
+            contentHash = FileFingerprint.sha256Hex(filePath);
+            file.setContentHash(contentHash);
+            submissionFileRepository.save(file);
         }
-    }
-    
-    private String extractCodeFromArchive(Path archivePath, String originalFilename) {
-        StringBuilder allCode = new StringBuilder();
-        
-        log.info("Extracting from archive: {} (size: {} bytes)", originalFilename, 
-                 archivePath.toFile().length());
         
-        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(archivePath))) {
-            ZipEntry entry;
-            
-            allCode.append("// ARCHIVE: ").append(originalFilename).append("\n");
-            allCode.append("// ").append("=".repeat(60)).append("\n\n");
-            
-            int entryCount = 0;
-            while ((entry = zis.getNextEntry()) != null) {
-                entryCount++;
-                if (entry.isDirectory()) continue;
-                
-                String entryName = entry.getName().toLowerCase();
-                String extension = getFileExtension(entryName);
-                
-                log.info("Processing archive entry: {} (extension: {}, size: {} bytes)", 
-                         entry.getName(), extension, entry.getSize());
-                
-                // Support all file types, not just code files
-                if (ALL_EXTENSIONS.contains(extension) || extension.isEmpty()) {
-                    try {
-                        byte[] buffer = new byte[1024];
-                        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                        int len;
-                        
-                        while ((len = zis.read(buffer)) > 0) {
-                            baos.write(buffer, 0, len);
-                        }
-                        
-                        String content = baos.toString("UTF-8");
-                        if (!content.trim().isEmpty()) {
-                            allCode.append("// FILE: ").append(entry.getName()).append("\n");
-                            allCode.append("// SIZE: ").append(entry.getSize()).append(" bytes\n");
-                            allCode.append("// TYPE: ").append(extension.toUpperCase()).append("\n");
-                            allCode.append("// ").append("-".repeat(40)).append("\n");
-                            
-                            // Show complete content - removed character limit for full file display
-                            allCode.append(content);
-                            
-                            allCode.append("\n").append("=".repeat(80)).append("\n\n");
-                            
-                            log.info("Added content from {} ({} chars)", entry.getName(), content.length());
-                        } else {
-                            log.warn("Empty content from entry: {}", entry.getName());
-                        }
-                    } catch (Exception e) {
-                        log.warn("Error reading entry {}: {}", entry.getName(), e.getMessage());
-                        allCode.append("// Error reading file: ").append(e.getMessage()).append("\n\n");
-                    }
-                } else {
-                    log.info("Skipping entry {} - extension {} not supported", entry.getName(), extension);
-                }
-                
-                zis.closeEntry();
-            }
-            
-            log.info("Processed {} entries from archive {}, total extracted content: {} chars", 
-                     entryCount, originalFilename, allCode.length());
-            
-        } catch (IOException e) {
-            log.error("Error extracting archive {}: {}", originalFilename, e.getMessage());
+        FileFingerprint fingerprint = fingerprints.get(contentHash);
+        if (fingerprint != null) {
+            return fingerprint;
         }
         
-        return allCode.toString();
-    }
-    
-    private String getFileExtension(String filename) {
-        int lastDot = filename.lastIndexOf('.');
-        if (lastDot > 0 && lastDot < filename.length() - 1) {
-            return filename.substring(lastDot + 1);
-        }
-        return "";
-    }
-    
-    private String normalizeCode(String code) {
-        if (code == null) return "";
-        
-        // Remove comments but preserve structure
-        code = removeComments(code);
-        
-        // Remove file metadata headers that might cause false matches
-        String[] lines = code.split("\n");
-        StringBuilder result = new StringBuilder();
-        boolean skipMetadata = true;
-        
-        for (String line : lines) {
-            String trimmed = line.trim();
-            
-            // Skip initial metadata lines
-            if (skipMetadata && isMetadataLine(trimmed)) {
-                continue;
-            }
-            skipMetadata = false;
-            
-            // Skip empty lines and metadata throughout
-            if (!trimmed.isEmpty() && !isMetadataLine(trimmed)) {
-                // Normalize whitespace but preserve line structure
-                String normalized = line.replaceAll("\\s+", " ").trim();
-                if (!normalized.isEmpty()) {
-                    result.append(normalized).append("\n");
-                }
+        SubmissionFingerprint stored = storedFingerprints.get(contentHash);
+        if (stored == null || !Integer.valueOf(FileFingerprint.VERSION).equals(stored.getFingerprintVersion())) {
+            String content = engine.readFileContent(Paths.get(file.getFilePath()), file.getOriginalFilename());
+            if (content == null) {
+                return null;
             }
+            stored = saveFingerprint(engine.buildFingerprint(contentHash, content, file.getOriginalFilename(), stored));
+            storedFingerprints.put(contentHash, stored);
         }
         
-        return result.toString().trim();
+        fingerprint = PlagiarismEngine.toFileFingerprint(stored);
+        fingerprints.put(contentHash, fingerprint);
+        return fingerprint;
     }
     
-    private String removeComments(String code) {
-        // Remove single-line comments (//, #, %)
-        code = code.replaceAll("//.*$", "");
-        code = code.replaceAll("#.*$", "");
-        code = code.replaceAll("%.*$", "");
-        
-        // Remove multi-line comments (/* */)
-        code = code.replaceAll("/\\*[\\s\\S]*?\\*/", "");
-        
-        // Remove Python/R multi-line strings used as comments
-        code = code.replaceAll("\"\"\"[\\s\\S]*?\"\"\"", "");
-        code = code.replaceAll("'''[\\s\\S]*?'''", "");
-        
-        return code;
-    }
-    
-    private String normalizeVariableNames(String code) {
-        // Simple variable name normalization - replace common patterns
-        // This is a basic implementation; a more sophisticated approach would use AST parsing
-        
-        // Replace variable declarations with generic names
-        code = code.replaceAll("\\bint\\s+\\w+", "int var");
-        code = code.replaceAll("\\bdouble\\s+\\w+", "double var");
-        code = code.replaceAll("\\bfloat\\s+\\w+", "float var");
-        code = code.replaceAll("\\bstring\\s+\\w+", "string var");
-        code = code.replaceAll("\\bchar\\s+\\w+", "char var");
-        
-        return code;
-    }
-    
-    private List<PlagiarismAnalysisResponse.SimilarityPair> performSimilarityAnalysis(
-            List<ProcessedSubmission> submissions, PlagiarismCheckRequest.Settings settings) {
-        
-        List<PlagiarismAnalysisResponse.SimilarityPair> similarities = new ArrayList<>();
-        
-        // Compare each pair of submissions
-        for (int i = 0; i < submissions.size(); i++) {
-            for (int j = i + 1; j < submissions.size(); j++) {
-                ProcessedSubmission sub1 = submissions.get(i);
-                ProcessedSubmission sub2 = submissions.get(j);
-                
-                double maxSimilarity = 0.0;
-                String bestMatch1 = "";
-                String bestMatch2 = "";
-                
-                // Compare all code content combinations
-                for (String code1 : sub1.getCodeContents()) {
-                    for (String code2 : sub2.getCodeContents()) {
-                        double similarity = calculateSimilarity(code1, code2);
-                        log.info("Comparing {} vs {}: {}% similarity (code lengths: {} vs {})", 
-                                 sub1.getStudentName(), sub2.getStudentName(), similarity,
-                                 code1.length(), code2.length());
-                        if (similarity > maxSimilarity) {
-                            maxSimilarity = similarity;
-                            bestMatch1 = code1;
-                            bestMatch2 = code2;
-                        }
-                    }
-                }
-                
-                if (maxSimilarity > 0) {
-                    PlagiarismAnalysisResponse.SimilarityPair pair = new PlagiarismAnalysisResponse.SimilarityPair();
-                    pair.setStudent1Id(sub1.getStudentId());
-                    pair.setStudent2Id(sub2.getStudentId());
-                    pair.setStudent1Name(sub1.getStudentName());
-                    pair.setStudent2Name(sub2.getStudentName());
-                    pair.setSimilarity(maxSimilarity);
-                    pair.setType("Code");
-                    pair.setDetectionMethod("Shingles + Jaccard");
-                    pair.setFilesCompared("Multiple");
-                    
-                    // Create formatted diff instead of raw code
-                    DiffResult diffResult = createDiffHighlight(bestMatch1, bestMatch2);
-                    
-                    // If formatted content is empty, use cleaned original content
-                    String finalCode1 = diffResult.getFormattedCode1();
-                    String finalCode2 = diffResult.getFormattedCode2();
-                    
-                    log.info("Diff result lengths: code1={} chars, code2={} chars", 
-                             finalCode1.length(), finalCode2.length());
-                    log.debug("Code1 preview: {}", finalCode1.length() > 100 ? finalCode1.substring(0, 100) + "..." : finalCode1);
-                    log.debug("Code2 preview: {}", finalCode2.length() > 100 ? finalCode2.substring(0, 100) + "..." : finalCode2);
-                    
-                    if (finalCode1.trim().isEmpty()) {
-                        log.warn("Code1 is empty, using fallback");
-                        finalCode1 = cleanCodeForDisplay(bestMatch1);
-                    }
-                    if (finalCode2.trim().isEmpty()) {
-                        log.warn("Code2 is empty, using fallback");
-                        finalCode2 = cleanCodeForDisplay(bestMatch2);
-                    }
-                    
-                    pair.setCode1(finalCode1);
-                    pair.setCode2(finalCode2);
-                    
-                    log.info("Adding similarity pair: {} vs {} = {}%", 
-                            sub1.getStudentName(), sub2.getStudentName(), maxSimilarity);
-                    similarities.add(pair);
-                }
-            }
-        }
-        
-        return similarities;
-    }
-    
-    private double calculateSimilarity(String code1, String code2) {
-        if (code1 == null || code2 == null || code1.trim().isEmpty() || code2.trim().isEmpty()) {
-            return 0.0;
-        }
-        
-        // Check if files are binary based on content patterns
-        boolean isBinary1 = containsBinaryPatterns(code1);
-        boolean isBinary2 = containsBinaryPatterns(code2);
-        
-        if (isBinary1 || isBinary2) {
-            // For binary files, use hash-based similarity
-            double binarySimilarity = calculateBinarySimilarity(code1, code2);
-            log.debug("Binary similarity calculated: {}%", binarySimilarity * 100);
-            return binarySimilarity * 100;
-        }
-        
-        // For text files, use enhanced similarity calculation
-        // Normalize the content
-        String normalized1 = normalizeCode(code1);
-        String normalized2 = normalizeCode(code2);
-        
-        log.debug("Normalized content lengths: {} vs {}", normalized1.length(), normalized2.length());
-        log.debug("First 100 chars of code1: {}", normalized1.length() > 100 ? normalized1.substring(0, 100) : normalized1);
-        log.debug("First 100 chars of code2: {}", normalized2.length() > 100 ? normalized2.substring(0, 100) : normalized2);
-        
-        // Check for exact match first - but be more strict about it
-        if (normalized1.equals(normalized2) && normalized1.length() > 100) {
-            log.info("Exact match found for substantial content (length: {}), returning 100% similarity", normalized1.length());
-            return 100.0;
-        }
-        
-        // Skip very short content to avoid false positives
-        if (normalized1.length() < 50 || normalized2.length() < 50) {
-            log.debug("Content too short for meaningful comparison (lengths: {} vs {}), returning 0% similarity", normalized1.length(), normalized2.length());
-            return 0.0;
-        }
-        
-        // Use larger shingles for more precise matching
-        int shingleSize = Math.min(15, Math.max(5, Math.min(normalized1.length(), normalized2.length()) / 20));
-        Set<String> shingles1 = createShingles(normalized1, shingleSize);
-        Set<String> shingles2 = createShingles(normalized2, shingleSize);
-        
-        if (shingles1.isEmpty() || shingles2.isEmpty()) {
-            log.debug("Empty shingles, returning 0% similarity");
-            return 0.0;
-        }
-        
-        // Calculate Jaccard similarity
-        Set<String> intersection = new HashSet<>(shingles1);
-        intersection.retainAll(shingles2);
-        
-        Set<String> union = new HashSet<>(shingles1);
-        union.addAll(shingles2);
-        
-        double jaccardSimilarity = union.isEmpty() ? 0.0 : (double) intersection.size() / union.size();
-        
-        // Also calculate line-based similarity for better accuracy
-        double lineSimilarity = calculateLineSimilarity(normalized1, normalized2);
-        
-        // Use stricter thresholds - require substantial overlap
-        if (jaccardSimilarity < 0.15 && lineSimilarity < 0.2) {
-            return 0.0; // Not similar enough
-        }
-        
-        // Weighted average of both similarities, return as percentage
-        double finalSimilarity = ((jaccardSimilarity * 0.8) + (lineSimilarity * 0.2)) * 100.0;
-        
-        // Apply penalty for very different lengths (but be more lenient)
-        double lengthRatio = Math.min(normalized1.length(), normalized2.length()) / 
-                           (double) Math.max(normalized1.length(), normalized2.length());
-        if (lengthRatio < 0.5) { // More lenient threshold
-            finalSimilarity *= lengthRatio; // Reduce similarity for very different lengths
+    private SubmissionFingerprint saveFingerprint(SubmissionFingerprint fingerprint) {
+        try {
+            return fingerprintRepository.save(fingerprint);
+        } catch (DataIntegrityViolationException e) {
+            // Another analysis stored the same content concurrently; the computed value is equivalent
+            log.debug("Fingerprint for {} already stored: {}", fingerprint.getContentHash(), e.getMessage());
+            return fingerprint;
         }
-        
-        log.debug("Similarity calculation: Jaccard={}%, Line={}%, Final={}%, Length Ratio={}% (shingles1={}, shingles2={}, intersection={}, union={})", 
-                 jaccardSimilarity * 100, lineSimilarity * 100, finalSimilarity, lengthRatio * 100,
-                 shingles1.size(), shingles2.size(), intersection.size(), union.size());
-        
-        return Math.max(0.0, finalSimilarity);
     }
     
     /**
-     * Check if content contains binary patterns
+     * Match every submission against the historical corpus. Similarity is the share of the
+     * submission's (non-boilerplate) fingerprints found in one past submission.
      */
-    private boolean containsBinaryPatterns(String content) {
-        if (content == null || content.isEmpty()) {
-            return false;
-        }
-        
-        // Check for CHUNK_ patterns (binary file signatures)
-        if (content.contains("CHUNK_") && content.contains("// BINARY FILE:")) {
-            return true;
-        }
-        
-        // Check for high percentage of non-printable characters
-        int nonPrintableCount = 0;
-        int totalChars = Math.min(content.length(), 1000);
-        
-        for (int i = 0; i < totalChars; i++) {
-            char c = content.charAt(i);
-            if (c == 0 || (c < 32 && c != 9 && c != 10 && c != 13)) {
-                nonPrintableCount++;
+    private List<PlagiarismAnalysisResponse.SimilarityPair> findHistoricalMatches(
+            Assignment assignment, List<ProcessedSubmission> submissions, PlagiarismCheckRequest.Settings settings,
+            AnalysisRun run) {
+        WinnowIndex index = new WinnowIndex();
+        for (int i = 0; i < submissions.size(); i++) {
+            index.add(i, submissions.get(i).winnowHashes());
+        }
+        int maxOwners = engine.commonFingerprintLimit(submissions.size());
+        
+        List<PlagiarismAnalysisResponse.SimilarityPair> matches = new ArrayList<>();
+        List<Long> pastAssignmentIds = new ArrayList<>();
+        for (ProcessedSubmission submission : submissions) {
+            run.checkCancelled();
+            long[] query = Arrays.stream(submission.winnowHashes())
+                .filter(hash -> !index.isCommon(hash, maxOwners))
+                .toArray();
+            
+            for (PlagiarismCorpusPostingRepository.CorpusMatch match : corpusService.findMatches(assignment.getCourse(),
+                    settings.getHistoricalScope(), assignment.getId(), submission.getStudentId(), query)) {
+                double similarity = Math.min(100.0, match.getSharedCount() * 100.0 / query.length);
+                if (similarity < settings.getThreshold()) {
+                    continue;
+                }
+                PlagiarismAnalysisResponse.SimilarityPair pair = new PlagiarismAnalysisResponse.SimilarityPair();
+                pair.setStudent1Id(submission.getStudentId());
+                pair.setStudent1Name(submission.getStudentName());
+                pair.setStudent2Id(match.getStudentId());
+                pair.setSimilarity(similarity);
+                pair.setType(HISTORICAL_TYPE);
+                pair.setDetectionMethod("Winnowing corpus index");
+                matches.add(pair);
+                pastAssignmentIds.add(match.getAssignmentId());
             }
         }
         
-        return ((double) nonPrintableCount / totalChars) > 0.3;
+        // Resolve names of past students and assignments in two queries
+        Map<Long, String> studentNames = userRepository.findAllById(matches.stream()
+                .map(PlagiarismAnalysisResponse.SimilarityPair::getStudent2Id).collect(Collectors.toSet())).stream()
+            .collect(Collectors.toMap(User::getId, User::getName));
+        Map<Long, Assignment> pastAssignments = pastAssignmentIds.isEmpty() ? Map.of()
+            : assignmentRepository.findWithCourseByIdIn(new HashSet<>(pastAssignmentIds)).stream()
+                .collect(Collectors.toMap(Assignment::getId, past -> past));
+        for (int i = 0; i < matches.size(); i++) {
+            PlagiarismAnalysisResponse.SimilarityPair pair = matches.get(i);
+            pair.setStudent2Name(studentNames.getOrDefault(pair.getStudent2Id(), "Former student"));
+            Assignment past = pastAssignments.get(pastAssignmentIds.get(i));
+            pair.setFilesCompared(past == null ? "Past submission"
+                : past.getTitle() + " (" + past.getCourse().getCourseCode()
+                    + (past.getCourse().getTerm() != null ? ", " + past.getCourse().getTerm() : "") + ")");
+        }
+        
+        log.info("Historical corpus search ({}) found {} matches above threshold", settings.getHistoricalScope(), matches.size());
+        return matches;
     }
     
     /**
-     * Calculate similarity for binary files using hash patterns
+     * Index a submission into the historical corpus once its upload is committed, on the copy
+     * checker executor. Best effort: if the executor is saturated, the next check of the
+     * assignment (or a backfill) adds it instead.
      */
-    private double calculateBinarySimilarity(String content1, String content2) {
-        List<String> chunks1 = extractHashChunks(content1);
-        List<String> chunks2 = extractHashChunks(content2);
-        
-        if (chunks1.isEmpty() || chunks2.isEmpty()) {
-            return 0.0;
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubmissionChanged(PlagiarismCorpusService.SubmissionChanged event) {
+        try {
+            plagiarismExecutor.execute(() -> {
+                try {
+                    indexSubmissions(List.of(event.submissionId()));
+                } catch (Exception e) {
+                    log.warn("Failed to add submission {} to the plagiarism corpus: {}", event.submissionId(), e.getMessage());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("Copy checker is busy; submission {} will be added to the corpus later", event.submissionId());
         }
-        
-        Set<String> set1 = new HashSet<>(chunks1);
-        Set<String> set2 = new HashSet<>(chunks2);
-        
-        Set<String> intersection = new HashSet<>(set1);
-        intersection.retainAll(set2);
-        
-        Set<String> union = new HashSet<>(set1);
-        union.addAll(set2);
-        
-        return union.isEmpty() ? 0.0 : (double) intersection.size() / union.size();
     }
     
     /**
-     * Extract hash chunks from binary file content representation
+     * Fingerprint the given submissions with the default file filters and add them to the
+     * historical corpus. Runs outside a request, so submissions are loaded with fetch joins.
+     * Returns the number of submissions added.
      */
-    private List<String> extractHashChunks(String content) {
-        List<String> chunks = new ArrayList<>();
-        String[] lines = content.split("\n");
-        
-        for (String line : lines) {
-            if (line.startsWith("CHUNK_")) {
-                chunks.add(line.trim());
+    public int indexSubmissions(Collection<Long> submissionIds) {
+        List<StudentSubmission> submissions = submissionRepository.findWithAssignmentAndStudentByIdIn(submissionIds);
+        if (submissions.isEmpty()) {
+            return 0;
+        }
+        
+        List<SubmissionFile> files = submissionFileRepository.findBySubmission_IdInOrderByUploadedAtAsc(submissionIds);
+        Map<Long, List<SubmissionFile>> filesBySubmission = files.stream()
+            .collect(Collectors.groupingBy(file -> file.getSubmission().getId()));
+        Map<String, SubmissionFingerprint> storedFingerprints = loadStoredFingerprints(files);
+        Map<String, FileFingerprint> fingerprints = new HashMap<>();
+        List<String> fileFilters = new PlagiarismCheckRequest.Settings().getFileFilters();
+        
+        Map<Long, Assignment> assignments = new HashMap<>();
+        Map<Long, List<PlagiarismCorpusService.CorpusEntry>> entriesByAssignment = new LinkedHashMap<>();
+        for (StudentSubmission submission : submissions) {
+            try {
+                ProcessedSubmission processed = processSubmission(submission,
+                    filesBySubmission.getOrDefault(submission.getId(), List.of()), fileFilters, storedFingerprints, fingerprints);
+                if (!processed.hasCodeContent()) {
+                    continue;
+                }
+                Assignment assignment = submission.getAssignment();
+                assignments.putIfAbsent(assignment.getId(), assignment);
+                entriesByAssignment.computeIfAbsent(assignment.getId(), id -> new ArrayList<>())
+                    .add(new PlagiarismCorpusService.CorpusEntry(
+                        processed.getSubmissionId(), processed.getStudentId(), processed.winnowHashes()));
+            } catch (Exception e) {
+                log.warn("Error processing submission {} for the plagiarism corpus: {}", submission.getId(), e.getMessage());
             }
         }
         
-        return chunks;
+        int added = 0;
+        for (Map.Entry<Long, List<PlagiarismCorpusService.CorpusEntry>> entry : entriesByAssignment.entrySet()) {
+            added += corpusService.indexSubmissions(assignments.get(entry.getKey()).getCourse(), entry.getKey(), entry.getValue());
+        }
+        return added;
     }
     
     /**
-     * Calculate line-based similarity for text files
+     * Add every submission missing from the historical corpus, a page at a time. Submissions
+     * without readable code stay unindexed and are skipped by the keyset paging.
      */
-    private double calculateLineSimilarity(String text1, String text2) {
-        String[] lines1 = text1.split("\n");
-        String[] lines2 = text2.split("\n");
-        
-        Set<String> lineSet1 = new HashSet<>();
-        Set<String> lineSet2 = new HashSet<>();
-        
-        // Add non-empty, meaningful lines (skip comments and metadata)
-        for (String line : lines1) {
-            String trimmed = line.trim();
-            if (!trimmed.isEmpty() && !isMetadataLine(trimmed)) {
-                lineSet1.add(trimmed);
-            }
-        }
-        
-        for (String line : lines2) {
-            String trimmed = line.trim();
-            if (!trimmed.isEmpty() && !isMetadataLine(trimmed)) {
-                lineSet2.add(trimmed);
-            }
-        }
-        
-        if (lineSet1.isEmpty() || lineSet2.isEmpty()) {
-            return 0.0;
-        }
-        
-        Set<String> intersection = new HashSet<>(lineSet1);
-        intersection.retainAll(lineSet2);
-        
-        Set<String> union = new HashSet<>(lineSet1);
-        union.addAll(lineSet2);
-        
-        return union.isEmpty() ? 0.0 : (double) intersection.size() / union.size();
+    public int backfillCorpus(int pageSize) {
+        long afterId = 0;
+        int added = 0;
+        List<Long> page;
+        while (!(page = submissionRepository.findUnindexedIdsAfter(afterId, PageRequest.of(0, pageSize))).isEmpty()) {
+            added += indexSubmissions(page);
+            afterId = page.get(page.size() - 1);
+            log.info("Plagiarism corpus backfill: {} submissions added so far (last id {})", added, afterId);
+        }
+        return added;
     }
     
     /**
-     * Check if a line is metadata (comments, file headers, etc.)
+     * Add the analysed submissions to the historical corpus. Best effort: a failure here never
+     * fails the analysis itself.
      */
-    private boolean isMetadataLine(String line) {
-        return line.startsWith("//") || 
-               line.startsWith("#") || 
-               line.startsWith("*") ||
-               line.startsWith("/*") ||
-               line.startsWith("*/") ||
-               line.matches(".*FILE:.*") ||
-               line.matches(".*SIZE:.*") ||
-               line.matches(".*TYPE:.*") ||
-               line.matches(".*=+.*");
-    }
-    
-    private Set<String> createShingles(String text, int shingleSize) {
-        Set<String> shingles = new HashSet<>();
-        
-        if (text.length() < shingleSize) {
-            shingles.add(text);
-            return shingles;
-        }
-        
-        for (int i = 0; i <= text.length() - shingleSize; i++) {
-            String shingle = text.substring(i, i + shingleSize);
-            shingles.add(shingle);
+    private void addToCorpus(Assignment assignment, List<ProcessedSubmission> submissions) {
+        try {
+            corpusService.indexSubmissions(assignment.getCourse(), assignment.getId(), submissions.stream()
+                .map(submission -> new PlagiarismCorpusService.CorpusEntry(
+                    submission.getSubmissionId(), submission.getStudentId(), submission.winnowHashes()))
+                .collect(Collectors.toList()));
+        } catch (Exception e) {
+            log.warn("Failed to add assignment {} to the plagiarism corpus: {}", assignment.getId(), e.getMessage());
         }
-        
-        return shingles;
     }
     
     /**
@@ -797,7 +593,7 @@ public class PlagiarismService {
         for (String line : lines) {
             String trimmed = line.trim();
             // Skip metadata lines but keep some structure
-            if (!trimmed.isEmpty() && !isMetadataLine(trimmed)) {
+            if (!trimmed.isEmpty() && !PlagiarismEngine.isMetadataLine(trimmed)) {
                 cleaned.append(escapeHtml(line)).append("\n");
                 contentLines++;
                 
@@ -924,7 +720,7 @@ public class PlagiarismService {
         for (String line : lines) {
             String trimmed = line.trim();
             // Skip metadata lines and empty lines
-            if (!trimmed.isEmpty() && !isMetadataLine(trimmed)) {
+            if (!trimmed.isEmpty() && !PlagiarismEngine.isMetadataLine(trimmed)) {
                 cleaned.append(trimmed).append("\n");
             }
         }
@@ -963,42 +759,151 @@ public class PlagiarismService {
         return response;
     }
     
+    /**
+     * Render the highlighted diff for one pair of a finished analysis. Diffs are built from the
+     * persisted fingerprints on request and kept in a small LRU cache.
+     */
+    public Map<String, String> getPairDiff(String analysisId, int pairId, Long teacherId) {
+        PlagiarismAnalysisResponse response = getAnalysisResults(analysisId);
+        
+        // The diff shows both students' source, so only the course's teachers may see it
+        Long assignmentId = analysisResults.getAssignmentId(analysisId);
+        if (assignmentId == null) {
+            throw new RuntimeException("Analysis not found");
+        }
+        Assignment assignment = assignmentRepository.findById(assignmentId)
+            .orElseThrow(() -> new RuntimeException("Assignment not found"));
+        verifyTeacherAccess(assignment, teacherId);
+        
+        List<PlagiarismAnalysisResponse.SimilarityPair> similarities = response.getResults().getSimilarities();
+        if (pairId < 0 || pairId >= similarities.size()) {
+            throw new RuntimeException("Similarity pair not found");
+        }
+        
+        PlagiarismAnalysisResponse.SimilarityPair pair = similarities.get(pairId);
+        if (pair.getCode1() != null && pair.getCode2() != null) {
+            // Results stored before diffs became lazy still carry their HTML
+            return Map.of("code1", pair.getCode1(), "code2", pair.getCode2());
+        }
+        if (pair.getFile1Hash() == null || pair.getFile2Hash() == null) {
+            throw new RuntimeException("Code content not available for this pair");
+        }
+        
+        String cacheKey = pair.getFile1Hash() + ":" + pair.getFile2Hash();
+        synchronized (diffCache) {
+            DiffResult cached = diffCache.get(cacheKey);
+            if (cached != null) {
+                return Map.of("code1", cached.getFormattedCode1(), "code2", cached.getFormattedCode2());
+            }
+        }
+        
+        Map<String, String> contents = fingerprintRepository
+            .findByContentHashIn(List.of(pair.getFile1Hash(), pair.getFile2Hash())).stream()
+            .collect(Collectors.toMap(SubmissionFingerprint::getContentHash, SubmissionFingerprint::getNormalizedContent));
+        DiffResult diff = renderDiff(contents.getOrDefault(pair.getFile1Hash(), ""),
+                                     contents.getOrDefault(pair.getFile2Hash(), ""));
+        
+        synchronized (diffCache) {
+            diffCache.put(cacheKey, diff);
+        }
+        return Map.of("code1", diff.getFormattedCode1(), "code2", diff.getFormattedCode2());
+    }
+    
+    private void verifyTeacherAccess(Assignment assignment, Long teacherId) {
+        User teacher = userRepository.findById(teacherId)
+                .orElseThrow(() -> new RuntimeException("Teacher not found"));
+        Course course = assignment.getCourse();
+        
+        // Verify teacher has access to this assignment's course (same pattern as AssignmentService)
+        boolean isAssigned = courseTeacherRepository.existsByCourseAndTeacherAndActiveTrue(course, teacher) ||
+                           (course.getAssignedTeacher() != null && course.getAssignedTeacher().getId().equals(teacherId));
+
+        if (!isAssigned) {
+            throw new RuntimeException("Teacher is not assigned to the course containing this assignment");
+        }
+    }
+    
+    private DiffResult renderDiff(String code1, String code2) {
+        // Create formatted diff instead of raw code
+        DiffResult diffResult = createDiffHighlight(code1, code2);
+        
+        // If formatted content is empty, use cleaned original content
+        String finalCode1 = diffResult.getFormattedCode1();
+        String finalCode2 = diffResult.getFormattedCode2();
+        
+        log.debug("Diff result lengths: code1={} chars, code2={} chars", 
+                 finalCode1.length(), finalCode2.length());
+        
+        if (finalCode1.trim().isEmpty()) {
+            log.warn("Code1 is empty, using fallback");
+            finalCode1 = cleanCodeForDisplay(code1);
+        }
+        if (finalCode2.trim().isEmpty()) {
+            log.warn("Code2 is empty, using fallback");
+            finalCode2 = cleanCodeForDisplay(code2);
+        }
+        return new DiffResult(finalCode1, finalCode2);
+    }
+    
     public void cancelAnalysis(String analysisId) {
         PlagiarismAnalysisResponse response = analysisResults.get(analysisId);
         if (response != null && "processing".equals(response.getStatus())) {
             response.setStatus("cancelled");
             response.getProgress().setStage("Analysis cancelled");
+            
+            // Stop the queued task or the running workers
+            AnalysisRun run = runningAnalyses.get(analysisId);
+            if (run != null) {
+                run.cancel();
+                // A task cancelled while still queued never runs, so release its course slot here
+                if (!run.isStarted()) {
+                    finishRun(analysisId, run);
+                }
+            }
         }
     }
     
-    // Helper class for processed submissions
-    private static class ProcessedSubmission {
-        private Long submissionId;
-        private Long studentId;
-        private String studentName;
-        private String studentEmail;
-        private List<String> codeContents = new ArrayList<>();
-        
-        public boolean hasCodeContent() {
-            return !codeContents.isEmpty() && 
-                   codeContents.stream().anyMatch(content -> !content.trim().isEmpty());
+    // Cancellation handle for one queued or running analysis
+    private static class AnalysisRun {
+        private final Long courseId;
+        private final Long assignmentId;
+        private final AtomicBoolean cancelled = new AtomicBoolean(false);
+        private final AtomicBoolean started = new AtomicBoolean(false);
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+        private volatile Future<?> future;
+        
+        AnalysisRun(Long courseId, Long assignmentId) {
+            this.courseId = courseId;
+            this.assignmentId = assignmentId;
+        }
+        
+        void cancel() {
+            cancelled.set(true);
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(true);
+            }
         }
         
-        // Getters and setters
-        public Long getSubmissionId() { return submissionId; }
-        public void setSubmissionId(Long submissionId) { this.submissionId = submissionId; }
-        
-        public Long getStudentId() { return studentId; }
-        public void setStudentId(Long studentId) { this.studentId = studentId; }
+        boolean isCancelled() { return cancelled.get(); }
+        boolean isStarted() { return started.get(); }
+        void markStarted() { started.set(true); }
+        boolean markFinished() { return finished.compareAndSet(false, true); }
         
-        public String getStudentName() { return studentName; }
-        public void setStudentName(String studentName) { this.studentName = studentName; }
-        
-        public String getStudentEmail() { return studentEmail; }
-        public void setStudentEmail(String studentEmail) { this.studentEmail = studentEmail; }
+        void checkCancelled() {
+            if (cancelled.get()) {
+                throw new CancellationException("Analysis cancelled");
+            }
+        }
         
-        public List<String> getCodeContents() { return codeContents; }
-        public void setCodeContents(List<String> codeContents) { this.codeContents = codeContents; }
+        Long getCourseId() { return courseId; }
+        Long getAssignmentId() { return assignmentId; }
+        void setFuture(Future<?> future) {
+            this.future = future;
+            if (cancelled.get()) {
+                future.cancel(true);
+            }
+        }
     }
     
     // Helper class for diff results
@@ -1027,43 +932,26 @@ public class PlagiarismService {
         log.info("Sending plagiarism notifications for {} similarity pairs in assignment: {}", 
                 similarities.size(), assignment.getTitle());
         
-        // Track students already notified to avoid duplicate notifications
+        // Each student is notified once per run, about the first pair that flagged them
         Set<Long> notifiedStudents = new HashSet<>();
-        
+        List<NotificationService.PlagiarismMatch> matches = new ArrayList<>();
         for (PlagiarismAnalysisResponse.SimilarityPair pair : similarities) {
-            try {
-                // Notify student 1 if not already notified
-                if (!notifiedStudents.contains(pair.getStudent1Id())) {
-                    User student1 = userRepository.findById(pair.getStudent1Id()).orElse(null);
-                    if (student1 != null) {
-                        String detectedWith = String.format("submission by %s", pair.getStudent2Name());
-                        notificationService.createPlagiarismDetectionNotification(
-                            student1, assignment, pair.getSimilarity(), detectedWith);
-                        notifiedStudents.add(pair.getStudent1Id());
-                        log.info("Sent plagiarism notification to student: {} ({:.1f}% similarity)", 
-                                student1.getName(), pair.getSimilarity());
-                    }
-                }
-                
-                // Notify student 2 if not already notified
-                if (!notifiedStudents.contains(pair.getStudent2Id())) {
-                    User student2 = userRepository.findById(pair.getStudent2Id()).orElse(null);
-                    if (student2 != null) {
-                        String detectedWith = String.format("submission by %s", pair.getStudent1Name());
-                        notificationService.createPlagiarismDetectionNotification(
-                            student2, assignment, pair.getSimilarity(), detectedWith);
-                        notifiedStudents.add(pair.getStudent2Id());
-                        log.info("Sent plagiarism notification to student: {} ({:.1f}% similarity)", 
-                                student2.getName(), pair.getSimilarity());
-                    }
-                }
-                
-            } catch (Exception e) {
-                log.error("Error sending plagiarism notification for similarity pair (students: {} and {}): {}", 
-                        pair.getStudent1Name(), pair.getStudent2Name(), e.getMessage(), e);
+            if (notifiedStudents.add(pair.getStudent1Id())) {
+                matches.add(new NotificationService.PlagiarismMatch(
+                    pair.getStudent1Id(), pair.getStudent2Id(), pair.getStudent2Name(), pair.getSimilarity()));
+            }
+            if (notifiedStudents.add(pair.getStudent2Id())) {
+                matches.add(new NotificationService.PlagiarismMatch(
+                    pair.getStudent2Id(), pair.getStudent1Id(), pair.getStudent1Name(), pair.getSimilarity()));
             }
         }
         
-        log.info("Completed sending plagiarism notifications. Total students notified: {}", notifiedStudents.size());
+        try {
+            // Students already notified about this assignment are skipped by the unique dedup key
+            int created = notificationService.createPlagiarismDetectionNotifications(assignment, matches);
+            log.info("Completed sending plagiarism notifications. Total students notified: {}", created);
+        } catch (Exception e) {
+            log.error("Error sending plagiarism notifications for assignment {}: {}", assignment.getTitle(), e.getMessage(), e);
+        }
     }
 }
@@ -29,7 +29,7 @@ public class ResourceService {
     private final ResourceRepository resourceRepository;
     private final CourseRepository courseRepository;
     private final UserRepository userRepository;
-    private final NotificationService notificationService;
+    private final NotificationOutboxService notificationOutboxService;
     private final AnnouncementService announcementService;
 
     @Value("${app.upload.dir:uploads}")
@@ -271,7 +271,7 @@ public class ResourceService {
                 savedResource.getResourceType().toString());
         
         // Send notification about new resource
-        notificationService.sendResourceCreatedNotification(course, savedResource, teacherId);
+        notificationOutboxService.publishNewResource(course, savedResource, teacherId);
         
         log.info("Successfully created resource: {}", savedResource.getId());
         return convertToResourceResponse(savedResource);
@@ -312,7 +312,7 @@ public class ResourceService {
         Resource updatedResource = resourceRepository.save(resource);
 
         // Send notification about resource update
-        notificationService.sendResourceUpdatedNotification(updatedResource.getCourse(), updatedResource, teacherId);
+        notificationOutboxService.publishResourceUpdated(updatedResource.getCourse(), updatedResource, teacherId);
 
         log.info("Successfully updated resource: {}", resourceId);
         return convertToResourceResponse(updatedResource);
@@ -391,7 +391,7 @@ public class ResourceService {
         Resource updatedResource = resourceRepository.save(resource);
 
         // Send notification about resource update
-        notificationService.sendResourceUpdatedNotification(updatedResource.getCourse(), updatedResource, teacherId);
+        notificationOutboxService.publishResourceUpdated(updatedResource.getCourse(), updatedResource, teacherId);
 
         log.info("Successfully updated resource with file. Resource ID: {}", resourceId);
         return convertToResourceResponse(updatedResource);
@@ -472,7 +472,7 @@ public class ResourceService {
         Resource updatedResource = resourceRepository.save(resource);
 
         // Send notification about resource update
-        notificationService.sendResourceUpdatedNotification(updatedResource.getCourse(), updatedResource, teacherId);
+        notificationOutboxService.publishResourceUpdated(updatedResource.getCourse(), updatedResource, teacherId);
 
         log.info("Successfully updated resource with type change. Resource ID: {}", resourceId);
         return convertToResourceResponse(updatedResource);
@@ -0,0 +1,75 @@
+package com.example.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived, single-use tickets for opening the notification stream.
+ *
+ * EventSource cannot send an Authorization header, so the stream authenticates from a query
+ * parameter. Putting the JWT there would leak a long-lived credential into proxy and access
+ * logs; instead an authenticated POST exchanges it for a random ticket that expires within
+ * seconds and is consumed by the first request that presents it.
+ */
+@Service
+@Slf4j
+public class StreamTicketService {
+
+    private static final int TICKET_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    @Value("${app.notifications.stream.ticket-ttl-seconds:30}")
+    private long ticketTtlSeconds;
+
+    /**
+     * Identity a ticket was issued for.
+     */
+    public record Ticket(String email, List<GrantedAuthority> authorities, long expiresAt) {
+    }
+
+    public String issue(String email, Collection<? extends GrantedAuthority> authorities) {
+        byte[] bytes = new byte[TICKET_BYTES];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(ticket, new Ticket(email, List.copyOf(authorities),
+            System.currentTimeMillis() + ticketTtlSeconds * 1000L));
+        return ticket;
+    }
+
+    /**
+     * Consume a ticket. Returns null if it is unknown, already used or expired.
+     */
+    public Ticket redeem(String ticket) {
+        Ticket redeemed = tickets.remove(ticket);
+        if (redeemed == null || redeemed.expiresAt() < System.currentTimeMillis()) {
+            return null;
+        }
+        return redeemed;
+    }
+
+    /**
+     * Drop tickets that were issued but never used.
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.stream.ticket-sweep-interval-ms:60000}")
+    public void evictExpiredTickets() {
+        long now = System.currentTimeMillis();
+        int before = tickets.size();
+        tickets.values().removeIf(ticket -> ticket.expiresAt() < now);
+        int evicted = before - tickets.size();
+        if (evicted > 0) {
+            log.debug("Evicted {} unused notification stream tickets", evicted);
+        }
+    }
+}
@@ -2,11 +2,13 @@ package com.example.demo.service;
 
 import com.example.demo.model.*;
 import com.example.demo.repository.*;
+import com.example.demo.service.plagiarism.FileFingerprint;
 import lombok.Builder;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
@@ -16,12 +18,16 @@ import org.springframework.web.multipart.MultipartFile;
 import jakarta.annotation.PostConstruct;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -37,7 +43,9 @@ public class StudentSubmissionService {
     private final AssignmentRepository assignmentRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
-    private final AssessmentGridRepository assessmentGridRepository;
+    private final AssessmentGridService assessmentGridService;
+    private final PlagiarismCorpusService plagiarismCorpusService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${app.upload.dir:/app/data/uploads}")
     private String uploadDir;
@@ -110,13 +118,15 @@ public class StudentSubmissionService {
         SubmissionFile submissionFile = null;
         if (file != null && !file.isEmpty()) {
             submissionFile = saveSubmissionFile(file, savedSubmission);
+            // Fingerprint into the copy checker corpus once the upload is committed
+            eventPublisher.publishEvent(new PlagiarismCorpusService.SubmissionChanged(savedSubmission.getId()));
         }
 
         // Notify teacher about the new submission
         notificationService.createAssignmentSubmissionNotification(assignment, student);
 
         // Update assessment grid to link this submission
-        updateAssessmentGridWithSubmission(assignment, student, savedSubmission);
+        updateAssessmentGridWithSubmission(savedSubmission);
 
         return mapToResponse(savedSubmission, submissionFile != null ? List.of(submissionFile) : List.of());
     }
@@ -239,9 +249,12 @@ public class StudentSubmissionService {
             for (SubmissionFile oldFile : oldFiles) {
                 deleteSubmissionFile(oldFile);
             }
+            // Old fingerprints no longer describe this submission; the new file is indexed after commit
+            plagiarismCorpusService.removeSubmission(existingSubmission.getId());
 
             // Save new file
             saveSubmissionFile(file, existingSubmission);
+            eventPublisher.publishEvent(new PlagiarismCorpusService.SubmissionChanged(existingSubmission.getId()));
         }
 
         // Check if editing after deadline should mark as late
@@ -257,7 +270,7 @@ public class StudentSubmissionService {
         StudentSubmission updatedSubmission = submissionRepository.save(existingSubmission);
 
         // Update assessment grid to link this submission (in case it wasn't linked before)
-        updateAssessmentGridWithSubmission(assignment, student, updatedSubmission);
+        updateAssessmentGridWithSubmission(updatedSubmission);
 
         // Get all current files (should be just the new one if file was provided)
         List<SubmissionFile> currentFiles = submissionFileRepository.findBySubmissionOrderByUploadedAtAsc(updatedSubmission);
@@ -346,8 +359,12 @@ public class StudentSubmissionService {
 
         log.debug("Saving submission file: {} -> {} at path: {}", originalFilename, storedFilename, filePath.toAbsolutePath());
 
-        // Save file to disk
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        // Save file to disk, hashing the bytes on the way for the plagiarism fingerprint cache
+        MessageDigest digest = FileFingerprint.sha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            Files.copy(in, filePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        String contentHash = HexFormat.of().formatHex(digest.digest());
         
         // Verify file was actually saved
         if (!Files.exists(filePath)) {
@@ -365,6 +382,7 @@ public class StudentSubmissionService {
                 .filePath(filePath.toString())
                 .fileSize(file.getSize())
                 .contentType(file.getContentType())
+                .contentHash(contentHash)
                 .build();
 
         return submissionFileRepository.save(submissionFile);
@@ -438,25 +456,11 @@ public class StudentSubmissionService {
     }
 
     /**
-     * Update assessment grid to link the submission when it's created
+     * Keep the assessment grid row of this submission in step (submission link and late penalty)
      */
-    private void updateAssessmentGridWithSubmission(Assignment assignment, User student, StudentSubmission submission) {
+    private void updateAssessmentGridWithSubmission(StudentSubmission submission) {
         try {
-            // Find existing assessment grid entry for this assignment and student
-            AssessmentGrid assessmentGrid = assessmentGridRepository.findByAssignmentAndStudent(assignment, student)
-                    .orElse(null);
-            
-            if (assessmentGrid != null && assessmentGrid.getSubmission() == null) {
-                // Update the assessment grid to link the submission
-                assessmentGrid.setSubmission(submission);
-                assessmentGridRepository.save(assessmentGrid);
-                log.info("Updated assessment grid {} to link submission {}", assessmentGrid.getId(), submission.getId());
-            } else if (assessmentGrid == null) {
-                log.info("No assessment grid found for assignment {} and student {}, it will be created when needed", 
-                        assignment.getId(), student.getId());
-            } else {
-                log.info("Assessment grid {} already has submission linked", assessmentGrid.getId());
-            }
+            assessmentGridService.onSubmissionUpdated(submission);
         } catch (Exception e) {
             log.error("Failed to update assessment grid with submission: {}", e.getMessage(), e);
             // Don't fail the submission creation if assessment grid update fails
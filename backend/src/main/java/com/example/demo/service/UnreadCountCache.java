@@ -0,0 +1,306 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.CourseEnrollmentRepository;
+import com.example.demo.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Per-user unread counters for notifications and messages.
+ *
+ * Counts are loaded from the database on a miss and then kept current from the events that
+ * services publish after commit: new items add one, read-state changes and deletions drop the
+ * entry so the next read recounts. A load that overlaps a committing change may or may not have
+ * counted it, so it is returned but not cached. Each counter map is an LRU bounded by size that
+ * also evicts users idle longer than the idle timeout; entries are recounted after a maximum age
+ * so that changes made outside these events cannot leave a count wrong for long.
+ */
+@Service
+@Slf4j
+public class UnreadCountCache {
+
+    private static final int STRIPES = 1024;
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    private final CourseEnrollmentRepository enrollmentRepository;
+    private final UserRepository userRepository;
+
+    @Value("${app.notifications.unread-cache.max-users:10000}")
+    private int maxUsers;
+
+    @Value("${app.notifications.unread-cache.idle-minutes:30}")
+    private long idleMinutes;
+
+    @Value("${app.notifications.unread-cache.max-age-minutes:10}")
+    private long maxAgeMinutes;
+
+    private final Counters notifications = new Counters();
+    private final Counters messages = new Counters();
+
+    public UnreadCountCache(CourseEnrollmentRepository enrollmentRepository, UserRepository userRepository) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.userRepository = userRepository;
+    }
+
+    public long getNotificationCount(Long userId, Supplier<Long> loader) {
+        return notifications.get(userId, loader);
+    }
+
+    public long getMessageCount(Long userId, Supplier<Long> loader) {
+        return messages.get(userId, loader);
+    }
+
+    // Cache listeners run before the push listeners, which read the updated counts
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationCreated(NotificationPushService.NotificationCreated event) {
+        notifications.increment(event.recipientId());
+    }
+
+    // From just before commit until the increment has been applied, loads for the affected users are not cached
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onNotificationCreatedCommitting(NotificationPushService.NotificationCreated event) {
+        notifications.beginChange(event.recipientId());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onNotificationCreatedCompleted(NotificationPushService.NotificationCreated event) {
+        notifications.endChange(event.recipientId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCourseNotificationsCommitting(NotificationPushService.CourseNotificationsCreated event) {
+        notifications.beginChangeAll();
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onCourseNotificationsCompleted(NotificationPushService.CourseNotificationsCreated event) {
+        notifications.endChangeAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onStudentNotificationsCommitting(NotificationPushService.StudentNotificationsCreated event) {
+        notifications.beginChangeAll();
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onStudentNotificationsCompleted(NotificationPushService.StudentNotificationsCreated event) {
+        notifications.endChangeAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onMessageSentCommitting(NotificationPushService.MessageSent event) {
+        messages.beginChange(event.recipientId());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onMessageSentCompleted(NotificationPushService.MessageSent event) {
+        messages.endChange(event.recipientId());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseNotificationsCreated(NotificationPushService.CourseNotificationsCreated event) {
+        for (List<Long> chunk : notifications.cachedUserChunks()) {
+            enrollmentRepository.findApprovedActiveStudentIds(event.courseId(), chunk).forEach(notifications::increment);
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStudentNotificationsCreated(NotificationPushService.StudentNotificationsCreated event) {
+        for (List<Long> chunk : notifications.cachedUserChunks()) {
+            userRepository.findActiveStudentIdsIn(chunk).forEach(notifications::increment);
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationsRead(NotificationPushService.NotificationsRead event) {
+        notifications.invalidate(event.userId());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageSent(NotificationPushService.MessageSent event) {
+        messages.increment(event.recipientId());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessagesRead(NotificationPushService.MessagesRead event) {
+        messages.invalidate(event.userId());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationsDeleted(NotificationPushService.NotificationsDeleted event) {
+        event.userIds().forEach(notifications::invalidate);
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessagesDeleted(NotificationPushService.MessagesDeleted event) {
+        event.userIds().forEach(messages::invalidate);
+    }
+
+    /**
+     * Evict counters of users that have been idle longer than the idle timeout.
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.unread-cache.sweep-interval-ms:60000}")
+    public void evictIdleUsers() {
+        long cutoff = System.currentTimeMillis() - idleMinutes * 60_000L;
+        int evicted = notifications.evictIdle(cutoff) + messages.evictIdle(cutoff);
+        if (evicted > 0) {
+            log.debug("Evicted {} idle unread counters", evicted);
+        }
+    }
+
+    private static final class Entry {
+        long count;
+        final long loadedAt;
+        long lastAccess;
+
+        Entry(long count, long now) {
+            this.count = count;
+            this.loadedAt = now;
+            this.lastAccess = now;
+        }
+    }
+
+    private final class Counters {
+
+        // Users in access order; guarded by its own monitor
+        private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        // Bumped on every change for a user stripe, so a recount that raced with a change is not stored
+        private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+        // Changes between before-commit and completion, per stripe and for fan-outs to many users;
+        // a recount that starts meanwhile may already see the new row and would count it twice
+        private final AtomicIntegerArray pending = new AtomicIntegerArray(STRIPES);
+        private final AtomicInteger pendingAll = new AtomicInteger();
+        private final AtomicLong versionAll = new AtomicLong();
+
+        long get(Long userId, Supplier<Long> loader) {
+            long now = System.currentTimeMillis();
+            synchronized (entries) {
+                Entry entry = entries.get(userId);
+                if (entry != null && now - entry.loadedAt < maxAgeMinutes * 60_000L) {
+                    entry.lastAccess = now;
+                    return entry.count;
+                }
+            }
+
+            // Versions are read before the pending counts; changes bump them in the opposite order
+            int stripe = stripe(userId);
+            long version = versions.get(stripe);
+            long allVersion = versionAll.get();
+            boolean quiet = pending.get(stripe) == 0 && pendingAll.get() == 0;
+            Long loaded = loader.get();
+            long count = loaded != null ? loaded : 0L;
+            synchronized (entries) {
+                if (quiet && versions.get(stripe) == version && versionAll.get() == allVersion) {
+                    entries.put(userId, new Entry(count, now));
+                    Iterator<Long> iterator = entries.keySet().iterator();
+                    while (entries.size() > maxUsers && iterator.hasNext()) {
+                        iterator.next();
+                        iterator.remove();
+                    }
+                }
+            }
+            return count;
+        }
+
+        void increment(Long userId) {
+            versions.incrementAndGet(stripe(userId));
+            synchronized (entries) {
+                Entry entry = entries.get(userId);
+                if (entry != null) {
+                    entry.count++;
+                }
+            }
+        }
+
+        void beginChange(Long userId) {
+            int stripe = stripe(userId);
+            pending.incrementAndGet(stripe);
+            versions.incrementAndGet(stripe);
+        }
+
+        void endChange(Long userId) {
+            int stripe = stripe(userId);
+            versions.incrementAndGet(stripe);
+            pending.decrementAndGet(stripe);
+        }
+
+        void beginChangeAll() {
+            pendingAll.incrementAndGet();
+            versionAll.incrementAndGet();
+        }
+
+        void endChangeAll() {
+            versionAll.incrementAndGet();
+            pendingAll.decrementAndGet();
+        }
+
+        void invalidate(Long userId) {
+            versions.incrementAndGet(stripe(userId));
+            synchronized (entries) {
+                entries.remove(userId);
+            }
+        }
+
+        List<List<Long>> cachedUserChunks() {
+            List<Long> userIds;
+            synchronized (entries) {
+                userIds = new ArrayList<>(entries.keySet());
+            }
+            List<List<Long>> chunks = new ArrayList<>();
+            for (int from = 0; from < userIds.size(); from += LOOKUP_CHUNK_SIZE) {
+                chunks.add(userIds.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, userIds.size())));
+            }
+            return chunks;
+        }
+
+        int evictIdle(long cutoff) {
+            int evicted = 0;
+            synchronized (entries) {
+                Iterator<Entry> iterator = entries.values().iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next().lastAccess < cutoff) {
+                        iterator.remove();
+                        evicted++;
+                    }
+                }
+            }
+            return evicted;
+        }
+
+        private int stripe(Long userId) {
+            return (int) Math.floorMod(userId, (long) STRIPES);
+        }
+    }
+}
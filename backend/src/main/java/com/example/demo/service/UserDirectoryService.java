@@ -0,0 +1,158 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.DirectoryUserResponse;
+import com.example.demo.dto.UserDirectoryResponse;
+import com.example.demo.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * In-memory directory of ACTIVE users for the messaging user picker.
+ *
+ * The directory is an immutable snapshot of a lightweight projection, sorted by name, with a
+ * sorted prefix index over the full name, each name word, the email and the role. A search is a
+ * binary search plus a walk over the matching keys, so it never touches the database. The snapshot is
+ * rebuilt when the users table's change marker (row count and latest update time) moves, which
+ * picks up approvals, status changes, renames and deletions within one refresh interval.
+ */
+@Service
+@Slf4j
+public class UserDirectoryService {
+
+    private final UserRepository userRepository;
+
+    private volatile Snapshot snapshot;
+
+    public UserDirectoryService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * One page of the directory, optionally filtered by a name, name-word, email or role prefix.
+     */
+    public UserDirectoryResponse search(String query, Long excludeUserId, int offset, int size) {
+        Snapshot current = snapshot != null ? snapshot : refresh();
+        String prefix = query != null ? query.trim().toLowerCase(Locale.ROOT) : "";
+
+        List<DirectoryUserResponse> page = new ArrayList<>();
+        int total = 0;
+        for (int position : current.matches(prefix)) {
+            DirectoryUserResponse user = current.users.get(position);
+            if (user.getId().equals(excludeUserId)) {
+                continue;
+            }
+            if (total >= offset && page.size() < size) {
+                page.add(user);
+            }
+            total++;
+        }
+        return UserDirectoryResponse.builder()
+                .users(page)
+                .total(total)
+                .hasMore(offset + page.size() < total)
+                .build();
+    }
+
+    /**
+     * Rebuild the snapshot if any user changed since it was taken.
+     */
+    @Scheduled(fixedDelayString = "${app.messages.directory.refresh-interval-ms:30000}")
+    public void refreshIfChanged() {
+        Snapshot current = snapshot;
+        UserRepository.ChangeMarker marker = userRepository.findChangeMarker();
+        if (current == null || !Objects.equals(current.userCount, marker.getUserCount())
+                || !Objects.equals(current.lastUpdatedAt, marker.getLastUpdatedAt())) {
+            refresh();
+        }
+    }
+
+    private synchronized Snapshot refresh() {
+        UserRepository.ChangeMarker marker = userRepository.findChangeMarker();
+        List<DirectoryUserResponse> users = userRepository.findActiveDirectoryEntries().stream()
+                .map(entry -> DirectoryUserResponse.builder()
+                        .id(entry.getId())
+                        .name(entry.getName())
+                        .email(entry.getEmail())
+                        .role(entry.getRole() != null ? entry.getRole().toString() : null)
+                        .profilePhotoUrl(entry.getProfilePhotoUrl())
+                        .build())
+                .sorted(Comparator.comparing((DirectoryUserResponse user) -> lower(user.getName()))
+                        .thenComparing(DirectoryUserResponse::getId))
+                .toList();
+        snapshot = new Snapshot(users, marker.getUserCount(), marker.getLastUpdatedAt());
+        log.debug("Rebuilt messaging directory with {} active users", users.size());
+        return snapshot;
+    }
+
+    private static String lower(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static final class Snapshot {
+
+        final List<DirectoryUserResponse> users;
+        final Long userCount;
+        final LocalDateTime lastUpdatedAt;
+
+        // Prefix index: sorted keys with the position of the user each key belongs to
+        private final String[] keys;
+        private final int[] positions;
+
+        Snapshot(List<DirectoryUserResponse> users, Long userCount, LocalDateTime lastUpdatedAt) {
+            this.users = users;
+            this.userCount = userCount;
+            this.lastUpdatedAt = lastUpdatedAt;
+
+            List<Map.Entry<String, Integer>> index = new ArrayList<>();
+            for (int position = 0; position < users.size(); position++) {
+                DirectoryUserResponse user = users.get(position);
+                Set<String> userKeys = new HashSet<>();
+                String name = lower(user.getName()).trim();
+                userKeys.add(name);
+                userKeys.addAll(Arrays.asList(name.split("\\s+")));
+                userKeys.add(lower(user.getEmail()));
+                userKeys.add(lower(user.getRole()));
+                userKeys.remove("");
+                for (String key : userKeys) {
+                    index.add(Map.entry(key, position));
+                }
+            }
+            index.sort(Map.Entry.comparingByKey());
+            keys = new String[index.size()];
+            positions = new int[index.size()];
+            for (int i = 0; i < index.size(); i++) {
+                keys[i] = index.get(i).getKey();
+                positions[i] = index.get(i).getValue();
+            }
+        }
+
+        // Positions of the users with a key starting with the prefix, in name order
+        Iterable<Integer> matches(String prefix) {
+            if (prefix.isEmpty()) {
+                return () -> new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < users.size();
+                    }
+
+                    @Override
+                    public Integer next() {
+                        return next++;
+                    }
+                };
+            }
+            BitSet matched = new BitSet(users.size());
+            int from = Arrays.binarySearch(keys, prefix);
+            for (int i = from >= 0 ? from : -from - 1; i < keys.length && keys[i].startsWith(prefix); i++) {
+                matched.set(positions[i]);
+            }
+            return () -> matched.stream().iterator();
+        }
+    }
+}
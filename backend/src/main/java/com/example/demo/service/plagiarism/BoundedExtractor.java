@@ -0,0 +1,151 @@
+package com.example.demo.service.plagiarism;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads submission files and ZIP archives under fixed byte budgets so that a few huge or
+ * malicious uploads cannot exhaust the heap during an analysis.
+ *
+ * Archives are opened through their central directory, so skipped entries are never
+ * inflated. Each entry is read incrementally up to the per-entry budget and the archive as
+ * a whole stops contributing once the per-archive budget is spent. An entry that inflates
+ * far beyond its compressed size, or an archive with too many entries, is treated as a
+ * zip bomb and extraction stops. Only ZIP is supported; RAR uploads are never opened here.
+ */
+@Slf4j
+public class BoundedExtractor {
+
+    // Ratio checks only kick in above this size; tiny whitespace-heavy files compress very well
+    private static final long RATIO_CHECK_MIN_BYTES = 64 * 1024;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final long maxEntryBytes;
+    private final long maxArchiveBytes;
+    private final int maxEntries;
+    private final int maxCompressionRatio;
+
+    public BoundedExtractor(long maxEntryBytes, long maxArchiveBytes, int maxEntries, int maxCompressionRatio) {
+        this.maxEntryBytes = maxEntryBytes;
+        this.maxArchiveBytes = maxArchiveBytes;
+        this.maxEntries = maxEntries;
+        this.maxCompressionRatio = maxCompressionRatio;
+    }
+
+    /**
+     * Callback for each extracted archive entry.
+     */
+    @FunctionalInterface
+    public interface EntryHandler {
+        void accept(ZipEntry entry, String content, boolean truncated);
+    }
+
+    /**
+     * Read a plain text file, truncated to the per-entry budget.
+     */
+    public String readText(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            BoundedBytes bytes = readBounded(in, maxEntryBytes, -1);
+            if (bytes.truncated) {
+                log.warn("File {} exceeds {} bytes; only the first {} bytes are analyzed", path, maxEntryBytes, maxEntryBytes);
+            }
+            return bytes.asString();
+        }
+    }
+
+    /**
+     * Stream the entries of a ZIP archive whose names pass the filter to the handler.
+     * Returns the number of entries visited.
+     */
+    public int extractArchive(Path archivePath, Predicate<String> acceptName, EntryHandler handler) throws IOException {
+        long archiveBudget = maxArchiveBytes;
+        int visited = 0;
+
+        try (ZipFile zipFile = new ZipFile(archivePath.toFile())) {
+            if (zipFile.size() > maxEntries) {
+                log.warn("Archive {} has {} entries (limit {}); only the first {} are analyzed",
+                         archivePath, zipFile.size(), maxEntries, maxEntries);
+            }
+
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements() && visited < maxEntries) {
+                ZipEntry entry = entries.nextElement();
+                visited++;
+                if (entry.isDirectory() || !acceptName.test(entry.getName())) {
+                    continue;
+                }
+                if (archiveBudget <= 0) {
+                    log.warn("Archive {} exceeded its {} byte budget; remaining entries skipped", archivePath, maxArchiveBytes);
+                    break;
+                }
+
+                long limit = Math.min(maxEntryBytes, archiveBudget);
+                BoundedBytes bytes;
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    bytes = readBounded(in, limit, entry.getCompressedSize());
+                }
+                if (bytes.bomb) {
+                    log.warn("Archive {} entry {} inflates beyond {}x its compressed size; treating archive as a zip bomb",
+                             archivePath, entry.getName(), maxCompressionRatio);
+                    break;
+                }
+
+                archiveBudget -= bytes.length;
+                handler.accept(entry, bytes.asString(), bytes.truncated);
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Read at most {@code limit} bytes. When the compressed size is known, stop as soon as the
+     * inflated size exceeds it by more than the allowed ratio.
+     */
+    private BoundedBytes readBounded(InputStream in, long limit, long compressedSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(limit, BUFFER_SIZE));
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        int len;
+        while ((len = in.read(buffer, 0, (int) Math.min(buffer.length, limit - total + 1))) > 0) {
+            if (total + len > limit) {
+                out.write(buffer, 0, (int) (limit - total));
+                return new BoundedBytes(out, true, false);
+            }
+            out.write(buffer, 0, len);
+            total += len;
+            if (compressedSize > 0 && total > RATIO_CHECK_MIN_BYTES && total > compressedSize * maxCompressionRatio) {
+                return new BoundedBytes(out, false, true);
+            }
+        }
+        return new BoundedBytes(out, false, false);
+    }
+
+    private static class BoundedBytes {
+        private final ByteArrayOutputStream bytes;
+        private final int length;
+        private final boolean truncated;
+        private final boolean bomb;
+
+        BoundedBytes(ByteArrayOutputStream bytes, boolean truncated, boolean bomb) {
+            this.bytes = bytes;
+            this.length = bytes.size();
+            this.truncated = truncated;
+            this.bomb = bomb;
+        }
+
+        String asString() {
+            return bytes.toString(StandardCharsets.UTF_8);
+        }
+    }
+}
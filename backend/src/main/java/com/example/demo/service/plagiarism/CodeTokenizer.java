@@ -0,0 +1,213 @@
+package com.example.demo.service.plagiarism;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lexes extracted submission text into normalized tokens for winnowing.
+ *
+ * Comments and whitespace are dropped according to the language of each file, keywords
+ * and punctuation are kept, and every other identifier, number or string literal collapses
+ * into a single placeholder token. Renaming variables or reformatting therefore does not
+ * change the token stream.
+ *
+ * Input may be a single file or an extracted archive; the copy checker's "// FILE:" headers
+ * start a new file segment and select its language.
+ */
+public final class CodeTokenizer {
+
+    public enum Family { C_LIKE, HASH, SQL, MARKUP, PLAIN }
+
+    private static final Set<String> C_LIKE = Set.of("c", "cpp", "h", "java", "js", "ts", "kt", "cs", "php", "go", "css");
+    private static final Set<String> HASH = Set.of("py", "rb", "sh", "yaml", "yml");
+    private static final Set<String> MARKUP = Set.of("html", "xml");
+
+    private static final Set<String> KEYWORDS = Set.of(
+        // Control flow and declarations shared by most languages
+        "if", "else", "elif", "for", "foreach", "while", "do", "switch", "case", "default", "break", "continue",
+        "return", "yield", "try", "catch", "except", "finally", "throw", "throws", "raise", "with", "as", "in",
+        "is", "not", "and", "or", "new", "delete", "class", "struct", "enum", "interface", "extends", "implements",
+        "def", "fun", "func", "function", "lambda", "import", "from", "package", "using", "namespace", "include",
+        "public", "private", "protected", "static", "final", "const", "var", "val", "let", "void", "this", "self",
+        "super", "null", "nil", "none", "true", "false", "goto", "sizeof", "typedef", "template", "typename",
+        // Primitive types
+        "int", "long", "short", "char", "byte", "float", "double", "bool", "boolean", "string", "unsigned", "signed",
+        "auto", "vector", "map", "list", "dict", "set",
+        // Common I/O and SQL keywords
+        "print", "println", "printf", "cout", "cin", "endl", "select", "insert", "update", "where", "join", "order",
+        "group", "by", "values", "into", "create", "table");
+
+    private static final long ID = ShingleEngine.hash64("ID");
+    private static final long NUM = ShingleEngine.hash64("NUM");
+    private static final long STR = ShingleEngine.hash64("STR");
+
+    private CodeTokenizer() {
+    }
+
+    /**
+     * Token hashes with the file index and 1-based line of each token.
+     */
+    public static final class Tokens {
+        private long[] hashes = new long[256];
+        private int[] lines = new int[256];
+        private int[] files = new int[256];
+        private int size;
+        private final List<String> fileNames = new ArrayList<>();
+
+        private void add(long hash, int file, int line) {
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+                lines = Arrays.copyOf(lines, size * 2);
+                files = Arrays.copyOf(files, size * 2);
+            }
+            hashes[size] = hash;
+            lines[size] = line;
+            files[size] = file;
+            size++;
+        }
+
+        public int size() { return size; }
+        public long hash(int i) { return hashes[i]; }
+        public int line(int i) { return lines[i]; }
+        public int file(int i) { return files[i]; }
+        public List<String> getFileNames() { return fileNames; }
+    }
+
+    public static Family familyOf(String extension) {
+        if (extension == null) return Family.PLAIN;
+        String ext = extension.toLowerCase();
+        if (C_LIKE.contains(ext)) return Family.C_LIKE;
+        if (HASH.contains(ext)) return Family.HASH;
+        if (ext.equals("sql")) return Family.SQL;
+        if (MARKUP.contains(ext)) return Family.MARKUP;
+        return Family.PLAIN;
+    }
+
+    /**
+     * Tokenize extracted content. Text before the first file header uses {@code defaultName}.
+     */
+    public static Tokens tokenize(String content, String defaultName) {
+        Tokens tokens = new Tokens();
+        if (content == null || content.isEmpty()) {
+            return tokens;
+        }
+
+        String[] lines = content.split("\n", -1);
+        StringBuilder segment = new StringBuilder();
+        String currentName = defaultName;
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("// FILE: ")) {
+                lexSegment(segment, currentName, tokens);
+                segment.setLength(0);
+                currentName = trimmed.substring("// FILE: ".length()).trim();
+                continue;
+            }
+            // Keep line numbering stable by blanking copy-checker headers instead of removing them
+            segment.append(isHeaderLine(trimmed) ? "" : line).append('\n');
+        }
+        lexSegment(segment, currentName, tokens);
+        return tokens;
+    }
+
+    private static boolean isHeaderLine(String trimmed) {
+        return trimmed.startsWith("// SIZE: ") || trimmed.startsWith("// TYPE: ") || trimmed.startsWith("// ARCHIVE: ")
+            || trimmed.startsWith("// BINARY FILE: ") || trimmed.startsWith("// CHECKSUM: ")
+            || trimmed.startsWith("// ===") || trimmed.startsWith("// ---")
+            || (!trimmed.isEmpty() && trimmed.chars().allMatch(c -> c == '='));
+    }
+
+    private static void lexSegment(CharSequence text, String fileName, Tokens tokens) {
+        if (text.toString().isBlank()) {
+            return;
+        }
+        int file = tokens.fileNames.size();
+        tokens.fileNames.add(fileName == null ? "" : fileName);
+
+        int dot = fileName == null ? -1 : fileName.lastIndexOf('.');
+        String extension = dot >= 0 ? fileName.substring(dot + 1) : "";
+        Family family = familyOf(extension);
+        boolean hashComments = family == Family.HASH || extension.equalsIgnoreCase("php");
+
+        int line = 1;
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            char c = text.charAt(i);
+
+            if (c == '\n') {
+                line++;
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else if ((family == Family.C_LIKE || family == Family.SQL) && startsWith(text, i, "/*")) {
+                int end = indexOf(text, "*/", i + 2);
+                end = end < 0 ? n : end + 2;
+                line += countNewlines(text, i, end);
+                i = end;
+            } else if (family == Family.C_LIKE && startsWith(text, i, "//")
+                    || hashComments && c == '#'
+                    || family == Family.SQL && startsWith(text, i, "--")) {
+                while (i < n && text.charAt(i) != '\n') i++;
+            } else if (family == Family.MARKUP && startsWith(text, i, "<!--")) {
+                int end = indexOf(text, "-->", i + 4);
+                end = end < 0 ? n : end + 3;
+                line += countNewlines(text, i, end);
+                i = end;
+            } else if (family == Family.HASH && (startsWith(text, i, "\"\"\"") || startsWith(text, i, "'''"))) {
+                String quote = text.subSequence(i, i + 3).toString();
+                int end = indexOf(text, quote, i + 3);
+                end = end < 0 ? n : end + 3;
+                tokens.add(STR, file, line);
+                line += countNewlines(text, i, end);
+                i = end;
+            } else if (c == '"' || c == '\'' || c == '`') {
+                int start = line;
+                i++;
+                while (i < n && text.charAt(i) != c && (c == '`' || text.charAt(i) != '\n')) {
+                    if (text.charAt(i) == '\\') i++;
+                    else if (text.charAt(i) == '\n') line++;
+                    i++;
+                }
+                i++;
+                tokens.add(STR, file, start);
+            } else if (Character.isLetter(c) || c == '_' || c == '$') {
+                int start = i;
+                while (i < n && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '_' || text.charAt(i) == '$')) i++;
+                String word = text.subSequence(start, i).toString().toLowerCase();
+                tokens.add(KEYWORDS.contains(word) ? ShingleEngine.hash64(word) : ID, file, line);
+            } else if (Character.isDigit(c)) {
+                while (i < n && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '.' || text.charAt(i) == '_')) i++;
+                tokens.add(NUM, file, line);
+            } else {
+                tokens.add(c, file, line);
+                i++;
+            }
+        }
+    }
+
+    private static boolean startsWith(CharSequence text, int at, String prefix) {
+        if (at + prefix.length() > text.length()) return false;
+        for (int k = 0; k < prefix.length(); k++) {
+            if (text.charAt(at + k) != prefix.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private static int indexOf(CharSequence text, String target, int from) {
+        for (int i = from; i + target.length() <= text.length(); i++) {
+            if (startsWith(text, i, target)) return i;
+        }
+        return -1;
+    }
+
+    private static int countNewlines(CharSequence text, int from, int to) {
+        int count = 0;
+        for (int i = from; i < Math.min(to, text.length()); i++) {
+            if (text.charAt(i) == '\n') count++;
+        }
+        return count;
+    }
+}
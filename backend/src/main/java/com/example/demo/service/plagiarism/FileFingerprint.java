@@ -0,0 +1,122 @@
+package com.example.demo.service.plagiarism;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * In-memory view of one file's plagiarism fingerprint for the duration of an analysis.
+ *
+ * Holds everything the pairwise scorer needs so no file is read or normalized more than
+ * once per run. Shingle hashes depend on the pair (the shingle size is derived from the
+ * shorter file), so they are computed lazily per size and memoized.
+ */
+public class FileFingerprint {
+
+    // Bump when normalization, line hashing, MinHash or winnowing parameters change
+    public static final int VERSION = 2;
+
+    // Largest shingle size memoized; calculateSimilarity uses sizes 5..15
+    private static final int MAX_CACHED_SHINGLE_SIZE = 15;
+
+    private final String contentHash;
+    private final String normalizedContent;
+    private final String normalizedHash;
+    private final boolean binary;
+    private final long[] lineHashes;
+    private final long[] signature;
+    private final WinnowFingerprint winnow;
+    private final AtomicReferenceArray<long[]> shinglesBySize =
+            new AtomicReferenceArray<>(MAX_CACHED_SHINGLE_SIZE + 1);
+
+    public FileFingerprint(String contentHash, String normalizedContent, String normalizedHash,
+                           boolean binary, long[] lineHashes, long[] signature, WinnowFingerprint winnow) {
+        this.contentHash = contentHash;
+        this.normalizedContent = normalizedContent;
+        this.normalizedHash = normalizedHash;
+        this.binary = binary;
+        this.lineHashes = lineHashes;
+        this.signature = signature;
+        this.winnow = winnow;
+    }
+
+    /**
+     * Sorted, distinct shingle hashes of the normalized content for the given size.
+     */
+    public long[] shingles(int shingleSize) {
+        if (shingleSize > MAX_CACHED_SHINGLE_SIZE) {
+            return ShingleEngine.shingleHashes(normalizedContent, shingleSize);
+        }
+        long[] cached = shinglesBySize.get(shingleSize);
+        if (cached == null) {
+            cached = ShingleEngine.shingleHashes(normalizedContent, shingleSize);
+            shinglesBySize.compareAndSet(shingleSize, null, cached);
+        }
+        return cached;
+    }
+
+    public boolean isEmpty() {
+        return normalizedContent == null || normalizedContent.trim().isEmpty();
+    }
+
+    public int length() {
+        return normalizedContent == null ? 0 : normalizedContent.length();
+    }
+
+    public String getContentHash() { return contentHash; }
+    public String getNormalizedContent() { return normalizedContent; }
+    public String getNormalizedHash() { return normalizedHash; }
+    public boolean isBinary() { return binary; }
+    public long[] getLineHashes() { return lineHashes; }
+    public long[] getSignature() { return signature; }
+    public WinnowFingerprint getWinnow() { return winnow; }
+
+    // Encoding helpers for persisting fingerprints
+
+    public static byte[] encode(long[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Long.BYTES);
+        buffer.asLongBuffer().put(values);
+        return buffer.array();
+    }
+
+    public static long[] decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) return new long[0];
+        long[] values = new long[bytes.length / Long.BYTES];
+        ByteBuffer.wrap(bytes).asLongBuffer().get(values);
+        return values;
+    }
+
+    public static String sha256Hex(String text) {
+        return HexFormat.of().formatHex(sha256().digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Stream a file through SHA-256 without loading it into memory.
+     */
+    public static String sha256Hex(Path path) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(path)) {
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, len);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
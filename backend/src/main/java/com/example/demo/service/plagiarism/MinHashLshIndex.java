@@ -0,0 +1,195 @@
+package com.example.demo.service.plagiarism;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * MinHash signatures plus locality-sensitive hashing (banding) used to find candidate
+ * submission pairs before running the exact similarity scorer.
+ *
+ * Documents are individual files; each document belongs to an owner (a submission).
+ * Two owners become a candidate pair when at least one of their documents shares an
+ * LSH bucket with the other's and the signatures estimate a Jaccard similarity at or
+ * above the configured threshold.
+ */
+public class MinHashLshIndex {
+
+    public static final int DEFAULT_NUM_HASHES = 128;
+
+    private static final long[] DEFAULT_SEEDS = seedsFor(DEFAULT_NUM_HASHES);
+
+    private final int numHashes;
+    private final int bands;
+    private final int rows;
+    private final double threshold;
+    private final long[] seeds;
+
+    private final List<long[]> signatures = new ArrayList<>();
+    private final List<Integer> owners = new ArrayList<>();
+    private final Map<Long, List<Integer>> buckets = new HashMap<>();
+
+    public MinHashLshIndex(double threshold) {
+        this(DEFAULT_NUM_HASHES, threshold);
+    }
+
+    public MinHashLshIndex(int numHashes, double threshold) {
+        if (numHashes <= 0) {
+            throw new IllegalArgumentException("numHashes must be positive");
+        }
+        this.numHashes = numHashes;
+        this.threshold = Math.max(0.0, Math.min(1.0, threshold));
+        this.rows = chooseRowsPerBand(numHashes, this.threshold);
+        this.bands = numHashes / rows;
+        this.seeds = numHashes == DEFAULT_NUM_HASHES ? DEFAULT_SEEDS : seedsFor(numHashes);
+    }
+
+    // Seeds are deterministic so signatures can be persisted and compared across runs
+    private static long[] seedsFor(int numHashes) {
+        long[] seeds = new long[numHashes];
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < numHashes; i++) {
+            seed = mix64(seed + i);
+            seeds[i] = seed;
+        }
+        return seeds;
+    }
+
+    /**
+     * Pick the largest rows-per-band whose LSH S-curve inflection point, (1/b)^(1/r), sits
+     * comfortably below the threshold so pairs near the threshold are still recalled.
+     */
+    static int chooseRowsPerBand(int numHashes, double threshold) {
+        int best = 1;
+        for (int r = 1; r <= numHashes; r++) {
+            if (numHashes % r != 0) continue;
+            int b = numHashes / r;
+            double inflection = Math.pow(1.0 / b, 1.0 / r);
+            if (inflection <= threshold * 0.8) {
+                best = r;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Compute the MinHash signature of a set of 64-bit shingle hashes.
+     * Duplicate hashes are harmless since only minimums are kept.
+     */
+    public long[] signature(long[] shingleHashes) {
+        return signature(shingleHashes, seeds);
+    }
+
+    /**
+     * Signature with {@link #DEFAULT_NUM_HASHES} hash functions, compatible with any index
+     * built through {@link #MinHashLshIndex(double)}.
+     */
+    public static long[] defaultSignature(long[] shingleHashes) {
+        return signature(shingleHashes, DEFAULT_SEEDS);
+    }
+
+    private static long[] signature(long[] shingleHashes, long[] seeds) {
+        int numHashes = seeds.length;
+        long[] signature = new long[numHashes];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (long shingle : shingleHashes) {
+            for (int i = 0; i < numHashes; i++) {
+                long value = mix64(shingle ^ seeds[i]);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Add a document signature belonging to the given owner.
+     */
+    public void add(int owner, long[] signature) {
+        if (signature.length != numHashes) {
+            throw new IllegalArgumentException("Signature length does not match index");
+        }
+        int docId = signatures.size();
+        signatures.add(signature);
+        owners.add(owner);
+
+        for (int band = 0; band < bands; band++) {
+            long bandHash = band;
+            for (int r = band * rows; r < (band + 1) * rows; r++) {
+                bandHash = mix64(bandHash * 31 + signature[r]);
+            }
+            buckets.computeIfAbsent(bandHash, k -> new ArrayList<>()).add(docId);
+        }
+    }
+
+    /**
+     * Return candidate owner pairs, encoded with {@link #pairKey(int, int)}, whose
+     * estimated Jaccard similarity reaches the threshold.
+     */
+    public Set<Long> candidatePairs() {
+        Set<Long> candidates = new HashSet<>();
+        Set<Long> checkedDocPairs = new HashSet<>();
+
+        for (List<Integer> bucket : buckets.values()) {
+            if (bucket.size() < 2) continue;
+            for (int i = 0; i < bucket.size(); i++) {
+                int doc1 = bucket.get(i);
+                int owner1 = owners.get(doc1);
+                for (int j = i + 1; j < bucket.size(); j++) {
+                    int doc2 = bucket.get(j);
+                    int owner2 = owners.get(doc2);
+                    if (owner1 == owner2) continue;
+
+                    long ownerKey = pairKey(owner1, owner2);
+                    if (candidates.contains(ownerKey)) continue;
+                    if (!checkedDocPairs.add(pairKey(doc1, doc2))) continue;
+
+                    if (estimateJaccard(signatures.get(doc1), signatures.get(doc2)) >= threshold) {
+                        candidates.add(ownerKey);
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Fraction of signature positions that agree, an unbiased estimate of Jaccard similarity.
+     */
+    public static double estimateJaccard(long[] signature1, long[] signature2) {
+        int length = Math.min(signature1.length, signature2.length);
+        if (length == 0) return 0.0;
+        int equal = 0;
+        for (int i = 0; i < length; i++) {
+            if (signature1[i] == signature2[i]) equal++;
+        }
+        return (double) equal / length;
+    }
+
+    /**
+     * Order-independent key for a pair of ids.
+     */
+    public static long pairKey(int a, int b) {
+        int lo = Math.min(a, b);
+        int hi = Math.max(a, b);
+        return ((long) lo << 32) | (hi & 0xFFFFFFFFL);
+    }
+
+    /**
+     * SplitMix64 finalizer, used to derive independent hash functions from one value.
+     */
+    public static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public int getBands() { return bands; }
+    public int getRows() { return rows; }
+    public double getThreshold() { return threshold; }
+}
@@ -0,0 +1,854 @@
+package com.example.demo.service.plagiarism;
+
+import com.example.demo.dto.PlagiarismAnalysisResponse;
+import com.example.demo.dto.PlagiarismCheckRequest;
+import com.example.demo.model.SubmissionFingerprint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * The copy checker's similarity engine: reads uploads into text, normalizes and fingerprints
+ * it, and scores submission pairs on the fork/join pool.
+ *
+ * Holds no repositories, so it runs the same inside {@link com.example.demo.service.PlagiarismService}
+ * (which adds loading, caching and persistence around it) and standalone in the benchmarks.
+ */
+@Component
+@Slf4j
+public class PlagiarismEngine {
+
+    // Supported file extensions for code analysis
+    private static final Set<String> CODE_EXTENSIONS = Set.of("cpp", "c", "h", "java", "py", "js", "ts", "kt", "cs", "php", "rb", "go", "sh", "txt", "md", "sql", "html", "css", "xml", "json", "yaml", "yml");
+    
+    // Text file extensions (for direct text comparison)
+    private static final Set<String> TEXT_EXTENSIONS = Set.of("txt", "md", "doc", "docx", "rtf", "tex");
+    
+    // Binary file extensions (for hash comparison)
+    private static final Set<String> BINARY_EXTENSIONS = Set.of("pdf", "zip", "rar", "tar", "gz", "exe", "bin", "jpg", "png", "gif", "mp3", "mp4", "avi");
+    
+    // All supported extensions (combination of all types)
+    private static final Set<String> ALL_EXTENSIONS = new HashSet<>();
+    static {
+        ALL_EXTENSIONS.addAll(CODE_EXTENSIONS);
+        ALL_EXTENSIONS.addAll(TEXT_EXTENSIONS);
+        ALL_EXTENSIONS.addAll(BINARY_EXTENSIONS);
+    }
+    
+    // Pairs scored by one fork/join leaf task
+    private static final int SCORING_BATCH_SIZE = 16;
+    
+    // Shingle size used for candidate selection; the smallest size calculateSimilarity ever uses
+    private static final int CANDIDATE_SHINGLE_SIZE = 5;
+    
+    // Similarity algorithms selectable through the request settings
+    private static final String ALGORITHM_WINNOWING = "winnowing";
+    
+    // In winnowing mode, fingerprints shared by more than this fraction of submissions count as boilerplate
+    private static final double COMMON_FINGERPRINT_SHARE = 0.5;
+    private static final int COMMON_FINGERPRINT_MIN_SUBMISSIONS = 10;
+    
+    // Matched regions further apart than this many lines are reported separately
+    private static final int REGION_LINE_GAP = 3;
+    private static final int MAX_REPORTED_REGIONS = 20;
+    
+    private final ForkJoinPool scoringPool;
+    
+    // Byte budgets for reading submissions (bounded heap regardless of upload size)
+    private final BoundedExtractor extractor;
+    
+    public PlagiarismEngine(@Qualifier("plagiarismScoringPool") ForkJoinPool scoringPool,
+                            @Value("${app.plagiarism.extract.max-entry-bytes:1048576}") long maxEntryBytes,
+                            @Value("${app.plagiarism.extract.max-archive-bytes:8388608}") long maxArchiveBytes,
+                            @Value("${app.plagiarism.extract.max-entries:2000}") int maxArchiveEntries,
+                            @Value("${app.plagiarism.extract.max-compression-ratio:100}") int maxCompressionRatio) {
+        this.scoringPool = scoringPool;
+        this.extractor = new BoundedExtractor(maxEntryBytes, maxArchiveBytes, maxArchiveEntries, maxCompressionRatio);
+    }
+    
+    /**
+     * Fingerprint content without persisting it.
+     */
+    public FileFingerprint fingerprint(String content, String filename) {
+        return toFileFingerprint(buildFingerprint(FileFingerprint.sha256Hex(content), content, filename, null));
+    }
+    
+    /**
+     * Rebuild the in-memory fingerprint from its persisted form.
+     */
+    public static FileFingerprint toFileFingerprint(SubmissionFingerprint stored) {
+        return new FileFingerprint(stored.getContentHash(), stored.getNormalizedContent(), stored.getNormalizedHash(),
+            Boolean.TRUE.equals(stored.getBinary()), FileFingerprint.decode(stored.getLineHashes()),
+            FileFingerprint.decode(stored.getMinhashSignature()),
+            new WinnowFingerprint(FileFingerprint.decode(stored.getWinnowHashes()),
+                WinnowFingerprint.decodeLocations(stored.getWinnowLocations()),
+                WinnowFingerprint.decodeFileNames(stored.getWinnowFiles())));
+    }
+
+    /**
+     * Read a stored upload as text: archives are unpacked, binaries become chunk hashes and
+     * text files get a metadata header. Returns null when the file is missing or unreadable.
+     */
+    public String readFileContent(Path filePath, String originalFilename) throws IOException {
+
+        if (!Files.exists(filePath)) {
+            log.warn("File not found: {}", filePath);
+            return null;
+        }
+        
+        String filename = originalFilename.toLowerCase();
+        String extension = getFileExtension(filename);
+        
+        // Handle ZIP files; RAR is not supported and falls through to the binary hash below
+        if (filename.endsWith(".zip")) {
+            return extractCodeFromArchive(filePath, originalFilename);
+        }
+        
+        // Handle PDF files (basic text extraction)
+        if (filename.endsWith(".pdf")) {
+            // For now, we'll calculate a basic hash for PDF files for similarity
+            log.info("Processing PDF file: {}", filename);
+            return readBinaryFileAsHash(filePath, filename);
+        }
+        
+        // Handle binary files by computing hash for similarity comparison
+        if (BINARY_EXTENSIONS.contains(extension)) {
+            log.info("Processing binary file: {}", filename);
+            return readBinaryFileAsHash(filePath, filename);
+        }
+        
+        // Handle text and code files
+        try {
+            String content = extractor.readText(filePath);
+            
+            // Add file metadata as prefix for better tracking
+            StringBuilder result = new StringBuilder();
+            result.append("// FILE: ").append(originalFilename).append("\n");
+            result.append("// SIZE: ").append(Files.size(filePath)).append(" bytes\n");
+            result.append("// TYPE: ").append(extension.toUpperCase()).append("\n");
+            result.append("// ").append("=".repeat(50)).append("\n\n");
+            result.append(content);
+            
+            return result.toString();
+        } catch (Exception e) {
+            log.warn("Error reading file {}: {}", filePath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Read binary files and create a hash-based representation for similarity comparison.
+     * The file is streamed in one pass; only a small buffer is held in memory.
+     */
+    private String readBinaryFileAsHash(Path filePath, String filename) throws IOException {
+        try {
+            long fileSize = Files.size(filePath);
+            
+            // Create multiple hash representations for better similarity detection
+            StringBuilder hashContent = new StringBuilder();
+            hashContent.append("// BINARY FILE: ").append(filename).append("\n");
+            hashContent.append("// SIZE: ").append(fileSize).append(" bytes\n");
+            
+            // Simple checksum plus per-chunk sums (10 chunks or min 1KB), accumulated while streaming
+            long chunkSize = Math.max(1024, fileSize / 10);
+            StringBuilder chunks = new StringBuilder();
+            int simpleChecksum = 0;
+            int chunkSum = 0;
+            long position = 0;
+            byte[] buffer = new byte[8192];
+            try (InputStream in = Files.newInputStream(filePath)) {
+                int len;
+                while ((len = in.read(buffer)) > 0) {
+                    for (int k = 0; k < len; k++) {
+                        int value = buffer[k] & 0xFF;
+                        simpleChecksum += value;
+                        chunkSum += value;
+                        position++;
+                        if (position % chunkSize == 0) {
+                            chunks.append("CHUNK_").append(position / chunkSize - 1).append("_").append(chunkSum).append(" ");
+                            chunkSum = 0;
+                        }
+                    }
+                }
+            }
+            if (position % chunkSize != 0) {
+                chunks.append("CHUNK_").append(position / chunkSize).append("_").append(chunkSum).append(" ");
+            }
+            
+            hashContent.append("// CHECKSUM: ").append(simpleChecksum).append("\n");
+            hashContent.append(chunks);
+            
+            return hashContent.toString();
+        } catch (Exception e) {
+            log.error("Error processing binary file {}: {}", filename, e.getMessage());
+            return null;
+        }
+    }
+
+    // Entries are concatenated, up to the per-archive budget, rather than fingerprinted while
+    // streaming: the normalized text is kept on the fingerprint for the pair diffs.
+    private String extractCodeFromArchive(Path archivePath, String originalFilename) {
+        StringBuilder allCode = new StringBuilder();
+        
+        log.info("Extracting from archive: {} (size: {} bytes)", originalFilename, 
+                 archivePath.toFile().length());
+        
+        allCode.append("// ARCHIVE: ").append(originalFilename).append("\n");
+        allCode.append("// ").append("=".repeat(60)).append("\n\n");
+        
+        try {
+            // Support all file types, not just code files
+            int entryCount = extractor.extractArchive(archivePath, name -> {
+                String extension = getFileExtension(name.toLowerCase());
+                boolean supported = ALL_EXTENSIONS.contains(extension) || extension.isEmpty();
+                if (!supported) {
+                    log.debug("Skipping entry {} - extension {} not supported", name, extension);
+                }
+                return supported;
+            }, (entry, content, truncated) -> {
+                if (!content.trim().isEmpty()) {
+                    allCode.append("// FILE: ").append(entry.getName()).append("\n");
+                    allCode.append("// SIZE: ").append(entry.getSize()).append(" bytes\n");
+                    allCode.append("// TYPE: ").append(getFileExtension(entry.getName().toLowerCase()).toUpperCase()).append("\n");
+                    allCode.append("// ").append("-".repeat(40)).append("\n");
+                    allCode.append(content);
+                    allCode.append("\n").append("=".repeat(80)).append("\n\n");
+                    
+                    log.debug("Added content from {} ({} chars{})", entry.getName(), content.length(), truncated ? ", truncated" : "");
+                } else {
+                    log.warn("Empty content from entry: {}", entry.getName());
+                }
+            });
+            
+            log.info("Processed {} entries from archive {}, total extracted content: {} chars", 
+                     entryCount, originalFilename, allCode.length());
+            
+        } catch (IOException e) {
+            log.error("Error extracting archive {}: {}", originalFilename, e.getMessage());
+        }
+        
+        return allCode.toString();
+    }
+
+    public static String getFileExtension(String filename) {
+        int lastDot = filename.lastIndexOf('.');
+        if (lastDot > 0 && lastDot < filename.length() - 1) {
+            return filename.substring(lastDot + 1);
+        }
+        return "";
+    }
+
+    /**
+     * Compute the persisted fingerprint for extracted content. An outdated row is updated in place.
+     */
+    public SubmissionFingerprint buildFingerprint(String contentHash, String content, String filename,
+                                                   SubmissionFingerprint outdated) {
+        String normalized = normalizeCode(content);
+        boolean binary = containsBinaryPatterns(normalized);
+        
+        long[] lineHashes;
+        long[] signature;
+        if (binary) {
+            // Binary representations are compared by their chunk lines
+            lineHashes = ShingleEngine.sortedDistinct(extractHashChunks(normalized).stream()
+                .mapToLong(ShingleEngine::hash64)
+                .toArray());
+            signature = lineHashes.length == 0 ? new long[0] : MinHashLshIndex.defaultSignature(lineHashes);
+        } else {
+            lineHashes = lineHashes(normalized);
+            // Content too short to ever score gets no signature and never becomes a candidate
+            signature = normalized.length() < 50 ? new long[0]
+                : MinHashLshIndex.defaultSignature(ShingleEngine.shingleHashes(normalized, CANDIDATE_SHINGLE_SIZE));
+        }
+        
+        SubmissionFingerprint fingerprint = outdated != null ? outdated : new SubmissionFingerprint();
+        fingerprint.setContentHash(contentHash);
+        fingerprint.setFingerprintVersion(FileFingerprint.VERSION);
+        fingerprint.setNormalizedHash(FileFingerprint.sha256Hex(normalized));
+        fingerprint.setNormalizedContent(normalized);
+        fingerprint.setBinary(binary);
+        fingerprint.setLineHashes(FileFingerprint.encode(lineHashes));
+        fingerprint.setMinhashSignature(FileFingerprint.encode(signature));
+        
+        // Token fingerprints come from the raw text so line numbers match what the student wrote
+        WinnowFingerprint winnow = binary ? WinnowFingerprint.empty() : WinnowFingerprint.of(content, filename);
+        fingerprint.setWinnowHashes(FileFingerprint.encode(winnow.getHashes()));
+        fingerprint.setWinnowLocations(WinnowFingerprint.encodeLocations(winnow.getLocations()));
+        fingerprint.setWinnowFiles(WinnowFingerprint.encodeFileNames(winnow.getFileNames()));
+        return fingerprint;
+    }
+
+    /**
+     * Sorted hashes of the meaningful (non-empty, non-metadata) lines used for line similarity.
+     */
+    private static long[] lineHashes(String text) {
+        return ShingleEngine.sortedDistinct(Arrays.stream(text.split("\n"))
+            .map(String::trim)
+            .filter(line -> !line.isEmpty() && !isMetadataLine(line))
+            .mapToLong(ShingleEngine::hash64)
+            .toArray());
+    }
+
+    public String normalizeCode(String code) {
+        if (code == null) return "";
+        
+        // Remove comments but preserve structure
+        code = removeComments(code);
+        
+        // Remove file metadata headers that might cause false matches
+        String[] lines = code.split("\n");
+        StringBuilder result = new StringBuilder();
+        boolean skipMetadata = true;
+        
+        for (String line : lines) {
+            String trimmed = line.trim();
+            
+            // Skip initial metadata lines
+            if (skipMetadata && isMetadataLine(trimmed)) {
+                continue;
+            }
+            skipMetadata = false;
+            
+            // Skip empty lines and metadata throughout
+            if (!trimmed.isEmpty() && !isMetadataLine(trimmed)) {
+                // Normalize whitespace but preserve line structure
+                String normalized = line.replaceAll("\\s+", " ").trim();
+                if (!normalized.isEmpty()) {
+                    result.append(normalized).append("\n");
+                }
+            }
+        }
+        
+        return result.toString().trim();
+    }
+
+    private String removeComments(String code) {
+        // Remove single-line comments (//, #, %)
+        code = code.replaceAll("//.*$", "");
+        code = code.replaceAll("#.*$", "");
+        code = code.replaceAll("%.*$", "");
+        
+        // Remove multi-line comments (/* */)
+        code = code.replaceAll("/\\*[\\s\\S]*?\\*/", "");
+        
+        // Remove Python/R multi-line strings used as comments
+        code = code.replaceAll("\"\"\"[\\s\\S]*?\"\"\"", "");
+        code = code.replaceAll("'''[\\s\\S]*?'''", "");
+        
+        return code;
+    }
+
+    private String normalizeVariableNames(String code) {
+        // Simple variable name normalization - replace common patterns
+        // This is a basic implementation; a more sophisticated approach would use AST parsing
+        
+        // Replace variable declarations with generic names
+        code = code.replaceAll("\\bint\\s+\\w+", "int var");
+        code = code.replaceAll("\\bdouble\\s+\\w+", "double var");
+        code = code.replaceAll("\\bfloat\\s+\\w+", "float var");
+        code = code.replaceAll("\\bstring\\s+\\w+", "string var");
+        code = code.replaceAll("\\bchar\\s+\\w+", "char var");
+        
+        return code;
+    }
+
+    /**
+     * Check if content contains binary patterns
+     */
+    private boolean containsBinaryPatterns(String content) {
+        if (content == null || content.isEmpty()) {
+            return false;
+        }
+        
+        // Check for CHUNK_ patterns (binary file signatures)
+        if (content.contains("CHUNK_") && content.contains("// BINARY FILE:")) {
+            return true;
+        }
+        
+        // Check for high percentage of non-printable characters
+        int nonPrintableCount = 0;
+        int totalChars = Math.min(content.length(), 1000);
+        
+        for (int i = 0; i < totalChars; i++) {
+            char c = content.charAt(i);
+            if (c == 0 || (c < 32 && c != 9 && c != 10 && c != 13)) {
+                nonPrintableCount++;
+            }
+        }
+        
+        return ((double) nonPrintableCount / totalChars) > 0.3;
+    }
+
+    /**
+     * Extract hash chunks from binary file content representation
+     */
+    private List<String> extractHashChunks(String content) {
+        List<String> chunks = new ArrayList<>();
+        String[] lines = content.split("\n");
+        
+        for (String line : lines) {
+            if (line.startsWith("CHUNK_")) {
+                chunks.add(line.trim());
+            }
+        }
+        
+        return chunks;
+    }
+
+    /**
+     * Check if a line is metadata (comments, file headers, etc.)
+     */
+    public static boolean isMetadataLine(String line) {
+        return line.startsWith("//") || 
+               line.startsWith("#") || 
+               line.startsWith("*") ||
+               line.startsWith("/*") ||
+               line.startsWith("*/") ||
+               line.matches(".*FILE:.*") ||
+               line.matches(".*SIZE:.*") ||
+               line.matches(".*TYPE:.*") ||
+               line.matches(".*=+.*");
+    }
+
+    /**
+     * Score every submission pair worth scoring on the fork/join pool. {@code checkCancelled}
+     * runs between stages and before every pair and aborts the analysis by throwing.
+     */
+    public List<PlagiarismAnalysisResponse.SimilarityPair> performSimilarityAnalysis(
+            List<ProcessedSubmission> submissions, PlagiarismCheckRequest.Settings settings,
+            PlagiarismAnalysisResponse.AnalysisMetadata metadata, PlagiarismAnalysisResponse.Progress progress,
+            Runnable checkCancelled) {
+        
+        if (isWinnowing(settings)) {
+            return performWinnowingAnalysis(submissions, settings, metadata, progress, checkCancelled);
+        }
+        
+        // Narrow down the pairs worth scoring exactly (null means compare every pair)
+        Set<Long> candidatePairs = findCandidatePairs(submissions, settings);
+        checkCancelled.run();
+        
+        int totalPairs = (submissions.size() * (submissions.size() - 1)) / 2;
+        long[] pairsToScore = new long[candidatePairs != null ? candidatePairs.size() : totalPairs];
+        int pairCount = 0;
+        for (int i = 0; i < submissions.size(); i++) {
+            for (int j = i + 1; j < submissions.size(); j++) {
+                long key = MinHashLshIndex.pairKey(i, j);
+                if (candidatePairs == null || candidatePairs.contains(key)) {
+                    pairsToScore[pairCount++] = key;
+                }
+            }
+        }
+        
+        progress.setCurrent(0);
+        progress.setTotal(pairCount);
+        progress.setStage("Analyzing similarities...");
+        
+        // Score pairs across cores; each slot is written by exactly one worker
+        PlagiarismAnalysisResponse.SimilarityPair[] scored = new PlagiarismAnalysisResponse.SimilarityPair[pairCount];
+        scoringPool.invoke(new PairScoringTask(submissions, pairsToScore, scored, 0, pairCount, progress, checkCancelled, this::scorePair));
+        
+        metadata.setExactComparisons(pairCount);
+        metadata.setPrunedComparisons(totalPairs - pairCount);
+        return collectScored(scored);
+    }
+
+    /**
+     * Winnowing mode: index the token fingerprints of every submission, count shared fingerprints
+     * per pair from the posting lists, and only build results for pairs reaching the threshold.
+     * Matching regions come from the fingerprint locations, so no diff is needed.
+     */
+    private List<PlagiarismAnalysisResponse.SimilarityPair> performWinnowingAnalysis(
+            List<ProcessedSubmission> submissions, PlagiarismCheckRequest.Settings settings,
+            PlagiarismAnalysisResponse.AnalysisMetadata metadata, PlagiarismAnalysisResponse.Progress progress,
+            Runnable checkCancelled) {
+        
+        progress.setStage("Indexing fingerprints...");
+        WinnowIndex index = new WinnowIndex();
+        for (int i = 0; i < submissions.size(); i++) {
+            index.add(i, submissions.get(i).winnowHashes());
+        }
+        checkCancelled.run();
+        
+        int maxOwners = commonFingerprintLimit(submissions.size());
+        int[] sizes = index.ownerSizes(maxOwners);
+        Map<Long, Integer> shared = index.sharedCounts(maxOwners);
+        checkCancelled.run();
+        
+        // Similarity is the Jaccard index of the two fingerprint sets
+        double threshold = settings.getThreshold() / 100.0;
+        long[] pairsToScore = shared.entrySet().stream()
+            .filter(entry -> {
+                int i = (int) (entry.getKey() >>> 32);
+                int j = (int) (long) entry.getKey();
+                int union = sizes[i] + sizes[j] - entry.getValue();
+                return union > 0 && (double) entry.getValue() / union >= threshold;
+            })
+            .mapToLong(Map.Entry::getKey)
+            .sorted()
+            .toArray();
+        
+        log.info("Winnowing index holds {} fingerprints; {} of {} submission pairs share code, {} reach the threshold",
+                 index.fingerprintCount(), shared.size(), (submissions.size() * (submissions.size() - 1)) / 2,
+                 pairsToScore.length);
+        
+        progress.setCurrent(0);
+        progress.setTotal(pairsToScore.length);
+        progress.setStage("Locating matching regions...");
+        
+        PlagiarismAnalysisResponse.SimilarityPair[] scored = new PlagiarismAnalysisResponse.SimilarityPair[pairsToScore.length];
+        scoringPool.invoke(new PairScoringTask(submissions, pairsToScore, scored, 0, pairsToScore.length, progress, checkCancelled,
+            (sub1, sub2) -> scoreWinnowPair(sub1, sub2, index, maxOwners)));
+        
+        int totalPairs = (submissions.size() * (submissions.size() - 1)) / 2;
+        metadata.setExactComparisons(shared.size());
+        metadata.setPrunedComparisons(totalPairs - shared.size());
+        return collectScored(scored);
+    }
+
+    /**
+     * Fingerprints in more submissions than this are boilerplate (starter code, shared headers).
+     */
+    public int commonFingerprintLimit(int submissionCount) {
+        return submissionCount >= COMMON_FINGERPRINT_MIN_SUBMISSIONS
+            ? (int) (submissionCount * COMMON_FINGERPRINT_SHARE) : submissionCount;
+    }
+
+    private List<PlagiarismAnalysisResponse.SimilarityPair> collectScored(PlagiarismAnalysisResponse.SimilarityPair[] scored) {
+        List<PlagiarismAnalysisResponse.SimilarityPair> similarities = new ArrayList<>();
+        for (PlagiarismAnalysisResponse.SimilarityPair pair : scored) {
+            if (pair != null) {
+                similarities.add(pair);
+            }
+        }
+        return similarities;
+    }
+
+    public boolean isWinnowing(PlagiarismCheckRequest.Settings settings) {
+        return ALGORITHM_WINNOWING.equalsIgnoreCase(settings.getAlgorithm());
+    }
+
+    /**
+     * Build the result for a winnowing pair: Jaccard similarity of the non-common fingerprints,
+     * the file pair sharing the most fingerprints (for the diff view) and the matched line regions.
+     */
+    private PlagiarismAnalysisResponse.SimilarityPair scoreWinnowPair(ProcessedSubmission sub1, ProcessedSubmission sub2,
+                                                                     WinnowIndex index, int maxOwners) {
+        // First occurrence of each fingerprint in submission 2: file position in the high half, location in the low half
+        List<FileFingerprint> files1 = sub1.getCodeFingerprints();
+        List<FileFingerprint> files2 = sub2.getCodeFingerprints();
+        Map<Long, Long> locations2 = new HashMap<>();
+        for (int f = 0; f < files2.size(); f++) {
+            WinnowFingerprint winnow = files2.get(f).getWinnow();
+            for (int k = 0; k < winnow.size(); k++) {
+                locations2.putIfAbsent(winnow.hashAt(k), ((long) f << 32) | (winnow.locationAt(k) & 0xFFFFFFFFL));
+            }
+        }
+        
+        Set<Long> matched = new HashSet<>();
+        Map<Long, Integer> matchesPerFilePair = new HashMap<>();
+        List<MatchedRegion> regions = new ArrayList<>();
+        MatchedRegion open = null;
+        for (int f1 = 0; f1 < files1.size(); f1++) {
+            WinnowFingerprint winnow1 = files1.get(f1).getWinnow();
+            for (int k = 0; k < winnow1.size(); k++) {
+                long hash = winnow1.hashAt(k);
+                Long location2 = locations2.get(hash);
+                if (location2 == null || index.isCommon(hash, maxOwners)) {
+                    continue;
+                }
+                matched.add(hash);
+                int f2 = (int) (location2 >>> 32);
+                matchesPerFilePair.merge(((long) f1 << 32) | f2, 1, Integer::sum);
+                
+                WinnowFingerprint winnow2 = files2.get(f2).getWinnow();
+                String file1 = winnow1.fileName(winnow1.locationAt(k));
+                String file2 = winnow2.fileName((int) (long) location2);
+                int line1 = WinnowFingerprint.line(winnow1.locationAt(k));
+                int line2 = WinnowFingerprint.line((int) (long) location2);
+                if (open == null || !open.extend(file1, line1, file2, line2)) {
+                    open = new MatchedRegion(file1, line1, file2, line2);
+                    regions.add(open);
+                }
+            }
+            open = null;
+        }
+        
+        if (matched.isEmpty()) {
+            return null;
+        }
+        
+        int[] sizes = { countUncommon(sub1.winnowHashes(), index, maxOwners), countUncommon(sub2.winnowHashes(), index, maxOwners) };
+        int union = sizes[0] + sizes[1] - matched.size();
+        double similarity = union <= 0 ? 0.0 : Math.min(100.0, matched.size() * 100.0 / union);
+        
+        long bestFilePair = Collections.max(matchesPerFilePair.entrySet(), Map.Entry.comparingByValue()).getKey();
+        
+        PlagiarismAnalysisResponse.SimilarityPair pair = new PlagiarismAnalysisResponse.SimilarityPair();
+        pair.setStudent1Id(sub1.getStudentId());
+        pair.setStudent2Id(sub2.getStudentId());
+        pair.setStudent1Name(sub1.getStudentName());
+        pair.setStudent2Name(sub2.getStudentName());
+        pair.setSimilarity(similarity);
+        pair.setType("Code");
+        pair.setDetectionMethod("Winnowing + Jaccard");
+        pair.setFilesCompared("Multiple");
+        pair.setFile1Hash(files1.get((int) (bestFilePair >>> 32)).getContentHash());
+        pair.setFile2Hash(files2.get((int) bestFilePair).getContentHash());
+        pair.setMatchedSegments(regions.stream()
+            .sorted(Comparator.comparingInt(MatchedRegion::span).reversed())
+            .limit(MAX_REPORTED_REGIONS)
+            .map(MatchedRegion::toString)
+            .collect(Collectors.toList()));
+        return pair;
+    }
+
+    private int countUncommon(long[] hashes, WinnowIndex index, int maxOwners) {
+        int count = 0;
+        for (long hash : hashes) {
+            if (!index.isCommon(hash, maxOwners)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Score one submission pair: best file-pair similarity and references to those two files.
+     * The diff is rendered later, only for pairs a teacher opens. Returns null when nothing matched.
+     */
+    private PlagiarismAnalysisResponse.SimilarityPair scorePair(ProcessedSubmission sub1, ProcessedSubmission sub2) {
+        double maxSimilarity = 0.0;
+        FileFingerprint bestMatch1 = null;
+        FileFingerprint bestMatch2 = null;
+        
+        // Compare all code content combinations
+        for (FileFingerprint code1 : sub1.getCodeFingerprints()) {
+            for (FileFingerprint code2 : sub2.getCodeFingerprints()) {
+                double similarity = calculateSimilarity(code1, code2);
+                log.debug("Comparing {} vs {}: {}% similarity (code lengths: {} vs {})", 
+                         sub1.getStudentName(), sub2.getStudentName(), similarity,
+                         code1.length(), code2.length());
+                if (similarity > maxSimilarity) {
+                    maxSimilarity = similarity;
+                    bestMatch1 = code1;
+                    bestMatch2 = code2;
+                }
+            }
+        }
+        
+        if (maxSimilarity > 0) {
+            PlagiarismAnalysisResponse.SimilarityPair pair = new PlagiarismAnalysisResponse.SimilarityPair();
+            pair.setStudent1Id(sub1.getStudentId());
+            pair.setStudent2Id(sub2.getStudentId());
+            pair.setStudent1Name(sub1.getStudentName());
+            pair.setStudent2Name(sub2.getStudentName());
+            pair.setSimilarity(maxSimilarity);
+            pair.setType("Code");
+            pair.setDetectionMethod("Shingles + Jaccard");
+            pair.setFilesCompared("Multiple");
+            pair.setFile1Hash(bestMatch1.getContentHash());
+            pair.setFile2Hash(bestMatch2.getContentHash());
+            
+            log.debug("Scored similarity pair: {} vs {} = {}%", 
+                    sub1.getStudentName(), sub2.getStudentName(), maxSimilarity);
+            return pair;
+        }
+        return null;
+    }
+
+    /**
+     * Fork/join task scoring a slice of the pair list, splitting until slices are small.
+     * Workers check for cancellation before every pair.
+     */
+    private class PairScoringTask extends RecursiveAction {
+        private final List<ProcessedSubmission> submissions;
+        private final long[] pairs;
+        private final PlagiarismAnalysisResponse.SimilarityPair[] scored;
+        private final int from;
+        private final int to;
+        private final PlagiarismAnalysisResponse.Progress progress;
+        private final Runnable checkCancelled;
+        private final BiFunction<ProcessedSubmission, ProcessedSubmission, PlagiarismAnalysisResponse.SimilarityPair> scorer;
+        
+        PairScoringTask(List<ProcessedSubmission> submissions, long[] pairs, PlagiarismAnalysisResponse.SimilarityPair[] scored,
+                        int from, int to, PlagiarismAnalysisResponse.Progress progress, Runnable checkCancelled,
+                        BiFunction<ProcessedSubmission, ProcessedSubmission, PlagiarismAnalysisResponse.SimilarityPair> scorer) {
+            this.submissions = submissions;
+            this.pairs = pairs;
+            this.scored = scored;
+            this.from = from;
+            this.to = to;
+            this.progress = progress;
+            this.checkCancelled = checkCancelled;
+            this.scorer = scorer;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from > SCORING_BATCH_SIZE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new PairScoringTask(submissions, pairs, scored, from, mid, progress, checkCancelled, scorer),
+                          new PairScoringTask(submissions, pairs, scored, mid, to, progress, checkCancelled, scorer));
+                return;
+            }
+            for (int k = from; k < to; k++) {
+                checkCancelled.run();
+                int i = (int) (pairs[k] >>> 32);
+                int j = (int) pairs[k];
+                scored[k] = scorer.apply(submissions.get(i), submissions.get(j));
+                progress.incrementCurrent();
+            }
+        }
+    }
+
+    /**
+     * Build a MinHash/LSH index over every file of every submission and return the
+     * submission index pairs (see {@link MinHashLshIndex#pairKey}) whose estimated
+     * Jaccard similarity reaches the configured candidate threshold.
+     * Returns null when the index is disabled, meaning every pair should be scored.
+     */
+    private Set<Long> findCandidatePairs(List<ProcessedSubmission> submissions, PlagiarismCheckRequest.Settings settings) {
+        if (!settings.isCandidateIndexEnabled() || settings.getCandidateThreshold() <= 0) {
+            return null;
+        }
+        
+        MinHashLshIndex index = new MinHashLshIndex(settings.getCandidateThreshold());
+        for (int i = 0; i < submissions.size(); i++) {
+            for (FileFingerprint fingerprint : submissions.get(i).getCodeFingerprints()) {
+                // Signatures are precomputed; empty ones belong to content too short to ever score
+                if (fingerprint.getSignature().length == MinHashLshIndex.DEFAULT_NUM_HASHES) {
+                    index.add(i, fingerprint.getSignature());
+                }
+            }
+        }
+        
+        Set<Long> candidates = index.candidatePairs();
+        log.info("Candidate index ({} bands x {} rows, threshold {}) selected {} of {} submission pairs", 
+                 index.getBands(), index.getRows(), index.getThreshold(), candidates.size(),
+                 (submissions.size() * (submissions.size() - 1)) / 2);
+        return candidates;
+    }
+
+    /**
+     * Score two fingerprinted files. Content arrives already normalized, and line hashes and
+     * shingles come from the fingerprints, so nothing is re-read or re-normalized per pair.
+     */
+    public double calculateSimilarity(FileFingerprint code1, FileFingerprint code2) {
+        if (code1 == null || code2 == null || code1.isEmpty() || code2.isEmpty()) {
+            return 0.0;
+        }
+        
+        if (code1.isBinary() || code2.isBinary()) {
+            // For binary files, use hash-based similarity; only other binaries have chunk hashes to match
+            double binarySimilarity = code1.isBinary() && code2.isBinary()
+                ? ShingleEngine.jaccard(code1.getLineHashes(), code2.getLineHashes()) : 0.0;
+            log.debug("Binary similarity calculated: {}%", binarySimilarity * 100);
+            return binarySimilarity * 100;
+        }
+        
+        int length1 = code1.length();
+        int length2 = code2.length();
+        log.debug("Normalized content lengths: {} vs {}", length1, length2);
+        
+        // Check for exact match first - but be more strict about it
+        if (code1.getNormalizedHash().equals(code2.getNormalizedHash()) && length1 > 100) {
+            log.info("Exact match found for substantial content (length: {}), returning 100% similarity", length1);
+            return 100.0;
+        }
+        
+        // Skip very short content to avoid false positives
+        if (length1 < 50 || length2 < 50) {
+            log.debug("Content too short for meaningful comparison (lengths: {} vs {}), returning 0% similarity", length1, length2);
+            return 0.0;
+        }
+        
+        // Use larger shingles for more precise matching
+        int shingleSize = Math.min(15, Math.max(5, Math.min(length1, length2) / 20));
+        long[] shingles1 = code1.shingles(shingleSize);
+        long[] shingles2 = code2.shingles(shingleSize);
+        
+        if (shingles1.length == 0 || shingles2.length == 0) {
+            log.debug("Empty shingles, returning 0% similarity");
+            return 0.0;
+        }
+        
+        // Calculate Jaccard similarity with a merge over the sorted shingle hashes
+        int intersection = ShingleEngine.intersectionSize(shingles1, shingles2);
+        int union = ShingleEngine.unionSize(shingles1, shingles2, intersection);
+        
+        double jaccardSimilarity = union == 0 ? 0.0 : (double) intersection / union;
+        
+        // Also calculate line-based similarity for better accuracy
+        double lineSimilarity = ShingleEngine.jaccard(code1.getLineHashes(), code2.getLineHashes());
+        
+        // Use stricter thresholds - require substantial overlap
+        if (jaccardSimilarity < 0.15 && lineSimilarity < 0.2) {
+            return 0.0; // Not similar enough
+        }
+        
+        // Weighted average of both similarities, return as percentage
+        double finalSimilarity = ((jaccardSimilarity * 0.8) + (lineSimilarity * 0.2)) * 100.0;
+        
+        // Apply penalty for very different lengths (but be more lenient)
+        double lengthRatio = Math.min(length1, length2) / (double) Math.max(length1, length2);
+        if (lengthRatio < 0.5) { // More lenient threshold
+            finalSimilarity *= lengthRatio; // Reduce similarity for very different lengths
+        }
+        
+        log.debug("Similarity calculation: Jaccard={}%, Line={}%, Final={}%, Length Ratio={}% (shingles1={}, shingles2={}, intersection={}, union={})", 
+                 jaccardSimilarity * 100, lineSimilarity * 100, finalSimilarity, lengthRatio * 100,
+                 shingles1.length, shingles2.length, intersection, union);
+        
+        return Math.max(0.0, finalSimilarity);
+    }
+
+    // A run of matching fingerprints in two files, reported as line ranges
+    private static class MatchedRegion {
+        private final String file1;
+        private final String file2;
+        private final int start1;
+        private int start2;
+        private int end1;
+        private int end2;
+        
+        MatchedRegion(String file1, int line1, String file2, int line2) {
+            this.file1 = file1;
+            this.file2 = file2;
+            this.start1 = this.end1 = line1;
+            this.start2 = this.end2 = line2;
+        }
+        
+        // Grow the region if the next match continues it in both files
+        boolean extend(String nextFile1, int line1, String nextFile2, int line2) {
+            if (!file1.equals(nextFile1) || !file2.equals(nextFile2)
+                    || line1 < end1 || line1 - end1 > REGION_LINE_GAP
+                    || Math.abs(line2 - end2) > REGION_LINE_GAP) {
+                return false;
+            }
+            end1 = line1;
+            start2 = Math.min(start2, line2);
+            end2 = Math.max(end2, line2);
+            return true;
+        }
+        
+        int span() {
+            return end1 - start1 + 1;
+        }
+        
+        @Override
+        public String toString() {
+            return file1 + ":" + start1 + "-" + end1 + " ~ " + file2 + ":" + start2 + "-" + end2;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.service.plagiarism;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One submission prepared for comparison: its student and the fingerprints of its files.
+ */
+public class ProcessedSubmission {
+    private Long submissionId;
+    private Long studentId;
+    private String studentName;
+    private String studentEmail;
+    private List<FileFingerprint> codeFingerprints = new ArrayList<>();
+    private long[] winnowHashes;
+    
+    /**
+     * Sorted, distinct winnowed fingerprints of all files in the submission.
+     */
+    public synchronized long[] winnowHashes() {
+        if (winnowHashes == null) {
+            winnowHashes = ShingleEngine.sortedDistinct(codeFingerprints.stream()
+                .flatMapToLong(fingerprint -> Arrays.stream(fingerprint.getWinnow().distinctHashes()))
+                .toArray());
+        }
+        return winnowHashes;
+    }
+    
+    public boolean hasCodeContent() {
+        return !codeFingerprints.isEmpty() && 
+               codeFingerprints.stream().anyMatch(fingerprint -> !fingerprint.isEmpty());
+    }
+    
+    // Getters and setters
+    public Long getSubmissionId() { return submissionId; }
+    public void setSubmissionId(Long submissionId) { this.submissionId = submissionId; }
+    
+    public Long getStudentId() { return studentId; }
+    public void setStudentId(Long studentId) { this.studentId = studentId; }
+    
+    public String getStudentName() { return studentName; }
+    public void setStudentName(String studentName) { this.studentName = studentName; }
+    
+    public String getStudentEmail() { return studentEmail; }
+    public void setStudentEmail(String studentEmail) { this.studentEmail = studentEmail; }
+    
+    public List<FileFingerprint> getCodeFingerprints() { return codeFingerprints; }
+    public void setCodeFingerprints(List<FileFingerprint> codeFingerprints) { this.codeFingerprints = codeFingerprints; }
+}
@@ -0,0 +1,128 @@
+package com.example.demo.service.plagiarism;
+
+import java.util.Arrays;
+
+/**
+ * Character shingling on primitive hashes instead of substring objects.
+ *
+ * Every window of {@code k} characters is hashed with a Rabin–Karp polynomial rolling
+ * hash (arithmetic mod 2^64), so one pass over the text produces all shingle hashes
+ * without allocating a String per shingle. Hashes are kept in a sorted, de-duplicated
+ * {@code long[]}, which lets intersection and union sizes be counted with a linear merge.
+ *
+ * Tolerance: the sets are the same as a {@code HashSet<String>} of substrings except when
+ * two different shingles collide on all 64 bits. For a pair of 50 KB files the chance of a
+ * single collision is below 1e-10, so Jaccard percentages match the string-based
+ * implementation to well within 0.01 percentage points.
+ */
+public final class ShingleEngine {
+
+    // Odd 64-bit multiplier; any odd base gives a bijective step mod 2^64
+    private static final long BASE = 0x100000001B3L;
+
+    private ShingleEngine() {
+    }
+
+    /**
+     * Sorted, distinct rolling hashes of all {@code k}-character shingles of {@code text}.
+     * Text shorter than {@code k} yields a single hash of the whole text, mirroring the
+     * behaviour of the original substring shingler.
+     */
+    public static long[] shingleHashes(CharSequence text, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("Shingle size must be positive");
+        }
+        int length = text.length();
+        if (length < k) {
+            return new long[] { finish(hashOf(text, 0, length)) };
+        }
+
+        // BASE^(k-1), the weight of the character leaving the window
+        long outWeight = 1;
+        for (int i = 1; i < k; i++) {
+            outWeight *= BASE;
+        }
+
+        long[] hashes = new long[length - k + 1];
+        long hash = hashOf(text, 0, k);
+        hashes[0] = finish(hash);
+        for (int i = k; i < length; i++) {
+            hash = (hash - text.charAt(i - k) * outWeight) * BASE + text.charAt(i);
+            hashes[i - k + 1] = finish(hash);
+        }
+
+        return sortedDistinct(hashes);
+    }
+
+    /**
+     * 64-bit hash of a whole character sequence, e.g. one line of code.
+     */
+    public static long hash64(CharSequence text) {
+        return finish(hashOf(text, 0, text.length()));
+    }
+
+    /**
+     * Number of values present in both sorted, distinct arrays.
+     */
+    public static int intersectionSize(long[] sorted1, long[] sorted2) {
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < sorted1.length && j < sorted2.length) {
+            if (sorted1[i] == sorted2[j]) {
+                count++;
+                i++;
+                j++;
+            } else if (sorted1[i] < sorted2[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Size of the union of two sorted, distinct arrays.
+     */
+    public static int unionSize(long[] sorted1, long[] sorted2, int intersectionSize) {
+        return sorted1.length + sorted2.length - intersectionSize;
+    }
+
+    /**
+     * Jaccard similarity (0..1) of two sorted, distinct hash arrays.
+     */
+    public static double jaccard(long[] sorted1, long[] sorted2) {
+        int intersection = intersectionSize(sorted1, sorted2);
+        int union = unionSize(sorted1, sorted2, intersection);
+        return union == 0 ? 0.0 : (double) intersection / union;
+    }
+
+    /**
+     * Sort in place and drop duplicates, returning a trimmed array.
+     */
+    public static long[] sortedDistinct(long[] values) {
+        if (values.length == 0) return values;
+        Arrays.sort(values);
+        int size = 1;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] != values[size - 1]) {
+                values[size++] = values[i];
+            }
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    private static long hashOf(CharSequence text, int from, int to) {
+        long hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = hash * BASE + text.charAt(i);
+        }
+        return hash;
+    }
+
+    // Scramble the polynomial value so low bits are well distributed for MinHash/LSH
+    private static long finish(long hash) {
+        return MinHashLshIndex.mix64(hash);
+    }
+}
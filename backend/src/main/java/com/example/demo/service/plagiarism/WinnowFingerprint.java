@@ -0,0 +1,167 @@
+package com.example.demo.service.plagiarism;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Winnowed token k-gram fingerprints of one submission file, in the style of MOSS
+ * (Schleimer, Wilkerson and Aiken, "Winnowing: Local Algorithms for Document Fingerprinting").
+ *
+ * The token stream from {@link CodeTokenizer} is hashed in k-grams, and from every window of
+ * {@link #WINDOW} consecutive k-gram hashes the minimum is kept. Any shared run of at least
+ * {@code K_GRAM + WINDOW - 1} tokens is guaranteed to produce a shared fingerprint, while only
+ * about {@code 2 / (WINDOW + 1)} of all k-grams are stored.
+ *
+ * Every fingerprint remembers the file and line it came from, which is enough to report the
+ * matching regions of two submissions without diffing them.
+ */
+public class WinnowFingerprint {
+
+    public static final int K_GRAM = 8;
+    public static final int WINDOW = 6;
+
+    // Locations pack the file index above the line number
+    private static final int LINE_BITS = 20;
+    private static final int LINE_MASK = (1 << LINE_BITS) - 1;
+    private static final int MAX_FILE = (1 << (Integer.SIZE - LINE_BITS)) - 1;
+
+    private static final long BASE = 0x100000001B3L;
+
+    private static final WinnowFingerprint EMPTY = new WinnowFingerprint(new long[0], new int[0], List.of());
+
+    private final long[] hashes;     // In source order, possibly repeated
+    private final int[] locations;   // Parallel to hashes
+    private final List<String> fileNames;
+    private volatile long[] distinct;
+
+    public WinnowFingerprint(long[] hashes, int[] locations, List<String> fileNames) {
+        this.hashes = hashes;
+        this.locations = locations;
+        this.fileNames = fileNames;
+    }
+
+    public static WinnowFingerprint empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Tokenize and winnow extracted submission text.
+     */
+    public static WinnowFingerprint of(String content, String fileName) {
+        CodeTokenizer.Tokens tokens = CodeTokenizer.tokenize(content, fileName);
+        int gramCount = tokens.size() - K_GRAM + 1;
+        if (gramCount <= 0) {
+            return new WinnowFingerprint(new long[0], new int[0], tokens.getFileNames());
+        }
+
+        // Rolling polynomial hash over K_GRAM token hashes, mod 2^64
+        long[] grams = new long[gramCount];
+        long power = 1;
+        for (int i = 1; i < K_GRAM; i++) {
+            power *= BASE;
+        }
+        long rolling = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i >= K_GRAM) {
+                rolling -= tokens.hash(i - K_GRAM) * power;
+            }
+            rolling = rolling * BASE + tokens.hash(i);
+            if (i >= K_GRAM - 1) {
+                grams[i - K_GRAM + 1] = MinHashLshIndex.mix64(rolling);
+            }
+        }
+
+        // Robust winnowing: take the rightmost minimum of each window, record it once
+        long[] selected = new long[gramCount];
+        int[] selectedLocations = new int[gramCount];
+        int count = 0;
+        int lastPosition = -1;
+        int window = Math.min(WINDOW, gramCount);
+        for (int start = 0; start + window <= gramCount; start++) {
+            int min = start;
+            for (int j = start + 1; j < start + window; j++) {
+                if (grams[j] <= grams[min]) {
+                    min = j;
+                }
+            }
+            if (min != lastPosition) {
+                selected[count] = grams[min];
+                selectedLocations[count] = pack(tokens.file(min), tokens.line(min));
+                count++;
+                lastPosition = min;
+            }
+        }
+
+        return new WinnowFingerprint(Arrays.copyOf(selected, count), Arrays.copyOf(selectedLocations, count),
+                                     tokens.getFileNames());
+    }
+
+    /**
+     * Sorted, distinct fingerprint hashes for set comparisons and indexing.
+     */
+    public long[] distinctHashes() {
+        long[] result = distinct;
+        if (result == null) {
+            result = ShingleEngine.sortedDistinct(hashes.clone());
+            distinct = result;
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return hashes.length == 0;
+    }
+
+    public int size() {
+        return hashes.length;
+    }
+
+    public long hashAt(int i) { return hashes[i]; }
+    public int locationAt(int i) { return locations[i]; }
+    public long[] getHashes() { return hashes; }
+    public int[] getLocations() { return locations; }
+    public List<String> getFileNames() { return fileNames; }
+
+    public String fileName(int location) {
+        int file = location >>> LINE_BITS;
+        return file < fileNames.size() ? fileNames.get(file) : "";
+    }
+
+    public static int line(int location) {
+        return location & LINE_MASK;
+    }
+
+    public static int file(int location) {
+        return location >>> LINE_BITS;
+    }
+
+    private static int pack(int file, int line) {
+        return (Math.min(file, MAX_FILE) << LINE_BITS) | Math.min(line, LINE_MASK);
+    }
+
+    // Encoding helpers for persisting fingerprints
+
+    public static byte[] encodeLocations(int[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Integer.BYTES);
+        buffer.asIntBuffer().put(values);
+        return buffer.array();
+    }
+
+    public static int[] decodeLocations(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) return new int[0];
+        int[] values = new int[bytes.length / Integer.BYTES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(values);
+        return values;
+    }
+
+    public static String encodeFileNames(List<String> names) {
+        return String.join("\n", names);
+    }
+
+    public static List<String> decodeFileNames(String joined) {
+        if (joined == null || joined.isEmpty()) return List.of();
+        return new ArrayList<>(Arrays.asList(joined.split("\n", -1)));
+    }
+}
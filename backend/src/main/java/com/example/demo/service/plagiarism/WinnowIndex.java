@@ -0,0 +1,85 @@
+package com.example.demo.service.plagiarism;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Inverted index from winnowed fingerprint hashes to the submissions that contain them,
+ * built once per analysis.
+ *
+ * Shared fingerprints are counted per submission pair by walking the posting lists, so only
+ * pairs that actually share code are ever looked at. Fingerprints present in too many
+ * submissions (starter code, boilerplate) are ignored, as MOSS does.
+ */
+public class WinnowIndex {
+
+    // Posting lists: slot 0 holds the number of owners, owners follow in insertion order
+    private final Map<Long, int[]> postings = new HashMap<>();
+    private int owners;
+
+    /**
+     * Add the sorted, distinct fingerprint hashes of one owner. Owners must be added once each.
+     */
+    public void add(int owner, long[] distinctHashes) {
+        for (long hash : distinctHashes) {
+            int[] list = postings.get(hash);
+            if (list == null) {
+                postings.put(hash, new int[] {1, owner});
+            } else {
+                if (list[0] + 1 == list.length) {
+                    list = Arrays.copyOf(list, list.length * 2);
+                    postings.put(hash, list);
+                }
+                list[++list[0]] = owner;
+            }
+        }
+        owners = Math.max(owners, owner + 1);
+    }
+
+    /**
+     * Whether a fingerprint occurs in more than {@code maxOwners} owners and is ignored.
+     */
+    public boolean isCommon(long hash, int maxOwners) {
+        int[] list = postings.get(hash);
+        return list != null && list[0] > maxOwners;
+    }
+
+    /**
+     * Number of fingerprints of each owner that are not common.
+     */
+    public int[] ownerSizes(int maxOwners) {
+        int[] sizes = new int[owners];
+        for (int[] list : postings.values()) {
+            if (list[0] <= maxOwners) {
+                for (int k = 1; k <= list[0]; k++) {
+                    sizes[list[k]]++;
+                }
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Shared, non-common fingerprint counts keyed by {@link MinHashLshIndex#pairKey}.
+     */
+    public Map<Long, Integer> sharedCounts(int maxOwners) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (int[] list : postings.values()) {
+            int size = list[0];
+            if (size < 2 || size > maxOwners) {
+                continue;
+            }
+            for (int a = 1; a <= size; a++) {
+                for (int b = a + 1; b <= size; b++) {
+                    counts.merge(MinHashLshIndex.pairKey(list[a], list[b]), 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
+
+    public int fingerprintCount() {
+        return postings.size();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.MessageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class MessageControllerTest {
+
+    private MessageService messageService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        messageService = mock(MessageService.class);
+        MessageController controller = new MessageController();
+        ReflectionTestUtils.setField(controller, "messageService", messageService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        when(messageService.getReactionsETag(List.of(1L, 2L))).thenReturn("\"r1\"");
+        when(messageService.getBulkMessageReactions(List.of(1L, 2L))).thenReturn(Map.of(1L, List.of(), 2L, List.of()));
+    }
+
+    @Test
+    void testGetBulkMessageReactions_ShouldReturnETagWithBody() throws Exception {
+        mockMvc.perform(get("/api/messages/reactions/bulk").param("messageIds", "1,2"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"r1\""))
+            .andExpect(jsonPath("$.1").isArray());
+    }
+
+    @Test
+    void testGetBulkMessageReactions_ShouldReturnNotModifiedForMatchingETag() throws Exception {
+        mockMvc.perform(get("/api/messages/reactions/bulk").param("messageIds", "1,2").header("If-None-Match", "\"r1\""))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        verify(messageService, never()).getBulkMessageReactions(anyList());
+    }
+}
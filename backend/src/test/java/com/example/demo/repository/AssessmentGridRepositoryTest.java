@@ -0,0 +1,107 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class AssessmentGridRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AssessmentGridRepository assessmentGridRepository;
+
+    private User teacher;
+    private Course course;
+    private User approved;
+    private User pending;
+
+    @BeforeEach
+    void setUp() {
+        teacher = persistUser("teacher@test.com", Role.TEACHER);
+        course = entityManager.persist(Course.builder().courseCode("CS101").title("Data Structures").assignedTeacher(teacher).build());
+        approved = persistUser("approved@test.com", Role.STUDENT);
+        pending = persistUser("pending@test.com", Role.STUDENT);
+        enroll(approved, EnrollmentStatus.APPROVED);
+        enroll(pending, EnrollmentStatus.PENDING);
+        entityManager.flush();
+    }
+
+    @Test
+    void testInsertForAssignment_ShouldCreateRowsForApprovedStudentsWithTheirSubmission() {
+        Assignment assignment = persistAssignment("A1", teacher);
+        StudentSubmission submission = entityManager.persist(StudentSubmission.builder()
+            .assignment(assignment).student(approved).isLate(true).build());
+        entityManager.flush();
+
+        int created = assessmentGridRepository.insertForAssignment(assignment.getId(), LocalDateTime.now());
+        int again = assessmentGridRepository.insertForAssignment(assignment.getId(), LocalDateTime.now());
+        entityManager.clear();
+
+        assertEquals(1, created);
+        assertEquals(0, again);
+        AssessmentGrid row = assessmentGridRepository.findAll().get(0);
+        assertEquals(approved.getId(), row.getStudent().getId());
+        assertEquals(submission.getId(), row.getSubmission().getId());
+        assertTrue(row.getLatePenaltyApplied());
+        assertEquals(1.0, row.getManualWeight());
+    }
+
+    @Test
+    void testInsertForStudent_ShouldCreateRowsForEveryAssignmentOfTheCourseOnce() {
+        Assignment first = persistAssignment("A1", teacher);
+        persistAssignment("A2", teacher);
+        entityManager.persist(AssessmentGrid.builder().assignment(first).course(course).student(approved).build());
+        entityManager.flush();
+
+        int created = assessmentGridRepository.insertForStudent(course.getId(), approved.getId(), LocalDateTime.now());
+
+        assertEquals(1, created);
+        assertEquals(2, assessmentGridRepository.findByCourseIdAndStudentId(course.getId(), approved.getId()).size());
+    }
+
+    @Test
+    void testFindCourseGrid_ShouldReturnTheTeachersAssignmentsForApprovedStudentsOnly() {
+        User otherTeacher = persistUser("other@test.com", Role.TEACHER);
+        Assignment mine = persistAssignment("Mine", teacher);
+        Assignment theirs = persistAssignment("Theirs", otherTeacher);
+        for (Assignment assignment : List.of(mine, theirs)) {
+            for (User student : List.of(approved, pending)) {
+                entityManager.persist(AssessmentGrid.builder().assignment(assignment).course(course).student(student).build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<AssessmentGrid> grid = assessmentGridRepository.findCourseGrid(course.getId(), teacher.getId());
+
+        assertEquals(1, grid.size());
+        assertEquals("Mine", grid.get(0).getAssignment().getTitle());
+        assertEquals(approved.getId(), grid.get(0).getStudent().getId());
+    }
+
+    private User persistUser(String email, Role role) {
+        return entityManager.persist(User.builder().name(email).email(email).role(role).status(UserStatus.ACTIVE).build());
+    }
+
+    private void enroll(User student, EnrollmentStatus status) {
+        entityManager.persist(CourseEnrollment.builder().course(course).student(student).status(status).build());
+    }
+
+    private Assignment persistAssignment(String title, User createdBy) {
+        return entityManager.persist(Assignment.builder().title(title).maxMarks(100).course(course).createdBy(createdBy)
+            .deadline(LocalDateTime.now().plusDays(7)).build());
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class DiscussionPostRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DiscussionPostRepository discussionPostRepository;
+
+    @Autowired
+    private DiscussionThreadRepository discussionThreadRepository;
+
+    @Autowired
+    private PostReactionRepository postReactionRepository;
+
+    private User teacher;
+    private User student;
+
+    @BeforeEach
+    void setUp() {
+        teacher = persistUser("teacher@test.com", Role.TEACHER);
+        student = persistUser("student@test.com", Role.STUDENT);
+    }
+
+    @Test
+    void testDeleteByCourseId_ShouldRemoveNestedRepliesAndReactionsOfThatCourseOnly() {
+        Course course = persistCourse("CS101");
+        Course other = persistCourse("CS102");
+        DiscussionThread thread = persistThread(course);
+        DiscussionPost post = persistPost(thread, null, false);
+        DiscussionPost reply = persistPost(thread, post, false);
+        persistPost(thread, reply, true);
+        entityManager.persist(PostReaction.builder().post(reply).user(teacher)
+            .reactionType(PostReaction.ReactionType.LIKE).build());
+        DiscussionThread kept = persistThread(other);
+        DiscussionPost keptPost = persistPost(kept, null, false);
+        entityManager.persist(PostReaction.builder().post(keptPost).user(teacher)
+            .reactionType(PostReaction.ReactionType.HELPFUL).build());
+        entityManager.flush();
+
+        postReactionRepository.deleteByCourseId(course.getId());
+        discussionPostRepository.clearParentPostsByCourseId(course.getId());
+        int deletedPosts = discussionPostRepository.deleteByCourseId(course.getId());
+        discussionThreadRepository.deleteByCourseId(course.getId());
+
+        assertEquals(3, deletedPosts);
+        assertEquals(List.of(keptPost.getId()), discussionPostRepository.findAll().stream().map(DiscussionPost::getId).toList());
+        assertEquals(List.of(kept.getId()), discussionThreadRepository.findAll().stream().map(DiscussionThread::getId).toList());
+        assertEquals(1, postReactionRepository.count());
+    }
+
+    private User persistUser(String email, Role role) {
+        return entityManager.persist(User.builder().name(email).email(email).role(role).status(UserStatus.ACTIVE).build());
+    }
+
+    private Course persistCourse(String code) {
+        return entityManager.persist(Course.builder().courseCode(code).title(code).assignedTeacher(teacher).build());
+    }
+
+    private DiscussionThread persistThread(Course course) {
+        return entityManager.persist(DiscussionThread.builder().title("Trees").course(course).createdBy(teacher).build());
+    }
+
+    private DiscussionPost persistPost(DiscussionThread thread, DiscussionPost parent, boolean deleted) {
+        return entityManager.persist(DiscussionPost.builder().thread(thread).parentPost(parent).author(student)
+            .content("post").isDeleted(deleted).build());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class MessageRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    private User alice;
+    private User bob;
+    private User carol;
+    private final List<Long> aliceToBob = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        alice = persistUser("alice@test.com");
+        bob = persistUser("bob@test.com");
+        carol = persistUser("carol@test.com");
+        for (int i = 0; i < 5; i++) {
+            aliceToBob.add(persistMessage(alice, bob));
+            persistMessage(bob, alice);
+            persistMessage(alice, carol);
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void testFindDirectedBefore_ShouldReturnOneDirectionNewestFirstBelowTheCursor() {
+        List<Message> page = messageRepository.findDirectedBefore(alice.getId(), bob.getId(), aliceToBob.get(4),
+            PageRequest.of(0, 2));
+
+        assertEquals(List.of(aliceToBob.get(3), aliceToBob.get(2)), page.stream().map(Message::getId).toList());
+    }
+
+    @Test
+    void testFindDirectedAfter_ShouldReturnOnlyNewerMessagesOldestFirst() {
+        List<Message> page = messageRepository.findDirectedAfter(alice.getId(), bob.getId(), aliceToBob.get(2),
+            PageRequest.of(0, 10));
+
+        assertEquals(List.of(aliceToBob.get(3), aliceToBob.get(4)), page.stream().map(Message::getId).toList());
+        assertTrue(messageRepository.findDirectedAfter(alice.getId(), bob.getId(), aliceToBob.get(4),
+            PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    void testFindConversationSummaries_ShouldReturnLatestMessageAndUnreadCountPerPartner() {
+        Long latest = persistMessage(carol, alice);
+        entityManager.flush();
+
+        List<MessageRepository.ConversationSummary> summaries = messageRepository.findConversationSummaries(alice.getId());
+
+        assertEquals(List.of(carol.getId(), bob.getId()),
+            summaries.stream().map(MessageRepository.ConversationSummary::getPartnerId).toList());
+        assertEquals(1L, summaries.get(0).getUnreadCount());
+        assertEquals(5L, summaries.get(1).getUnreadCount());
+        assertEquals(messageRepository.findById(latest).orElseThrow().getCreatedAt(), summaries.get(0).getLastMessageTime());
+        assertEquals(Role.STUDENT, summaries.get(1).getPartnerRole());
+    }
+
+    private User persistUser(String email) {
+        return entityManager.persist(User.builder().name(email).email(email).role(Role.STUDENT).status(UserStatus.ACTIVE).build());
+    }
+
+    private Long persistMessage(User sender, User recipient) {
+        return entityManager.persist(Message.builder().sender(sender).recipient(recipient).subject("s").content("c").build()).getId();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class NotificationArchiveRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationArchiveRepository archiveRepository;
+
+    private User student;
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        student = entityManager.persist(User.builder().name("s").email("s@test.com").role(Role.STUDENT).status(UserStatus.ACTIVE).build());
+        course = entityManager.persist(Course.builder().courseCode("CS101").title("Data Structures").build());
+    }
+
+    @Test
+    void testArchive_ShouldMoveOnlyOldReadNotifications() {
+        LocalDateTime now = LocalDateTime.now();
+        Notification oldRead = persist(course, true, now.minusDays(90));
+        persist(course, true, now.minusDays(1));
+        persist(course, false, null);
+        entityManager.flush();
+
+        List<Long> ids = notificationRepository.findArchivableIds(now.minusDays(60), PageRequest.of(0, 100));
+        assertEquals(List.of(oldRead.getId()), ids);
+
+        assertEquals(1, archiveRepository.archive(ids, now));
+        assertEquals(1, notificationRepository.deleteByIdIn(ids));
+        entityManager.clear();
+
+        NotificationArchive archived = archiveRepository.findById(oldRead.getId()).orElseThrow();
+        assertEquals(student.getId(), archived.getRecipientId());
+        assertEquals(course.getId(), archived.getCourseId());
+        assertEquals(Notification.NotificationType.NEW_ASSIGNMENT, archived.getType());
+        assertEquals(2, notificationRepository.count());
+    }
+
+    @Test
+    void testDeleteByCourseId_ShouldDeleteOnlyThatCoursesNotifications() {
+        Course other = entityManager.persist(Course.builder().courseCode("CS102").title("Algorithms").build());
+        persist(course, false, null);
+        persist(course, true, LocalDateTime.now());
+        persist(other, false, null);
+        entityManager.flush();
+
+        assertEquals(2, notificationRepository.deleteByCourseId(course.getId()));
+        assertEquals(1, notificationRepository.count());
+    }
+
+    @Test
+    void testArchiveDeleteByCourseId_ShouldAlsoDeleteRowsLinkedThroughAssignments() {
+        Course other = entityManager.persist(Course.builder().courseCode("CS102").title("Algorithms").build());
+        Assignment assignment = entityManager.persist(Assignment.builder().title("A1").maxMarks(100).course(course)
+            .createdBy(student).deadline(LocalDateTime.now().plusDays(7)).build());
+        archiveRepository.save(archived(1L, course.getId(), null));
+        archiveRepository.save(archived(2L, null, assignment.getId()));
+        archiveRepository.save(archived(3L, other.getId(), null));
+        entityManager.flush();
+
+        assertEquals(2, archiveRepository.deleteByCourseId(course.getId()));
+        assertEquals(List.of(3L), archiveRepository.findAll().stream().map(NotificationArchive::getId).toList());
+    }
+
+    private NotificationArchive archived(Long id, Long courseId, Long assignmentId) {
+        return NotificationArchive.builder().id(id).recipientId(student.getId()).type(Notification.NotificationType.NEW_ASSIGNMENT)
+            .title("t").message("m").courseId(courseId).assignmentId(assignmentId).archivedAt(LocalDateTime.now()).build();
+    }
+
+    private Notification persist(Course relatedCourse, boolean read, LocalDateTime readAt) {
+        return entityManager.persist(Notification.builder().recipient(student).type(Notification.NotificationType.NEW_ASSIGNMENT)
+            .title("t").message("m").relatedCourse(relatedCourse).isRead(read).readAt(readAt).build());
+    }
+}
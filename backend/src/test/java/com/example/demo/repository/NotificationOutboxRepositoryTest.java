@@ -0,0 +1,62 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.NotificationOutboxEvent;
+import com.example.demo.model.NotificationOutboxEvent.EventType;
+import com.example.demo.model.NotificationOutboxEvent.Status;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class NotificationOutboxRepositoryTest {
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @Test
+    void testClaimDue_ShouldReturnOnlyPendingEventsThatAreDue() {
+        LocalDateTime now = LocalDateTime.now();
+        NotificationOutboxEvent due = save(Status.PENDING, now.minusSeconds(5), null);
+        save(Status.PENDING, now.plusMinutes(5), null);
+        save(Status.DELIVERED, now.minusSeconds(5), now);
+        save(Status.FAILED, now.minusSeconds(5), now);
+
+        List<NotificationOutboxEvent> claimed = outboxRepository.claimDue(now, PageRequest.of(0, 10));
+
+        assertEquals(1, claimed.size());
+        assertEquals(due.getId(), claimed.get(0).getId());
+    }
+
+    @Test
+    void testDeleteDeliveredBefore_ShouldKeepRecentAndFailedEvents() {
+        LocalDateTime now = LocalDateTime.now();
+        save(Status.DELIVERED, now, now.minusDays(10));
+        save(Status.DELIVERED, now, now.minusHours(1));
+        save(Status.FAILED, now, now.minusDays(10));
+
+        int deleted = outboxRepository.deleteDeliveredBefore(now.minusDays(7));
+
+        assertEquals(1, deleted);
+        assertEquals(2, outboxRepository.count());
+    }
+
+    private NotificationOutboxEvent save(Status status, LocalDateTime nextAttemptAt, LocalDateTime processedAt) {
+        return outboxRepository.save(NotificationOutboxEvent.builder()
+            .eventType(EventType.NEW_ASSIGNMENT)
+            .courseId(1L)
+            .actorId(2L)
+            .assignmentId(3L)
+            .status(status)
+            .nextAttemptAt(nextAttemptAt)
+            .processedAt(processedAt)
+            .build());
+    }
+}
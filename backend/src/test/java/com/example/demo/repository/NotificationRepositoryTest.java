@@ -0,0 +1,176 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class NotificationRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    private Course course;
+    private User teacher;
+
+    @BeforeEach
+    void setUp() {
+        teacher = persistUser("teacher@test.com", Role.TEACHER, UserStatus.ACTIVE);
+        course = entityManager.persist(Course.builder().courseCode("CS101").title("Data Structures").build());
+
+        enroll(persistUser("approved1@test.com", Role.STUDENT, UserStatus.ACTIVE), EnrollmentStatus.APPROVED);
+        enroll(persistUser("approved2@test.com", Role.STUDENT, UserStatus.ACTIVE), EnrollmentStatus.APPROVED);
+        enroll(persistUser("pending@test.com", Role.STUDENT, UserStatus.ACTIVE), EnrollmentStatus.PENDING);
+        enroll(persistUser("unapproved@test.com", Role.STUDENT, UserStatus.PENDING), EnrollmentStatus.APPROVED);
+        persistUser("other@test.com", Role.STUDENT, UserStatus.ACTIVE);
+        entityManager.flush();
+    }
+
+    @Test
+    void testInsertForEnrolledStudents_ShouldNotifyApprovedActiveStudentsOnly() {
+        int inserted = notificationRepository.insertForEnrolledStudents(course.getId(),
+            Notification.NotificationType.NEW_DISCUSSION_THREAD, "New thread", "Thread created", "/student/CS101",
+            null, null, teacher, 42L, LocalDateTime.now());
+        entityManager.clear();
+
+        assertEquals(2, inserted);
+        List<Notification> notifications = notificationRepository.findAll();
+        assertEquals(2, notifications.size());
+        for (Notification notification : notifications) {
+            assertEquals(course.getId(), notification.getRelatedCourse().getId());
+            assertEquals(teacher.getId(), notification.getRelatedUser().getId());
+            assertEquals(42L, notification.getRelatedThreadId());
+            assertFalse(notification.getIsRead());
+            assertNotNull(notification.getCreatedAt());
+        }
+    }
+
+    @Test
+    void testInsertForActiveStudents_ShouldNotifyEveryActiveStudent() {
+        int inserted = notificationRepository.insertForActiveStudents(Notification.NotificationType.NEW_COURSE_CREATED,
+            "New course", "Course created", "/student", course, null, LocalDateTime.now());
+
+        assertEquals(4, inserted);
+    }
+
+    @Test
+    void testFindFeedPageAfter_ShouldWalkTiesOnCreatedAtWithoutGapsOrRepeats() {
+        User student = persistUser("reader@test.com", Role.STUDENT, UserStatus.ACTIVE);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(entityManager.persist(Notification.builder().recipient(student).type(Notification.NotificationType.NEW_ASSIGNMENT)
+                .title("N" + i).message("m").relatedCourse(course).build()).getId());
+        }
+        entityManager.flush();
+        // created_at is set on insert; tie the first four explicitly so a page boundary falls inside the tie
+        LocalDateTime sameTime = LocalDateTime.of(2025, 1, 1, 12, 0);
+        entityManager.getEntityManager().createQuery("UPDATE Notification n SET n.createdAt = :createdAt WHERE n.id IN :ids")
+            .setParameter("createdAt", sameTime).setParameter("ids", ids.subList(0, 4)).executeUpdate();
+        entityManager.getEntityManager().createQuery("UPDATE Notification n SET n.createdAt = :createdAt WHERE n.id = :id")
+            .setParameter("createdAt", sameTime.plusHours(1)).setParameter("id", ids.get(4)).executeUpdate();
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Long> walked = new ArrayList<>();
+        List<NotificationRepository.NotificationFeedItem> page = notificationRepository.findFeedPage(student.getId(), PageRequest.of(0, 2));
+        assertEquals("CS101", page.get(0).getCourseCode());
+        while (!page.isEmpty()) {
+            page.forEach(item -> walked.add(item.getId()));
+            NotificationRepository.NotificationFeedItem last = page.get(page.size() - 1);
+            page = notificationRepository.findFeedPageAfter(student.getId(), last.getCreatedAt(), last.getId(), PageRequest.of(0, 2));
+        }
+
+        assertEquals(List.of(ids.get(4), ids.get(3), ids.get(2), ids.get(1), ids.get(0)), walked);
+    }
+
+    @Test
+    void testMarkAllRead_ShouldUpdateOnlyTheRecipientsUnreadNotifications() {
+        User reader = persistUser("reader@test.com", Role.STUDENT, UserStatus.ACTIVE);
+        User other = persistUser("someone@test.com", Role.STUDENT, UserStatus.ACTIVE);
+        for (User recipient : List.of(reader, reader, other)) {
+            entityManager.persist(Notification.builder().recipient(recipient).type(Notification.NotificationType.NEW_ASSIGNMENT)
+                .title("t").message("m").build());
+        }
+        entityManager.persist(Notification.builder().recipient(reader).type(Notification.NotificationType.NEW_ASSIGNMENT)
+            .title("t").message("m").isRead(true).build());
+        entityManager.flush();
+
+        LocalDateTime readAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+        int updated = notificationRepository.markAllRead(reader.getId(), readAt);
+
+        assertEquals(2, updated);
+        assertEquals(0, notificationRepository.countByRecipientAndIsReadFalse(reader));
+        assertEquals(1, notificationRepository.countByRecipientAndIsReadFalse(other));
+    }
+
+    @Test
+    void testFindCoalescable_ShouldMatchOnlyRecentUnreadNotificationsOfTheSameThreadAndType() {
+        User author = persistUser("author@test.com", Role.STUDENT, UserStatus.ACTIVE);
+        LocalDateTime now = LocalDateTime.now();
+        Notification.NotificationType reaction = Notification.NotificationType.DISCUSSION_POST_REACTION;
+        persistThreadNotification(author, reaction, 7L, false, now.minusMinutes(5), "open");
+        persistThreadNotification(author, reaction, 7L, false, now.minusHours(2), "expired");
+        persistThreadNotification(author, reaction, 7L, true, now.minusMinutes(1), "read");
+        persistThreadNotification(author, reaction, 8L, false, now.minusMinutes(1), "other thread");
+        persistThreadNotification(author, Notification.NotificationType.DISCUSSION_TAG, 7L, false, now.minusMinutes(1), "tag");
+        entityManager.clear();
+
+        List<Notification> matches = notificationRepository.findCoalescable(author.getId(), 7L, reaction,
+            now.minusMinutes(30), PageRequest.of(0, 1));
+
+        assertEquals(1, matches.size());
+        assertEquals("open", matches.get(0).getTitle());
+        assertEquals(1, matches.get(0).getAggregateCount());
+    }
+
+    @Test
+    void testFindByDedupKeyIn_ShouldReturnOnlyNotificationsWithTheGivenKeys() {
+        User student = persistUser("flagged@test.com", Role.STUDENT, UserStatus.ACTIVE);
+        entityManager.persist(Notification.builder().recipient(student).type(Notification.NotificationType.PLAGIARISM_DETECTED)
+            .title("t").message("m").relatedCourse(course).dedupKey("PLAGIARISM_DETECTED:1:2").build());
+        entityManager.persist(Notification.builder().recipient(student).type(Notification.NotificationType.NEW_ASSIGNMENT)
+            .title("t").message("m").build());
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Notification> found = notificationRepository.findByDedupKeyIn(
+            List.of("PLAGIARISM_DETECTED:1:2", "PLAGIARISM_DETECTED:1:3"));
+
+        assertEquals(1, found.size());
+        assertEquals("flagged@test.com", found.get(0).getRecipient().getEmail());
+        assertEquals("CS101", found.get(0).getRelatedCourse().getCourseCode());
+    }
+
+    private void persistThreadNotification(User recipient, Notification.NotificationType type, Long threadId,
+                                           boolean read, LocalDateTime createdAt, String title) {
+        Notification notification = entityManager.persist(Notification.builder().recipient(recipient).type(type)
+            .title(title).message("m").relatedCourse(course).relatedThreadId(threadId).isRead(read).build());
+        entityManager.flush();
+        // created_at is set on insert; backdate it directly
+        entityManager.getEntityManager().createQuery("UPDATE Notification n SET n.createdAt = :createdAt WHERE n.id = :id")
+            .setParameter("createdAt", createdAt).setParameter("id", notification.getId()).executeUpdate();
+    }
+
+    private User persistUser(String email, Role role, UserStatus status) {
+        return entityManager.persist(User.builder().name(email).email(email).role(role).status(status).build());
+    }
+
+    private void enroll(User student, EnrollmentStatus status) {
+        entityManager.persist(CourseEnrollment.builder().course(course).student(student).status(status).build());
+    }
+}
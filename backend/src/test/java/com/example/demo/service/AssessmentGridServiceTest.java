@@ -0,0 +1,112 @@
+package com.example.demo.service;
+
+import com.example.demo.model.*;
+import com.example.demo.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AssessmentGridServiceTest {
+
+    private AssessmentGridRepository assessmentGridRepository;
+    private AssignmentRepository assignmentRepository;
+    private UserRepository userRepository;
+    private StudentSubmissionRepository submissionRepository;
+    private AssessmentGridService assessmentGridService;
+
+    private User teacher;
+    private Course course;
+    private Assignment assignment;
+    private Assignment otherTeachersAssignment;
+    private User graded;
+    private User ungraded;
+
+    @BeforeEach
+    void setUp() {
+        assessmentGridRepository = mock(AssessmentGridRepository.class);
+        assignmentRepository = mock(AssignmentRepository.class);
+        userRepository = mock(UserRepository.class);
+        submissionRepository = mock(StudentSubmissionRepository.class);
+        assessmentGridService = new AssessmentGridService(assessmentGridRepository, assignmentRepository, userRepository,
+            mock(CourseEnrollmentRepository.class), submissionRepository, mock(SubmissionFileRepository.class));
+
+        teacher = user(1L, "Teacher", Role.TEACHER);
+        User otherTeacher = user(2L, "Other Teacher", Role.TEACHER);
+        course = Course.builder().id(10L).courseCode("CS101").assignedTeacher(teacher).build();
+        Course otherCourse = Course.builder().id(20L).courseCode("CS102").assignedTeacher(otherTeacher).build();
+        assignment = assignment(100L, course, teacher);
+        otherTeachersAssignment = assignment(200L, otherCourse, otherTeacher);
+        graded = user(5L, "Graded", Role.STUDENT);
+        ungraded = user(6L, "Ungraded", Role.STUDENT);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(teacher));
+        when(assignmentRepository.findAllById(anyIterable())).thenReturn(List.of(assignment, otherTeachersAssignment));
+        when(assessmentGridRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            List<AssessmentGrid> saved = new ArrayList<>();
+            invocation.<Iterable<AssessmentGrid>>getArgument(0).forEach(saved::add);
+            return saved;
+        });
+    }
+
+    @Test
+    void testBulkUpdateAssessments_ShouldPrefetchRowsAndSaveAllChangesAtOnce() {
+        AssessmentGrid existing = AssessmentGrid.builder().id(50L).assignment(assignment).course(course).student(graded).build();
+        when(assessmentGridRepository.findByAssignmentIdsAndStudentIds(anyCollection(), anyCollection()))
+            .thenReturn(List.of(existing));
+        when(userRepository.findAllById(List.of(6L))).thenReturn(List.of(ungraded));
+
+        List<AssessmentGridResponse> responses = assessmentGridService.bulkUpdateAssessments(request(
+            update(10L, 100L, 5L, 80.0), update(10L, 100L, 6L, 70.0)), 1L);
+
+        assertEquals(List.of(5L, 6L), responses.stream().map(AssessmentGridResponse::getStudentId).toList());
+        assertEquals(80.0, existing.getFinalMark());
+        assertEquals(70.0, responses.get(1).getFinalMark());
+        assertEquals("Teacher", responses.get(0).getGradedByName());
+        verify(userRepository, times(1)).findById(1L);
+        verify(assessmentGridRepository, times(1)).findByAssignmentIdsAndStudentIds(anyCollection(), anyCollection());
+        verify(submissionRepository, times(1)).findByAssignment_IdInAndStudent_IdIn(anyCollection(), anyCollection());
+        verify(assessmentGridRepository, times(1)).saveAll(anyIterable());
+        verify(assessmentGridRepository, never()).save(any());
+        verify(assessmentGridRepository, never()).findByCourseIdAndAssignmentIdAndStudentId(any(), any(), any());
+    }
+
+    @Test
+    void testBulkUpdateAssessments_ShouldSkipUnauthorizedAndIncompleteRequests() {
+        when(assessmentGridRepository.findByAssignmentIdsAndStudentIds(anyCollection(), anyCollection()))
+            .thenReturn(List.of(AssessmentGrid.builder().id(50L).assignment(assignment).course(course).student(graded).build()));
+
+        List<AssessmentGridResponse> responses = assessmentGridService.bulkUpdateAssessments(request(
+            update(10L, 100L, 5L, 80.0), update(20L, 200L, 5L, 90.0), update(null, 100L, 6L, 70.0)), 1L);
+
+        assertEquals(1, responses.size());
+        assertEquals(100L, responses.get(0).getAssignmentId());
+        verify(userRepository, never()).findAllById(anyIterable());
+    }
+
+    private static BulkAssessmentUpdateRequest request(AssessmentGridUpdateRequest... updates) {
+        return BulkAssessmentUpdateRequest.builder().assessments(Arrays.asList(updates)).build();
+    }
+
+    private static AssessmentGridUpdateRequest update(Long courseId, Long assignmentId, Long studentId, Double mark) {
+        return AssessmentGridUpdateRequest.builder().courseId(courseId).assignmentId(assignmentId).studentId(studentId)
+            .teacherMark(mark).build();
+    }
+
+    private static User user(Long id, String name, Role role) {
+        return User.builder().id(id).name(name).email(name.toLowerCase().replace(' ', '.') + "@test.com").role(role).build();
+    }
+
+    private static Assignment assignment(Long id, Course course, User createdBy) {
+        return Assignment.builder().id(id).title("A" + id).maxMarks(100).course(course).createdBy(createdBy)
+            .deadline(LocalDateTime.now().plusDays(7)).build();
+    }
+}
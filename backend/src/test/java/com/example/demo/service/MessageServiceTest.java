@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.MessageReactionRepository;
+import com.example.demo.repository.MessageRepository;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MessageServiceTest {
+
+    private MessageReactionRepository reactionRepository;
+    private MessageService messageService;
+
+    @BeforeEach
+    void setUp() {
+        reactionRepository = mock(MessageReactionRepository.class);
+        messageService = new MessageService(mock(MessageRepository.class), mock(UserRepository.class), reactionRepository,
+            mock(ApplicationEventPublisher.class), mock(UnreadCountCache.class), mock(UserDirectoryService.class));
+        ReflectionTestUtils.setField(messageService, "reactionETagMaxAgeSeconds", 0L);
+    }
+
+    @Test
+    void testGetBulkMessageReactions_ShouldGroupRowsFromOneQueryByMessageAndEmoji() {
+        when(reactionRepository.findReactionRows(anyCollection())).thenReturn(List.of(
+            row(1L, "👍", "Alice"), row(1L, "👍", "Bob"), row(1L, "🔥", "Carol"), row(2L, "👍", "Dan")));
+
+        Map<Long, List<Map<String, Object>>> reactions = messageService.getBulkMessageReactions(List.of(1L, 2L, 3L));
+
+        verify(reactionRepository, times(1)).findReactionRows(anyCollection());
+        assertEquals(2, reactions.get(1L).size());
+        assertEquals("👍", reactions.get(1L).get(0).get("emoji"));
+        assertEquals(2, reactions.get(1L).get(0).get("count"));
+        assertEquals(List.of("Alice", "Bob"), reactions.get(1L).get(0).get("users"));
+        assertEquals(1, reactions.get(2L).size());
+        assertTrue(reactions.get(3L).isEmpty());
+    }
+
+    @Test
+    void testGetReactionsETag_ShouldChangeOnlyWhenARequestedMessageChanges() {
+        String eTag = messageService.getReactionsETag(List.of(2L, 1L));
+        assertEquals(eTag, messageService.getReactionsETag(List.of(1L, 2L)));
+
+        messageService.onMessageReactionChanged(new NotificationPushService.MessageReactionChanged(List.of(7L), 3L));
+        assertEquals(eTag, messageService.getReactionsETag(List.of(1L, 2L)));
+
+        messageService.onMessageReactionChanged(new NotificationPushService.MessageReactionChanged(List.of(7L), 2L));
+        assertNotEquals(eTag, messageService.getReactionsETag(List.of(1L, 2L)));
+        verifyNoInteractions(reactionRepository);
+    }
+
+    private static MessageReactionRepository.ReactionRow row(Long messageId, String emoji, String userName) {
+        return new MessageReactionRepository.ReactionRow() {
+            @Override
+            public Long getMessageId() {
+                return messageId;
+            }
+
+            @Override
+            public String getEmoji() {
+                return emoji;
+            }
+
+            @Override
+            public String getUserName() {
+                return userName;
+            }
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.CourseEnrollmentRepository;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationPushServiceTest {
+
+    private CourseEnrollmentRepository enrollmentRepository;
+    private NotificationPushService pushService;
+
+    @BeforeEach
+    void setUp() {
+        NotificationService notificationService = mock(NotificationService.class);
+        MessageService messageService = mock(MessageService.class);
+        enrollmentRepository = mock(CourseEnrollmentRepository.class);
+        when(messageService.getUnreadCount(anyLong())).thenReturn(0L);
+
+        pushService = new NotificationPushService(notificationService, messageService, enrollmentRepository,
+            mock(UserRepository.class));
+        ReflectionTestUtils.setField(pushService, "timeoutMs", 60_000L);
+        ReflectionTestUtils.setField(pushService, "maxConnections", 3);
+        ReflectionTestUtils.setField(pushService, "maxConnectionsPerUser", 2);
+    }
+
+    @Test
+    void testSubscribe_OverPerUserLimit_ShouldReplaceOldestStream() {
+        SseEmitter first = pushService.subscribe(1L);
+        pushService.subscribe(1L);
+        pushService.subscribe(1L);
+
+        assertEquals(2, pushService.getConnectionCount());
+        assertThrows(IllegalStateException.class, () -> first.send("after eviction"));
+    }
+
+    @Test
+    void testSubscribe_OverNodeLimit_ShouldReject() {
+        pushService.subscribe(1L);
+        pushService.subscribe(2L);
+        pushService.subscribe(3L);
+
+        assertThrows(RuntimeException.class, () -> pushService.subscribe(4L));
+        assertEquals(3, pushService.getConnectionCount());
+    }
+
+    @Test
+    void testCourseNotifications_ShouldOnlyQueryConnectedUsers() {
+        pushService.onCourseNotificationsCreated(new NotificationPushService.CourseNotificationsCreated(
+            10L, null, "title", "message", "/student"));
+        verifyNoInteractions(enrollmentRepository);
+
+        pushService.subscribe(7L);
+        when(enrollmentRepository.findApprovedActiveStudentIds(eq(10L), anyList())).thenReturn(List.of(7L));
+        pushService.onCourseNotificationsCreated(new NotificationPushService.CourseNotificationsCreated(
+            10L, null, "title", "message", "/student"));
+
+        verify(enrollmentRepository).findApprovedActiveStudentIds(10L, List.of(7L));
+    }
+}
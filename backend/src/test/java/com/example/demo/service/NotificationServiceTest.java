@@ -0,0 +1,93 @@
+package com.example.demo.service;
+
+import com.example.demo.model.*;
+import com.example.demo.repository.NotificationRepository;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationServiceTest {
+
+    private NotificationRepository notificationRepository;
+    private UserRepository userRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private JdbcTemplate jdbcTemplate;
+    private NotificationService notificationService;
+    private List<Notification> saved;
+
+    private final Course course = Course.builder().id(10L).courseCode("CS101").title("Data Structures").build();
+    private final User alice = User.builder().id(1L).name("Alice").role(Role.STUDENT).build();
+    private final User bob = User.builder().id(2L).name("Bob").role(Role.STUDENT).build();
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+        userRepository = mock(UserRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        notificationService = new NotificationService(notificationRepository, userRepository,
+            eventPublisher, mock(UnreadCountCache.class), jdbcTemplate);
+        ReflectionTestUtils.setField(notificationService, "coalesceWindowMinutes", 30L);
+
+        saved = new ArrayList<>();
+        when(userRepository.findById(9L)).thenReturn(Optional.of(User.builder().id(9L).name("Author").build()));
+        when(notificationRepository.save(any())).thenAnswer(invocation -> {
+            Notification notification = invocation.getArgument(0);
+            saved.add(notification);
+            return notification;
+        });
+        // The first notification stays open for merging
+        when(notificationRepository.findCoalescable(eq(9L), eq(7L), any(), any(), any()))
+            .thenAnswer(invocation -> List.copyOf(saved));
+    }
+
+    @Test
+    void testNotifyDiscussionPostReaction_ShouldCountDistinctActorsOnly() {
+        notificationService.notifyDiscussionPostReaction(9L, alice, course, "Trees", 7L, "LIKE");
+        notificationService.notifyDiscussionPostReaction(9L, bob, course, "Trees", 7L, "LIKE");
+        notificationService.notifyDiscussionPostReaction(9L, alice, course, "Trees", 7L, "LIKE");
+
+        assertEquals(1, saved.size());
+        Notification notification = saved.get(0);
+        assertEquals(2, notification.getAggregateCount());
+        assertEquals("2 people reacted to your post", notification.getTitle());
+        assertEquals("Alice and 1 other reacted to your post in discussion: Trees", notification.getMessage());
+    }
+
+    @Test
+    void testCreatePlagiarismDetectionNotifications_ShouldInsertInOneBatchAndPushOnlyNewRows() {
+        User teacher = User.builder().id(3L).name("Teacher").role(Role.TEACHER).build();
+        Assignment assignment = Assignment.builder().id(100L).title("A1").course(course).createdBy(teacher).build();
+        alice.setStatus(UserStatus.ACTIVE);
+        bob.setStatus(UserStatus.ACTIVE);
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(alice, bob));
+        // Alice was notified by an earlier run; only Bob's row is inserted
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[] {0, 1});
+        when(notificationRepository.findByDedupKeyIn(List.of("PLAGIARISM_DETECTED:2:100"))).thenReturn(List.of(
+            Notification.builder().id(50L).recipient(bob).type(Notification.NotificationType.PLAGIARISM_DETECTED)
+                .title("t").message("m").dedupKey("PLAGIARISM_DETECTED:2:100").build()));
+
+        int created = notificationService.createPlagiarismDetectionNotifications(assignment, List.of(
+            new NotificationService.PlagiarismMatch(1L, 2L, "Bob", 90.0),
+            new NotificationService.PlagiarismMatch(2L, 1L, "Alice", 90.0),
+            new NotificationService.PlagiarismMatch(1L, 2L, "Bob", 90.0)));
+
+        assertEquals(1, created);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), argThat((List<Object[]> rows) -> rows.size() == 2));
+        verify(notificationRepository, times(1)).findByDedupKeyIn(anyCollection());
+        verify(notificationRepository, never()).save(any());
+        verify(eventPublisher, times(1)).publishEvent(argThat((Object event) ->
+            event instanceof NotificationPushService.NotificationCreated pushed && pushed.recipientId().equals(2L)));
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PlagiarismAnalysisResponse;
+import com.example.demo.dto.PlagiarismCheckRequest;
+import com.example.demo.model.*;
+import com.example.demo.repository.*;
+import com.example.demo.service.plagiarism.PlagiarismEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs a copy check end to end on the plagiarism executor, where no session is open, against committed data.
+ */
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PlagiarismServiceTest {
+
+    private static final String CODE = String.join("\n",
+        "public class Sum {",
+        "    public static int sum(int[] values) {",
+        "        int total = 0;",
+        "        for (int value : values) {",
+        "            total += value;",
+        "        }",
+        "        return total;",
+        "    }",
+        "}");
+
+    @Autowired private UserRepository userRepository;
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private AssignmentRepository assignmentRepository;
+    @Autowired private StudentSubmissionRepository submissionRepository;
+    @Autowired private SubmissionFileRepository submissionFileRepository;
+    @Autowired private SubmissionFingerprintRepository fingerprintRepository;
+    @Autowired private CourseTeacherRepository courseTeacherRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path uploads;
+
+    private ThreadPoolTaskExecutor executor;
+    private ForkJoinPool scoringPool;
+    private PlagiarismService plagiarismService;
+    private User teacher;
+    private Assignment assignment;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.initialize();
+        scoringPool = new ForkJoinPool(2);
+
+        // Results stay in memory; persisting them is covered by the result store
+        Map<String, PlagiarismAnalysisResponse> results = new ConcurrentHashMap<>();
+        PlagiarismResultStore resultStore = mock(PlagiarismResultStore.class);
+        doAnswer(invocation -> results.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(resultStore).put(anyString(), any());
+        when(resultStore.get(anyString())).thenAnswer(invocation -> results.get(invocation.<String>getArgument(0)));
+
+        plagiarismService = new PlagiarismService(assignmentRepository, submissionRepository, submissionFileRepository,
+            courseTeacherRepository, userRepository, mock(NotificationService.class), fingerprintRepository, executor,
+            new PlagiarismEngine(scoringPool, 1024L * 1024, 8L * 1024 * 1024, 2000, 100), resultStore,
+            mock(PlagiarismCorpusService.class));
+        ReflectionTestUtils.setField(plagiarismService, "maxConcurrentPerCourse", 1);
+
+        teacher = persistUser("teacher@test.com", Role.TEACHER);
+        Course course = courseRepository.save(Course.builder().courseCode("CS101").title("Data Structures")
+            .assignedTeacher(teacher).build());
+        assignment = assignmentRepository.save(Assignment.builder().title("A1").maxMarks(100).course(course)
+            .createdBy(teacher).deadline(LocalDateTime.now().minusDays(1)).build());
+        submit(persistUser("first@test.com", Role.STUDENT), "first.java");
+        submit(persistUser("second@test.com", Role.STUDENT), "second.java");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        scoringPool.shutdownNow();
+        fingerprintRepository.deleteAll();
+        submissionFileRepository.deleteAll();
+        submissionRepository.deleteAll();
+        assignmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testStartPlagiarismAnalysis_ShouldCompareSubmissionsOnTheExecutorThread() throws Exception {
+        PlagiarismCheckRequest request = new PlagiarismCheckRequest();
+        request.setSettings(new PlagiarismCheckRequest.Settings());
+        request.setTeacherId(teacher.getId());
+
+        // Started inside a transaction like a request with an open session; the analysis itself runs outside it
+        String analysisId = new TransactionTemplate(transactionManager).execute(status ->
+            plagiarismService.startPlagiarismAnalysis(assignment.getId(), request));
+        executor.getThreadPoolExecutor().shutdown();
+        assertTrue(executor.getThreadPoolExecutor().awaitTermination(30, TimeUnit.SECONDS));
+
+        PlagiarismAnalysisResponse response = plagiarismService.getAnalysisStatus(analysisId);
+        assertEquals("completed", response.getStatus(), response.getProgress().getStage());
+        List<PlagiarismAnalysisResponse.SimilarityPair> pairs = response.getResults().getSimilarities();
+        assertEquals(1, pairs.size());
+        assertEquals(List.of("first@test.com", "second@test.com"),
+            List.of(pairs.get(0).getStudent1Name(), pairs.get(0).getStudent2Name()).stream().sorted().toList());
+    }
+
+    private User persistUser(String email, Role role) {
+        return userRepository.save(User.builder().name(email).email(email).role(role).status(UserStatus.ACTIVE).build());
+    }
+
+    private void submit(User student, String filename) throws Exception {
+        StudentSubmission submission = submissionRepository.save(StudentSubmission.builder()
+            .assignment(assignment).student(student).submittedAt(LocalDateTime.now()).build());
+        Path file = Files.writeString(uploads.resolve(filename), CODE);
+        submissionFileRepository.save(SubmissionFile.builder().submission(submission).originalFilename(filename)
+            .storedFilename(filename).filePath(file.toString()).fileSize(Files.size(file)).build());
+    }
+}
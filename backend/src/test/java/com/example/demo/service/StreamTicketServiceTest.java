@@ -0,0 +1,42 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamTicketServiceTest {
+
+    private StreamTicketService ticketService;
+
+    @BeforeEach
+    void setUp() {
+        ticketService = new StreamTicketService();
+        ReflectionTestUtils.setField(ticketService, "ticketTtlSeconds", 30L);
+    }
+
+    @Test
+    void testRedeem_ShouldReturnTheIdentityOnlyOnce() {
+        String ticket = ticketService.issue("student@test.com", List.of(new SimpleGrantedAuthority("ROLE_STUDENT")));
+
+        StreamTicketService.Ticket redeemed = ticketService.redeem(ticket);
+
+        assertNotNull(redeemed);
+        assertEquals("student@test.com", redeemed.email());
+        assertEquals("ROLE_STUDENT", redeemed.authorities().get(0).getAuthority());
+        assertNull(ticketService.redeem(ticket));
+        assertNull(ticketService.redeem("unknown"));
+    }
+
+    @Test
+    void testRedeem_ShouldRejectExpiredTickets() {
+        ReflectionTestUtils.setField(ticketService, "ticketTtlSeconds", -1L);
+        String ticket = ticketService.issue("student@test.com", List.of());
+
+        assertNull(ticketService.redeem(ticket));
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.CourseEnrollmentRepository;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UnreadCountCacheTest {
+
+    private CourseEnrollmentRepository enrollmentRepository;
+    private UnreadCountCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository = mock(CourseEnrollmentRepository.class);
+        cache = new UnreadCountCache(enrollmentRepository, mock(UserRepository.class));
+        ReflectionTestUtils.setField(cache, "maxUsers", 2);
+        ReflectionTestUtils.setField(cache, "idleMinutes", 30L);
+        ReflectionTestUtils.setField(cache, "maxAgeMinutes", 10L);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void testGetNotificationCount_ShouldLoadOnceAndApplyIncrements() {
+        assertEquals(3, cache.getNotificationCount(1L, () -> load(3)));
+        cache.onNotificationCreated(new NotificationPushService.NotificationCreated(1L, null));
+
+        assertEquals(4, cache.getNotificationCount(1L, () -> load(99)));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testNotificationsRead_ShouldRecountOnNextRead() {
+        cache.getNotificationCount(1L, () -> load(3));
+        cache.onNotificationsRead(new NotificationPushService.NotificationsRead(1L));
+
+        assertEquals(0, cache.getNotificationCount(1L, () -> load(0)));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGetMessageCount_ShouldNotStoreCountThatRacedWithAChange() {
+        cache.getMessageCount(1L, () -> {
+            cache.onMessageSent(new NotificationPushService.MessageSent(1L, null));
+            return load(5);
+        });
+
+        assertEquals(6, cache.getMessageCount(1L, () -> load(6)));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGetNotificationCount_ShouldNotStoreCountLoadedWhileCreationCommits() {
+        NotificationPushService.NotificationCreated created = new NotificationPushService.NotificationCreated(1L, null);
+        cache.onNotificationCreatedCommitting(created);
+        // The recount already sees the committed row before the increment arrives
+        assertEquals(4, cache.getNotificationCount(1L, () -> load(4)));
+        cache.onNotificationCreated(created);
+        cache.onNotificationCreatedCompleted(created);
+
+        assertEquals(4, cache.getNotificationCount(1L, () -> load(4)));
+        assertEquals(4, cache.getNotificationCount(1L, () -> load(99)));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testDeletions_ShouldRecountAffectedUsersOnNextRead() {
+        cache.getNotificationCount(1L, () -> load(3));
+        cache.getMessageCount(1L, () -> load(2));
+        cache.getNotificationCount(2L, () -> load(1));
+
+        cache.onNotificationsDeleted(new NotificationPushService.NotificationsDeleted(List.of(1L)));
+        cache.onMessagesDeleted(new NotificationPushService.MessagesDeleted(List.of(1L)));
+
+        assertEquals(0, cache.getNotificationCount(1L, () -> load(0)));
+        assertEquals(0, cache.getMessageCount(1L, () -> load(0)));
+        assertEquals(1, cache.getNotificationCount(2L, () -> load(99)));
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void testCourseNotifications_ShouldIncrementCachedEnrolledStudentsOnly() {
+        cache.getNotificationCount(1L, () -> load(0));
+        cache.getNotificationCount(2L, () -> load(0));
+        when(enrollmentRepository.findApprovedActiveStudentIds(eq(10L), anyList())).thenReturn(List.of(2L));
+
+        cache.onCourseNotificationsCreated(new NotificationPushService.CourseNotificationsCreated(10L, null, "t", "m", "/"));
+
+        assertEquals(0, cache.getNotificationCount(1L, () -> load(0)));
+        assertEquals(1, cache.getNotificationCount(2L, () -> load(0)));
+    }
+
+    @Test
+    void testCache_ShouldEvictLeastRecentlyUsedBeyondMaxUsers() {
+        cache.getNotificationCount(1L, () -> load(1));
+        cache.getNotificationCount(2L, () -> load(2));
+        cache.getNotificationCount(1L, () -> load(1));
+        cache.getNotificationCount(3L, () -> load(3));
+
+        cache.getNotificationCount(1L, () -> load(1));
+        assertEquals(3, loads.get());
+        cache.getNotificationCount(2L, () -> load(2));
+        assertEquals(4, loads.get());
+    }
+
+    private Long load(long count) {
+        loads.incrementAndGet();
+        return count;
+    }
+}
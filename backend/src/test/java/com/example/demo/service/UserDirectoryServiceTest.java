@@ -0,0 +1,113 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.DirectoryUserResponse;
+import com.example.demo.dto.UserDirectoryResponse;
+import com.example.demo.model.Role;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserDirectoryServiceTest {
+
+    private UserRepository userRepository;
+    private UserDirectoryService directory;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        directory = new UserDirectoryService(userRepository);
+        when(userRepository.findChangeMarker()).thenReturn(marker(3L, LocalDateTime.of(2025, 1, 1, 12, 0)));
+        when(userRepository.findActiveDirectoryEntries()).thenReturn(List.of(
+            entry(1L, "Zara Smith", "zara@uni.edu"),
+            entry(2L, "Adam Jones", "adam@uni.edu"),
+            entry(3L, "Sam Adams", "sam@uni.edu")));
+    }
+
+    @Test
+    void testSearch_ShouldMatchNameWordEmailAndRolePrefixesInNameOrder() {
+        assertEquals(List.of("Adam Jones", "Sam Adams"), names(directory.search("ada", null, 0, 10)));
+        assertEquals(List.of("Zara Smith"), names(directory.search("SMI", null, 0, 10)));
+        assertEquals(List.of("Sam Adams"), names(directory.search("sam@", null, 0, 10)));
+        assertEquals(3, directory.search("stud", null, 0, 10).getTotal());
+        assertTrue(directory.search("nobody", null, 0, 10).getUsers().isEmpty());
+    }
+
+    @Test
+    void testSearch_ShouldPageAndExcludeTheCaller() {
+        UserDirectoryResponse first = directory.search("", 2L, 0, 1);
+        UserDirectoryResponse second = directory.search("", 2L, 1, 1);
+
+        assertEquals(List.of("Sam Adams"), names(first));
+        assertEquals(2, first.getTotal());
+        assertTrue(first.isHasMore());
+        assertEquals(List.of("Zara Smith"), names(second));
+        assertFalse(second.isHasMore());
+    }
+
+    @Test
+    void testRefreshIfChanged_ShouldRebuildOnlyWhenTheChangeMarkerMoves() {
+        directory.search("", null, 0, 10);
+        directory.refreshIfChanged();
+        verify(userRepository, times(1)).findActiveDirectoryEntries();
+
+        when(userRepository.findChangeMarker()).thenReturn(marker(3L, LocalDateTime.of(2025, 1, 2, 12, 0)));
+        when(userRepository.findActiveDirectoryEntries()).thenReturn(List.of(entry(2L, "Adam Jones", "adam@uni.edu")));
+        directory.refreshIfChanged();
+
+        verify(userRepository, times(2)).findActiveDirectoryEntries();
+        assertEquals(List.of("Adam Jones"), names(directory.search("", null, 0, 10)));
+    }
+
+    private static List<String> names(UserDirectoryResponse response) {
+        return response.getUsers().stream().map(DirectoryUserResponse::getName).toList();
+    }
+
+    private static UserRepository.ChangeMarker marker(Long count, LocalDateTime lastUpdatedAt) {
+        return new UserRepository.ChangeMarker() {
+            @Override
+            public Long getUserCount() {
+                return count;
+            }
+
+            @Override
+            public LocalDateTime getLastUpdatedAt() {
+                return lastUpdatedAt;
+            }
+        };
+    }
+
+    private static UserRepository.DirectoryEntry entry(Long id, String name, String email) {
+        return new UserRepository.DirectoryEntry() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+
+            @Override
+            public Role getRole() {
+                return Role.STUDENT;
+            }
+
+            @Override
+            public String getProfilePhotoUrl() {
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.service.plagiarism;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedExtractorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testExtractArchive_ShouldTruncateEntriesAtEntryBudget() throws IOException {
+        Path zip = createZip("big.txt", "a".repeat(5000), "small.java", "class A {}");
+        BoundedExtractor extractor = new BoundedExtractor(1000, 10_000, 100, 100);
+        List<String> contents = new ArrayList<>();
+        List<Boolean> truncated = new ArrayList<>();
+
+        extractor.extractArchive(zip, name -> true, (entry, content, wasTruncated) -> {
+            contents.add(content);
+            truncated.add(wasTruncated);
+        });
+
+        assertEquals(List.of(1000, 10), contents.stream().map(String::length).toList());
+        assertEquals(List.of(true, false), truncated);
+    }
+
+    @Test
+    void testExtractArchive_ShouldStopAtArchiveBudget() throws IOException {
+        Path zip = createZip("a.txt", "x".repeat(800), "b.txt", "y".repeat(800), "c.txt", "z".repeat(800));
+        BoundedExtractor extractor = new BoundedExtractor(1000, 1200, 100, 100);
+        List<String> contents = new ArrayList<>();
+
+        extractor.extractArchive(zip, name -> true, (entry, content, wasTruncated) -> contents.add(content));
+
+        assertEquals(2, contents.size());
+        assertEquals(1200, contents.stream().mapToInt(String::length).sum());
+    }
+
+    @Test
+    void testExtractArchive_ShouldRejectHighlyCompressedEntry() throws IOException {
+        // 4 MB of zeros compresses to a few KB, far beyond a 10x ratio
+        Path zip = createZip("bomb.txt", "\0".repeat(4 * 1024 * 1024), "after.txt", "never read");
+        BoundedExtractor extractor = new BoundedExtractor(8 * 1024 * 1024, 16 * 1024 * 1024, 100, 10);
+        List<String> names = new ArrayList<>();
+
+        extractor.extractArchive(zip, name -> true, (entry, content, wasTruncated) -> names.add(entry.getName()));
+
+        assertTrue(names.isEmpty());
+    }
+
+    @Test
+    void testExtractArchive_ShouldSkipFilteredEntries() throws IOException {
+        Path zip = createZip("Main.java", "class Main {}", "image.bin", "ignored");
+        BoundedExtractor extractor = new BoundedExtractor(1000, 10_000, 100, 100);
+        List<String> names = new ArrayList<>();
+
+        extractor.extractArchive(zip, name -> name.endsWith(".java"), (entry, content, wasTruncated) -> names.add(entry.getName()));
+
+        assertEquals(List.of("Main.java"), names);
+    }
+
+    private Path createZip(String... namesAndContents) throws IOException {
+        Path zip = Files.createTempFile(tempDir, "submission", ".zip");
+        try (OutputStream out = Files.newOutputStream(zip); ZipOutputStream zos = new ZipOutputStream(out)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zos.putNextEntry(new ZipEntry(namesAndContents[i]));
+                zos.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+        return zip;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.service.plagiarism;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinHashLshIndexTest {
+
+    @Test
+    void testEstimateJaccard_ShouldApproximateExactJaccard() {
+        MinHashLshIndex index = new MinHashLshIndex(256, 0.3);
+
+        // Intersection 600, union 1000 -> Jaccard 0.6
+        long[] set1 = LongStream.range(0, 800).toArray();
+        long[] set2 = LongStream.range(200, 1000).toArray();
+
+        double estimate = MinHashLshIndex.estimateJaccard(index.signature(set1), index.signature(set2));
+
+        assertEquals(600.0 / 1000.0, estimate, 0.1);
+    }
+
+    @Test
+    void testCandidatePairs_ShouldKeepSimilarAndPruneUnrelatedOwners() {
+        MinHashLshIndex index = new MinHashLshIndex(0.3);
+
+        long[] base = LongStream.range(0, 500).toArray();
+        long[] nearCopy = LongStream.range(50, 550).toArray();
+        long[] unrelated = LongStream.range(10_000, 10_500).toArray();
+
+        index.add(0, index.signature(base));
+        index.add(1, index.signature(nearCopy));
+        index.add(2, index.signature(unrelated));
+
+        Set<Long> candidates = index.candidatePairs();
+
+        assertTrue(candidates.contains(MinHashLshIndex.pairKey(0, 1)));
+        assertFalse(candidates.contains(MinHashLshIndex.pairKey(0, 2)));
+        assertFalse(candidates.contains(MinHashLshIndex.pairKey(1, 2)));
+    }
+
+    @Test
+    void testCandidatePairs_ShouldIgnoreFilesFromSameOwner() {
+        MinHashLshIndex index = new MinHashLshIndex(0.3);
+        long[] shingles = LongStream.range(0, 300).toArray();
+
+        index.add(7, index.signature(shingles));
+        index.add(7, index.signature(shingles));
+
+        assertTrue(index.candidatePairs().isEmpty());
+    }
+
+    @Test
+    void testPairKey_ShouldBeOrderIndependent() {
+        assertEquals(MinHashLshIndex.pairKey(3, 9), MinHashLshIndex.pairKey(9, 3));
+        assertNotEquals(MinHashLshIndex.pairKey(3, 9), MinHashLshIndex.pairKey(3, 10));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.service.plagiarism;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlagiarismEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ForkJoinPool scoringPool = new ForkJoinPool(1);
+    private final PlagiarismEngine engine = new PlagiarismEngine(scoringPool, 1024L * 1024, 8L * 1024 * 1024, 2000, 100);
+
+    @AfterEach
+    void tearDown() {
+        scoringPool.shutdownNow();
+    }
+
+    @Test
+    void testReadFileContent_ShouldHashRarUploadsInsteadOfOpeningThemAsZip() throws IOException {
+        byte[] rar = {'R', 'a', 'r', '!', 0x1A, 0x07, 0x00, 1, 2, 3, 4, 5};
+        Path first = Files.write(tempDir.resolve("first.rar"), rar);
+        Path second = Files.write(tempDir.resolve("second.rar"), rar);
+
+        String firstContent = engine.readFileContent(first, "project.rar");
+        String secondContent = engine.readFileContent(second, "project.rar");
+
+        assertTrue(firstContent.startsWith("// BINARY FILE: project.rar"), firstContent);
+        assertEquals(firstContent, secondContent);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.service.plagiarism;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShingleEngineTest {
+
+    private static final String CODE_1 = """
+            public class Sum {
+            public static void main(String[] args) {
+            int total = 0;
+            for (int i = 0; i < 10; i++) { total += i; }
+            System.out.println(total);
+            }
+            }""";
+
+    private static final String CODE_2 = """
+            public class Sum {
+            public static void main(String[] args) {
+            int acc = 0;
+            for (int k = 0; k < 10; k++) { acc += k; }
+            System.out.println("Sum: " + acc);
+            }
+            }""";
+
+    @Test
+    void testShingleHashes_ShouldMatchDistinctSubstringCount() {
+        for (int k = 5; k <= 15; k++) {
+            assertEquals(stringShingles(CODE_1, k).size(), ShingleEngine.shingleHashes(CODE_1, k).length);
+        }
+    }
+
+    @Test
+    void testJaccard_ShouldMatchStringBasedJaccardWithinTolerance() {
+        for (int k = 5; k <= 15; k++) {
+            Set<String> set1 = stringShingles(CODE_1, k);
+            Set<String> set2 = stringShingles(CODE_2, k);
+            Set<String> intersection = new HashSet<>(set1);
+            intersection.retainAll(set2);
+            Set<String> union = new HashSet<>(set1);
+            union.addAll(set2);
+            double expected = (double) intersection.size() / union.size();
+
+            double actual = ShingleEngine.jaccard(
+                    ShingleEngine.shingleHashes(CODE_1, k), ShingleEngine.shingleHashes(CODE_2, k));
+
+            assertEquals(expected, actual, 1e-4);
+        }
+    }
+
+    @Test
+    void testShingleHashes_WithShortText_ShouldReturnSingleHash() {
+        assertEquals(1, ShingleEngine.shingleHashes("abc", 5).length);
+    }
+
+    @Test
+    void testSortedDistinct_ShouldSortAndRemoveDuplicates() {
+        assertArrayEquals(new long[] {1, 2, 5}, ShingleEngine.sortedDistinct(new long[] {5, 1, 2, 5, 1}));
+    }
+
+    private static Set<String> stringShingles(String text, int k) {
+        Set<String> shingles = new HashSet<>();
+        for (int i = 0; i <= text.length() - k; i++) {
+            shingles.add(text.substring(i, i + k));
+        }
+        return shingles;
+    }
+}
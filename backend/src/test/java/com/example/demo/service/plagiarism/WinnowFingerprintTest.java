@@ -0,0 +1,82 @@
+package com.example.demo.service.plagiarism;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WinnowFingerprintTest {
+
+    private static final String ORIGINAL = """
+            // FILE: Main.java
+            public class Main {
+                public static void main(String[] args) {
+                    int total = 0;
+                    for (int i = 0; i < 10; i++) {
+                        total += i * 2;
+                    }
+                    System.out.println("Total: " + total);
+                }
+            }
+            """;
+
+    @Test
+    void testOf_ShouldIgnoreRenamingCommentsAndFormatting() {
+        String renamed = """
+                // FILE: Solution.java
+                /* copied, of course not */
+                public class Solution
+                {
+                    public static void main(String[] argv)
+                    {
+                        int sum = 0;   // accumulator
+                        for (int k = 0; k < 25; k++) { sum += k * 3; }
+                        System.out.println("Sum = " + sum);
+                    }
+                }
+                """;
+
+        WinnowFingerprint a = WinnowFingerprint.of(ORIGINAL, "Main.java");
+        WinnowFingerprint b = WinnowFingerprint.of(renamed, "Solution.java");
+
+        assertFalse(a.isEmpty());
+        assertArrayEquals(a.distinctHashes(), b.distinctHashes());
+    }
+
+    @Test
+    void testOf_ShouldRecordFileAndLineOfFingerprints() {
+        WinnowFingerprint fingerprint = WinnowFingerprint.of(ORIGINAL, "ignored.java");
+
+        assertEquals("Main.java", fingerprint.fileName(fingerprint.locationAt(0)));
+        for (int k = 0; k < fingerprint.size(); k++) {
+            int line = WinnowFingerprint.line(fingerprint.locationAt(k));
+            assertTrue(line >= 1 && line <= 9, "line " + line);
+        }
+    }
+
+    @Test
+    void testOf_ShouldDifferForUnrelatedCode() {
+        String unrelated = """
+                // FILE: script.py
+                # totally different program
+                def greet(name):
+                    if name:
+                        return "hello " + name
+                    raise ValueError("missing name")
+                """;
+
+        WinnowFingerprint a = WinnowFingerprint.of(ORIGINAL, "Main.java");
+        WinnowFingerprint b = WinnowFingerprint.of(unrelated, "script.py");
+
+        assertEquals(0, ShingleEngine.intersectionSize(a.distinctHashes(), b.distinctHashes()));
+    }
+
+    @Test
+    void testEncodeLocations_ShouldRoundTrip() {
+        WinnowFingerprint fingerprint = WinnowFingerprint.of(ORIGINAL, "Main.java");
+
+        assertArrayEquals(fingerprint.getLocations(),
+            WinnowFingerprint.decodeLocations(WinnowFingerprint.encodeLocations(fingerprint.getLocations())));
+        assertEquals(fingerprint.getFileNames(),
+            WinnowFingerprint.decodeFileNames(WinnowFingerprint.encodeFileNames(fingerprint.getFileNames())));
+    }
+}
@@ -0,0 +1,25 @@
+-- Materialized assessment grid (PostgreSQL)
+
+-- The grid is no longer filled in when it is read; create the rows that were never opened
+INSERT INTO assessment_grids (assignment_id, course_id, student_id, submission_id, manual_weight,
+                              late_penalty_applied, copy_penalty_applied, is_processed, created_at, updated_at)
+SELECT a.id, a.course_id, ce.student_id, ss.id, 1.0, COALESCE(ss.is_late, false), false, false, NOW(), NOW()
+FROM assignments a
+JOIN course_enrollment ce ON ce.course_id = a.course_id AND ce.status = 'APPROVED'
+LEFT JOIN student_submissions ss ON ss.assignment_id = a.id AND ss.student_id = ce.student_id
+ON CONFLICT (assignment_id, student_id) DO NOTHING;
+
+-- Link submissions made before the grid was maintained on submit; the late flag and final mark
+-- follow the submission as in AssessmentGrid.calculateFinalMark
+UPDATE assessment_grids ag SET submission_id = ss.id,
+    late_penalty_applied = COALESCE(ss.is_late, false),
+    final_mark = CASE
+        WHEN ag.teacher_mark IS NULL THEN NULL
+        WHEN ag.copy_penalty_applied THEN -a.max_marks
+        WHEN COALESCE(ss.is_late, false) THEN ag.teacher_mark * ag.manual_weight * 0.95
+        ELSE ag.teacher_mark * ag.manual_weight
+    END,
+    updated_at = NOW()
+FROM student_submissions ss, assignments a
+WHERE ag.submission_id IS NULL AND ss.assignment_id = ag.assignment_id AND ss.student_id = ag.student_id
+  AND a.id = ag.assignment_id;
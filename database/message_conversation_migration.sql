@@ -0,0 +1,4 @@
+-- Conversation pagination (PostgreSQL)
+
+-- Keyset pages of one direction of a conversation, by message id
+CREATE INDEX IF NOT EXISTS idx_messages_sender_recipient_id ON messages(sender_id, recipient_id, id);
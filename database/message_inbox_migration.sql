@@ -0,0 +1,4 @@
+-- Conversation list (PostgreSQL)
+
+-- Received side of the inbox query and per-partner unread counts
+CREATE INDEX IF NOT EXISTS idx_messages_recipient_sender_id ON messages(recipient_id, sender_id, id);
@@ -0,0 +1,4 @@
+-- Bulk reaction loading (PostgreSQL)
+
+-- Reactions of a set of messages are read with one IN query
+CREATE INDEX IF NOT EXISTS idx_message_reactions_message_id ON message_reactions(message_id);
@@ -0,0 +1,4 @@
+-- Messaging directory (PostgreSQL)
+
+-- The directory polls MAX(updated_at) to detect user changes
+CREATE INDEX IF NOT EXISTS idx_users_updated_at ON users(updated_at);
@@ -0,0 +1,11 @@
+-- Notification coalescing (PostgreSQL)
+
+-- Number of discussion events merged into one notification
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS aggregate_count INTEGER DEFAULT 1;
+UPDATE notifications SET aggregate_count = 1 WHERE aggregate_count IS NULL;
+
+-- Distinct actors merged into a notification, so repeats by earlier actors are not counted again
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS aggregate_actor_ids TEXT;
+
+-- Lookup of the open notification to merge into, per recipient, thread and type
+CREATE INDEX IF NOT EXISTS idx_notifications_coalesce ON notifications(recipient_id, related_thread_id, type);
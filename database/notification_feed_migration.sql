@@ -0,0 +1,4 @@
+-- Notification feed (PostgreSQL)
+
+-- Keyset pagination of a user's notifications, newest first
+CREATE INDEX IF NOT EXISTS idx_notifications_recipient_created ON notifications(recipient_id, created_at, id);
@@ -0,0 +1,19 @@
+-- Notification outbox (PostgreSQL)
+
+-- Course-wide notification events, expanded into per-student notifications by a background dispatcher
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(40) NOT NULL,
+    course_id BIGINT NOT NULL,
+    actor_id BIGINT,
+    assignment_id BIGINT,
+    resource_id BIGINT,
+    thread_id BIGINT,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    last_error TEXT,
+    created_at TIMESTAMP,
+    processed_at TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_notification_outbox_due ON notification_outbox(status, next_attempt_at);
@@ -0,0 +1,25 @@
+-- Notification retention (PostgreSQL)
+
+-- Read notifications moved out of the hot table; related entities kept as plain ids
+CREATE TABLE IF NOT EXISTS notification_archive (
+    id BIGINT PRIMARY KEY,
+    recipient_id BIGINT NOT NULL,
+    type VARCHAR(255) NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    message TEXT NOT NULL,
+    redirect_url VARCHAR(255),
+    course_id BIGINT,
+    assignment_id BIGINT,
+    resource_id BIGINT,
+    related_user_id BIGINT,
+    related_thread_id BIGINT,
+    created_at TIMESTAMP,
+    read_at TIMESTAMP,
+    archived_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_notification_archive_recipient_created ON notification_archive(recipient_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_notification_archive_course ON notification_archive(course_id);
+CREATE INDEX IF NOT EXISTS idx_notification_archive_archived_at ON notification_archive(archived_at);
+
+-- Finds archivable rows without scanning unread ones; same definition as the Notification entity
+CREATE INDEX IF NOT EXISTS idx_notifications_read_at ON notifications(is_read, read_at);
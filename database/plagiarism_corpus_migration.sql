@@ -0,0 +1,15 @@
+-- Historical copy-checker index (PostgreSQL)
+-- Winnowed fingerprints of past submissions, queried by course code or course
+
+CREATE TABLE IF NOT EXISTS plagiarism_corpus_postings (
+    id BIGSERIAL PRIMARY KEY,
+    fingerprint BIGINT NOT NULL,
+    course_code VARCHAR(50) NOT NULL,
+    course_id BIGINT NOT NULL,
+    assignment_id BIGINT NOT NULL,
+    submission_id BIGINT NOT NULL,
+    student_id BIGINT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_corpus_code_fingerprint ON plagiarism_corpus_postings(course_code, fingerprint);
+CREATE INDEX IF NOT EXISTS idx_corpus_course_fingerprint ON plagiarism_corpus_postings(course_id, fingerprint);
+CREATE INDEX IF NOT EXISTS idx_corpus_submission ON plagiarism_corpus_postings(submission_id);
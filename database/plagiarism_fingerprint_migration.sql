@@ -0,0 +1,17 @@
+-- Plagiarism fingerprint cache (PostgreSQL)
+-- One row per distinct submitted file content, keyed by SHA-256 of the file bytes
+
+ALTER TABLE submission_files ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+CREATE INDEX IF NOT EXISTS idx_submission_files_content_hash ON submission_files(content_hash);
+
+CREATE TABLE IF NOT EXISTS submission_fingerprints (
+    id BIGSERIAL PRIMARY KEY,
+    content_hash VARCHAR(64) NOT NULL UNIQUE,
+    fingerprint_version INTEGER NOT NULL,
+    normalized_hash VARCHAR(64) NOT NULL,
+    normalized_content TEXT NOT NULL,
+    is_binary BOOLEAN NOT NULL,
+    line_hashes BYTEA,
+    minhash_signature BYTEA,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
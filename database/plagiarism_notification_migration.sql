@@ -0,0 +1,15 @@
+-- Plagiarism notification dedup (PostgreSQL)
+
+-- Structured identity of notifications that are sent only once; plagiarism notifications use
+-- PLAGIARISM_DETECTED:<recipient>:<assignment>. NULL for everything else.
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS dedup_key VARCHAR(255);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_notifications_dedup_key ON notifications(dedup_key);
+
+-- Key the plagiarism notifications already sent so their students are not notified again;
+-- where a student has several for one assignment, the earliest carries the key
+UPDATE notifications n
+SET dedup_key = 'PLAGIARISM_DETECTED:' || n.recipient_id || ':' || n.related_assignment_id
+WHERE n.type = 'PLAGIARISM_DETECTED' AND n.dedup_key IS NULL AND n.related_assignment_id IS NOT NULL
+  AND n.id = (SELECT MIN(o.id) FROM notifications o
+              WHERE o.type = 'PLAGIARISM_DETECTED'
+                AND o.recipient_id = n.recipient_id AND o.related_assignment_id = n.related_assignment_id);
@@ -0,0 +1,11 @@
+-- Copy-checker result storage (PostgreSQL)
+
+-- Finished copy-checker analyses (gzip-compressed JSON), purged after the retention period
+CREATE TABLE IF NOT EXISTS plagiarism_analysis_results (
+    analysis_id VARCHAR(36) PRIMARY KEY,
+    assignment_id BIGINT,
+    status VARCHAR(20) NOT NULL,
+    payload BYTEA NOT NULL,
+    completed_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_plagiarism_results_completed_at ON plagiarism_analysis_results(completed_at);
@@ -0,0 +1,6 @@
+-- Winnowed token fingerprints for the copy checker's "winnowing" mode (PostgreSQL)
+-- Rows written by older versions are recomputed on next use (fingerprint_version < 2)
+
+ALTER TABLE submission_fingerprints ADD COLUMN IF NOT EXISTS winnow_hashes BYTEA;
+ALTER TABLE submission_fingerprints ADD COLUMN IF NOT EXISTS winnow_locations BYTEA;
+ALTER TABLE submission_fingerprints ADD COLUMN IF NOT EXISTS winnow_files TEXT;
@@ -1,11 +1,26 @@
 import React, { useState, useEffect, useRef } from 'react';
 import axios from '../api/axiosInstance';
+import { subscribeToNotificationStream, isNotificationStreamConnected } from '../utils/notificationStream';
 import Linkify from 'react-linkify';
 import './MessageIcon.css';
 
 // Available reaction emojis
 const REACTION_EMOJIS = ['❤️', '😂', '😮', '😢', '😠', '👍', '👎', '🔥', '❤️‍🔥', '✨'];
 
+// Messages per conversation page; older ones are loaded on demand
+const CONVERSATION_PAGE_SIZE = 50;
+// Quiet fetches only ask for newer ids; the latest page is reloaded this often to drop deleted
+// messages and pick up ones that committed after a newer id had already been seen
+const CONVERSATION_FULL_REFRESH_MS = 30000;
+
+// Message ids per reaction request, keeping the query string short
+const REACTION_CHUNK_SIZE = 100;
+// Reaction ETags remembered per request URL; the oldest is dropped first
+const REACTION_ETAG_LIMIT = 200;
+
+// Users per directory page in the new chat picker
+const DIRECTORY_PAGE_SIZE = 50;
+
 const MessageIcon = ({ userId }) => {
     const [showModal, setShowModal] = useState(false);
     const [conversations, setConversations] = useState([]);
@@ -36,12 +51,16 @@ const MessageIcon = ({ userId }) => {
     const [showForwardModal, setShowForwardModal] = useState(false);
     const [selectedForwardRecipients, setSelectedForwardRecipients] = useState(new Set());
     const [messageReactions, setMessageReactions] = useState({});
+    const [hasOlderMessages, setHasOlderMessages] = useState(false);
+    const [hasMoreUsers, setHasMoreUsers] = useState(false);
+    const [loadingOlderMessages, setLoadingOlderMessages] = useState(false);
 
     const modalRef = useRef(null);
     const messagesEndRef = useRef(null);
     const fileInputRef = useRef(null);
     const pollingIntervalRef = useRef(null);
     const hoverTimeoutRef = useRef(null);
+    const keepScrollRef = useRef(false); // Set while prepending older messages
 
     useEffect(() => {
         if (userId) {
@@ -49,6 +68,40 @@ const MessageIcon = ({ userId }) => {
         }
     }, [userId]);
 
+    // Pushed events call the latest handlers, which see current state
+    const streamHandlersRef = useRef({});
+    streamHandlersRef.current = {
+        'message-unread-count': data => setUnreadCount(data.count),
+        message: data => {
+            const message = data.message;
+            if (showModal && selectedConversation && message?.senderId === selectedConversation.userId) {
+                fetchConversationQuietly(selectedConversation.userId);
+            } else {
+                setUnreadCount(count => count + (data.delta || 1));
+            }
+            if (showModal && currentView === 'conversations') {
+                fetchConversationsQuietly();
+            }
+        },
+        'message-reaction': data => {
+            if (showModal && selectedConversation && messages.some(m => m.id === data.messageId)) {
+                lastReactionFetchRef.current = 0;
+                syncReactionsOnly();
+            }
+        }
+    };
+
+    useEffect(() => {
+        if (!userId) {
+            return undefined;
+        }
+        return subscribeToNotificationStream({
+            'message-unread-count': data => streamHandlersRef.current['message-unread-count'](data),
+            message: data => streamHandlersRef.current.message(data),
+            'message-reaction': data => streamHandlersRef.current['message-reaction'](data)
+        });
+    }, [userId]);
+
     useEffect(() => {
         if (showModal && userId) {
             fetchConversations();
@@ -84,7 +137,8 @@ const MessageIcon = ({ userId }) => {
     const startRealtimePolling = () => {
         // Poll for unread count only every 10 seconds to avoid refreshing
         pollingIntervalRef.current = setInterval(() => {
-            if (userId && showModal) {
+            // Pushed over the notification stream while it is connected
+            if (userId && showModal && !isNotificationStreamConnected()) {
                 fetchUnreadCount();
                 // Only fetch conversations if we're on the conversations view
                 if (currentView === 'conversations') {
@@ -104,17 +158,23 @@ const MessageIcon = ({ userId }) => {
     const conversationPollingRef = useRef(null);
     const reactionPollingRef = useRef(null);
     const lastReactionFetchRef = useRef(0);
+    const lastFullRefreshRef = useRef(0);
+    const reactionETagsRef = useRef(new Map()); // ETag of the last reactions response per request URL
 
     const startConversationPolling = () => {
         if (selectedConversation) {
             // Poll for new messages every 3 seconds for balance between responsiveness and performance
+            // Fallback polling while the notification stream is down
             conversationPollingRef.current = setInterval(() => {
-                fetchConversationQuietly(selectedConversation.userId);
+                if (!isNotificationStreamConnected()) {
+                    fetchConversationQuietly(selectedConversation.userId);
+                }
             }, 3000);
 
-            // Reduce reaction polling frequency to every 5 seconds for better real-time updates
             reactionPollingRef.current = setInterval(() => {
-                syncReactionsOnly();
+                if (!isNotificationStreamConnected()) {
+                    syncReactionsOnly();
+                }
             }, 5000);
         }
     };
@@ -143,23 +203,28 @@ const MessageIcon = ({ userId }) => {
             );
             setFilteredConversations(filtered);
 
-            // Filter available users for new chat
-            const filteredUsersForChat = availableUsers.filter(user =>
-                user.name?.toLowerCase().includes(searchTerm.toLowerCase()) ||
-                user.email?.toLowerCase().includes(searchTerm.toLowerCase()) ||
-                user.role?.toLowerCase().includes(searchTerm.toLowerCase())
-            );
-            setFilteredUsers(filteredUsersForChat);
         } else {
             setFilteredConversations(conversations);
-            setFilteredUsers(availableUsers);
         }
+        // Available users are already filtered by the directory search
+        setFilteredUsers(availableUsers);
     }, [searchTerm, conversations, availableUsers]);
 
+    useEffect(() => {
+        // Search the user directory on the server once typing pauses
+        if (!showModal || !userId) return;
+        const timeout = setTimeout(() => fetchAvailableUsers(searchTerm.trim()), 250);
+        return () => clearTimeout(timeout);
+    }, [searchTerm]);
+
     useEffect(() => {
         scrollToBottom();
     }, [messages]);
 
+    useEffect(() => {
+        keepScrollRef.current = false;
+    }, [messages]);
+
     // Handle click outside to close emoji picker
     useEffect(() => {
         const handleClickOutside = (event) => {
@@ -242,36 +307,16 @@ const MessageIcon = ({ userId }) => {
         }
     };
 
-    const fetchAvailableUsers = async () => {
+    // One page of the server-side user directory; photos are part of the directory entries
+    const fetchAvailableUsers = async (query = '', append = false) => {
         try {
-            console.log('Fetching available users for userId:', userId);
-            console.log('Making request to:', `/messages/users/available?userId=${userId}`);
-            const response = await axios.get(`/messages/users/available?userId=${userId}`);
-            console.log('Available users response:', response.data);
-            console.log('Number of users found:', response.data ? response.data.length : 0);
-
-            let usersData = response.data;
-
-            // Fetch profile photos for users if not already included
-            const usersWithPhotos = await Promise.all(
-                usersData.map(async (user) => {
-                    if (!user.profilePhotoUrl && user.id) {
-                        try {
-                            const profileResponse = await axios.get(`/profile/${user.id}`);
-                            return {
-                                ...user,
-                                profilePhotoUrl: profileResponse.data?.profilePhotoUrl || null
-                            };
-                        } catch (error) {
-                            console.error(`Error fetching profile for user ${user.id}:`, error);
-                            return user;
-                        }
-                    }
-                    return user;
-                })
-            );
-
-            setAvailableUsers(usersWithPhotos);
+            const offset = append ? availableUsers.length : 0;
+            const response = await axios.get('/messages/users/directory', {
+                params: { userId, q: query, offset, size: DIRECTORY_PAGE_SIZE }
+            });
+            const page = response.data?.users || [];
+            setAvailableUsers(prevUsers => append ? [...prevUsers, ...page] : page);
+            setHasMoreUsers(Boolean(response.data?.hasMore));
         } catch (error) {
             console.error('Error fetching available users:', error);
             console.error('Error status:', error.response?.status);
@@ -282,9 +327,11 @@ const MessageIcon = ({ userId }) => {
     const fetchConversation = async (otherUserId) => {
         try {
             const response = await axios.get(
-                `/messages/conversation/${otherUserId}?userId=${userId}`
+                `/messages/conversation/${otherUserId}?userId=${userId}&size=${CONVERSATION_PAGE_SIZE}`
             );
             setMessages(response.data);
+            setHasOlderMessages(response.data.length === CONVERSATION_PAGE_SIZE);
+            lastFullRefreshRef.current = Date.now();
 
             // Extract current user's name from messages where they are the sender
             if (response.data.length > 0 && !currentUserName) {
@@ -306,17 +353,61 @@ const MessageIcon = ({ userId }) => {
         }
     };
 
+    const loadOlderMessages = async () => {
+        if (!selectedConversation || messages.length === 0 || loadingOlderMessages) return;
+        setLoadingOlderMessages(true);
+        try {
+            const response = await axios.get(
+                `/messages/conversation/${selectedConversation.userId}/quiet?userId=${userId}` +
+                `&beforeId=${messages[0].id}&size=${CONVERSATION_PAGE_SIZE}`
+            );
+            keepScrollRef.current = true;
+            setMessages(prevMessages => [...response.data, ...prevMessages]);
+            setHasOlderMessages(response.data.length === CONVERSATION_PAGE_SIZE);
+            if (response.data.length > 0) {
+                await fetchReactionsForMessages(response.data);
+            }
+        } catch (error) {
+            console.error('Error loading older messages:', error);
+        } finally {
+            setLoadingOlderMessages(false);
+        }
+    };
+
     const fetchReactionsForMessages = async (messages) => {
         try {
             const messageIds = messages.map(msg => msg.id);
             if (messageIds.length > 0) {
-                const response = await axios.post('/messages/reactions/bulk', {
-                    messageIds: messageIds
-                });
+                // GET in chunks, revalidating each with the ETag it last returned; unchanged sets come
+                // back as 304 and keep the reactions already shown. The shared axios instance marks every
+                // GET no-cache, so the browser cache cannot do this on its own.
+                const chunks = [];
+                for (let i = 0; i < messageIds.length; i += REACTION_CHUNK_SIZE) {
+                    chunks.push(messageIds.slice(i, i + REACTION_CHUNK_SIZE));
+                }
+                const eTags = reactionETagsRef.current;
+                const responses = await Promise.all(chunks.map(chunk => {
+                    const url = `/messages/reactions/bulk?messageIds=${chunk.join(',')}`;
+                    const eTag = eTags.get(url);
+                    return axios.get(url, {
+                        headers: eTag ? { 'If-None-Match': eTag } : {},
+                        validateStatus: status => (status >= 200 && status < 300) || status === 304
+                    }).then(response => {
+                        if (response.status !== 304 && response.headers.etag) {
+                            eTags.delete(url);
+                            eTags.set(url, response.headers.etag);
+                            if (eTags.size > REACTION_ETAG_LIMIT) {
+                                eTags.delete(eTags.keys().next().value);
+                            }
+                        }
+                        return response;
+                    });
+                }));
 
                 // Convert the bulk response structure to match what frontend expects
                 const convertedReactions = {};
-                Object.entries(response.data).forEach(([messageId, reactions]) => {
+                responses.filter(response => response.status !== 304)
+                    .flatMap(response => Object.entries(response.data)).forEach(([messageId, reactions]) => {
                     // reactions is already an array of {emoji, count, users}
                     convertedReactions[messageId] = reactions.map(reaction => ({
                         emoji: reaction.emoji,
@@ -461,12 +552,14 @@ const MessageIcon = ({ userId }) => {
             }
 
             setMessages([]);
+            setHasOlderMessages(false);
         }
         setCurrentView('chat');
         setSearchTerm('');
     };
 
     const scrollToBottom = () => {
+        if (keepScrollRef.current) return;
         messagesEndRef.current?.scrollIntoView({ behavior: "smooth" });
     };
 
@@ -1219,30 +1312,66 @@ const MessageIcon = ({ userId }) => {
         }
     };
 
+    // Replace the newest part of the loaded window with the latest page; older pages loaded by
+    // scrolling back are kept unless the page turns out to be the whole conversation
+    const refreshLatestPage = async (otherUserId) => {
+        const response = await axios.get(
+            `/messages/conversation/${otherUserId}?userId=${userId}&size=${CONVERSATION_PAGE_SIZE}`
+        );
+        lastFullRefreshRef.current = Date.now();
+        const latest = response.data;
+        const complete = latest.length < CONVERSATION_PAGE_SIZE;
+        setMessages(prevMessages => {
+            const older = complete || latest.length === 0
+                ? []
+                : prevMessages.filter(msg => msg.id < latest[0].id);
+            const next = [...older, ...latest];
+            const unchanged = next.length === prevMessages.length
+                && next.every((msg, i) => msg.id === prevMessages[i].id);
+            return unchanged ? prevMessages : next;
+        });
+        if (complete) {
+            setHasOlderMessages(false);
+        }
+        if (latest.length > 0) {
+            await fetchReactionsForMessages(latest);
+        }
+    };
+
     const fetchConversationQuietly = async (otherUserId) => {
         try {
+            const lastMessage = messages[messages.length - 1];
+            if (!lastMessage) {
+                await fetchConversation(otherUserId);
+                return;
+            }
+            if (Date.now() - lastFullRefreshRef.current >= CONVERSATION_FULL_REFRESH_MS) {
+                await refreshLatestPage(otherUserId);
+                return;
+            }
+            // Otherwise only messages newer than the last one shown are fetched
             const response = await axios.get(
-                `/messages/conversation/${otherUserId}?userId=${userId}`
+                `/messages/conversation/${otherUserId}?userId=${userId}&afterId=${lastMessage.id}&size=${CONVERSATION_PAGE_SIZE}`
             );
 
             // Only update if there are new messages to prevent UI flicker
-            if (response.data.length !== messages.length ||
-                JSON.stringify(response.data) !== JSON.stringify(messages)) {
+            if (response.data.length > 0) {
 
                 // Extract current user's name from messages where they are the sender
-                if (response.data.length > 0 && !currentUserName) {
+                if (!currentUserName) {
                     const currentUserMessage = response.data.find(msg => msg.senderId === userId);
                     if (currentUserMessage && currentUserMessage.senderName) {
                         setCurrentUserName(currentUserMessage.senderName);
                     }
                 }
 
-                setMessages(response.data);
+                setMessages(prevMessages => [
+                    ...prevMessages,
+                    ...response.data.filter(msg => !prevMessages.some(prev => prev.id === msg.id))
+                ]);
 
                 // Fetch reactions for new messages to ensure they appear immediately
-                if (response.data.length > 0) {
-                    await fetchReactionsForMessages(response.data);
-                }
+                await fetchReactionsForMessages(response.data);
             }
         } catch (error) {
             console.error('Error quietly fetching conversation:', error);
@@ -1541,6 +1670,14 @@ const MessageIcon = ({ userId }) => {
                                                 'No users available'}
                                         </div>
                                     )}
+                                    {!loading && hasMoreUsers && (
+                                        <button
+                                            className="load-older-messages-btn"
+                                            onClick={() => fetchAvailableUsers(searchTerm.trim(), true)}
+                                        >
+                                            Load more users
+                                        </button>
+                                    )}
                                 </div>
                             </>
                         )}
@@ -1548,6 +1685,15 @@ const MessageIcon = ({ userId }) => {
                         {currentView === 'chat' && selectedConversation && (
                             <div className="chat-content">
                                 <div className="chat-messages">
+                                    {hasOlderMessages && (
+                                        <button
+                                            className="load-older-messages-btn"
+                                            onClick={loadOlderMessages}
+                                            disabled={loadingOlderMessages}
+                                        >
+                                            {loadingOlderMessages ? 'Loading...' : 'Load older messages'}
+                                        </button>
+                                    )}
                                     {messages.length > 0 ? (
                                         messages.map((message, index) => (
                                             <div
@@ -1,32 +1,55 @@
 import React, { useState, useEffect, useRef } from 'react';
 import { useNavigate } from 'react-router-dom';
 import axios from '../api/axiosInstance';
+import { subscribeToNotificationStream, isNotificationStreamConnected } from '../utils/notificationStream';
 import './NotificationBell.css';
 
+const FEED_PAGE_SIZE = 10;
+
 const NotificationBell = ({ user }) => {
   console.log('🔔 NotificationBell component rendering, user:', user);
   const [notifications, setNotifications] = useState([]);
   const [unreadCount, setUnreadCount] = useState(0);
   const [showDropdown, setShowDropdown] = useState(false);
   const [loading, setLoading] = useState(false);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const dropdownRef = useRef(null);
+  const showDropdownRef = useRef(false);
   const navigate = useNavigate();
 
   console.log('🔔 NotificationBell state - unreadCount:', unreadCount, 'showDropdown:', showDropdown);
 
+  useEffect(() => {
+    showDropdownRef.current = showDropdown;
+  }, [showDropdown]);
+
   useEffect(() => {
     console.log('🔔 NotificationBell useEffect triggered, user:', user);
     if (user) {
       console.log('🔔 Starting notification fetch for user:', user.id);
       fetchUnreadCount();
-      // Poll for new notifications every 30 seconds
+      // New notifications and counts are pushed over the shared stream
+      const unsubscribe = subscribeToNotificationStream({
+        'unread-count': data => setUnreadCount(data.count),
+        notification: data => {
+          setUnreadCount(count => count + (typeof data.delta === 'number' ? data.delta : 1));
+          if (showDropdownRef.current) {
+            fetchNotifications();
+          }
+        }
+      });
+      // Fall back to polling every 30 seconds while the stream is down
       const interval = setInterval(() => {
-        console.log('🔔 Polling for notifications...');
-        fetchUnreadCount();
+        if (!isNotificationStreamConnected()) {
+          console.log('🔔 Polling for notifications...');
+          fetchUnreadCount();
+        }
       }, 30000);
       return () => {
         console.log('🔔 Cleaning up notification interval');
         clearInterval(interval);
+        unsubscribe();
       };
     } else {
       console.log('🔔 No user found, skipping notification fetch');
@@ -72,9 +95,10 @@ const NotificationBell = ({ user }) => {
     try {
       setLoading(true);
       console.log('Fetching notifications for user:', user.id);
-      const response = await axios.get(`/notifications?userId=${user.id}`);
+      const response = await axios.get(`/notifications/feed?userId=${user.id}&size=${FEED_PAGE_SIZE}`);
       console.log('Notifications response:', response.data);
-      setNotifications(response.data.slice(0, 10)); // Show only last 10 notifications
+      setNotifications(response.data.notifications);
+      setNextCursor(response.data.nextCursor);
     } catch (error) {
       console.error('Error fetching notifications:', error.response?.status, error.response?.data, error.message);
     } finally {
@@ -82,6 +106,23 @@ const NotificationBell = ({ user }) => {
     }
   };
 
+  const fetchMoreNotifications = async () => {
+    if (!user?.id || !nextCursor) return;
+
+    try {
+      setLoadingMore(true);
+      const response = await axios.get(
+        `/notifications/feed?userId=${user.id}&size=${FEED_PAGE_SIZE}&cursor=${encodeURIComponent(nextCursor)}`
+      );
+      setNotifications(prev => [...prev, ...response.data.notifications]);
+      setNextCursor(response.data.nextCursor);
+    } catch (error) {
+      console.error('Error fetching more notifications:', error.response?.status, error.response?.data, error.message);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleBellClick = async () => {
     setShowDropdown(!showDropdown);
     if (!showDropdown && notifications.length === 0) {
@@ -353,16 +394,14 @@ const NotificationBell = ({ user }) => {
             )}
           </div>
 
-          {notifications.length > 0 && (
+          {notifications.length > 0 && nextCursor && (
             <div className="notification-footer">
               <button
                 className="view-all-notifications"
-                onClick={() => {
-                  setShowDropdown(false);
-                  // Could navigate to a full notifications page
-                }}
+                onClick={fetchMoreNotifications}
+                disabled={loadingMore}
               >
-                View all notifications
+                {loadingMore ? 'Loading...' : 'Load older notifications'}
               </button>
             </div>
           )}
@@ -20,7 +20,9 @@ const PlagiarismChecker = () => {
   const [settings, setSettings] = useState({
     threshold: 70, // Similarity threshold percentage
     fileFilters: ['cpp', 'c', 'h', 'java', 'py', 'js', 'ts', 'kt', 'sh', 'txt'], // Supported file extensions
-    fastSimilarityOnly: true // Use only fast local similarity first
+    fastSimilarityOnly: true, // Use only fast local similarity first
+    algorithm: 'shingles', // 'shingles' or 'winnowing' (token fingerprints, reports matching regions)
+    historicalScope: 'none' // 'none', 'course' (earlier assignments) or 'courseCode' (previous offerings too)
   });
   
   // Analysis progress
@@ -31,6 +33,7 @@ const PlagiarismChecker = () => {
   });
   
   // Results display
+  const [analysisId, setAnalysisId] = useState(null);
   const [selectedPair, setSelectedPair] = useState(null);
   const [showDiffModal, setShowDiffModal] = useState(false);
 
@@ -156,6 +159,7 @@ const PlagiarismChecker = () => {
       if (response.data.analysisId) {
         console.log('🔄 Analysis ID received, starting polling:', response.data.analysisId);
         setAnalyzing(true);
+        setAnalysisId(response.data.analysisId);
         pollAnalysisStatus(response.data.analysisId);
       } else if (response.data.results) {
         console.log('📋 Results received directly from API');
@@ -248,9 +252,22 @@ const PlagiarismChecker = () => {
     return '#64748b'; // Very low similarity - gray
   };
 
-  const openDiffModal = (pair) => {
+  const openDiffModal = async (pair) => {
     setSelectedPair(pair);
     setShowDiffModal(true);
+    
+    // Diffs are rendered on demand by the server
+    if (!pair.code1 && analysisId && pair.pairId !== undefined) {
+      try {
+        const response = await axios.get(`/plagiarism/results/${analysisId}/pairs/${pair.pairId}/diff?teacherId=${user.id}`);
+        pair.code1 = response.data.code1;
+        pair.code2 = response.data.code2;
+        setSelectedPair({ ...pair });
+      } catch (error) {
+        console.error('Error loading code diff:', error);
+        showMessage('Failed to load code comparison', 'error');
+      }
+    }
   };
 
   const exportResults = () => {
@@ -422,6 +439,35 @@ const PlagiarismChecker = () => {
                   <span>95%</span>
                 </div>
               </div>
+              <div className="form-group" style={{ marginBottom: '1.5rem' }}>
+                <label style={{ display: 'block', marginBottom: '0.5rem', fontWeight: '600' }}>
+                  Detection Method
+                </label>
+                <select
+                  className="form-control"
+                  value={settings.algorithm}
+                  onChange={(e) => setSettings({ ...settings, algorithm: e.target.value })}
+                  style={{ width: '100%' }}
+                >
+                  <option value="shingles">Shingles (text similarity)</option>
+                  <option value="winnowing">Winnowing (token fingerprints, ignores renaming)</option>
+                </select>
+              </div>
+              <div className="form-group" style={{ marginBottom: '1.5rem' }}>
+                <label style={{ display: 'block', marginBottom: '0.5rem', fontWeight: '600' }}>
+                  Compare With Past Submissions
+                </label>
+                <select
+                  className="form-control"
+                  value={settings.historicalScope}
+                  onChange={(e) => setSettings({ ...settings, historicalScope: e.target.value })}
+                  style={{ width: '100%' }}
+                >
+                  <option value="none">Only this assignment</option>
+                  <option value="course">Earlier assignments of this course</option>
+                  <option value="courseCode">All offerings with the same course code</option>
+                </select>
+              </div>
             </div>
 
             <div>
@@ -456,6 +502,10 @@ const PlagiarismChecker = () => {
                     </label>
                   ))}
                 </div>
+                <p style={{ margin: '0.5rem 0 0', fontSize: '0.75rem', color: '#64748b' }}>
+                  ZIP archives are unpacked and their code files compared. RAR archives are not supported;
+                  they only match uploads of the identical file.
+                </p>
               </div>
             </div>
           </div>
@@ -595,14 +645,22 @@ const PlagiarismChecker = () => {
                               🔍 Method: {pair.detectionMethod || 'Local Similarity'}
                             </span>
                           </div>
+                          {pair.matchedSegments && pair.matchedSegments.length > 0 && (
+                            <div style={{ fontSize: '0.75rem', color: '#64748b', marginTop: '0.5rem' }}>
+                              🧩 Matching regions: {pair.matchedSegments.slice(0, 3).join('; ')}
+                              {pair.matchedSegments.length > 3 && ` (+${pair.matchedSegments.length - 3} more)`}
+                            </div>
+                          )}
                         </div>
                         <div style={{ display: 'flex', gap: '0.5rem' }}>
-                          <button
-                            className="btn btn-primary btn-sm"
-                            onClick={() => openDiffModal(pair)}
-                          >
-                            👁️ View Diff
-                          </button>
+                          {pair.type !== 'Historical' && (
+                            <button
+                              className="btn btn-primary btn-sm"
+                              onClick={() => openDiffModal(pair)}
+                            >
+                              👁️ View Diff
+                            </button>
+                          )}
                         </div>
                       </div>
                     </div>
@@ -0,0 +1,121 @@
+// Shared server-sent event stream for notifications, messages and unread counts.
+// One EventSource per tab, opened while at least one component is subscribed.
+// The stream is opened with a short-lived, single-use ticket instead of the JWT, so the browser's
+// own reconnect cannot succeed; on error we close and reopen with a fresh ticket after a backoff.
+// The server sends fresh unread counts on every (re)connect.
+import axios from 'axios';
+
+const STREAM_URL = '/api/notifications/stream';
+const TICKET_URL = '/api/notifications/stream/ticket';
+const MIN_RETRY_MS = 2000;
+const MAX_RETRY_MS = 60000;
+const EVENT_NAMES = ['notification', 'unread-count', 'message', 'message-unread-count', 'message-reaction'];
+
+let source = null;
+let connected = false;
+let retryTimer = null;
+let ticketPending = false;
+let retryDelay = MIN_RETRY_MS;
+// Bumped on close so a ticket request still in flight does not open a stale stream
+let generation = 0;
+const subscribers = new Set();
+
+const dispatch = (name, event) => {
+  let data = null;
+  try {
+    data = JSON.parse(event.data);
+  } catch (error) {
+    console.error('Invalid notification stream event:', name, error);
+    return;
+  }
+  subscribers.forEach(handlers => {
+    if (handlers[name]) {
+      handlers[name](data);
+    }
+  });
+};
+
+// Plain axios on purpose: the shared instance announces every POST as a data update to the dashboards
+const fetchTicket = async (token) => {
+  const response = await axios.post(TICKET_URL, null, { headers: { Authorization: `Bearer ${token}` } });
+  return response.data.ticket;
+};
+
+const scheduleReopen = () => {
+  if (retryTimer || subscribers.size === 0) {
+    return;
+  }
+  retryTimer = setTimeout(() => {
+    retryTimer = null;
+    open();
+  }, retryDelay);
+  retryDelay = Math.min(retryDelay * 2, MAX_RETRY_MS);
+};
+
+const open = async () => {
+  const token = localStorage.getItem('token');
+  if (source || ticketPending || !token || typeof EventSource === 'undefined') {
+    return;
+  }
+  const opening = generation;
+  let ticket;
+  ticketPending = true;
+  try {
+    ticket = await fetchTicket(token);
+  } catch (error) {
+    // Callers keep polling meanwhile
+    scheduleReopen();
+    return;
+  } finally {
+    ticketPending = false;
+  }
+  if (opening !== generation || source || subscribers.size === 0) {
+    return;
+  }
+  source = new EventSource(`${STREAM_URL}?ticket=${encodeURIComponent(ticket)}`);
+  source.onopen = () => {
+    connected = true;
+    retryDelay = MIN_RETRY_MS;
+  };
+  source.onerror = () => {
+    // The ticket is spent, so reconnect with a new one; callers fall back to polling meanwhile
+    connected = false;
+    if (source) {
+      source.close();
+      source = null;
+    }
+    scheduleReopen();
+  };
+  EVENT_NAMES.forEach(name => source.addEventListener(name, event => dispatch(name, event)));
+};
+
+const close = () => {
+  generation++;
+  if (retryTimer) {
+    clearTimeout(retryTimer);
+    retryTimer = null;
+  }
+  retryDelay = MIN_RETRY_MS;
+  if (source) {
+    source.close();
+    source = null;
+  }
+  connected = false;
+};
+
+// Subscribe with a map of event name -> handler; returns the unsubscribe function
+export const subscribeToNotificationStream = (handlers) => {
+  subscribers.add(handlers);
+  if (!source && !retryTimer) {
+    open();
+  }
+  return () => {
+    subscribers.delete(handlers);
+    if (subscribers.size === 0) {
+      close();
+    }
+  };
+};
+
+// True while the stream is open; polling can be skipped then
+export const isNotificationStreamConnected = () => connected;